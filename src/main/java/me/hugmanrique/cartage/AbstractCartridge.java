@@ -11,27 +11,89 @@ import static java.util.Objects.requireNonNull;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
 import jdk.incubator.foreign.MemoryAccess;
 import jdk.incubator.foreign.MemorySegment;
+import me.hugmanrique.cartage.hash.HashAlgorithm;
+import me.hugmanrique.cartage.hash.Hashes;
+import me.hugmanrique.cartage.hash.MultiHasher;
+import me.hugmanrique.cartage.search.BytePattern;
+import me.hugmanrique.cartage.search.HorspoolSearcher;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * Skeleton {@link Cartridge} implementation.
  */
 public abstract class AbstractCartridge implements Cartridge {
 
-  private final MemorySegment segment;
+  private static final int MAX_SCRATCH_LENGTH = 1 << 12; // 4 KB
+  private static final int STREAM_CHUNK_LENGTH = 1 << 13; // 8 KB
+  // Heap buffers are copied to a temporary direct buffer of the same size by NIO channels
+  private static final int HEAP_CHANNEL_CHUNK_LENGTH = 1 << 16; // 64 KB
+  private static final int DIRECT_CHANNEL_CHUNK_LENGTH = 1 << 30; // 1 GB
+  private static final int HASH_CHUNK_LENGTH = 1 << 15; // 32 KB
+  private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[64]);
+
+  /**
+   * Returns a per-thread array with at least {@code length} elements, used for temporary storage.
+   *
+   * @param length the minimum length of the array
+   * @return the temporary array, or a new array if {@code length} is too large to be cached
+   */
+  private static byte[] scratch(final int length) {
+    if (length > MAX_SCRATCH_LENGTH) {
+      return new byte[length];
+    }
+    byte[] scratch = SCRATCH.get();
+    if (scratch.length < length) {
+      scratch = new byte[Math.max(length, scratch.length << 1)];
+      SCRATCH.set(scratch);
+    }
+    return scratch;
+  }
+
+  // Access modes of segments shared with views, which cannot be closed
+  private static final int VIEW_ACCESS_MODES = MemorySegment.READ | MemorySegment.WRITE;
+  // Segment and buffer of a closed view, see #close()
+  private static final MemorySegment CLOSED_SEGMENT;
+  private static final ByteBuffer CLOSED_BUFFER;
+
+  static {
+    final var segment = MemorySegment.ofArray(new byte[0]).share();
+    CLOSED_BUFFER = segment.asByteBuffer();
+    segment.close();
+    CLOSED_SEGMENT = segment;
+  }
+
+  private MemorySegment segment;
+  // Bulk transfers through the buffer view don't allocate, unlike MemorySegment#asSlice.
+  // The view shares the temporal bounds of the segment; it is null if the segment is too large.
+  private @Nullable ByteBuffer buffer;
+
+  // Number of open cartridges created by #acquire(), shared with all views of the segment owner.
+  // Set to -1 once the owner is closed, so that no cartridge can be acquired afterwards.
+  private AtomicInteger acquired = new AtomicInteger();
+  private boolean acquiredView;
+
+  // Whether #beforeWrite and #afterWrite are called, disabled by default to keep writes cheap
+  private boolean writeHooks;
 
   private ByteOrder order;
   private long offset;
 
   protected AbstractCartridge(final MemorySegment segment, final ByteOrder order) {
     this.segment = requireNonNull(segment);
+    this.buffer = segment.byteSize() <= Integer.MAX_VALUE ? segment.asByteBuffer() : null;
     this.order = requireNonNull(order);
     this.setOffset(0);
   }
@@ -76,6 +138,21 @@ public abstract class AbstractCartridge implements Cartridge {
     return this.offset < this.size();
   }
 
+  @Override
+  public boolean isReadOnly() {
+    return !this.segment.hasAccessModes(MemorySegment.WRITE);
+  }
+
+  @Override
+  public boolean isAlive() {
+    return this.segment.isAlive();
+  }
+
+  @Override
+  public boolean isShared() {
+    return this.segment.ownerThread() == null;
+  }
+
   /*@Override
   public boolean canRead(final int count) {
     return this.offset + count <= this.size();
@@ -91,7 +168,201 @@ public abstract class AbstractCartridge implements Cartridge {
     if (!this.segment.isAlive()) {
       throw new IllegalStateException("This cartridge is already closed");
     }
-    this.segment.close();
+    if (this.segment.hasAccessModes(MemorySegment.CLOSE)) {
+      if (!this.acquired.compareAndSet(0, -1)) {
+        throw new IllegalStateException("Cannot close cartridge while "
+            + this.acquired.get() + " acquired cartridges are open");
+      }
+      this.segment.close();
+    } else {
+      // The segment is owned by another cartridge, e.g. this is a view. Only invalidate this
+      // instance: subsequent accesses fail since the replacement segment is not alive.
+      this.segment = CLOSED_SEGMENT;
+      this.buffer = CLOSED_BUFFER;
+      if (this.acquiredView) {
+        this.acquiredView = false;
+        this.acquired.decrementAndGet();
+      }
+    }
+  }
+
+  @Override
+  public Cartridge duplicate() {
+    return this.duplicateView(VIEW_ACCESS_MODES);
+  }
+
+  @Override
+  public Cartridge slice(final long offset, final long length) {
+    final MemorySegment segment = this.viewSegment(VIEW_ACCESS_MODES).asSlice(offset, length);
+    final AbstractCartridge view = this.createSlice(segment, offset);
+    view.acquired = this.acquired;
+    view.order = this.order;
+    return view;
+  }
+
+  @Override
+  public Cartridge asReadOnly() {
+    return this.duplicateView(MemorySegment.READ);
+  }
+
+  @Override
+  public void share() {
+    final MemorySegment segment = this.segment;
+    if (segment.ownerThread() == null) {
+      return;
+    }
+    if (!segment.hasAccessModes(MemorySegment.SHARE)) {
+      throw new UnsupportedOperationException("Cannot share a cartridge view");
+    }
+    if (this.acquired.get() > 0) {
+      // Acquired views would be closed without releasing their acquisition
+      throw new IllegalStateException("Cannot share cartridge while "
+          + this.acquired.get() + " acquired cartridges are open");
+    }
+    this.segment = segment.share();
+    this.buffer = this.buffer != null ? this.segment.asByteBuffer() : null;
+  }
+
+  @Override
+  public Cartridge acquire() {
+    int count;
+    do {
+      count = this.acquired.get();
+      if (count < 0) {
+        throw new IllegalStateException("This cartridge is closed");
+      }
+    } while (!this.acquired.compareAndSet(count, count + 1));
+
+    final AbstractCartridge view;
+    try {
+      view = this.duplicateView(VIEW_ACCESS_MODES);
+    } catch (final RuntimeException e) {
+      this.acquired.decrementAndGet();
+      throw e;
+    }
+    view.acquiredView = true;
+    return view;
+  }
+
+  @Override
+  public boolean sharesContents(final Cartridge other) {
+    // Every view shares the acquisition count of the cartridge that owns the contents
+    return other == this
+        || (other instanceof AbstractCartridge cartridge && cartridge.acquired == this.acquired);
+  }
+
+  /**
+   * Creates a cartridge that shares this cartridge's contents, offset and byte order.
+   *
+   * @param accessModes the access modes of the new cartridge, if available in this cartridge
+   * @return the new cartridge
+   * @throws IllegalStateException if the cartridge is closed
+   */
+  private AbstractCartridge duplicateView(final int accessModes) {
+    final AbstractCartridge view = this.createView(this.viewSegment(accessModes));
+    view.acquired = this.acquired;
+    view.order = this.order;
+    view.offset = this.offset;
+    return view;
+  }
+
+  /**
+   * Creates a cartridge backed by the given segment, which shares (part of) the contents of this
+   * cartridge. Implementations that provide type-specific functionality should override this
+   * method to return an instance of the same type.
+   *
+   * <p>The returned cartridge should have an offset of {@code 0}. Its byte order is overwritten
+   * after the call if needed.
+   *
+   * @param segment the segment backing the view, which cannot be closed
+   * @return the view
+   * @see #duplicate()
+   * @see #asReadOnly()
+   */
+  protected AbstractCartridge createView(final MemorySegment segment) {
+    return new CartridgeView(segment, this.order);
+  }
+
+  /**
+   * Creates a cartridge backed by the given segment, which shares a range of the contents of this
+   * cartridge. Implementations that track the writes to their contents should override this
+   * method to return a cartridge that also tracks them.
+   *
+   * <p>The returned cartridge should have an offset of {@code 0}. Its byte order is overwritten
+   * after the call.
+   *
+   * @param segment the segment backing the slice, which cannot be closed
+   * @param offset the offset in this cartridge at which the slice starts
+   * @return the slice
+   * @see #slice(long, long)
+   */
+  protected AbstractCartridge createSlice(final MemorySegment segment, final long offset) {
+    return new CartridgeView(segment, this.order);
+  }
+
+  /**
+   * Returns the segment backing this cartridge. The segment is replaced when the cartridge is
+   * {@link #share() shared} or closed, so it should not be stored. It must not be closed.
+   *
+   * @return the segment
+   */
+  protected final MemorySegment segment() {
+    return this.segment;
+  }
+
+  /**
+   * Returns a segment sharing the contents of this cartridge that only supports the given access
+   * modes, if available in this cartridge's segment.
+   *
+   * @param accessModes the access modes
+   * @return the segment
+   * @throws IllegalStateException if the cartridge is closed
+   */
+  private MemorySegment viewSegment(final int accessModes) {
+    final MemorySegment segment = this.segment;
+    if (!segment.isAlive()) {
+      throw new IllegalStateException("This cartridge is closed");
+    }
+    return segment.withAccessModes(segment.accessModes() & accessModes);
+  }
+
+  /**
+   * Sets whether {@link #beforeWrite(long, long)} and {@link #afterWrite(long, long)} are called
+   * by the write methods of this cartridge. Hooks are disabled by default.
+   *
+   * @param enabled {@code true} to call the write hooks
+   */
+  protected final void setWriteHooksEnabled(final boolean enabled) {
+    this.writeHooks = enabled;
+  }
+
+  /**
+   * Called before a range of the cartridge is written, if write hooks are enabled. The range may
+   * be out of bounds, in which case the write fails afterwards.
+   *
+   * <p>The relative and absolute write methods, {@link #setString(long, CharSequence, Charset)},
+   * {@link #copyFrom(MemorySegment)} and {@link #update(long, int, Consumer)} call this method.
+   * Writes through other cartridges that share this cartridge's contents (e.g. views) do not.
+   *
+   * @param offset the offset of the first byte to be written
+   * @param length the number of bytes to be written
+   * @see #setWriteHooksEnabled(boolean)
+   */
+  protected void beforeWrite(final long offset, final long length) {
+    // Do nothing by default
+  }
+
+  /**
+   * Called after a range of the cartridge is written, if write hooks are enabled. If the write
+   * fails, this method is not called, except for {@link #update(long, int, Consumer)}, whose
+   * writer may fail after writing part of the range.
+   *
+   * @param offset the offset of the first written byte
+   * @param length the number of written bytes
+   * @see #beforeWrite(long, long)
+   */
+  protected void afterWrite(final long offset, final long length) {
+    // Do nothing by default
   }
 
   @Override
@@ -124,7 +395,13 @@ public abstract class AbstractCartridge implements Cartridge {
 
   @Override
   public void setByte(final long offset, final byte value) {
+    if (this.writeHooks) {
+      this.beforeWrite(offset, Byte.BYTES);
+    }
     MemoryAccess.setByteAtOffset(this.segment, offset, value);
+    if (this.writeHooks) {
+      this.afterWrite(offset, Byte.BYTES);
+    }
   }
 
   @Override
@@ -167,7 +444,13 @@ public abstract class AbstractCartridge implements Cartridge {
 
   @Override
   public void setShort(final long offset, final short value) {
+    if (this.writeHooks) {
+      this.beforeWrite(offset, Short.BYTES);
+    }
     MemoryAccess.setShortAtOffset(this.segment, offset, this.order, value);
+    if (this.writeHooks) {
+      this.afterWrite(offset, Short.BYTES);
+    }
   }
 
   @Override
@@ -210,7 +493,13 @@ public abstract class AbstractCartridge implements Cartridge {
 
   @Override
   public void setInt(final long offset, final int value) {
+    if (this.writeHooks) {
+      this.beforeWrite(offset, Integer.BYTES);
+    }
     MemoryAccess.setIntAtOffset(this.segment, offset, this.order, value);
+    if (this.writeHooks) {
+      this.afterWrite(offset, Integer.BYTES);
+    }
   }
 
   @Override
@@ -243,7 +532,13 @@ public abstract class AbstractCartridge implements Cartridge {
 
   @Override
   public void setLong(final long offset, final long value) {
+    if (this.writeHooks) {
+      this.beforeWrite(offset, Long.BYTES);
+    }
     MemoryAccess.setLongAtOffset(this.segment, offset, this.order, value);
+    if (this.writeHooks) {
+      this.afterWrite(offset, Long.BYTES);
+    }
   }
 
   @Override
@@ -258,6 +553,13 @@ public abstract class AbstractCartridge implements Cartridge {
     this.offset += length;
   }
 
+  @Override
+  public void readBytes(final ByteBuffer dest) {
+    final int length = dest.remaining();
+    this.getBytes(this.offset, dest);
+    this.offset += length;
+  }
+
   @Override
   public void getBytes(final long offset, final byte[] dest) {
     this.getBytes(offset, dest, 0, dest.length);
@@ -266,10 +568,32 @@ public abstract class AbstractCartridge implements Cartridge {
   @Override
   public void getBytes(final long offset, final byte[] destArray, final int destOffset,
                        final int length) {
-    // TODO Avoid segment allocations
-    try (var dest = MemorySegment.ofArray(destArray)) {
-      dest.asSlice(destOffset, length).copyFrom(this.segment.asSlice(offset, length));
+    final ByteBuffer buffer = this.buffer;
+    if (buffer != null) {
+      buffer.get(this.checkIndex(offset, length), destArray, destOffset, length);
+    } else {
+      try (var dest = MemorySegment.ofArray(destArray)) {
+        dest.asSlice(destOffset, length).copyFrom(this.segment.asSlice(offset, length));
+      }
+    }
+  }
+
+  @Override
+  public void getBytes(final long offset, final ByteBuffer dest) {
+    final int position = dest.position();
+    final int length = dest.limit() - position;
+    final ByteBuffer buffer = this.buffer;
+    if (buffer != null) {
+      dest.put(position, buffer, this.checkIndex(offset, length), length);
+    } else {
+      MemorySegment.ofByteBuffer(dest).copyFrom(this.segment.asSlice(offset, length));
     }
+    dest.position(position + length);
+  }
+
+  @Override
+  public void getBytes(final long offset, final MemorySegment dest) {
+    dest.copyFrom(this.segment.asSlice(offset, dest.byteSize()));
   }
 
   @Override
@@ -284,6 +608,13 @@ public abstract class AbstractCartridge implements Cartridge {
     this.offset += length;
   }
 
+  @Override
+  public void writeBytes(final ByteBuffer source) {
+    final int length = source.remaining();
+    this.setBytes(this.offset, source);
+    this.offset += length;
+  }
+
   @Override
   public void setBytes(final long offset, final byte[] source) {
     this.setBytes(offset, source, 0, source.length);
@@ -292,12 +623,71 @@ public abstract class AbstractCartridge implements Cartridge {
   @Override
   public void setBytes(final long offset, final byte[] sourceArray, final int sourceOffset,
                        final int length) {
-    // TODO Avoid segment allocations
-    try (var source = MemorySegment.ofArray(sourceArray)) {
-      this.segment.asSlice(offset, length).copyFrom(source.asSlice(sourceOffset, length));
+    if (this.writeHooks) {
+      this.beforeWrite(offset, length);
+    }
+    final ByteBuffer buffer = this.buffer;
+    if (buffer != null) {
+      buffer.put(this.checkIndex(offset, length), sourceArray, sourceOffset, length);
+    } else {
+      try (var source = MemorySegment.ofArray(sourceArray)) {
+        this.segment.asSlice(offset, length).copyFrom(source.asSlice(sourceOffset, length));
+      }
+    }
+    if (this.writeHooks) {
+      this.afterWrite(offset, length);
     }
   }
 
+  @Override
+  public void setBytes(final long offset, final ByteBuffer source) {
+    final int position = source.position();
+    final int length = source.limit() - position;
+    if (this.writeHooks) {
+      this.beforeWrite(offset, length);
+    }
+    final ByteBuffer buffer = this.buffer;
+    if (buffer != null) {
+      buffer.put(this.checkIndex(offset, length), source, position, length);
+    } else {
+      this.segment.asSlice(offset, length).copyFrom(MemorySegment.ofByteBuffer(source));
+    }
+    source.position(position + length);
+    if (this.writeHooks) {
+      this.afterWrite(offset, length);
+    }
+  }
+
+  @Override
+  public void setBytes(final long offset, final MemorySegment source) {
+    final long length = source.byteSize();
+    if (this.writeHooks) {
+      this.beforeWrite(offset, length);
+    }
+    this.segment.asSlice(offset, length).copyFrom(source);
+    if (this.writeHooks) {
+      this.afterWrite(offset, length);
+    }
+  }
+
+  /**
+   * Checks that the range {@code [offset, offset + length)} is within the bounds of the cartridge.
+   * Must only be called if the cartridge is addressable by a {@link ByteBuffer}.
+   *
+   * @param offset the offset of the range
+   * @param length the length of the range
+   * @return the offset, as an {@code int}
+   * @throws IndexOutOfBoundsException if the range is out of bounds
+   * @throws IllegalStateException if the cartridge is closed
+   */
+  private int checkIndex(final long offset, final int length) {
+    if (this.buffer == CLOSED_BUFFER) {
+      // Report closed views as such, instead of as being empty
+      throw new IllegalStateException("This cartridge is closed");
+    }
+    return (int) Objects.checkFromIndexSize(offset, length, this.size());
+  }
+
   /*@Override
   public void interCopy(final long sourceOffset, final long destOffset, final int length) {
     var source = this.segment.asSlice(destOffset, length);
@@ -315,9 +705,9 @@ public abstract class AbstractCartridge implements Cartridge {
   @Override
   public String getString(final long offset, final int length, final Charset charset) {
     requireNonNull(charset);
-    byte[] encoded = new byte[length];
-    this.getBytes(offset, encoded);
-    return new String(encoded, charset);
+    byte[] encoded = scratch(length);
+    this.getBytes(offset, encoded, 0, length);
+    return new String(encoded, 0, length, charset);
   }
 
   @Override
@@ -378,7 +768,35 @@ public abstract class AbstractCartridge implements Cartridge {
 
   @Override
   public void copyFrom(final MemorySegment source) {
-    this.segment.copyFrom(requireNonNull(source));
+    requireNonNull(source);
+    final long length = source.byteSize();
+    if (this.writeHooks) {
+      this.beforeWrite(0, length);
+    }
+    this.segment.copyFrom(source);
+    if (this.writeHooks) {
+      this.afterWrite(0, length);
+    }
+  }
+
+  @Override
+  public void update(final long offset, final int length, final Consumer<ByteBuffer> writer) {
+    requireNonNull(writer);
+    final ByteBuffer buffer = this.buffer;
+    final ByteBuffer view = (buffer != null)
+        ? buffer.slice(this.checkIndex(offset, length), length)
+        : this.segment.asSlice(offset, length).asByteBuffer();
+    if (this.writeHooks) {
+      this.beforeWrite(offset, length);
+    }
+    try {
+      writer.accept(view.order(this.order));
+    } finally {
+      // The writer may have written part of the range before failing
+      if (this.writeHooks) {
+        this.afterWrite(offset, length);
+      }
+    }
   }
 
   @Override
@@ -399,8 +817,71 @@ public abstract class AbstractCartridge implements Cartridge {
   @Override
   public void copyTo(final OutputStream stream) throws IOException {
     requireNonNull(stream);
-    byte[] data = this.segment.toByteArray();
-    stream.write(data);
+    final long size = this.size();
+    final byte[] chunk = new byte[(int) Math.min(size, STREAM_CHUNK_LENGTH)];
+    for (long position = 0; position < size; ) {
+      final int length = (int) Math.min(size - position, chunk.length);
+      this.getBytes(position, chunk, 0, length);
+      stream.write(chunk, 0, length);
+      position += length;
+    }
+  }
+
+  @Override
+  public void copyTo(final WritableByteChannel channel) throws IOException {
+    requireNonNull(channel);
+    final ByteBuffer buffer = this.buffer;
+    final int maxChunkLength = (buffer == null || buffer.isDirect())
+        ? DIRECT_CHANNEL_CHUNK_LENGTH : HEAP_CHANNEL_CHUNK_LENGTH;
+    final long size = this.size();
+    for (long position = 0; position < size; ) {
+      final int length = (int) Math.min(size - position, maxChunkLength);
+      final ByteBuffer chunk = (buffer != null)
+          ? buffer.slice((int) position, length)
+          : this.segment.asSlice(position, length).asByteBuffer();
+      while (chunk.hasRemaining()) {
+        channel.write(chunk);
+      }
+      position += length;
+    }
+  }
+
+  @Override
+  public Hashes hash(final HashAlgorithm... algorithms) {
+    final var hasher = new MultiHasher(algorithms);
+    this.hash(hasher);
+    return hasher.digest();
+  }
+
+  @Override
+  public void hash(final MultiHasher hasher) {
+    requireNonNull(hasher);
+    if (!this.isAlive()) {
+      throw new IllegalStateException("This cartridge is closed");
+    }
+    final ByteBuffer buffer = this.buffer;
+    final long size = this.size();
+    if (buffer != null) {
+      // Reuse a single view instead of slicing every chunk
+      final ByteBuffer chunk = buffer.duplicate();
+      for (int position = 0; position < size; ) {
+        final int length = (int) Math.min(size - position, HASH_CHUNK_LENGTH);
+        chunk.limit(position + length).position(position);
+        hasher.update(chunk);
+        position += length;
+      }
+    } else {
+      for (long position = 0; position < size; ) {
+        final int length = (int) Math.min(size - position, HASH_CHUNK_LENGTH);
+        hasher.update(this.segment.asSlice(position, length).asByteBuffer());
+        position += length;
+      }
+    }
+  }
+
+  @Override
+  public LongStream search(final BytePattern pattern) {
+    return new HorspoolSearcher(pattern).search(this);
   }
 
   @Override
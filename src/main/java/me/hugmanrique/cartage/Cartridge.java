@@ -9,14 +9,23 @@ package me.hugmanrique.cartage;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
 import jdk.incubator.foreign.MemorySegment;
 import me.hugmanrique.cartage.gb.GBCartridge;
 import me.hugmanrique.cartage.gba.GBACartridge;
+import me.hugmanrique.cartage.hash.HashAlgorithm;
+import me.hugmanrique.cartage.hash.Hashes;
+import me.hugmanrique.cartage.hash.MultiHasher;
+import me.hugmanrique.cartage.search.AhoCorasickSearcher;
+import me.hugmanrique.cartage.search.BytePattern;
+import me.hugmanrique.cartage.search.HorspoolSearcher;
 
 // TODO Tweak javadoc
-// TODO Document thread confinement, likely to change on future Panama versions
 
 /**
  * Represents the contents of a cartridge as a byte buffer.
@@ -29,6 +38,15 @@ import me.hugmanrique.cartage.gba.GBACartridge;
  * the underlying resources associated with said cartridge might be deallocated, and subsequent
  * operation on the cartridge will fail with {@link IllegalStateException}.
  *
+ * <p>A cartridge may be read-only (see {@link #isReadOnly()}), in which case any write operation
+ * fails with {@link UnsupportedOperationException}.
+ *
+ * <p>By default, the contents of a cartridge can only be accessed by the thread that created it,
+ * and accesses from other threads fail with {@link IllegalStateException}. Calling {@link #share()}
+ * allows any thread to access the contents. Cartridge instances are not thread-safe, since the
+ * relative accessors update the offset; each thread should use its own cartridge obtained from
+ * {@link #acquire()} (or {@link #duplicate()}) instead.
+ *
  * @see GBCartridge for accessing Game Boy cartridges
  * @see GBACartridge for accessing Game Boy Advance cartridges
  */
@@ -92,6 +110,30 @@ public interface Cartridge extends CartridgeAccessors, AutoCloseable {
    */
   boolean hasRemaining();
 
+  /**
+   * Returns whether the contents of the cartridge cannot be modified.
+   *
+   * @return {@code true} if write operations on this cartridge fail with {@link
+   *     UnsupportedOperationException}
+   */
+  boolean isReadOnly();
+
+  /**
+   * Returns whether the cartridge is open.
+   *
+   * @return {@code true} if the cartridge is not closed
+   * @see #close()
+   */
+  boolean isAlive();
+
+  /**
+   * Returns whether the contents of the cartridge can be accessed by any thread.
+   *
+   * @return {@code true} if this cartridge is shared
+   * @see #share()
+   */
+  boolean isShared();
+
   // TODO Re-add? Is this useful?
   /*
    * Returns whether there exist at least {@code count} bytes between the current offset and the end
@@ -117,11 +159,99 @@ public interface Cartridge extends CartridgeAccessors, AutoCloseable {
    * Closes the cartridge. Once closed, any subsequent operation on the cartridge will fail with
    * {@link IllegalStateException}.
    *
-   * @throws IllegalStateException if the cartridge is closed
+   * @throws IllegalStateException if the cartridge is closed, or if it owns its contents and
+   *     a cartridge created by {@link #acquire()} is still open
    */
   @Override
   void close();
 
+  /**
+   * Creates a new cartridge that shares this cartridge's contents.
+   *
+   * <p>Changes to the contents of this cartridge are visible in the new cartridge, and vice-versa.
+   * The new cartridge has its own offset and byte order, initially equal to those of this
+   * cartridge. Thus, the relative accessors of each view can be used independently.
+   *
+   * <p>Closing the new cartridge does not affect this cartridge. However, once this cartridge is
+   * closed, any subsequent operation on the new cartridge will fail with {@link
+   * IllegalStateException}.
+   *
+   * @return the new cartridge
+   * @throws IllegalStateException if the cartridge is closed
+   */
+  Cartridge duplicate();
+
+  /**
+   * Creates a new cartridge whose contents are a shared subsequence of this cartridge's contents,
+   * starting at the given offset.
+   *
+   * <p>The new cartridge has an offset of {@code 0} and a byte order equal to this cartridge's.
+   * Otherwise, it behaves like a cartridge created by {@link #duplicate()}.
+   *
+   * @param offset the offset in this cartridge at which the new cartridge starts
+   * @param length the size of the new cartridge, in bytes
+   * @return the new cartridge
+   * @throws IndexOutOfBoundsException if {@code offset} or {@code length} are less than 0, or
+   *     {@code offset + length} is greater than {@link #size()}
+   * @throws IllegalStateException if the cartridge is closed
+   */
+  Cartridge slice(final long offset, final long length);
+
+  /**
+   * Creates a new, read-only cartridge that shares this cartridge's contents.
+   *
+   * <p>The new cartridge behaves like a cartridge created by {@link #duplicate()}, except that
+   * any write operation fails with {@link UnsupportedOperationException}.
+   *
+   * @return the new cartridge
+   * @throws IllegalStateException if the cartridge is closed
+   */
+  Cartridge asReadOnly();
+
+  /**
+   * Allows the contents of this cartridge to be accessed by any thread. Does nothing if the
+   * cartridge is already shared.
+   *
+   * <p>This method must be called by the thread that created the cartridge. Cartridges previously
+   * created by {@link #duplicate()}, {@link #slice(long, long)} or {@link #asReadOnly()} on a
+   * non-shared cartridge are closed by this operation; those created afterwards are shared too.
+   *
+   * @throws UnsupportedOperationException if this cartridge doesn't own its contents, e.g. it was
+   *     created by {@link #duplicate()}
+   * @throws IllegalStateException if the cartridge is closed, if a cartridge created by {@link
+   *     #acquire()} is still open, or if this method is called from a thread other than the owner
+   *     thread
+   */
+  void share();
+
+  /**
+   * Creates a new cartridge that shares this cartridge's contents, and prevents the contents from
+   * being released until it is closed.
+   *
+   * <p>The new cartridge behaves like a cartridge created by {@link #duplicate()}. While it is
+   * open, closing the cartridge that owns the contents fails with {@link IllegalStateException}.
+   * A task running on another thread should acquire a cartridge before starting and close it when
+   * done, e.g. using a try-with-resources statement, so that the contents are never released
+   * while in use.
+   *
+   * @return the new cartridge
+   * @throws IllegalStateException if the cartridge is closed
+   */
+  Cartridge acquire();
+
+  /**
+   * Returns whether this cartridge shares its contents with the given cartridge, i.e. if both are
+   * the same cartridge, or were created from a common cartridge by {@link #duplicate()},
+   * {@link #slice(long, long)}, {@link #asReadOnly()} or {@link #acquire()}. Writes to one of them
+   * may then be visible in the other.
+   *
+   * <p>Cartridges that independently wrap the same array or map the same file are not detected.
+   *
+   * @param other the other cartridge
+   * @return {@code true} if the cartridges share their contents
+   */
+  boolean sharesContents(final Cartridge other);
+
   /**
    * Copies the contents from the given segment to this cartridge. More specifically, the bytes at
    * offset {@code 0} through {@code cartridge.size() - 1} in the source segment are copied into
@@ -133,6 +263,25 @@ public interface Cartridge extends CartridgeAccessors, AutoCloseable {
    */
   void copyFrom(final MemorySegment source);
 
+  /**
+   * Writes a range of this cartridge through a buffer that shares its contents, so the written
+   * bytes are not copied. The buffer has the byte order of the cartridge, a position of {@code 0}
+   * and a limit of {@code length}, and must not be used after the writer returns.
+   *
+   * <p>The range is observed as a single write by the write hooks of the cartridge, even if the
+   * writer throws after writing part of it.
+   *
+   * @param offset the offset of the first byte of the range
+   * @param length the length of the range
+   * @param writer the function that writes into the buffer
+   * @throws IndexOutOfBoundsException if {@code offset} or {@code length} are less than 0, or
+   *     {@code offset + length} is greater than {@link #size()}
+   * @throws IllegalStateException if the cartridge is closed
+   * @throws UnsupportedOperationException if the cartridge is read-only and the writer writes to
+   *     the buffer
+   */
+  void update(final long offset, final int length, final Consumer<ByteBuffer> writer);
+
   /**
    * Copies the cartridge contents to the given segment. More specifically, the bytes at offset
    * {@code 0} through {@code dest.byteSize() - 1} in the cartridge are copied into the given
@@ -154,16 +303,58 @@ public interface Cartridge extends CartridgeAccessors, AutoCloseable {
    */
   void copyTo(final Path path) throws IOException;
 
-  // TODO Remove array copy in AbstractCartridge to lift maximum size restriction
-
   /**
    * Copies the cartridge contents to the given stream. The stream is not closed.
    *
+   * <p>The contents are written in small chunks, so the cartridge is never copied as a whole.
+   *
    * @param stream the output stream
-   * @throws UnsupportedOperationException if this cartridge's contents cannot be copied into a
-   *     {@code byte[]} instance, e.g. its size is greater than {@link Integer#MAX_VALUE}
    * @throws IOException if an I/O error occurs
    * @throws IllegalStateException if the cartridge is closed
    */
   void copyTo(final OutputStream stream) throws IOException;
+
+  /**
+   * Copies the cartridge contents to the given channel. The channel is not closed.
+   *
+   * <p>If the cartridge is backed by off-heap memory (e.g. it is memory-mapped), its contents are
+   * handed to the channel directly, without intermediate copies. This method blocks until all the
+   * contents are written, so the channel should be in blocking mode.
+   *
+   * @param channel the output channel
+   * @throws IOException if an I/O error occurs
+   * @throws IllegalStateException if the cartridge is closed
+   */
+  void copyTo(final WritableByteChannel channel) throws IOException;
+
+  /**
+   * Computes the given hash values of the cartridge contents in a single pass.
+   *
+   * @param algorithms the algorithms
+   * @return the hash values
+   * @throws IllegalStateException if the cartridge is closed
+   * @see #hash(MultiHasher)
+   */
+  Hashes hash(final HashAlgorithm... algorithms);
+
+  /**
+   * Updates the given hasher with the cartridge contents. The contents are fed to every algorithm
+   * in chunks, so they are only read once regardless of the number of computed hash values.
+   *
+   * @param hasher the hasher
+   * @throws IllegalStateException if the cartridge is closed
+   */
+  void hash(final MultiHasher hasher);
+
+  /**
+   * Finds the offsets at which the given pattern occurs in the cartridge. The offset of the
+   * cartridge is not modified.
+   *
+   * @param pattern the pattern
+   * @return the offsets in ascending order
+   * @throws IllegalStateException if the cartridge is closed
+   * @see HorspoolSearcher
+   * @see AhoCorasickSearcher to search for many patterns at once
+   */
+  LongStream search(final BytePattern pattern);
 }
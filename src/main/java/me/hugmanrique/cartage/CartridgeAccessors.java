@@ -7,8 +7,10 @@
 
 package me.hugmanrique.cartage;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import jdk.incubator.foreign.MemorySegment;
 
 /**
  * Contains the data accessor methods that {@link Cartridge} provides.
@@ -312,6 +314,18 @@ interface CartridgeAccessors {
    */
   void readBytes(final byte[] dest, final int destOffset, final int length);
 
+  /**
+   * Transfers bytes from the cartridge into the given buffer, beginning at the cartridge's current
+   * offset. The number of transferred bytes is {@code dest.remaining()}; the cartridge's offset and
+   * the position of the buffer are then incremented by this amount.
+   *
+   * @param dest the destination buffer
+   * @throws IndexOutOfBoundsException if {@link Cartridge#remaining()} is less than {@code
+   *     dest.remaining()}
+   * @throws java.nio.ReadOnlyBufferException if the given buffer is read-only
+   */
+  void readBytes(final ByteBuffer dest);
+
   /**
    * Transfers bytes from the cartridge into the given array, beginning at the given offset in the
    * cartridge.
@@ -338,6 +352,31 @@ interface CartridgeAccessors {
    */
   void getBytes(final long offset, final byte[] dest, final int destOffset, final int length);
 
+  /**
+   * Transfers bytes from the cartridge into the given buffer, beginning at the given offset in the
+   * cartridge. The number of transferred bytes is {@code dest.remaining()}; the position of the
+   * buffer is then incremented by this amount.
+   *
+   * @param offset the offset in the cartridge from which the first byte will be read
+   * @param dest the destination buffer
+   * @throws IndexOutOfBoundsException if {@code offset} is out of bounds, i.e. less than 0 or
+   *     greater than {@code ({@link Cartridge#size()} - dest.remaining())}
+   * @throws java.nio.ReadOnlyBufferException if the given buffer is read-only
+   */
+  void getBytes(final long offset, final ByteBuffer dest);
+
+  /**
+   * Transfers {@code dest.byteSize()} bytes from the cartridge into the given segment, beginning at
+   * the given offset in the cartridge.
+   *
+   * @param offset the offset in the cartridge from which the first byte will be read
+   * @param dest the destination segment
+   * @throws IndexOutOfBoundsException if {@code offset} is out of bounds, i.e. less than 0 or
+   *     greater than {@code ({@link Cartridge#size()} - dest.byteSize())}
+   * @throws IllegalStateException if the destination segment is closed
+   */
+  void getBytes(final long offset, final MemorySegment dest);
+
   /**
    * Transfers the entire content of the given array into the cartridge, beginning at the
    * cartridge's current offset, which is then incremented by {@code source.length}.
@@ -362,6 +401,17 @@ interface CartridgeAccessors {
    */
   void writeBytes(final byte[] source, final int sourceOffset, final int length);
 
+  /**
+   * Transfers the remaining bytes of the given buffer into the cartridge, beginning at the
+   * cartridge's current offset. The cartridge's offset and the position of the buffer are then
+   * incremented by {@code source.remaining()}.
+   *
+   * @param source the source buffer
+   * @throws IndexOutOfBoundsException if {@link Cartridge#remaining()} is less than {@code
+   *     source.remaining()}
+   */
+  void writeBytes(final ByteBuffer source);
+
   /**
    * Transfers bytes from the given array into the cartridge, beginning at the given offset in the
    * cartridge.
@@ -388,6 +438,30 @@ interface CartridgeAccessors {
    */
   void setBytes(final long offset, final byte[] source, final int sourceOffset, final int length);
 
+  /**
+   * Transfers the remaining bytes of the given buffer into the cartridge, beginning at the given
+   * offset in the cartridge. The position of the buffer is then incremented by {@code
+   * source.remaining()}.
+   *
+   * @param offset the offset in the cartridge at which the first byte will be written
+   * @param source the source buffer
+   * @throws IndexOutOfBoundsException if {@code offset} is out of bounds, i.e. less than 0 or
+   *     greater than {@code ({@link Cartridge#size()} - source.remaining())}
+   */
+  void setBytes(final long offset, final ByteBuffer source);
+
+  /**
+   * Transfers the entire contents of the given segment into the cartridge, beginning at the given
+   * offset in the cartridge.
+   *
+   * @param offset the offset in the cartridge at which the first byte will be written
+   * @param source the source segment
+   * @throws IndexOutOfBoundsException if {@code offset} is out of bounds, i.e. less than 0 or
+   *     greater than {@code ({@link Cartridge#size()} - source.byteSize())}
+   * @throws IllegalStateException if the source segment is closed
+   */
+  void setBytes(final long offset, final MemorySegment source);
+
   // TODO Add back? I believe this is too niche
   /*
    * Copies the bytes
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import me.hugmanrique.cartage.gb.GBCartridge;
+import me.hugmanrique.cartage.gba.GBACartridge;
+
+/**
+ * Owns a group of cartridges, which are closed at once when the arena is closed.
+ *
+ * <p>Arenas are typically used with cartridges whose contents are allocated off-heap (see
+ * {@link GBCartridge#allocate(long, CartridgeArena)} and {@link GBACartridge#allocate(long,
+ * CartridgeArena)}), so that the memory of many cartridges with the same lifetime is released
+ * together without any garbage collector involvement.
+ *
+ * <p>This class is thread-safe. However, a cartridge that is not shared (see {@link
+ * Cartridge#share()}) can only be closed by the thread that created it.
+ */
+public final class CartridgeArena implements AutoCloseable {
+
+  private static final int MIN_PRUNE_SIZE = 16;
+
+  private final List<Cartridge> cartridges = new ArrayList<>();
+  // Number of registered cartridges above which closed ones are removed on registration,
+  // doubled after each removal so that registering takes amortized constant time
+  private int pruneSize = MIN_PRUNE_SIZE;
+  private boolean closed;
+
+  /**
+   * Registers the given cartridge to be closed when this arena is closed. Cartridges that were
+   * closed since they were registered are eventually forgotten, so that an arena that outlives
+   * many cartridges does not retain them.
+   *
+   * @param cartridge the cartridge
+   * @param <C> the type of cartridge
+   * @return the given cartridge
+   * @throws IllegalStateException if the arena is closed
+   */
+  public synchronized <C extends Cartridge> C register(final C cartridge) {
+    requireNonNull(cartridge);
+    if (this.closed) {
+      throw new IllegalStateException("This arena is closed");
+    }
+    if (this.cartridges.size() >= this.pruneSize) {
+      this.prune();
+    }
+    this.cartridges.add(cartridge);
+    return cartridge;
+  }
+
+  /**
+   * Returns the number of cartridges registered in this arena that are not closed.
+   *
+   * @return the number of open cartridges
+   */
+  public synchronized int size() {
+    this.prune();
+    return this.cartridges.size();
+  }
+
+  private void prune() {
+    this.cartridges.removeIf(cartridge -> !cartridge.isAlive());
+    this.pruneSize = Math.max(MIN_PRUNE_SIZE, this.cartridges.size() << 1);
+  }
+
+  /**
+   * Returns whether this arena is closed. An arena is closed once {@link #close()} is called,
+   * even if some cartridges failed to close.
+   *
+   * @return {@code true} if the arena is closed
+   */
+  public synchronized boolean isClosed() {
+    return this.closed;
+  }
+
+  /**
+   * Closes every cartridge registered in this arena that is not already closed. Subsequent calls
+   * have no effect, unless some cartridges failed to close.
+   *
+   * <p>All cartridges are closed even if closing one of them fails. In that case, the first
+   * exception is rethrown once all cartridges are processed, with any other exceptions added as
+   * suppressed exceptions. The cartridges that failed to close remain registered, so that calling
+   * this method again retries closing them (e.g. once their acquired cartridges are closed).
+   *
+   * @throws IllegalStateException if a cartridge cannot be closed, e.g. because a cartridge
+   *     created by {@link Cartridge#acquire()} is still open
+   */
+  @Override
+  public synchronized void close() {
+    this.closed = true;
+
+    RuntimeException failure = null;
+    final List<Cartridge> failed = new ArrayList<>();
+    for (final Cartridge cartridge : this.cartridges) {
+      if (!cartridge.isAlive()) {
+        continue;
+      }
+      try {
+        cartridge.close();
+      } catch (final RuntimeException e) {
+        failed.add(cartridge);
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+    this.cartridges.clear();
+    this.cartridges.addAll(failed);
+    if (failure != null) {
+      throw failure;
+    }
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import me.hugmanrique.cartage.gb.GBCartridge;
+import me.hugmanrique.cartage.gba.GBACartridge;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The formats of cartridge images supported by this library.
+ */
+public enum CartridgeFormat {
+  /**
+   * A Game Boy or Game Boy Color cartridge.
+   *
+   * @see GBCartridge
+   */
+  GB,
+  /**
+   * A Game Boy Advance cartridge.
+   *
+   * @see GBACartridge
+   */
+  GBA;
+
+  /**
+   * Detects the format of the cartridge at the given path from the Nintendo logo in its header,
+   * without reading the rest of the file.
+   *
+   * @param path the path
+   * @return the format of the cartridge, or {@code null} if the file contains no valid logo
+   * @throws IOException if an I/O error occurs
+   */
+  public static @Nullable CartridgeFormat detect(final Path path) throws IOException {
+    requireNonNull(path);
+    try (var channel = FileChannel.open(path)) {
+      return detect(channel);
+    }
+  }
+
+  /**
+   * Detects the format of the cartridge contained in the given channel from the Nintendo logo in
+   * its header, using positional reads. The position of the channel is not modified.
+   *
+   * @param channel the file channel
+   * @return the format of the cartridge, or {@code null} if the file contains no valid logo
+   * @throws IOException if an I/O error occurs
+   */
+  public static @Nullable CartridgeFormat detect(final FileChannel channel) throws IOException {
+    requireNonNull(channel);
+    final long size = channel.size();
+    if (size >= GBACartridge.Header.END_ADDR
+        && GBACartridge.readHeader(channel).hasValidLogo()) {
+      return GBA;
+    }
+    if (size >= GBCartridge.Header.END_ADDR
+        && GBCartridge.readHeader(channel).hasValidLogo()) {
+      return GB;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage;
+
+import java.nio.ByteOrder;
+import jdk.incubator.foreign.MemorySegment;
+
+/**
+ * A {@link Cartridge} whose contents are shared with another cartridge.
+ *
+ * @see Cartridge#slice(long, long)
+ */
+final class CartridgeView extends AbstractCartridge {
+
+  CartridgeView(final MemorySegment segment, final ByteOrder order) {
+    super(segment, order);
+  }
+}
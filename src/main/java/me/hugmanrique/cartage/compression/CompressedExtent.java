@@ -0,0 +1,17 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.compression;
+
+/**
+ * Describes the extent of a well-formed stream of compressed data, as returned by
+ * {@link Decompressor#measure(me.hugmanrique.cartage.Cartridge, long)}.
+ *
+ * @param compressedLength the number of bytes read to decompress the data, including the header
+ * @param decompressedLength the length of the decompressed data
+ */
+public record CompressedExtent(long compressedLength, int decompressedLength) {}
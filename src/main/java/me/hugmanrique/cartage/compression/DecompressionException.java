@@ -33,4 +33,21 @@ public class DecompressionException extends RuntimeException {
   public DecompressionException(final String message, final @Nullable Throwable cause) {
     super(message, cause);
   }
+
+  /**
+   * Constructs a decompression exception with the given detail message, cause, and writable
+   * stack trace enabled or disabled.
+   *
+   * <p>Filling in the stack trace accounts for most of the cost of throwing an exception. Callers
+   * that throw decompression exceptions at high rates and do not inspect their stack traces may
+   * disable it.
+   *
+   * @param message the detail message
+   * @param cause the cause
+   * @param writableStackTrace whether the stack trace should be writable
+   */
+  public DecompressionException(final String message, final @Nullable Throwable cause,
+                                final boolean writableStackTrace) {
+    super(message, cause, true, writableStackTrace);
+  }
 }
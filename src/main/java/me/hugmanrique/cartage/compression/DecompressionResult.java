@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.compression;
+
+import static java.util.Objects.requireNonNull;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The result of an attempt to decompress data, as returned by
+ * {@link Decompressor#tryDecompress(me.hugmanrique.cartage.Cartridge, long)}.
+ *
+ * <p>Failed results are shared, so a failed attempt does not allocate any memory.
+ */
+public final class DecompressionResult {
+
+  private static final DecompressionResult[] FAILURES;
+
+  static {
+    final DecompressionStatus[] statuses = DecompressionStatus.values();
+    FAILURES = new DecompressionResult[statuses.length];
+    for (final DecompressionStatus status : statuses) {
+      FAILURES[status.ordinal()] = new DecompressionResult(status, null, -1);
+    }
+  }
+
+  /**
+   * Returns a successful result.
+   *
+   * @param data the decompressed data
+   * @param compressedLength the number of bytes read to decompress the data, including the header
+   * @return the result
+   */
+  public static DecompressionResult success(final byte[] data, final long compressedLength) {
+    return new DecompressionResult(DecompressionStatus.SUCCESS, requireNonNull(data),
+        compressedLength);
+  }
+
+  /**
+   * Returns a failed result with the given status.
+   *
+   * @param status the cause of the failure
+   * @return the result
+   * @throws IllegalArgumentException if the status is {@link DecompressionStatus#SUCCESS}
+   */
+  public static DecompressionResult failure(final DecompressionStatus status) {
+    if (status == DecompressionStatus.SUCCESS) {
+      throw new IllegalArgumentException("Cannot create failed result with success status");
+    }
+    return FAILURES[status.ordinal()];
+  }
+
+  private final DecompressionStatus status;
+  private final byte @Nullable [] data;
+  private final long compressedLength;
+
+  private DecompressionResult(final DecompressionStatus status, final byte @Nullable [] data,
+                              final long compressedLength) {
+    this.status = status;
+    this.data = data;
+    this.compressedLength = compressedLength;
+  }
+
+  /**
+   * Returns the outcome of the decompression.
+   *
+   * @return the status
+   */
+  public DecompressionStatus status() {
+    return this.status;
+  }
+
+  /**
+   * Returns whether the data was decompressed successfully.
+   *
+   * @return {@code true} if the status is {@link DecompressionStatus#SUCCESS}
+   */
+  public boolean isSuccess() {
+    return this.status == DecompressionStatus.SUCCESS;
+  }
+
+  /**
+   * Returns the decompressed data.
+   *
+   * @return the decompressed data, or {@code null} if decompression failed
+   */
+  public byte @Nullable [] data() {
+    return this.data;
+  }
+
+  /**
+   * Returns the number of bytes read to decompress the data, including the header.
+   *
+   * @return the compressed length, or -1 if decompression failed
+   */
+  public long compressedLength() {
+    return this.compressedLength;
+  }
+
+  /**
+   * Returns the decompressed data, or throws an exception if decompression failed.
+   *
+   * @return the decompressed data
+   * @throws DecompressionException if decompression failed
+   */
+  public byte[] orElseThrow() {
+    if (this.data == null) {
+      throw new DecompressionException("Failed to decompress data, got " + this.status + " status");
+    }
+    return this.data;
+  }
+
+  @Override
+  public String toString() {
+    return "DecompressionResult{"
+        + "status=" + status
+        + ", compressedLength=" + compressedLength
+        + '}';
+  }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.compression;
+
+/**
+ * The outcomes of an attempt to decompress data.
+ *
+ * @see Decompressor#tryDecompress(me.hugmanrique.cartage.Cartridge, long)
+ */
+public enum DecompressionStatus {
+  /**
+   * The data was decompressed successfully.
+   */
+  SUCCESS,
+  /**
+   * The header of the compressed data has an unexpected type or unsupported parameters.
+   */
+  INVALID_HEADER,
+  /**
+   * The compressed data ends past the end of the cartridge.
+   */
+  TRUNCATED,
+  /**
+   * The compressed data is otherwise malformed, e.g. it references bytes before the start of the
+   * decompressed data, or produces more bytes than specified in the header.
+   */
+  CORRUPTED
+}
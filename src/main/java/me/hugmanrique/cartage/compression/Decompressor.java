@@ -9,7 +9,16 @@ package me.hugmanrique.cartage.compression;
 
 import static java.util.Objects.requireNonNull;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Objects;
+import java.util.function.Consumer;
+import jdk.incubator.foreign.MemorySegment;
 import me.hugmanrique.cartage.Cartridge;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * Decompresses data from a {@link Cartridge}.
@@ -18,9 +27,6 @@ import me.hugmanrique.cartage.Cartridge;
  */
 public interface Decompressor {
 
-  // TODO Most decompressors throw IndexOutOfBoundsException when reading from cartridges
-  //  and catching them incurs some performance loss. Deprecate DecompressionException?
-
   /**
    * Decompresses data starting at the given offset from the given cartridge. The offset of the
    * cartridge is not modified.
@@ -53,4 +59,195 @@ public interface Decompressor {
    * @throws DecompressionException if an error occurs while attempting decompression
    */
   byte[] decompress(final Cartridge cartridge) throws DecompressionException;
+
+  /**
+   * Decompresses data starting at the current offset of the given cartridge into the given array,
+   * starting at the given index. The offset of the cartridge is incremented by the number of bytes
+   * read.
+   *
+   * @param cartridge the cartridge
+   * @param dest the destination array
+   * @param destOffset the index of the first decompressed byte in the array
+   * @return the number of bytes written
+   * @throws DecompressionException if an error occurs while attempting decompression
+   * @throws IndexOutOfBoundsException if the decompressed data does not fit in the array
+   */
+  default int decompress(final Cartridge cartridge, final byte[] dest, final int destOffset)
+      throws DecompressionException {
+    Objects.checkIndex(destOffset, dest.length + 1);
+    return this.decompress(cartridge, ByteBuffer.wrap(dest, destOffset, dest.length - destOffset));
+  }
+
+  /**
+   * Decompresses data starting at the current offset of the given cartridge into the given
+   * buffer, starting at its current position. The offset of the cartridge is incremented by the
+   * number of bytes read, and the position of the buffer by the number of bytes written.
+   *
+   * <p>The default implementation decompresses the data into a new array and copies it into the
+   * buffer. Implementations should override this method to write directly into the buffer.
+   *
+   * @param cartridge the cartridge
+   * @param dest the destination buffer
+   * @return the number of bytes written
+   * @throws DecompressionException if an error occurs while attempting decompression
+   * @throws IndexOutOfBoundsException if the decompressed data does not fit in the remaining
+   *     bytes of the buffer
+   */
+  default int decompress(final Cartridge cartridge, final ByteBuffer dest)
+      throws DecompressionException {
+    final byte[] result = this.decompress(cartridge);
+    Objects.checkFromIndexSize(0, result.length, dest.remaining());
+    dest.put(result);
+    return result.length;
+  }
+
+  /**
+   * Decompresses data starting at the current offset of the given cartridge into the given
+   * segment, starting at offset {@code 0}. The offset of the cartridge is incremented by the
+   * number of bytes read.
+   *
+   * @param cartridge the cartridge
+   * @param dest the destination segment
+   * @return the number of bytes written
+   * @throws DecompressionException if an error occurs while attempting decompression
+   * @throws IndexOutOfBoundsException if the decompressed data does not fit in the segment
+   * @throws IllegalStateException if the segment is closed, or it is accessed from a thread other
+   *     than its owner thread
+   */
+  default int decompress(final Cartridge cartridge, final MemorySegment dest)
+      throws DecompressionException {
+    // Buffer views of a segment cannot be larger than 2 GB, but neither is decompressed data
+    final long length = Math.min(dest.byteSize(), Integer.MAX_VALUE);
+    return this.decompress(cartridge, dest.asSlice(0, length).asByteBuffer());
+  }
+
+  /**
+   * Decompresses data starting at the current offset of the given cartridge into the given
+   * destination cartridge, starting at the given offset. The offset of the source cartridge is
+   * incremented by the number of bytes read; the offset of the destination is not modified.
+   *
+   * <p>The decompressed data is observed as a single write by the write hooks of the
+   * destination. The source and destination cartridges may share their contents. If an error
+   * occurs, part of the destination range may have been written.
+   *
+   * <p>The default implementation decompresses the data into a new array and copies it with a
+   * single {@link Cartridge#setBytes(long, byte[]) setBytes} call. Implementations should override
+   * this method to write directly into the destination through
+   * {@link Cartridge#update(long, int, Consumer)}.
+   *
+   * @param cartridge the source cartridge
+   * @param dest the destination cartridge
+   * @param destOffset the offset of the first decompressed byte in the destination cartridge
+   * @return the number of bytes written
+   * @throws DecompressionException if an error occurs while attempting decompression
+   * @throws IndexOutOfBoundsException if the decompressed data does not fit in the destination
+   *     cartridge
+   */
+  default int decompress(final Cartridge cartridge, final Cartridge dest, final long destOffset)
+      throws DecompressionException {
+    final byte[] result = this.decompress(cartridge);
+    dest.setBytes(destOffset, result);
+    return result.length;
+  }
+
+  /**
+   * Returns an input stream that decompresses data starting at the given offset from the given
+   * cartridge as it is read. The offset of the cartridge is not modified, and the compressed data
+   * must not be modified while the stream is open.
+   *
+   * <p>The default implementation decompresses all the data upfront. Implementations should
+   * override this method to decompress the data incrementally, using an amount of memory that
+   * does not depend on the decompressed length.
+   *
+   * <p>Reading from the stream throws a {@link DecompressionException} if the compressed data is
+   * malformed or truncated. The stream is not thread-safe.
+   *
+   * @param cartridge the cartridge
+   * @param offset the offset where compressed data starts
+   * @return the input stream
+   * @throws DecompressionException if the compressed data has an invalid header
+   * @throws IndexOutOfBoundsException if the given offset is out of bounds, i.e. less than 0 or
+   *     greater than or equal to {@linkplain Cartridge#size() {@code cartridge.size()}}
+   */
+  default InputStream openStream(final Cartridge cartridge, final long offset)
+      throws DecompressionException {
+    Objects.checkIndex(offset, cartridge.size());
+    return new ByteArrayInputStream(this.decompress(cartridge, offset));
+  }
+
+  /**
+   * Returns a channel that decompresses data starting at the given offset from the given
+   * cartridge as it is read, e.g. to transfer it to a file or socket. The offset of the cartridge
+   * is not modified, and the compressed data must not be modified while the channel is open.
+   *
+   * @param cartridge the cartridge
+   * @param offset the offset where compressed data starts
+   * @return the readable channel
+   * @throws DecompressionException if the compressed data has an invalid header
+   * @throws IndexOutOfBoundsException if the given offset is out of bounds, i.e. less than 0 or
+   *     greater than or equal to {@linkplain Cartridge#size() {@code cartridge.size()}}
+   * @see #openStream(Cartridge, long)
+   */
+  default ReadableByteChannel openChannel(final Cartridge cartridge, final long offset)
+      throws DecompressionException {
+    return Channels.newChannel(this.openStream(cartridge, offset));
+  }
+
+  /**
+   * Walks the compressed data starting at the given offset from the given cartridge, and returns
+   * its compressed and decompressed lengths. The offset of the cartridge is not modified.
+   *
+   * <p>The default implementation decompresses the data and discards the result. Implementations
+   * should override this method to validate the data without producing any output.
+   *
+   * @param cartridge the cartridge
+   * @param offset the offset where compressed data starts
+   * @return the extent of the compressed data, or {@code null} if the data is malformed or
+   *     truncated, i.e. {@link #decompress(Cartridge, long)} would throw
+   *     {@link DecompressionException}
+   * @throws IndexOutOfBoundsException if the given offset is out of bounds, i.e. less than 0 or
+   *     greater than or equal to {@linkplain Cartridge#size() {@code cartridge.size()}}
+   */
+  default @Nullable CompressedExtent measure(final Cartridge cartridge, final long offset) {
+    Objects.checkIndex(offset, cartridge.size());
+    final long prevOffset = cartridge.offset();
+    cartridge.setOffset(offset);
+    try {
+      final byte[] result = this.decompress(cartridge);
+      return new CompressedExtent(cartridge.offset() - offset, result.length);
+    } catch (final DecompressionException e) {
+      return null;
+    } finally {
+      cartridge.setOffset(prevOffset);
+    }
+  }
+
+  /**
+   * Attempts to decompress data starting at the given offset from the given cartridge, reporting
+   * malformed data with a status instead of throwing an exception. The offset of the cartridge is
+   * not modified.
+   *
+   * <p>The default implementation catches the {@link DecompressionException} thrown by
+   * {@link #decompress(Cartridge, long)}. Implementations should override this method to check
+   * bounds explicitly, since attempting to decompress data at arbitrary offsets usually fails.
+   *
+   * @param cartridge the cartridge
+   * @param offset the offset where compressed data starts
+   * @return the result of the decompression
+   * @throws IndexOutOfBoundsException if the given offset is out of bounds, i.e. less than 0 or
+   *     greater than or equal to {@linkplain Cartridge#size() {@code cartridge.size()}}
+   */
+  default DecompressionResult tryDecompress(final Cartridge cartridge, final long offset) {
+    Objects.checkIndex(offset, cartridge.size());
+    final long prevOffset = cartridge.offset();
+    cartridge.setOffset(offset);
+    try {
+      final byte[] result = this.decompress(cartridge);
+      return DecompressionResult.success(result, cartridge.offset() - offset);
+    } catch (final DecompressionException e) {
+      return DecompressionResult.failure(DecompressionStatus.CORRUPTED);
+    } finally {
+      cartridge.setOffset(prevOffset);
+    }
+  }
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.compression;
+
+import me.hugmanrique.cartage.Cartridge;
+
+/**
+ * Describes a valid stream of compressed data found in a cartridge.
+ *
+ * @param offset the offset where the compressed data starts
+ * @param type the compression type
+ * @param compressedLength the length of the compressed data, including the header
+ * @param decompressedLength the length of the decompressed data
+ * @see GBACompressionScanner
+ */
+public record GBACompressedStream(long offset, GBACompressionType type, long compressedLength,
+                                  int decompressedLength) {
+
+  /**
+   * Decompresses this stream from the given cartridge. The offset of the cartridge is not
+   * modified.
+   *
+   * @param cartridge the cartridge containing the stream
+   * @return the decompressed data
+   * @throws DecompressionException if an error occurs while attempting decompression
+   */
+  public byte[] decompress(final Cartridge cartridge) {
+    return this.type.decompressor().decompress(cartridge, this.offset);
+  }
+}
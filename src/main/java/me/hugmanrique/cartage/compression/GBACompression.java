@@ -7,6 +7,10 @@
 
 package me.hugmanrique.cartage.compression;
 
+import java.nio.ByteBuffer;
+import me.hugmanrique.cartage.Cartridge;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
 /**
  * Compression and decompression utilities for GBA and Nintendo DS cartridges.
  *
@@ -14,6 +18,104 @@ package me.hugmanrique.cartage.compression;
  */
 final class GBACompression {
 
+  /**
+   * The compressed length returned by the decompressors if the header of the compressed data is
+   * invalid.
+   */
+  static final long INVALID_HEADER = -1;
+
+  /**
+   * The compressed length returned by the decompressors if the cartridge ends before the
+   * compressed data does.
+   */
+  static final long TRUNCATED = -2;
+
+  /**
+   * The compressed length returned by the decompressors if the compressed data references bytes
+   * outside the decompressed data or the cartridge.
+   */
+  static final long CORRUPTED = -3;
+
+  /**
+   * The offset of the decompressed length in the header.
+   */
+  private static final int DECOMPRESSED_LENGTH = 8;
+
+  /**
+   * Returns the decompressed length stored in the given header.
+   *
+   * @param header the header value
+   * @return the decompressed length, in bytes
+   */
+  static int decompressedLength(final int header) {
+    return header >>> DECOMPRESSED_LENGTH;
+  }
+
+  /**
+   * Returns the extent of the compressed data starting at the given offset.
+   *
+   * @param cartridge the cartridge
+   * @param offset the offset where compressed data starts
+   * @param compressedLength the length of the compressed data, or a negative status code
+   * @return the extent of the compressed data, or {@code null} if the data is malformed
+   * @see Decompressor#measure(Cartridge, long)
+   */
+  static @Nullable CompressedExtent extent(final Cartridge cartridge, final long offset,
+                                           final long compressedLength) {
+    if (compressedLength < 0) {
+      return null;
+    }
+    return new CompressedExtent(compressedLength, decompressedLength(cartridge.getInt(offset)));
+  }
+
+  /**
+   * Decompresses the data starting at the given offset if it was successfully measured.
+   *
+   * @param decompressor the decompressor
+   * @param cartridge the cartridge
+   * @param offset the offset where compressed data starts
+   * @param compressedLength the length of the compressed data, or a negative status code
+   * @return the result of the decompression
+   * @see Decompressor#tryDecompress(Cartridge, long)
+   */
+  static DecompressionResult tryDecompress(final Decompressor decompressor,
+                                           final Cartridge cartridge, final long offset,
+                                           final long compressedLength) {
+    if (compressedLength == INVALID_HEADER) {
+      return DecompressionResult.failure(DecompressionStatus.INVALID_HEADER);
+    } else if (compressedLength == TRUNCATED) {
+      return DecompressionResult.failure(DecompressionStatus.TRUNCATED);
+    } else if (compressedLength == CORRUPTED) {
+      return DecompressionResult.failure(DecompressionStatus.CORRUPTED);
+    }
+    return DecompressionResult.success(decompressor.decompress(cartridge, offset),
+        compressedLength);
+  }
+
+  /**
+   * Returns whether the first 8 bits of the given header equal {@code expected}.
+   *
+   * @param header the header value
+   * @param expected the expected type value
+   * @return {@code true} if the type value equals {@code expected}
+   * @see #requireTypeByte(int, byte, String)
+   */
+  static boolean hasTypeByte(final int header, final byte expected) {
+    return (header & 0xFF) == expected;
+  }
+
+  /**
+   * Returns whether the bits in range [4, 7] of the given header equal {@code expected}.
+   *
+   * @param header the header value
+   * @param expected the expected type value
+   * @return {@code true} if the type value equals {@code expected}
+   * @see #requireTypeNibble(int, byte, String)
+   */
+  static boolean hasTypeNibble(final int header, final byte expected) {
+    return ((header >>> 4) & 0xF) == expected;
+  }
+
   /**
    * Checks that the first 8 bits of the given header equal {@code expected}.
    *
@@ -48,6 +150,29 @@ final class GBACompression {
     }
   }
 
+  /**
+   * Copies {@code count} verbatim bytes from the given cartridge to the given buffer, starting at
+   * the given index, with a single bulk read if the buffer is backed by an array. The offset of
+   * the cartridge is incremented by {@code count}.
+   *
+   * @param source the cartridge
+   * @param dest the destination buffer, with at least {@code count} bytes after {@code index}
+   * @param index the index of the first byte in the buffer
+   * @param count the number of bytes to copy
+   * @throws IndexOutOfBoundsException if the cartridge contains less than {@code count} bytes
+   *     after its offset
+   */
+  static void readLiterals(final Cartridge source, final ByteBuffer dest, final int index,
+                           final int count) {
+    if (dest.hasArray()) {
+      source.readBytes(dest.array(), dest.arrayOffset() + index, count);
+    } else {
+      for (int i = 0; i < count; i++) {
+        dest.put(index + i, source.readByte());
+      }
+    }
+  }
+
   private GBACompression() {
     throw new AssertionError();
   }
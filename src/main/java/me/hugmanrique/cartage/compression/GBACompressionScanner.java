@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.compression;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import me.hugmanrique.cartage.Cartridge;
+import me.hugmanrique.cartage.util.NumberUtils;
+import me.hugmanrique.cartage.util.RangeUtils;
+
+/**
+ * Finds the streams of data in a cartridge that the BIOS of the GBA and Nintendo DS can
+ * decompress.
+ *
+ * <p>Every aligned offset is a candidate. Most candidates are rejected by their header, i.e. by
+ * the type bits and the decompressed length. The remaining candidates are validated by walking
+ * the compressed data without producing any output, so the cost of a scan does not depend on
+ * the decompressed length of the found streams.
+ *
+ * <p>Finally, streams that decompress without errors but that no compressor would produce are
+ * rejected as likely false positives, e.g. Huffman trees with nodes outside the tree table.
+ *
+ * <p>Instances of this class are immutable and thread-safe.
+ */
+public final class GBACompressionScanner {
+
+  /**
+   * Creates a new scanner builder.
+   *
+   * @return the builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private final Set<GBACompressionType> types;
+  private final int alignment;
+  private final int minDecompressedLength;
+  private final int maxDecompressedLength;
+  private final boolean parallel;
+
+  private GBACompressionScanner(final Builder builder) {
+    this.types = EnumSet.copyOf(builder.types);
+    this.alignment = builder.alignment;
+    this.minDecompressedLength = builder.minDecompressedLength;
+    this.maxDecompressedLength = builder.maxDecompressedLength;
+    this.parallel = builder.parallel;
+  }
+
+  /**
+   * Finds the valid streams in the given cartridge. The offset of the cartridge is not modified.
+   *
+   * <p>If the scanner is parallel and the cartridge is {@link Cartridge#isShared() shared},
+   * large cartridges are split in ranges that are scanned concurrently on the common fork-join
+   * pool. Otherwise, the scan runs on the calling thread.
+   *
+   * @param cartridge the cartridge
+   * @return the found streams, sorted by offset
+   * @throws IllegalStateException if the cartridge is closed
+   */
+  public List<GBACompressedStream> scan(final Cartridge cartridge) {
+    requireNonNull(cartridge);
+    final int ranges = RangeUtils.ranges(cartridge, this.parallel);
+    if (ranges == 1) {
+      return this.scan(cartridge, 0, cartridge.size());
+    }
+    // Ranges start at aligned offsets, so each candidate is scanned once
+    return RangeUtils.mapRanges(cartridge, ranges, this.alignment, this::scan).stream()
+        .flatMap(List::stream)
+        .collect(Collectors.toList());
+  }
+
+  private List<GBACompressedStream> scan(final Cartridge cartridge, final long from,
+                                         final long to) {
+    final List<GBACompressedStream> streams = new ArrayList<>();
+    final long end = Math.min(to, cartridge.size() - Integer.BYTES + 1);
+    for (long offset = from; offset < end; offset += this.alignment) {
+      final int header = cartridge.getInt(offset);
+      final GBACompressionType type = GBACompressionType.ofHeader(header);
+      if (type == null || !this.types.contains(type)) {
+        continue;
+      }
+      final int length = GBACompression.decompressedLength(header);
+      if (length < this.minDecompressedLength || length > this.maxDecompressedLength) {
+        continue;
+      }
+      final long compressedLength = type.compressedLength(cartridge, offset);
+      if (compressedLength >= 0 && isPlausible(cartridge, offset, type)) {
+        streams.add(new GBACompressedStream(offset, type, compressedLength, length));
+      }
+    }
+    return streams;
+  }
+
+  /**
+   * Returns whether the valid stream starting at the given offset is plausibly the output of a
+   * compressor. The BIOS accepts Huffman trees whose nodes lie anywhere in memory and whose leaf
+   * values are wider than the bit depth, but compressors only produce trees whose reachable nodes
+   * lie within the table announced by the tree length byte, and whose leaves fit the bit depth.
+   *
+   * @param cartridge the cartridge
+   * @param offset the offset where the compressed data starts
+   * @param type the compression type
+   * @return {@code true} if the stream is plausible
+   */
+  private static boolean isPlausible(final Cartridge cartridge, final long offset,
+                                     final GBACompressionType type) {
+    if (type != GBACompressionType.HUFFMAN) {
+      return true;
+    }
+    final int maxValue = (1 << (cartridge.getInt(offset) & GBAHuffmanDecompressor.BIT_DEPTH)) - 1;
+    // The tree is indexed from the tree length byte (an even offset if aligned)
+    final long treeOffset = offset + Integer.BYTES;
+    final byte[] tree = new byte[((cartridge.getByte(treeOffset) & 0xFF) + 1) << 1];
+    cartridge.getBytes(treeOffset, tree);
+    final int alignment = (int) (offset & 1);
+
+    // Children always follow their parent, so visiting the nodes in order reaches every node
+    final boolean[] reachable = new boolean[tree.length];
+    reachable[1] = true; // root node
+    for (int node = 1; node < tree.length; node++) {
+      if (!reachable[node]) {
+        continue;
+      }
+      final int data = tree[node];
+      final int children = (((node + alignment) & (int) GBAHuffmanDecompressor.ALIGN_BASE_OFFSET)
+          - alignment) + (((data & GBAHuffmanDecompressor.CHILD_OFFSET) + 1) << 1);
+      if (children + 1 >= tree.length) {
+        return false;
+      }
+      for (int direction = 0; direction < 2; direction++) {
+        if (((data << direction) & GBAHuffmanDecompressor.CHILD_IS_LEAF) == 0) {
+          reachable[children + direction] = true;
+        } else if ((tree[children + direction] & 0xFF) > maxValue) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return "GBACompressionScanner{"
+        + "types=" + types
+        + ", alignment=" + alignment
+        + ", minDecompressedLength=" + minDecompressedLength
+        + ", maxDecompressedLength=" + maxDecompressedLength
+        + ", parallel=" + parallel
+        + '}';
+  }
+
+  /**
+   * Builds {@link GBACompressionScanner} instances.
+   */
+  public static final class Builder {
+
+    private Set<GBACompressionType> types = EnumSet.allOf(GBACompressionType.class);
+    private int alignment = Integer.BYTES;
+    private int minDecompressedLength = 16;
+    private int maxDecompressedLength = 0x40000; // the size of the GBA external work RAM
+    private boolean parallel;
+
+    private Builder() {}
+
+    /**
+     * Sets the compression types to find. All types are found by default.
+     *
+     * @param types the compression types
+     * @return this builder
+     * @throws IllegalArgumentException if no types are given
+     */
+    public Builder types(final GBACompressionType... types) {
+      if (types.length == 0) {
+        throw new IllegalArgumentException("At least one type must be given");
+      }
+      this.types = EnumSet.of(types[0], types);
+      return this;
+    }
+
+    /**
+     * Sets the alignment of the candidate offsets. The BIOS requires compressed data to be
+     * word-aligned, so the default alignment is 4.
+     *
+     * @param alignment the alignment, in bytes
+     * @return this builder
+     * @throws IllegalArgumentException if the alignment is not a positive power of 2
+     */
+    public Builder alignment(final int alignment) {
+      if (alignment <= 0 || !NumberUtils.isPowerOf2(alignment)) {
+        throw new IllegalArgumentException("Alignment must be a positive power of 2, got "
+            + alignment);
+      }
+      this.alignment = alignment;
+      return this;
+    }
+
+    /**
+     * Sets the range of plausible decompressed lengths. Streams outside this range are not
+     * validated. By default, streams must decompress to at least 16 bytes and at most 256 KB.
+     *
+     * @param min the minimum decompressed length, inclusive
+     * @param max the maximum decompressed length, inclusive
+     * @return this builder
+     * @throws IllegalArgumentException if {@code min} is negative or greater than {@code max}
+     */
+    public Builder decompressedLength(final int min, final int max) {
+      if (min < 0 || min > max) {
+        throw new IllegalArgumentException("Invalid decompressed length range [" + min + ", "
+            + max + "]");
+      }
+      this.minDecompressedLength = min;
+      this.maxDecompressedLength = max;
+      return this;
+    }
+
+    /**
+     * Sets whether scans may run on multiple threads. Disabled by default.
+     *
+     * @param parallel {@code true} to scan shared cartridges concurrently
+     * @return this builder
+     */
+    public Builder parallel(final boolean parallel) {
+      this.parallel = parallel;
+      return this;
+    }
+
+    /**
+     * Creates a scanner with the current settings.
+     *
+     * @return the scanner
+     */
+    public GBACompressionScanner build() {
+      return new GBACompressionScanner(this);
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.compression;
+
+import me.hugmanrique.cartage.Cartridge;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The formats of data decompressed by the BIOS of the GBA and Nintendo DS.
+ *
+ * @see <a href="https://problemkaputt.de/gbatek.htm#biosdecompressionfunctions">GBATEK</a>
+ */
+public enum GBACompressionType {
+  /**
+   * Run-length encoded data.
+   *
+   * @see GBARLDecompressor
+   */
+  RL(GBARLDecompressor.get()),
+  /**
+   * LZ77-compressed data.
+   *
+   * @see GBALZSSDecompressor
+   */
+  LZSS(GBALZSSDecompressor.get()),
+  /**
+   * Extended LZ77-compressed data, as supported by the Nintendo DS.
+   *
+   * @see GBALZXDecompressor
+   */
+  LZX(GBALZXDecompressor.get()),
+  /**
+   * Huffman-compressed data.
+   *
+   * @see GBAHuffmanDecompressor
+   */
+  HUFFMAN(GBAHuffmanDecompressor.get()),
+  /**
+   * Data filtered by storing the differences between consecutive values.
+   *
+   * @see GBADiffUnfilterer
+   */
+  DIFF(GBADiffUnfilterer.get());
+
+  private final Decompressor decompressor;
+
+  GBACompressionType(final Decompressor decompressor) {
+    this.decompressor = decompressor;
+  }
+
+  /**
+   * Returns the decompressor of this format.
+   *
+   * @return the decompressor
+   */
+  public Decompressor decompressor() {
+    return this.decompressor;
+  }
+
+  /**
+   * Returns the format of compressed data starting with the given header, only by checking its
+   * type bits and parameters. The data may still fail to decompress.
+   *
+   * @param header the header value
+   * @return the compression type, or {@code null} if the header is invalid
+   */
+  public static @Nullable GBACompressionType ofHeader(final int header) {
+    return switch (header & 0xFF) {
+      case 0x30 -> RL;
+      case 0x10 -> LZSS;
+      case 0x11 -> LZX;
+      case 0x21, 0x22, 0x24, 0x28 -> HUFFMAN; // power of 2 bit depths
+      case 0x81, 0x82 -> DIFF; // 8-bit and 16-bit data sizes
+      default -> null;
+    };
+  }
+
+  /**
+   * Walks the compressed data starting at the given offset without producing any output, and
+   * returns its length. The offset of the cartridge is not modified.
+   *
+   * @param cartridge the cartridge
+   * @param offset the offset where compressed data starts
+   * @return the length of the compressed data, or a negative {@link GBACompression} status code if
+   *     the data would fail to decompress
+   */
+  long compressedLength(final Cartridge cartridge, final long offset) {
+    return switch (this) {
+      case RL -> GBARLDecompressor.get().compressedLength(cartridge, offset);
+      case LZSS -> GBALZSSDecompressor.get().compressedLength(cartridge, offset);
+      case LZX -> GBALZXDecompressor.get().compressedLength(cartridge, offset);
+      case HUFFMAN -> GBAHuffmanDecompressor.get().compressedLength(cartridge, offset);
+      case DIFF -> GBADiffUnfilterer.get().compressedLength(cartridge, offset);
+    };
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.compression;
+
+import static me.hugmanrique.cartage.compression.GBACompression.decompressedLength;
+import static me.hugmanrique.cartage.compression.GBACompression.extent;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import me.hugmanrique.cartage.Cartridge;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Base class of the decompressors of data compressed with the BIOS functions of the GBA and
+ * Nintendo DS, which start with a 32-bit header containing the decompressed length.
+ *
+ * <p>Implementations decompress data into a buffer through absolute writes within the
+ * decompressed length, and read back from it for back-references.
+ */
+abstract class GBADecompressor implements Decompressor {
+
+  private final String corruptedMessage;
+
+  GBADecompressor(final String name) {
+    this.corruptedMessage = "Got corrupted " + name + "-compressed data";
+  }
+
+  @Override
+  public byte[] decompress(final Cartridge cartridge) throws DecompressionException {
+    try {
+      final int header = this.readHeader(cartridge);
+      final byte[] result = new byte[decompressedLength(header)];
+      this.decompress(cartridge, header, ByteBuffer.wrap(result), 0);
+      return result;
+    } catch (final IndexOutOfBoundsException e) {
+      throw new DecompressionException(this.corruptedMessage, e);
+    }
+  }
+
+  @Override
+  public int decompress(final Cartridge cartridge, final ByteBuffer dest)
+      throws DecompressionException {
+    final int header;
+    try {
+      header = this.readHeader(cartridge);
+    } catch (final IndexOutOfBoundsException e) {
+      throw new DecompressionException(this.corruptedMessage, e);
+    }
+    final int length = decompressedLength(header);
+    final int position = dest.position();
+    Objects.checkFromIndexSize(position, length, dest.limit());
+    try {
+      this.decompress(cartridge, header, dest, position);
+    } catch (final IndexOutOfBoundsException e) {
+      throw new DecompressionException(this.corruptedMessage, e);
+    }
+    dest.position(position + length);
+    return length;
+  }
+
+  @Override
+  public int decompress(final Cartridge cartridge, final Cartridge dest, final long destOffset)
+      throws DecompressionException {
+    if (cartridge.sharesContents(dest)) {
+      // Writing in place could overwrite compressed data that has not been read yet
+      return Decompressor.super.decompress(cartridge, dest, destOffset);
+    }
+    final int header;
+    try {
+      header = this.readHeader(cartridge);
+    } catch (final IndexOutOfBoundsException e) {
+      throw new DecompressionException(this.corruptedMessage, e);
+    }
+    final int length = decompressedLength(header);
+    Objects.checkFromIndexSize(destOffset, length, dest.size());
+    try {
+      dest.update(destOffset, length, buffer -> this.decompress(cartridge, header, buffer, 0));
+    } catch (final IndexOutOfBoundsException e) {
+      throw new DecompressionException(this.corruptedMessage, e);
+    }
+    return length;
+  }
+
+  /**
+   * Decompresses the data following the given header from the given cartridge, writing exactly
+   * {@linkplain GBACompression#decompressedLength(int) the decompressed length} bytes to the given
+   * buffer starting at the given index. The offset of the cartridge is incremented by the number
+   * of bytes read.
+   *
+   * @param cartridge the cartridge
+   * @param header the header value
+   * @param dest the destination buffer
+   * @param base the index of the first decompressed byte in the buffer
+   * @throws DecompressionException if the compressed data is malformed
+   * @throws IndexOutOfBoundsException if the compressed data is truncated
+   */
+  abstract void decompress(final Cartridge cartridge, final int header, final ByteBuffer dest,
+                           final int base);
+
+  /**
+   * Reads and validates the header of the compressed data starting at the current offset of the
+   * given cartridge. The offset of the cartridge is incremented by the number of bytes read.
+   *
+   * @param cartridge the cartridge
+   * @return the header value
+   * @throws DecompressionException if the header has an unexpected type or invalid parameters
+   */
+  abstract int readHeader(final Cartridge cartridge);
+
+  @Override
+  public InputStream openStream(final Cartridge cartridge, final long offset)
+      throws DecompressionException {
+    Objects.checkIndex(offset, cartridge.size());
+    final Cartridge source = cartridge.duplicate();
+    source.setOffset(offset);
+    final int header;
+    try {
+      header = this.readHeader(source);
+    } catch (final IndexOutOfBoundsException e) {
+      source.close();
+      throw new DecompressionException(this.corruptedMessage, e);
+    } catch (final DecompressionException e) {
+      source.close();
+      throw e;
+    }
+    return this.newStream(source, header);
+  }
+
+  /**
+   * Returns a stream that decompresses the data following the given header incrementally.
+   *
+   * @param source the cartridge containing the compressed data, positioned after the header
+   * @param header the header value
+   * @return the input stream
+   */
+  abstract GBAInputStream newStream(final Cartridge source, final int header);
+
+  @Override
+  public @Nullable CompressedExtent measure(final Cartridge cartridge, final long offset) {
+    Objects.checkIndex(offset, cartridge.size());
+    return extent(cartridge, offset, this.compressedLength(cartridge, offset));
+  }
+
+  @Override
+  public DecompressionResult tryDecompress(final Cartridge cartridge, final long offset) {
+    Objects.checkIndex(offset, cartridge.size());
+    return GBACompression.tryDecompress(this, cartridge, offset,
+        this.compressedLength(cartridge, offset));
+  }
+
+  /**
+   * Walks the compressed data starting at the given offset without producing any output, and
+   * returns its length. The offset of the cartridge is not modified.
+   *
+   * @param cartridge the cartridge
+   * @param offset the offset where compressed data starts
+   * @return the length of the compressed data, or a negative {@link GBACompression} status code if
+   *     the data would fail to decompress
+   */
+  abstract long compressedLength(final Cartridge cartridge, final long offset);
+}
@@ -7,8 +7,12 @@
 
 package me.hugmanrique.cartage.compression;
 
+import static me.hugmanrique.cartage.compression.GBACompression.INVALID_HEADER;
+import static me.hugmanrique.cartage.compression.GBACompression.TRUNCATED;
+import static me.hugmanrique.cartage.compression.GBACompression.hasTypeNibble;
 import static me.hugmanrique.cartage.compression.GBACompression.requireTypeNibble;
 
+import java.nio.ByteBuffer;
 import me.hugmanrique.cartage.Cartridge;
 
 /**
@@ -17,7 +21,7 @@ import me.hugmanrique.cartage.Cartridge;
  *
  * @see <a href="https://problemkaputt.de/gbatek.htm#biosdecompressionfunctions">GBATEK</a>
  */
-public final class GBADiffUnfilterer implements Decompressor {
+public final class GBADiffUnfilterer extends GBADecompressor {
 
   private static final GBADiffUnfilterer INSTANCE = new GBADiffUnfilterer();
 
@@ -36,62 +40,132 @@ public final class GBADiffUnfilterer implements Decompressor {
   private static final int BYTE_DELTAS = 1;
   private static final int SHORT_DELTAS = 2;
 
-  private GBADiffUnfilterer() {}
+  private GBADiffUnfilterer() {
+    super("DiffUnfilter");
+  }
 
   @Override
-  public byte[] decompress(final Cartridge cartridge) throws DecompressionException {
-    try {
-      final int header = cartridge.readInt();
-      requireTypeNibble(header, TYPE, "UnFilter");
-
-      int dataSize = header & DATA_SIZE;
-      final int length = header >>> DECOMPRESSED_LENGTH;
-      final byte[] result = new byte[length];
-
-      switch (dataSize) {
-        case BYTE_DELTAS -> decompressByteDeltas(cartridge, result, length);
-        case SHORT_DELTAS -> decompressShortDeltas(cartridge, result, length);
-        default -> throw new DecompressionException("Invalid data size " + dataSize + ", expected "
-            + BYTE_DELTAS + " or " + SHORT_DELTAS);
-      }
-      return result;
-    } catch (final IndexOutOfBoundsException e) {
-      throw new DecompressionException("Got corrupted DiffUnfilter data", e);
+  int readHeader(final Cartridge cartridge) {
+    final int header = cartridge.readInt();
+    requireTypeNibble(header, TYPE, "UnFilter");
+    final int dataSize = header & DATA_SIZE;
+    if (dataSize != BYTE_DELTAS && dataSize != SHORT_DELTAS) {
+      throw new DecompressionException("Invalid data size " + dataSize + ", expected "
+          + BYTE_DELTAS + " or " + SHORT_DELTAS);
+    }
+    if (dataSize == SHORT_DELTAS && ((header >>> DECOMPRESSED_LENGTH) & 1) != 0) {
+      throw new DecompressionException("Got odd length " + (header >>> DECOMPRESSED_LENGTH)
+          + " for 16-bit deltas");
+    }
+    return header;
+  }
+
+  @Override
+  void decompress(final Cartridge cartridge, final int header, final ByteBuffer dest,
+                  final int base) {
+    final int length = header >>> DECOMPRESSED_LENGTH;
+    if ((header & DATA_SIZE) == BYTE_DELTAS) {
+      this.decompressByteDeltas(cartridge, dest, base, length);
+    } else {
+      this.decompressShortDeltas(cartridge, dest, base, length);
     }
   }
 
   /**
    * Applies the Diff8bitUnFilterWrite8bit algorithm, reading {@code length} deltas from the given
-   * cartridge and writing the absolute values to the destination array.
+   * cartridge and writing the absolute values to the destination buffer.
    *
    * @param source the cartridge whose contents are to be unfiltered
-   * @param dest the destination array
+   * @param dest the destination buffer
+   * @param base the index of the first unfiltered byte in the buffer
    * @param length the number of bytes to read
    */
-  private void decompressByteDeltas(final Cartridge source, final byte[] dest, final int length) {
+  private void decompressByteDeltas(final Cartridge source, final ByteBuffer dest, final int base,
+                                    final int length) {
     byte absolute = 0;
     for (int i = 0; i < length; i++) {
       final byte delta = source.readByte();
       absolute += delta;
-      dest[i] = absolute;
+      dest.put(base + i, absolute);
     }
   }
 
   /**
    * Applies the Diff16bitUnFilter algorithm, reading {@code length / 2} deltas from the given
-   * cartridge and writing the absolute values to the destination array.
+   * cartridge and writing the absolute values to the destination buffer.
    *
    * @param source the cartridge whose contents are to be unfiltered
-   * @param dest the destination array
+   * @param dest the destination buffer
+   * @param base the index of the first unfiltered byte in the buffer
    * @param length the number of bytes to read
    */
-  private void decompressShortDeltas(final Cartridge source, final byte[] dest, final int length) {
+  private void decompressShortDeltas(final Cartridge source, final ByteBuffer dest,
+                                     final int base, final int length) {
     short absolute = 0;
     for (int i = 0; i < length; ) {
       final short delta = source.readShort();
       absolute += delta;
-      dest[i++] = (byte) absolute;
-      dest[i++] = (byte) (absolute >>> 8);
+      dest.put(base + i++, (byte) absolute);
+      dest.put(base + i++, (byte) (absolute >>> 8));
+    }
+  }
+
+  @Override
+  GBAInputStream newStream(final Cartridge source, final int header) {
+    return new InputStreamImpl(source, header);
+  }
+
+  @Override
+  long compressedLength(final Cartridge cartridge, final long offset) {
+    final long size = cartridge.size();
+    if (offset < 0 || offset > size - Integer.BYTES) {
+      return TRUNCATED;
+    }
+    final int header = cartridge.getInt(offset);
+    final int dataSize = header & DATA_SIZE;
+    final int length = header >>> DECOMPRESSED_LENGTH;
+    if (!hasTypeNibble(header, TYPE) || (dataSize != BYTE_DELTAS && dataSize != SHORT_DELTAS)
+        || (dataSize == SHORT_DELTAS && (length & 1) != 0)) {
+      return INVALID_HEADER;
+    }
+    if (length > size - offset - Integer.BYTES) {
+      return TRUNCATED;
+    }
+    return Integer.BYTES + length;
+  }
+
+  private static final class InputStreamImpl extends GBAInputStream {
+
+    private final boolean shortDeltas;
+    private short absolute;
+    private boolean pendingHighByte;
+
+    InputStreamImpl(final Cartridge source, final int header) {
+      super(source, header >>> DECOMPRESSED_LENGTH, "DiffUnfilter");
+      this.shortDeltas = (header & DATA_SIZE) == SHORT_DELTAS;
+    }
+
+    @Override
+    void decompress(final byte[] dest, final int destOffset, final int index, final int count) {
+      final Cartridge source = this.source;
+      if (!this.shortDeltas) {
+        byte absolute = (byte) this.absolute;
+        for (int i = 0; i < count; i++) {
+          absolute += source.readByte();
+          dest[destOffset + i] = absolute;
+        }
+        this.absolute = absolute;
+        return;
+      }
+      for (int i = 0; i < count; i++) {
+        if (this.pendingHighByte) {
+          dest[destOffset + i] = (byte) (this.absolute >>> 8);
+        } else {
+          this.absolute += source.readShort();
+          dest[destOffset + i] = (byte) this.absolute;
+        }
+        this.pendingHighByte = !this.pendingHighByte;
+      }
     }
   }
 }
@@ -7,8 +7,14 @@
 
 package me.hugmanrique.cartage.compression;
 
+import static me.hugmanrique.cartage.compression.GBACompression.CORRUPTED;
+import static me.hugmanrique.cartage.compression.GBACompression.INVALID_HEADER;
+import static me.hugmanrique.cartage.compression.GBACompression.TRUNCATED;
+import static me.hugmanrique.cartage.compression.GBACompression.hasTypeNibble;
 import static me.hugmanrique.cartage.compression.GBACompression.requireTypeNibble;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import me.hugmanrique.cartage.Cartridge;
 import me.hugmanrique.cartage.util.NumberUtils;
 
@@ -17,7 +23,7 @@ import me.hugmanrique.cartage.util.NumberUtils;
  *
  * @see <a href="https://problemkaputt.de/gbatek.htm#biosdecompressionfunctions">GBATEK</a>
  */
-public final class GBAHuffmanDecompressor implements Decompressor {
+public final class GBAHuffmanDecompressor extends GBADecompressor {
 
   private static final GBAHuffmanDecompressor INSTANCE = new GBAHuffmanDecompressor();
 
@@ -31,69 +37,288 @@ public final class GBAHuffmanDecompressor implements Decompressor {
   }
 
   private static final byte TYPE = 0x2;
-  private static final int BIT_DEPTH = 0xF;
+  static final int BIT_DEPTH = 0xF;
   private static final int DECOMPRESSED_LENGTH = 8;
-  private static final int CHILD_IS_LEAF = 0x80;
-  private static final int CHILD_OFFSET = 0x3F;
-  private static final long ALIGN_BASE_OFFSET = ~0x1;
+  static final int CHILD_IS_LEAF = 0x80;
+  static final int CHILD_OFFSET = 0x3F;
+  static final long ALIGN_BASE_OFFSET = ~0x1;
 
-  private GBAHuffmanDecompressor() {}
+  private GBAHuffmanDecompressor() {
+    super("Huffman");
+  }
+
+  @Override
+  int readHeader(final Cartridge cartridge) {
+    final int header = cartridge.readInt();
+    requireTypeNibble(header, TYPE, "HF");
+    final int bitDepth = header & BIT_DEPTH;
+    if (bitDepth == 0 || !NumberUtils.isPowerOf2(bitDepth)) {
+      throw new DecompressionException(
+          "Bit depth must be a positive power of 2, got " + bitDepth);
+    }
+    return header;
+  }
+
+  @Override
+  void decompress(final Cartridge cartridge, final int header, final ByteBuffer dest,
+                  final int base) {
+    // The compressed data contains a binary tree and a set of paths starting at
+    // the root node of the tree, encoded as a sequence of 32-bit integers.
+    // The bits of the integer indicate whether to follow the left node (0) or
+    // the right node (1), starting at the most-significant bit. A path ends
+    // when a leaf node is reached, which contains an uncompressed value of
+    // bitDepth bits (usually 4 or 8).
+    final int bitDepth = header & BIT_DEPTH;
+    final int length = header >>> DECOMPRESSED_LENGTH;
+
+    final PathDecoder decoder = new PathDecoder(cartridge);
+    int value = 0; // the bits of the byte at index decoded so far
+    int bitCount = 0; // number of bits decoded into value
+    for (int index = 0; index < length; ) {
+      value = (value << bitDepth) | decoder.next();
+      bitCount += bitDepth;
+      if (bitCount == 8) {
+        dest.put(base + index++, (byte) value);
+        value = 0;
+        bitCount = 0;
+      }
+    }
+    // Remaining paths in the last word are padding
+    cartridge.setOffset(decoder.end());
+  }
+
+  @Override
+  GBAInputStream newStream(final Cartridge source, final int header) {
+    return new InputStreamImpl(source, header);
+  }
 
   @Override
-  public byte[] decompress(final Cartridge cartridge) throws DecompressionException {
-    try {
-      final int header = cartridge.readInt();
-      requireTypeNibble(header, TYPE, "HF");
-
-      // The compressed data contains a binary tree and a set of paths starting at
-      // the root node of the tree, encoded as a sequence of 32-bit integers.
-      // The bits of the integer indicate whether to follow the left node (0) or
-      // the right node (1), starting at the most-significant bit. A path ends
-      // when a leaf node is reached, which contains an uncompressed value of
-      // bitDepth bits (usually 4 or 8).
-      final byte bitDepth = (byte) (header & BIT_DEPTH);
-      if (bitDepth == 0 || !NumberUtils.isPowerOf2(bitDepth)) {
-        throw new DecompressionException(
-            "Bit depth must be a positive power of 2, got " + bitDepth);
+  long compressedLength(final Cartridge cartridge, final long offset) {
+    final long size = cartridge.size();
+    if (offset < 0 || offset > size - Integer.BYTES - 1) {
+      return TRUNCATED;
+    }
+    final int header = cartridge.getInt(offset);
+    final int bitDepth = header & BIT_DEPTH;
+    if (!hasTypeNibble(header, TYPE) || bitDepth == 0 || !NumberUtils.isPowerOf2(bitDepth)) {
+      return INVALID_HEADER;
+    }
+    final int length = header >>> DECOMPRESSED_LENGTH;
+    final int treeLength = ((cartridge.getByte(offset + Integer.BYTES) & 0xFF) + 1) << 1;
+    long position = offset + Integer.BYTES + treeLength; // start of paths
+    if (position > size) {
+      return TRUNCATED;
+    }
+    // Walk a copy of the tree, indexed from the tree length byte (an even offset if aligned).
+    // Like the BIOS, nodes may lie anywhere in the cartridge, so read those past the tree directly.
+    final long treeOffset = offset + Integer.BYTES;
+    final byte[] tree = new byte[treeLength];
+    cartridge.getBytes(treeOffset, tree);
+    final int alignment = (int) (offset & 1);
+    final long maxNode = size - treeOffset;
+
+    // Count the decoded values instead of storing them
+    long values = (long) length * (8 / bitDepth);
+    long node = 1; // root node
+    while (values > 0) {
+      if (position > size - Integer.BYTES) {
+        return TRUNCATED;
+      }
+      final int paths = cartridge.getInt(position);
+      position += Integer.BYTES;
+      for (int i = 31; i >= 0 && values > 0; i--) {
+        final int direction = (paths >>> i) & 0x1;
+        final int data = node < treeLength
+            ? tree[(int) node]
+            : cartridge.getByte(treeOffset + node);
+        node = (((node + alignment) & ALIGN_BASE_OFFSET) - alignment)
+            + ((((data & CHILD_OFFSET) + 1) << 1) | direction);
+        if (node >= maxNode) {
+          return CORRUPTED; // the child lies past the end of the cartridge
+        }
+        if (((data << direction) & CHILD_IS_LEAF) != 0) {
+          values--;
+          node = 1;
+        }
+      }
+    }
+    return position - offset;
+  }
+
+  /**
+   * Decodes the values of a Huffman-compressed stream. The tree is compiled into a table that maps
+   * the next {@link #TABLE_BITS} bits of the paths to the leaf they reach, so most values are
+   * decoded with a single lookup. Longer paths continue from the node reached after the lookup
+   * one bit at a time, as the BIOS does.
+   */
+  private static final class PathDecoder {
+
+    private static final int TABLE_BITS = 10;
+    private static final int ENTRY_LENGTH = 16; // shift of the number of bits an entry consumes
+    private static final int ENTRY_DATA = 0xFFFF;
+    private static final int ENTRY_IS_NODE = 1 << 31;
+
+    private final Cartridge source;
+    private final long rootNodeOffset;
+    private final long pathsOffset;
+    private final long pathsWords; // number of words within the cartridge, used or not
+
+    // Each entry contains either a leaf value, or the node offset relative to the root where
+    // the path continues (if the entry is negative); and the number of bits it consumes.
+    private final int[] table = new int[1 << TABLE_BITS];
+
+    private long window; // the next path bits, starting at the most-significant bit
+    private int windowBits;
+    private long nextWord;
+    private long consumedBits;
+
+    /**
+     * Constructs a decoder for the tree starting at the current offset of the given cartridge.
+     *
+     * @param source the cartridge, positioned at the tree length byte
+     * @throws IndexOutOfBoundsException if the tree is truncated
+     */
+    PathDecoder(final Cartridge source) {
+      this.source = source;
+      final int treeLength = (source.readUnsignedByte() + 1) << 1;
+      this.rootNodeOffset = source.offset();
+      this.pathsOffset = this.rootNodeOffset + treeLength - 1;
+      this.pathsWords = Math.max(0, (source.size() - this.pathsOffset) / Integer.BYTES);
+      this.compile(this.rootNodeOffset, 0, 0);
+    }
+
+    /**
+     * Fills the table entries of the paths starting with the given prefix.
+     *
+     * @param nodeOffset the offset of the node reached by the prefix
+     * @param prefix the bits of the prefix
+     * @param depth the number of bits in the prefix
+     */
+    private void compile(final long nodeOffset, final int prefix, final int depth) {
+      final byte node = this.source.getByte(nodeOffset);
+      final long childOffset =
+          (nodeOffset & ALIGN_BASE_OFFSET) + (((node & CHILD_OFFSET) + 1) << 1);
+      if (childOffset + 1 >= this.source.size()) {
+        // Malformed trees may point outside the cartridge. Defer to the bit-by-bit walk, which
+        // only fails if such a path is actually taken.
+        this.fill(prefix, depth, this.nodeEntry(nodeOffset, depth));
+        return;
+      }
+      for (int direction = 0; direction < 2; direction++) {
+        final int code = (prefix << 1) | direction;
+        final int length = depth + 1;
+        if (((node << direction) & CHILD_IS_LEAF) != 0) {
+          final int value = this.source.getByte(childOffset + direction) & 0xFF;
+          this.fill(code, length, (length << ENTRY_LENGTH) | value);
+        } else if (length == TABLE_BITS) {
+          this.table[code] = this.nodeEntry(childOffset + direction, length);
+        } else {
+          this.compile(childOffset + direction, code, length);
+        }
+      }
+    }
+
+    private int nodeEntry(final long nodeOffset, final int length) {
+      return ENTRY_IS_NODE | (length << ENTRY_LENGTH) | (int) (nodeOffset - this.rootNodeOffset);
+    }
+
+    private void fill(final int prefix, final int depth, final int entry) {
+      final int shift = TABLE_BITS - depth;
+      Arrays.fill(this.table, prefix << shift, (prefix + 1) << shift, entry);
+    }
+
+    /**
+     * Decodes the next value.
+     *
+     * @return the value of the next leaf, sign-extended as read by the BIOS
+     * @throws IndexOutOfBoundsException if the paths or the tree are truncated
+     */
+    int next() {
+      if (this.windowBits < TABLE_BITS) {
+        this.refill();
+        if (this.windowBits < TABLE_BITS) {
+          // The last paths end near the end of the cartridge
+          return this.walk(this.rootNodeOffset);
+        }
       }
-      final int length = header >>> DECOMPRESSED_LENGTH;
-      final byte[] result = new byte[length];
-
-      final int treeLength = (cartridge.readUnsignedByte() + 1) << 1;
-      final long rootNodeOffset = cartridge.offset();
-      long nodeOffset = rootNodeOffset;
-      cartridge.skip(treeLength - 1); // start of paths
-
-      int index = 0;
-      byte bitCount = 0; // number of bits written to result[index]
-      while (index < length) {
-        final int paths = cartridge.readInt();
-        for (byte i = 31; i >= 0; i--) {
-          final int direction = (paths >>> i) & 0x1; // left or right child
-          final byte node = cartridge.getByte(nodeOffset);
-
-          final int nextDelta = (((node & CHILD_OFFSET) + 1) << 1) | direction;
-          nodeOffset = (nodeOffset & ALIGN_BASE_OFFSET) + nextDelta;
-
-          // If the 7th (6th) bit is set, the left (right) child is a leaf
-          final boolean nextIsLeaf = ((node << direction) & CHILD_IS_LEAF) != 0;
-          if (nextIsLeaf) {
-            final byte value = cartridge.getByte(nodeOffset);
-            result[index] = (byte) ((result[index] << bitDepth) | value);
-            bitCount += bitDepth;
-            if (bitCount == 8) {
-              bitCount = 0;
-              if (++index == length) {
-                break; // we're done, remaining paths are padding
-              }
-            }
-            nodeOffset = rootNodeOffset;
+      final int entry = this.table[(int) (this.window >>> (Long.SIZE - TABLE_BITS))];
+      this.consume((entry >>> ENTRY_LENGTH) & 0xF);
+      if (entry >= 0) {
+        return (byte) entry;
+      }
+      return this.walk(this.rootNodeOffset + (entry & ENTRY_DATA));
+    }
+
+    private int walk(long nodeOffset) {
+      while (true) {
+        if (this.windowBits == 0) {
+          this.refill();
+          if (this.windowBits == 0) {
+            throw new IndexOutOfBoundsException("Paths end past the end of the cartridge");
           }
         }
+        final int direction = (int) (this.window >>> (Long.SIZE - 1));
+        this.consume(1);
+        final byte node = this.source.getByte(nodeOffset);
+        nodeOffset = (nodeOffset & ALIGN_BASE_OFFSET) + ((((node & CHILD_OFFSET) + 1) << 1)
+            | direction);
+        if (((node << direction) & CHILD_IS_LEAF) != 0) {
+          return this.source.getByte(nodeOffset);
+        }
+      }
+    }
+
+    private void refill() {
+      while (this.windowBits <= Integer.SIZE && this.nextWord < this.pathsWords) {
+        final long word = this.source.getInt(this.pathsOffset + this.nextWord++ * Integer.BYTES);
+        this.window |= (word & 0xFFFFFFFFL) << (Integer.SIZE - this.windowBits);
+        this.windowBits += Integer.SIZE;
+      }
+    }
+
+    private void consume(final int bits) {
+      this.window <<= bits;
+      this.windowBits -= bits;
+      this.consumedBits += bits;
+    }
+
+    /**
+     * Returns the offset after the last 32-bit word containing a decoded path.
+     *
+     * @return the end offset of the compressed data
+     */
+    long end() {
+      return this.pathsOffset + ((this.consumedBits + Integer.SIZE - 1) / Integer.SIZE)
+          * Integer.BYTES;
+    }
+  }
+
+  private static final class InputStreamImpl extends GBAInputStream {
+
+    private final int bitDepth;
+    private final PathDecoder decoder;
+    private int value;
+    private int bitCount;
+
+    InputStreamImpl(final Cartridge source, final int header) {
+      super(source, header >>> DECOMPRESSED_LENGTH, "Huffman");
+      this.bitDepth = header & BIT_DEPTH;
+      this.decoder = new PathDecoder(source);
+    }
+
+    @Override
+    void decompress(final byte[] dest, final int destOffset, final int index, final int count) {
+      final PathDecoder decoder = this.decoder;
+      int written = 0;
+      while (written < count) {
+        this.value = (this.value << this.bitDepth) | decoder.next();
+        this.bitCount += this.bitDepth;
+        if (this.bitCount == 8) {
+          dest[destOffset + written++] = (byte) this.value;
+          this.value = 0;
+          this.bitCount = 0;
+        }
       }
-      return result;
-    } catch (final IndexOutOfBoundsException e) {
-      throw new DecompressionException("Got corrupted Huffman-compressed data", e);
     }
   }
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import me.hugmanrique.cartage.Cartridge;
+
+/**
+ * An input stream that decompresses data compressed with the BIOS functions of the GBA and
+ * Nintendo DS incrementally, as it is read.
+ *
+ * <p>Implementations keep the state of the decompression algorithm between reads, so the memory
+ * they use does not depend on the decompressed length.
+ */
+abstract class GBAInputStream extends InputStream {
+
+  /**
+   * The cartridge containing the compressed data, positioned at the next byte to read.
+   */
+  final Cartridge source;
+
+  /**
+   * The number of bytes to decompress.
+   */
+  final int length;
+
+  private final String corruptedMessage;
+  private final byte[] single = new byte[1];
+  private int index;
+  private boolean closed;
+
+  /**
+   * Constructs a stream decompressing data from the given cartridge.
+   *
+   * @param source the cartridge containing the compressed data, positioned after the header. The
+   *     stream takes ownership of the cartridge, and closes it when the stream is closed
+   * @param length the number of bytes to decompress
+   * @param name the name of the compression format
+   */
+  GBAInputStream(final Cartridge source, final int length, final String name) {
+    this.source = source;
+    this.length = length;
+    this.corruptedMessage = "Got corrupted " + name + "-compressed data";
+  }
+
+  /**
+   * Decompresses exactly {@code count} bytes into the given array, starting at the given index.
+   * The offset of the source cartridge is incremented by the number of bytes read.
+   *
+   * @param dest the destination array
+   * @param destOffset the index of the first decompressed byte in the array
+   * @param index the number of bytes decompressed before this call
+   * @param count the number of bytes to decompress
+   * @throws DecompressionException if the compressed data is malformed
+   * @throws IndexOutOfBoundsException if the compressed data is truncated
+   */
+  abstract void decompress(final byte[] dest, final int destOffset, final int index,
+                           final int count);
+
+  @Override
+  public int read() throws IOException {
+    return this.read(this.single, 0, 1) < 0 ? -1 : this.single[0] & 0xFF;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws DecompressionException if the compressed data is malformed or truncated
+   */
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    Objects.checkFromIndexSize(off, len, b.length);
+    this.ensureOpen();
+    if (len == 0) {
+      return 0;
+    }
+    if (this.index == this.length) {
+      return -1;
+    }
+    final int count = Math.min(len, this.length - this.index);
+    try {
+      this.decompress(b, off, this.index, count);
+    } catch (final IndexOutOfBoundsException e) {
+      throw new DecompressionException(this.corruptedMessage, e);
+    }
+    this.index += count;
+    return count;
+  }
+
+  /**
+   * Returns the number of bytes left to decompress. Reading them does not block, but it may
+   * fail if the compressed data is malformed.
+   *
+   * @return the number of remaining bytes
+   * @throws IOException if the stream is closed
+   */
+  @Override
+  public int available() throws IOException {
+    this.ensureOpen();
+    return this.length - this.index;
+  }
+
+  @Override
+  public void close() {
+    if (!this.closed) {
+      this.closed = true;
+      this.source.close();
+    }
+  }
+
+  private void ensureOpen() throws IOException {
+    if (this.closed) {
+      throw new IOException("Stream closed");
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.compression;
+
+import me.hugmanrique.cartage.Cartridge;
+
+/**
+ * An input stream that decompresses LZ77 data incrementally. The last {@link #WINDOW_LENGTH}
+ * decompressed bytes are kept in a ring buffer to resolve back-references, since their 12-bit
+ * displacement cannot reach further back.
+ */
+abstract class GBALZInputStream extends GBAInputStream {
+
+  /**
+   * The maximum displacement of a back-reference, in bytes.
+   */
+  static final int WINDOW_LENGTH = 1 << 12; // 4 KB
+  private static final int WINDOW_MASK = WINDOW_LENGTH - 1;
+  private static final int BLOCK_COUNT = 8;
+  private static final int COMPRESSED = 0x80;
+
+  private final byte[] window = new byte[WINDOW_LENGTH];
+  private int flags;
+  private int blocks; // remaining blocks in the current group
+
+  /**
+   * The number of bytes left to copy from the current back-reference.
+   */
+  int copyCount;
+
+  /**
+   * The displacement of the current back-reference.
+   */
+  int copyDisplacement;
+
+  GBALZInputStream(final Cartridge source, final int length, final String name) {
+    super(source, length, name);
+  }
+
+  /**
+   * Reads a back-reference from the source cartridge, and sets {@link #copyCount} and
+   * {@link #copyDisplacement}.
+   *
+   * @param index the number of bytes decompressed before the back-reference
+   * @throws DecompressionException if the back-reference is invalid
+   */
+  abstract void readReference(final int index);
+
+  @Override
+  void decompress(final byte[] dest, final int destOffset, final int index, final int count) {
+    final byte[] window = this.window;
+    int position = index; // the window index is position & WINDOW_MASK
+    final int end = index + count;
+    while (position < end) {
+      if (this.copyCount > 0) {
+        final int copied = Math.min(this.copyCount, end - position);
+        final int displacement = this.copyDisplacement;
+        for (int i = 0; i < copied; i++, position++) {
+          final byte value = window[(position - displacement) & WINDOW_MASK];
+          window[position & WINDOW_MASK] = value;
+          dest[destOffset + position - index] = value;
+        }
+        this.copyCount -= copied;
+        continue;
+      }
+      if (this.blocks == 0) {
+        this.flags = this.source.readByte();
+        this.blocks = BLOCK_COUNT;
+      }
+      final boolean compressed = (this.flags & COMPRESSED) != 0;
+      this.flags <<= 1;
+      this.blocks--;
+      if (compressed) {
+        this.readReference(position);
+        if (this.copyDisplacement > position) {
+          throw new DecompressionException("Invalid displacement " + this.copyDisplacement
+              + " at offset " + this.source.offset());
+        }
+      } else {
+        final byte value = this.source.readByte();
+        window[position & WINDOW_MASK] = value;
+        dest[destOffset + position - index] = value;
+        position++;
+      }
+    }
+  }
+}
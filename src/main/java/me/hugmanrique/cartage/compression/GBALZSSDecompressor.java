@@ -7,8 +7,14 @@
 
 package me.hugmanrique.cartage.compression;
 
+import static me.hugmanrique.cartage.compression.GBACompression.CORRUPTED;
+import static me.hugmanrique.cartage.compression.GBACompression.INVALID_HEADER;
+import static me.hugmanrique.cartage.compression.GBACompression.TRUNCATED;
+import static me.hugmanrique.cartage.compression.GBACompression.hasTypeByte;
+import static me.hugmanrique.cartage.compression.GBACompression.readLiterals;
 import static me.hugmanrique.cartage.compression.GBACompression.requireTypeByte;
 
+import java.nio.ByteBuffer;
 import me.hugmanrique.cartage.Cartridge;
 import me.hugmanrique.cartage.util.BufferUtils;
 
@@ -17,7 +23,7 @@ import me.hugmanrique.cartage.util.BufferUtils;
  *
  * @see <a href="https://problemkaputt.de/gbatek.htm#biosdecompressionfunctions">GBATEK</a>
  */
-public final class GBALZSSDecompressor implements Decompressor {
+public final class GBALZSSDecompressor extends GBADecompressor {
 
   private static final GBALZSSDecompressor INSTANCE = new GBALZSSDecompressor();
 
@@ -37,54 +43,122 @@ public final class GBALZSSDecompressor implements Decompressor {
   private static final int COUNT_BASELINE = 3;
   private static final int DISP_BASELINE = 1;
 
-  private GBALZSSDecompressor() {}
+  private GBALZSSDecompressor() {
+    super("LZSS");
+  }
+
+  @Override
+  int readHeader(final Cartridge cartridge) {
+    final int header = cartridge.readInt();
+    requireTypeByte(header, TYPE, "LZSS");
+    return header;
+  }
 
   @Override
   @SuppressWarnings("NarrowingCompoundAssignment") // flags <<= 1 is harmless
-  public byte[] decompress(final Cartridge cartridge) throws DecompressionException {
-    try {
-      final int header = cartridge.readInt();
-      requireTypeByte(header, TYPE, "LZSS");
-
-      final int length = header >>> DECOMPRESSED_LENGTH;
-      final byte[] result = new byte[length];
-      int index = 0;
-
-      while (index < length) {
-        // The compressed data is divided in groups of 8 blocks. A flag byte indicates the type of
-        // each block, where a 0 bit specifies the block data byte should be copied verbatim; and
-        // a 1 bit indicates the block is compressed, in which case the 2 data bytes contain
-        // a displacement and the number of bytes to copy within the result array.
-        byte flags = cartridge.readByte();
-        for (int i = 0; i < BLOCK_COUNT && index < length; i++, flags <<= 1) {
-          boolean compressed = (flags & COMPRESSED) != 0;
-          if (compressed) {
-            // Copy count bytes starting at offset (index - displacement) of result into
-            // result starting at offset index. The count and displacement values are
-            // contained in the next 2 bytes. Their layout is a bit unnatural.
-            // Some Pokémon Ruby/Sapphire tilesets have an invalid count value, i.e.
-            // greater than the remaining number of bytes; set this upper bound.
-            final int data = cartridge.readUnsignedShort();
-            final int count = Math.min(((data >>> 4) & 0xF) + COUNT_BASELINE, length - index);
-            final int displacement = DISP_BASELINE
-                + (((data & 0xF) << 8) // the most significant 4 bits
-                    | (data >>> 8)); // the least-significant 8 bits
-
-            final int srcPos = index - displacement;
-            if (srcPos < 0) {
-              throw new DecompressionException("Invalid displacement " + displacement
-                  + " at offset " + (cartridge.offset() - 2));
-            }
-            BufferUtils.copyByteByByte(result, srcPos, index, count);
-            index += count;
-          } else {
-            result[index++] = cartridge.readByte();
+  void decompress(final Cartridge cartridge, final int header, final ByteBuffer dest,
+                  final int base) {
+    final int length = header >>> DECOMPRESSED_LENGTH;
+    int index = 0;
+
+    while (index < length) {
+      // The compressed data is divided in groups of 8 blocks. A flag byte indicates the type of
+      // each block, where a 0 bit specifies the block data byte should be copied verbatim; and
+      // a 1 bit indicates the block is compressed, in which case the 2 data bytes contain
+      // a displacement and the number of bytes to copy within the result array.
+      byte flags = cartridge.readByte();
+      if (flags == 0 && length - index >= BLOCK_COUNT) {
+        // Copy the data bytes of the uncompressed group at once
+        readLiterals(cartridge, dest, base + index, BLOCK_COUNT);
+        index += BLOCK_COUNT;
+        continue;
+      }
+      for (int i = 0; i < BLOCK_COUNT && index < length; i++, flags <<= 1) {
+        boolean compressed = (flags & COMPRESSED) != 0;
+        if (compressed) {
+          // Copy count bytes starting at offset (index - displacement) of result into
+          // result starting at offset index. The count and displacement values are
+          // contained in the next 2 bytes. Their layout is a bit unnatural.
+          // Some Pokémon Ruby/Sapphire tilesets have an invalid count value, i.e.
+          // greater than the remaining number of bytes; set this upper bound.
+          final int data = cartridge.readUnsignedShort();
+          final int count = Math.min(((data >>> 4) & 0xF) + COUNT_BASELINE, length - index);
+          final int displacement = DISP_BASELINE
+              + (((data & 0xF) << 8) // the most significant 4 bits
+                  | (data >>> 8)); // the least-significant 8 bits
+
+          final int srcPos = index - displacement;
+          if (srcPos < 0) {
+            throw new DecompressionException("Invalid displacement " + displacement
+                + " at offset " + (cartridge.offset() - 2));
+          }
+          BufferUtils.copyByteByByte(dest, base + srcPos, base + index, count);
+          index += count;
+        } else {
+          dest.put(base + index++, cartridge.readByte());
+        }
+      }
+    }
+  }
+
+  @Override
+  GBAInputStream newStream(final Cartridge source, final int header) {
+    return new InputStreamImpl(source, header >>> DECOMPRESSED_LENGTH);
+  }
+
+  @Override
+  long compressedLength(final Cartridge cartridge, final long offset) {
+    final long size = cartridge.size();
+    if (offset < 0 || offset > size - Integer.BYTES) {
+      return TRUNCATED;
+    }
+    final int header = cartridge.getInt(offset);
+    if (!hasTypeByte(header, TYPE)) {
+      return INVALID_HEADER;
+    }
+    final int length = header >>> DECOMPRESSED_LENGTH;
+    long position = offset + Integer.BYTES;
+    int index = 0;
+    while (index < length) {
+      if (position >= size) {
+        return TRUNCATED;
+      }
+      int flags = cartridge.getByte(position++);
+      for (int i = 0; i < BLOCK_COUNT && index < length; i++, flags <<= 1) {
+        if ((flags & COMPRESSED) == 0) {
+          if (position >= size) {
+            return TRUNCATED;
           }
+          position++;
+          index++;
+          continue;
+        }
+        if (position > size - Short.BYTES) {
+          return TRUNCATED;
         }
+        final int data = cartridge.getShort(position) & 0xFFFF;
+        position += Short.BYTES;
+        final int displacement = DISP_BASELINE + (((data & 0xF) << 8) | (data >>> 8));
+        if (displacement > index) {
+          return CORRUPTED;
+        }
+        index += Math.min(((data >>> 4) & 0xF) + COUNT_BASELINE, length - index);
       }
-      return result;
-    } catch (final IndexOutOfBoundsException e) {
-      throw new DecompressionException("Got corrupted LZSS-compressed data", e);
+    }
+    return position - offset;
+  }
+
+  private static final class InputStreamImpl extends GBALZInputStream {
+
+    InputStreamImpl(final Cartridge source, final int length) {
+      super(source, length, "LZSS");
+    }
+
+    @Override
+    void readReference(final int index) {
+      final int data = this.source.readUnsignedShort();
+      this.copyCount = Math.min(((data >>> 4) & 0xF) + COUNT_BASELINE, this.length - index);
+      this.copyDisplacement = DISP_BASELINE + (((data & 0xF) << 8) | (data >>> 8));
     }
   }
 }
@@ -7,8 +7,14 @@
 
 package me.hugmanrique.cartage.compression;
 
+import static me.hugmanrique.cartage.compression.GBACompression.CORRUPTED;
+import static me.hugmanrique.cartage.compression.GBACompression.INVALID_HEADER;
+import static me.hugmanrique.cartage.compression.GBACompression.TRUNCATED;
+import static me.hugmanrique.cartage.compression.GBACompression.hasTypeByte;
+import static me.hugmanrique.cartage.compression.GBACompression.readLiterals;
 import static me.hugmanrique.cartage.compression.GBACompression.requireTypeByte;
 
+import java.nio.ByteBuffer;
 import me.hugmanrique.cartage.Cartridge;
 import me.hugmanrique.cartage.util.BufferUtils;
 
@@ -18,7 +24,7 @@ import me.hugmanrique.cartage.util.BufferUtils;
  * @see <a href="https://gbatemp.net/threads/nintendo-ds-gba-compressors.313278/">CUE Nintendo
  *     DS/GBA compressors</a>
  */
-public final class GBALZXDecompressor implements Decompressor {
+public final class GBALZXDecompressor extends GBADecompressor {
 
   private static final GBALZXDecompressor INSTANCE = new GBALZXDecompressor();
 
@@ -40,72 +46,187 @@ public final class GBALZXDecompressor implements Decompressor {
   private static final int COUNT_BASELINE_1 = 0x111;
   private static final int DISP_BASELINE = 1;
 
-  private GBALZXDecompressor() {}
+  private GBALZXDecompressor() {
+    super("LZX");
+  }
+
+  @Override
+  int readHeader(final Cartridge cartridge) {
+    final int header = cartridge.readInt();
+    requireTypeByte(header, TYPE, "LZX");
+    return header;
+  }
 
   @Override
   @SuppressWarnings("NarrowingCompoundAssignment") // flags <<= 1 is harmless
-  public byte[] decompress(final Cartridge cartridge) throws DecompressionException {
-    try {
-      final int header = cartridge.readInt();
-      requireTypeByte(header, TYPE, "LZX");
-
-      final int length = header >>> DECOMPRESSED_LENGTH;
-      final byte[] result = new byte[length];
-      int index = 0;
-
-      while (index < length) {
-        // The compressed data is divided in groups of 8 blocks. A flag byte indicates the type of
-        // each block, where a 0 bit specifies the block data byte should be copied verbatim; and
-        // a 1 bit indicates the block is compressed, in which case the data bytes contain
-        // a displacement and the number of bytes to copy within the result array.
-        byte flags = cartridge.readByte();
-        for (int i = 0; i < BLOCK_COUNT && index < length; i++, flags <<= 1) {
-          boolean compressed = (flags & COMPRESSED) != 0;
-          if (compressed) {
-            // Copy count bytes starting at offset (index - displacement) of result into
-            // result starting at offset index. The type value determines the number of
-            // bytes the count and displacement parameters occupy, as well as the base
-            // amount of bytes to copy.
-            int data = (cartridge.readByte() << 8) | cartridge.readUnsignedByte();
-            final int type = data >>> DATA_TYPE;
-            int baseCount;
-            switch (type) {
-              case 0 -> {
-                // 8-bit count followed by 12-bit displacement
-                data = ((data & 0xFFF) << 8) | cartridge.readUnsignedByte();
-                baseCount = COUNT_BASELINE_0;
-              }
-              case 1 -> {
-                // 16-bit count followed by 12-bit displacement
-                data = ((data & 0xFFF) << 16)
-                    | (cartridge.readUnsignedByte() << 8)
-                    | cartridge.readUnsignedByte();
-                baseCount = COUNT_BASELINE_1;
-              }
-              default -> { // type >= 2 forms part of the count
-                // 4-bit count followed by 12-bit displacement
-                baseCount = 1;
-              }
-            }
+  void decompress(final Cartridge cartridge, final int header, final ByteBuffer dest,
+                  final int base) {
+    final int length = header >>> DECOMPRESSED_LENGTH;
+    int index = 0;
 
-            final int count = (data >>> 12) + baseCount;
-            final int displacement = (data & 0xFFF) + DISP_BASELINE;
-            final int srcPos = index - displacement;
-            if (srcPos < 0) {
-              throw new DecompressionException("Invalid displacement " + displacement
-                  + " at offset " + cartridge.offset());
+    while (index < length) {
+      // The compressed data is divided in groups of 8 blocks. A flag byte indicates the type of
+      // each block, where a 0 bit specifies the block data byte should be copied verbatim; and
+      // a 1 bit indicates the block is compressed, in which case the data bytes contain
+      // a displacement and the number of bytes to copy within the result array.
+      byte flags = cartridge.readByte();
+      if (flags == 0 && length - index >= BLOCK_COUNT) {
+        // Copy the data bytes of the uncompressed group at once
+        readLiterals(cartridge, dest, base + index, BLOCK_COUNT);
+        index += BLOCK_COUNT;
+        continue;
+      }
+      for (int i = 0; i < BLOCK_COUNT && index < length; i++, flags <<= 1) {
+        boolean compressed = (flags & COMPRESSED) != 0;
+        if (compressed) {
+          // Copy count bytes starting at offset (index - displacement) of result into
+          // result starting at offset index. The type value determines the number of
+          // bytes the count and displacement parameters occupy, as well as the base
+          // amount of bytes to copy.
+          int data = (cartridge.readUnsignedByte() << 8) | cartridge.readUnsignedByte();
+          final int type = data >>> DATA_TYPE;
+          int baseCount;
+          switch (type) {
+            case 0 -> {
+              // 8-bit count followed by 12-bit displacement
+              data = ((data & 0xFFF) << 8) | cartridge.readUnsignedByte();
+              baseCount = COUNT_BASELINE_0;
             }
+            case 1 -> {
+              // 16-bit count followed by 12-bit displacement
+              data = ((data & 0xFFF) << 16)
+                  | (cartridge.readUnsignedByte() << 8)
+                  | cartridge.readUnsignedByte();
+              baseCount = COUNT_BASELINE_1;
+            }
+            default -> { // type >= 2 forms part of the count
+              // 4-bit count followed by 12-bit displacement
+              baseCount = 1;
+            }
+          }
 
-            BufferUtils.copyByteByByte(result, srcPos, index, count);
-            index += count;
-          } else {
-            result[index++] = cartridge.readByte();
+          final int count = (data >>> 12) + baseCount;
+          final int displacement = (data & 0xFFF) + DISP_BASELINE;
+          final int srcPos = index - displacement;
+          if (srcPos < 0) {
+            throw new DecompressionException("Invalid displacement " + displacement
+                + " at offset " + cartridge.offset());
           }
+          if (count > length - index) {
+            throw new DecompressionException("Copy of " + count + " bytes at offset "
+                + cartridge.offset() + " exceeds decompressed length " + length);
+          }
+
+          BufferUtils.copyByteByByte(dest, base + srcPos, base + index, count);
+          index += count;
+        } else {
+          dest.put(base + index++, cartridge.readByte());
         }
       }
-      return result;
-    } catch (final IndexOutOfBoundsException e) {
-      throw new DecompressionException("Got corrupted LZX-compressed data", e);
+    }
+  }
+
+  @Override
+  GBAInputStream newStream(final Cartridge source, final int header) {
+    return new InputStreamImpl(source, header >>> DECOMPRESSED_LENGTH);
+  }
+
+  @Override
+  long compressedLength(final Cartridge cartridge, final long offset) {
+    final long size = cartridge.size();
+    if (offset < 0 || offset > size - Integer.BYTES) {
+      return TRUNCATED;
+    }
+    final int header = cartridge.getInt(offset);
+    if (!hasTypeByte(header, TYPE)) {
+      return INVALID_HEADER;
+    }
+    final int length = header >>> DECOMPRESSED_LENGTH;
+    long position = offset + Integer.BYTES;
+    int index = 0;
+    while (index < length) {
+      if (position >= size) {
+        return TRUNCATED;
+      }
+      int flags = cartridge.getByte(position++);
+      for (int i = 0; i < BLOCK_COUNT && index < length; i++, flags <<= 1) {
+        if ((flags & COMPRESSED) == 0) {
+          if (position >= size) {
+            return TRUNCATED;
+          }
+          position++;
+          index++;
+          continue;
+        }
+        if (position > size - Short.BYTES) {
+          return TRUNCATED;
+        }
+        int data = (cartridge.getByte(position) & 0xFF) << 8
+            | (cartridge.getByte(position + 1) & 0xFF);
+        position += Short.BYTES;
+        final int baseCount;
+        switch (data >>> DATA_TYPE) {
+          case 0 -> {
+            if (position >= size) {
+              return TRUNCATED;
+            }
+            data = ((data & 0xFFF) << 8) | (cartridge.getByte(position++) & 0xFF);
+            baseCount = COUNT_BASELINE_0;
+          }
+          case 1 -> {
+            if (position > size - Short.BYTES) {
+              return TRUNCATED;
+            }
+            data = ((data & 0xFFF) << 16)
+                | ((cartridge.getByte(position) & 0xFF) << 8)
+                | (cartridge.getByte(position + 1) & 0xFF);
+            position += Short.BYTES;
+            baseCount = COUNT_BASELINE_1;
+          }
+          default -> baseCount = 1;
+        }
+        final int count = (data >>> 12) + baseCount;
+        final int displacement = (data & 0xFFF) + DISP_BASELINE;
+        if (displacement > index || count > length - index) {
+          return CORRUPTED;
+        }
+        index += count;
+      }
+    }
+    return position - offset;
+  }
+
+  private static final class InputStreamImpl extends GBALZInputStream {
+
+    InputStreamImpl(final Cartridge source, final int length) {
+      super(source, length, "LZX");
+    }
+
+    @Override
+    void readReference(final int index) {
+      final Cartridge source = this.source;
+      int data = (source.readUnsignedByte() << 8) | source.readUnsignedByte();
+      final int baseCount;
+      switch (data >>> DATA_TYPE) {
+        case 0 -> {
+          data = ((data & 0xFFF) << 8) | source.readUnsignedByte();
+          baseCount = COUNT_BASELINE_0;
+        }
+        case 1 -> {
+          data = ((data & 0xFFF) << 16)
+              | (source.readUnsignedByte() << 8)
+              | source.readUnsignedByte();
+          baseCount = COUNT_BASELINE_1;
+        }
+        default -> baseCount = 1;
+      }
+      final int count = (data >>> 12) + baseCount;
+      if (count > this.length - index) {
+        throw new DecompressionException("Copy of " + count + " bytes at offset "
+            + source.offset() + " exceeds decompressed length " + this.length);
+      }
+      this.copyCount = count;
+      this.copyDisplacement = (data & 0xFFF) + DISP_BASELINE;
     }
   }
 }
@@ -7,8 +7,15 @@
 
 package me.hugmanrique.cartage.compression;
 
+import static me.hugmanrique.cartage.compression.GBACompression.CORRUPTED;
+import static me.hugmanrique.cartage.compression.GBACompression.INVALID_HEADER;
+import static me.hugmanrique.cartage.compression.GBACompression.TRUNCATED;
+import static me.hugmanrique.cartage.compression.GBACompression.hasTypeByte;
+import static me.hugmanrique.cartage.compression.GBACompression.readLiterals;
 import static me.hugmanrique.cartage.compression.GBACompression.requireTypeByte;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import me.hugmanrique.cartage.Cartridge;
 
 /**
@@ -16,7 +23,7 @@ import me.hugmanrique.cartage.Cartridge;
  *
  * @see <a href="https://problemkaputt.de/gbatek.htm#biosdecompressionfunctions">GBATEK</a>
  */
-public final class GBARLDecompressor implements Decompressor {
+public final class GBARLDecompressor extends GBADecompressor {
 
   private static final GBARLDecompressor INSTANCE = new GBARLDecompressor();
 
@@ -36,42 +43,126 @@ public final class GBARLDecompressor implements Decompressor {
   private static final int REPEAT_BASELINE = 3;
   private static final int COPY_BASELINE = 1;
 
-  private GBARLDecompressor() {}
+  private GBARLDecompressor() {
+    super("RL");
+  }
+
+  @Override
+  int readHeader(final Cartridge cartridge) {
+    final int header = cartridge.readInt();
+    requireTypeByte(header, TYPE, "RL");
+    return header;
+  }
+
+  @Override
+  void decompress(final Cartridge cartridge, final int header, final ByteBuffer dest,
+                  final int base) {
+    final int length = header >>> DECOMPRESSED_LENGTH;
+    int index = 0;
+
+    while (index < length) {
+      // The compressed data is made out of variable-length runs. The sign bit of the first byte
+      // of each run specifies whether the run contents should be interpreted verbatim (0), or
+      // a given byte should be repeated a number of times (1). The remaining bits specify
+      // the length of the run.
+      final byte flag = cartridge.readByte();
+      final boolean repeat = (flag & REPEAT_RUN) != 0;
+      final int runLength = (flag & RUN_LENGTH) + (repeat ? REPEAT_BASELINE : COPY_BASELINE);
+      if (runLength > length - index) {
+        throw new DecompressionException("Run of " + runLength + " bytes at offset "
+            + (cartridge.offset() - 1) + " exceeds decompressed length " + length);
+      }
+
+      if (repeat) {
+        byte value = cartridge.readByte();
+        for (int i = 0; i < runLength; i++) {
+          dest.put(base + index++, value);
+        }
+      } else {
+        readLiterals(cartridge, dest, base + index, runLength);
+        index += runLength;
+      }
+    }
+  }
+
+  @Override
+  GBAInputStream newStream(final Cartridge source, final int header) {
+    return new InputStreamImpl(source, header >>> DECOMPRESSED_LENGTH);
+  }
 
   @Override
-  public byte[] decompress(final Cartridge cartridge) throws DecompressionException {
-    try {
-      final int header = cartridge.readInt();
-      requireTypeByte(header, TYPE, "RL");
-
-      final int length = header >>> DECOMPRESSED_LENGTH;
-      final byte[] result = new byte[length];
-      int index = 0;
-
-      while (index < length) {
-        // The compressed data is made out of variable-length runs. The sign bit of the first byte
-        // of each run specifies whether the run contents should be interpreted verbatim (0), or
-        // a given byte should be repeated a number of times (1). The remaining bits specify
-        // the length of the run.
-        final byte flag = cartridge.readByte();
-        final boolean repeat = (flag & REPEAT_RUN) != 0;
-        final int runLength = flag & RUN_LENGTH;
-
-        if (repeat) {
-          byte value = cartridge.readByte();
-          for (int i = 0; i < runLength + REPEAT_BASELINE; i++) {
-            result[index++] = value;
+  long compressedLength(final Cartridge cartridge, final long offset) {
+    final long size = cartridge.size();
+    if (offset < 0 || offset > size - Integer.BYTES) {
+      return TRUNCATED;
+    }
+    final int header = cartridge.getInt(offset);
+    if (!hasTypeByte(header, TYPE)) {
+      return INVALID_HEADER;
+    }
+    final int length = header >>> DECOMPRESSED_LENGTH;
+    long position = offset + Integer.BYTES;
+    int index = 0;
+    while (index < length) {
+      if (position >= size) {
+        return TRUNCATED;
+      }
+      final byte flag = cartridge.getByte(position++);
+      final int runLength = flag & RUN_LENGTH;
+      final int count;
+      if ((flag & REPEAT_RUN) != 0) {
+        count = runLength + REPEAT_BASELINE;
+        position++;
+      } else {
+        count = runLength + COPY_BASELINE;
+        position += count;
+      }
+      if (count > length - index) {
+        return CORRUPTED;
+      }
+      if (position > size) {
+        return TRUNCATED;
+      }
+      index += count;
+    }
+    return position - offset;
+  }
+
+  private static final class InputStreamImpl extends GBAInputStream {
+
+    private boolean repeat;
+    private byte value;
+    private int runLength; // remaining bytes in the current run
+
+    InputStreamImpl(final Cartridge source, final int length) {
+      super(source, length, "RL");
+    }
+
+    @Override
+    void decompress(final byte[] dest, final int destOffset, final int index, final int count) {
+      int written = 0;
+      while (written < count) {
+        if (this.runLength == 0) {
+          final byte flag = this.source.readByte();
+          this.repeat = (flag & REPEAT_RUN) != 0;
+          this.runLength = (flag & RUN_LENGTH) + (this.repeat ? REPEAT_BASELINE : COPY_BASELINE);
+          if (this.runLength > this.length - index - written) {
+            throw new DecompressionException("Run of " + this.runLength + " bytes at offset "
+                + (this.source.offset() - 1) + " exceeds decompressed length " + this.length);
           }
-        } else {
-          // TODO Replace by array copy, segments don't provide this yet.
-          for (int i = 0; i < runLength + COPY_BASELINE; i++) {
-            result[index++] = cartridge.readByte();
+          if (this.repeat) {
+            this.value = this.source.readByte();
           }
         }
+        final int copied = Math.min(this.runLength, count - written);
+        if (this.repeat) {
+          Arrays.fill(dest, destOffset + written, destOffset + written + copied, this.value);
+        } else {
+          this.source.readBytes(dest, destOffset + written, copied);
+        }
+        this.runLength -= copied;
+        written += copied;
       }
-      return result;
-    } catch (final IndexOutOfBoundsException e) {
-      throw new DecompressionException("Got corrupted RL-compressed data", e);
     }
   }
 }
@@ -0,0 +1,409 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.dat;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import jdk.incubator.foreign.MemoryAccess;
+import jdk.incubator.foreign.MemorySegment;
+import me.hugmanrique.cartage.Cartridge;
+import me.hugmanrique.cartage.hash.HashAlgorithm;
+import me.hugmanrique.cartage.hash.Hashes;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * An index of the ROMs listed in a Logiqx XML DAT file (e.g. the ones published by No-Intro),
+ * which matches cartridge hashes to DAT entries.
+ *
+ * <p>Entries are stored in a compact binary format, sorted by CRC32 and then by SHA-1, in
+ * column-oriented arrays. Lookups are binary searches over these arrays, so they take logarithmic
+ * time and create no per-entry objects. Entries are identified by their position in the index.
+ *
+ * <p>The binary format can be {@linkplain #write(Path) written} to a file and later {@linkplain
+ * #map(Path) mapped} into memory, which avoids parsing the DAT file again and keeps the index
+ * off-heap. Instances of this class are immutable, and can be queried from multiple threads.
+ */
+public final class DatIndex implements AutoCloseable {
+
+  static final int MAGIC = 0x58444443; // "CDDX" in little-endian
+  static final int VERSION = 1;
+  static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+  static final int SHA1_LENGTH = 20;
+  static final int HEADER_LENGTH = 16;
+  static final int ENTRY_LENGTH = Integer.BYTES + SHA1_LENGTH + Long.BYTES + Integer.BYTES * 2;
+
+  private static final byte[] UNKNOWN_SHA1 = new byte[SHA1_LENGTH];
+  private static final int COUNT_ADDR = 0x8;
+  private static final int POOL_LENGTH_ADDR = 0xC;
+
+  /**
+   * Parses the DAT file at the given path.
+   *
+   * @param path the path
+   * @return the index
+   * @throws IOException if an I/O error occurs, or the file is malformed
+   */
+  public static DatIndex parse(final Path path) throws IOException {
+    requireNonNull(path);
+    try (var stream = Files.newInputStream(path)) {
+      return parse(stream);
+    }
+  }
+
+  /**
+   * Parses a DAT file from the given stream. The stream is not closed.
+   *
+   * <p>The file is parsed as a stream of events, so memory usage is proportional to the size of
+   * the resulting index rather than to the size of the XML document. Document type declarations
+   * are not processed. ROMs without a CRC32 (e.g. undumped ones) are skipped.
+   *
+   * @param stream the input stream
+   * @return the index
+   * @throws IOException if an I/O error occurs, or the file is malformed
+   */
+  public static DatIndex parse(final InputStream stream) throws IOException {
+    requireNonNull(stream);
+    final var factory = XMLInputFactory.newFactory();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    final var builder = new DatIndexBuilder();
+    try {
+      final XMLStreamReader reader = factory.createXMLStreamReader(stream);
+      try {
+        String game = "";
+        while (reader.hasNext()) {
+          if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+            continue;
+          }
+          switch (reader.getLocalName()) {
+            case "game", "machine" -> game = Objects.requireNonNullElse(
+                reader.getAttributeValue(null, "name"), "");
+            case "rom" -> addRom(reader, game, builder);
+            default -> { }
+          }
+        }
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException e) {
+      throw new IOException("Malformed DAT file", e);
+    }
+    return new DatIndex(MemorySegment.ofArray(builder.build()).share());
+  }
+
+  private static void addRom(final XMLStreamReader reader, final String game,
+                             final DatIndexBuilder builder) throws IOException {
+    final String crc = reader.getAttributeValue(null, "crc");
+    if (crc == null) {
+      return;
+    }
+    final String sha1 = reader.getAttributeValue(null, "sha1");
+    final String size = reader.getAttributeValue(null, "size");
+    final String name = reader.getAttributeValue(null, "name");
+    try {
+      builder.add(Integer.parseUnsignedInt(crc, 16),
+          (sha1 != null) ? parseHex(sha1, SHA1_LENGTH) : null,
+          (size != null) ? Long.parseLong(size) : -1,
+          game, Objects.requireNonNullElse(name, ""));
+    } catch (NumberFormatException e) {
+      throw new IOException("Invalid ROM attributes at line "
+          + reader.getLocation().getLineNumber(), e);
+    }
+  }
+
+  private static byte[] parseHex(final String hex, final int length) {
+    if (hex.length() != length << 1) {
+      throw new NumberFormatException("Expected " + (length << 1) + " hex digits, got " + hex);
+    }
+    final byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      bytes[i] = (byte) Integer.parseInt(hex, i << 1, (i << 1) + 2, 16);
+    }
+    return bytes;
+  }
+
+  /**
+   * Maps the index at the given path into memory in read-only mode. The file is unmapped when
+   * the index is closed.
+   *
+   * @param path the path
+   * @return the mapped index
+   * @throws IOException if an I/O error occurs, or the file does not contain a valid index
+   * @see #write(Path)
+   */
+  public static DatIndex map(final Path path) throws IOException {
+    requireNonNull(path);
+    final long size = Files.size(path);
+    if (size < HEADER_LENGTH) {
+      throw new IOException("Invalid DAT index, file is too small");
+    }
+    final var segment = MemorySegment.mapFile(path, 0, size, FileChannel.MapMode.READ_ONLY);
+    try {
+      final int magic = MemoryAccess.getIntAtOffset(segment, 0, ORDER);
+      final int version = MemoryAccess.getIntAtOffset(segment, 0x4, ORDER);
+      if (magic != MAGIC || version != VERSION) {
+        throw new IOException("Invalid DAT index, got magic " + Integer.toHexString(magic)
+            + " and version " + version);
+      }
+      final long count = Integer.toUnsignedLong(
+          MemoryAccess.getIntAtOffset(segment, COUNT_ADDR, ORDER));
+      final long poolLength = Integer.toUnsignedLong(
+          MemoryAccess.getIntAtOffset(segment, POOL_LENGTH_ADDR, ORDER));
+      if (HEADER_LENGTH + count * ENTRY_LENGTH + poolLength != size) {
+        throw new IOException("Invalid DAT index, expected " + count + " entries and "
+            + poolLength + " name bytes in " + size + " bytes");
+      }
+      return new DatIndex(segment.share());
+    } catch (IOException | RuntimeException e) {
+      segment.close();
+      throw e;
+    }
+  }
+
+  private final MemorySegment segment;
+  private final int count;
+  private final long sha1sAddr;
+  private final long sizesAddr;
+  private final long gameNamesAddr;
+  private final long romNamesAddr;
+  private final long poolAddr;
+
+  private DatIndex(final MemorySegment segment) {
+    this.segment = segment;
+    this.count = MemoryAccess.getIntAtOffset(segment, COUNT_ADDR, ORDER);
+    this.sha1sAddr = HEADER_LENGTH + (long) this.count * Integer.BYTES;
+    this.sizesAddr = this.sha1sAddr + (long) this.count * SHA1_LENGTH;
+    this.gameNamesAddr = this.sizesAddr + (long) this.count * Long.BYTES;
+    this.romNamesAddr = this.gameNamesAddr + (long) this.count * Integer.BYTES;
+    this.poolAddr = this.romNamesAddr + (long) this.count * Integer.BYTES;
+  }
+
+  /**
+   * Returns the number of entries in this index.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return this.count;
+  }
+
+  /**
+   * Finds the first entry with the given CRC32.
+   *
+   * @param crc32 the CRC32 value
+   * @return the index of the entry, or {@code -1} if none is found
+   */
+  public int find(final int crc32) {
+    final int index = this.lowerBound(crc32, null);
+    return (index < this.count && this.crc32(index) == crc32) ? index : -1;
+  }
+
+  /**
+   * Finds the entry with the given CRC32 and SHA-1.
+   *
+   * @param crc32 the CRC32 value
+   * @param sha1 the SHA-1 value
+   * @return the index of the entry, or {@code -1} if none is found
+   * @throws IllegalArgumentException if {@code sha1} is not 20 bytes long
+   */
+  public int find(final int crc32, final byte[] sha1) {
+    if (sha1.length != SHA1_LENGTH) {
+      throw new IllegalArgumentException("Expected " + SHA1_LENGTH + "-byte SHA-1, got "
+          + sha1.length + " bytes");
+    }
+    final int index = this.lowerBound(crc32, sha1);
+    return (index < this.count && this.compare(index, crc32, sha1) == 0) ? index : -1;
+  }
+
+  /**
+   * Finds the entry with the given hash values. If the SHA-1 hash is present, both the CRC32 and
+   * SHA-1 values must match, unless no entry with that CRC32 has a matching SHA-1 and one of them
+   * has an unknown SHA-1, in which case that entry is returned.
+   *
+   * @param hashes the hash values, including at least the CRC32
+   * @return the index of the entry, or {@code -1} if none is found
+   * @throws IllegalArgumentException if the CRC32 value is not present
+   */
+  public int find(final Hashes hashes) {
+    final byte[] crc32 = hashes.get(HashAlgorithm.CRC32);
+    final int crc = ByteBuffer.wrap(crc32).getInt();
+    if (!hashes.algorithms().contains(HashAlgorithm.SHA_1)) {
+      return this.find(crc);
+    }
+    final int index = this.find(crc, hashes.get(HashAlgorithm.SHA_1));
+    if (index >= 0) {
+      return index;
+    }
+    // Unknown SHA-1 values are all zeros, so they sort first among the entries with this CRC32
+    final int first = this.find(crc);
+    return (first >= 0 && this.compare(first, crc, UNKNOWN_SHA1) == 0) ? first : -1;
+  }
+
+  /**
+   * Finds the entry matching the contents of the given cartridge. The CRC32 and SHA-1 hashes are
+   * computed in a single pass, and entries with an unknown SHA-1 match on the CRC32 alone.
+   *
+   * @param cartridge the cartridge
+   * @return the index of the entry, or {@code -1} if none is found
+   * @throws IllegalStateException if the cartridge is closed
+   */
+  public int match(final Cartridge cartridge) {
+    return this.find(cartridge.hash(HashAlgorithm.CRC32, HashAlgorithm.SHA_1));
+  }
+
+  private int lowerBound(final int crc32, final byte @Nullable [] sha1) {
+    int low = 0;
+    int high = this.count;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (this.compare(mid, crc32, sha1) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private int compare(final int index, final int crc32, final byte @Nullable [] sha1) {
+    final int result = Integer.compareUnsigned(this.crc32(index), crc32);
+    if (result != 0 || sha1 == null) {
+      return result;
+    }
+    final long addr = this.sha1sAddr + (long) index * SHA1_LENGTH;
+    for (int i = 0; i < SHA1_LENGTH; i++) {
+      final int diff = Byte.toUnsignedInt(MemoryAccess.getByteAtOffset(this.segment, addr + i))
+          - Byte.toUnsignedInt(sha1[i]);
+      if (diff != 0) {
+        return diff;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Returns the CRC32 of the given entry.
+   *
+   * @param index the index of the entry
+   * @return the CRC32 value
+   * @throws IndexOutOfBoundsException if the index is out of bounds
+   */
+  public int crc32(final int index) {
+    return MemoryAccess.getIntAtOffset(this.segment,
+        HEADER_LENGTH + (long) this.checkIndex(index) * Integer.BYTES, ORDER);
+  }
+
+  /**
+   * Returns the SHA-1 of the given entry.
+   *
+   * @param index the index of the entry
+   * @return the SHA-1 value, all zeros if unknown
+   * @throws IndexOutOfBoundsException if the index is out of bounds
+   */
+  public byte[] sha1(final int index) {
+    return this.segment.asSlice(
+        this.sha1sAddr + (long) this.checkIndex(index) * SHA1_LENGTH, SHA1_LENGTH).toByteArray();
+  }
+
+  /**
+   * Returns the ROM size of the given entry.
+   *
+   * @param index the index of the entry
+   * @return the size in bytes, or {@code -1} if unknown
+   * @throws IndexOutOfBoundsException if the index is out of bounds
+   */
+  public long romSize(final int index) {
+    return MemoryAccess.getLongAtOffset(this.segment,
+        this.sizesAddr + (long) this.checkIndex(index) * Long.BYTES, ORDER);
+  }
+
+  /**
+   * Returns the name of the game the given entry belongs to.
+   *
+   * @param index the index of the entry
+   * @return the game name
+   * @throws IndexOutOfBoundsException if the index is out of bounds
+   */
+  public String gameName(final int index) {
+    return this.name(this.gameNamesAddr, index);
+  }
+
+  /**
+   * Returns the ROM name of the given entry.
+   *
+   * @param index the index of the entry
+   * @return the ROM name
+   * @throws IndexOutOfBoundsException if the index is out of bounds
+   */
+  public String romName(final int index) {
+    return this.name(this.romNamesAddr, index);
+  }
+
+  private String name(final long offsetsAddr, final int index) {
+    final long offset = Integer.toUnsignedLong(MemoryAccess.getIntAtOffset(this.segment,
+        offsetsAddr + (long) this.checkIndex(index) * Integer.BYTES, ORDER));
+    final long addr = this.poolAddr + offset;
+    final int length = Short.toUnsignedInt(
+        MemoryAccess.getShortAtOffset(this.segment, addr, ORDER));
+    final byte[] bytes = this.segment.asSlice(addr + Short.BYTES, length).toByteArray();
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private int checkIndex(final int index) {
+    return Objects.checkIndex(index, this.count);
+  }
+
+  /**
+   * Writes this index to the given path, replacing the file if it already exists.
+   *
+   * @param path the path
+   * @throws IOException if an I/O error occurs
+   * @see #map(Path)
+   */
+  public void write(final Path path) throws IOException {
+    requireNonNull(path);
+    try (var channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      final ByteBuffer buffer = this.segment.asByteBuffer();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+  }
+
+  /**
+   * Closes this index, unmapping its file if it was {@linkplain #map(Path) mapped}.
+   *
+   * @throws IllegalStateException if the index is already closed
+   */
+  @Override
+  public void close() {
+    this.segment.close();
+  }
+
+  @Override
+  public String toString() {
+    return "DatIndex{"
+        + "size=" + count
+        + '}';
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.dat;
+
+import static me.hugmanrique.cartage.dat.DatIndex.HEADER_LENGTH;
+import static me.hugmanrique.cartage.dat.DatIndex.MAGIC;
+import static me.hugmanrique.cartage.dat.DatIndex.ORDER;
+import static me.hugmanrique.cartage.dat.DatIndex.SHA1_LENGTH;
+import static me.hugmanrique.cartage.dat.DatIndex.VERSION;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Accumulates DAT entries in primitive arrays and lays them out in the binary format read by
+ * {@link DatIndex}, sorted by CRC32 and then by SHA-1.
+ *
+ * <p>This class is not thread-safe.
+ */
+final class DatIndexBuilder {
+
+  private static final int INITIAL_CAPACITY = 1 << 10;
+  private static final int MAX_NAME_LENGTH = 0xFFFF;
+
+  private int count;
+  private int[] crcs = new int[INITIAL_CAPACITY];
+  private byte[] sha1s = new byte[INITIAL_CAPACITY * SHA1_LENGTH];
+  private long[] sizes = new long[INITIAL_CAPACITY];
+  private int[] gameNames = new int[INITIAL_CAPACITY];
+  private int[] romNames = new int[INITIAL_CAPACITY];
+  private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+
+  // Consecutive ROMs usually belong to the same game, so reuse its pool entry
+  private @Nullable String lastGame;
+  private int lastGameName;
+
+  /**
+   * Adds an entry to the index.
+   *
+   * @param crc32 the CRC32 of the ROM
+   * @param sha1 the SHA-1 of the ROM, or {@code null} if unknown
+   * @param size the size of the ROM in bytes
+   * @param game the name of the game the ROM belongs to
+   * @param rom the name of the ROM
+   * @throws IOException if any of the names is too long to be stored
+   */
+  void add(final int crc32, final byte @Nullable [] sha1, final long size,
+           final String game, final String rom) throws IOException {
+    if (this.count == this.crcs.length) {
+      this.grow();
+    }
+    final int index = this.count++;
+    this.crcs[index] = crc32;
+    if (sha1 != null) {
+      System.arraycopy(sha1, 0, this.sha1s, index * SHA1_LENGTH, SHA1_LENGTH);
+    }
+    this.sizes[index] = size;
+    if (!game.equals(this.lastGame)) {
+      this.lastGame = game;
+      this.lastGameName = this.intern(game);
+    }
+    this.gameNames[index] = this.lastGameName;
+    this.romNames[index] = this.intern(rom);
+  }
+
+  private void grow() {
+    final int capacity = this.crcs.length << 1;
+    this.crcs = Arrays.copyOf(this.crcs, capacity);
+    this.sha1s = Arrays.copyOf(this.sha1s, capacity * SHA1_LENGTH);
+    this.sizes = Arrays.copyOf(this.sizes, capacity);
+    this.gameNames = Arrays.copyOf(this.gameNames, capacity);
+    this.romNames = Arrays.copyOf(this.romNames, capacity);
+  }
+
+  private int intern(final String name) throws IOException {
+    final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > MAX_NAME_LENGTH) {
+      throw new IOException("Name exceeds " + MAX_NAME_LENGTH + " bytes: " + name);
+    }
+    final int offset = this.pool.size();
+    this.pool.write(bytes.length & 0xFF);
+    this.pool.write(bytes.length >>> 8);
+    this.pool.write(bytes, 0, bytes.length);
+    return offset;
+  }
+
+  /**
+   * Lays out the added entries.
+   *
+   * @return the binary index
+   * @throws IOException if the index does not fit in an array
+   */
+  byte[] build() throws IOException {
+    final int count = this.count;
+    final long length = HEADER_LENGTH + (long) count * DatIndex.ENTRY_LENGTH + this.pool.size();
+    if (length > Integer.MAX_VALUE - 8) {
+      throw new IOException("Too many entries: " + count);
+    }
+    final int[] order = this.sortedOrder();
+    final ByteBuffer image = ByteBuffer.allocate((int) length).order(ORDER);
+    image.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(this.pool.size());
+    for (int index : order) {
+      image.putInt(this.crcs[index]);
+    }
+    for (int index : order) {
+      image.put(this.sha1s, index * SHA1_LENGTH, SHA1_LENGTH);
+    }
+    for (int index : order) {
+      image.putLong(this.sizes[index]);
+    }
+    for (int index : order) {
+      image.putInt(this.gameNames[index]);
+    }
+    for (int index : order) {
+      image.putInt(this.romNames[index]);
+    }
+    image.put(this.pool.toByteArray());
+    return image.array();
+  }
+
+  private int[] sortedOrder() {
+    final int count = this.count;
+    // Sort by unsigned CRC32, keeping the entry index in the lower half. Flipping the sign bit
+    // makes the signed order of the keys match the unsigned order of the CRC32 values.
+    final long[] keys = new long[count];
+    for (int i = 0; i < count; i++) {
+      keys[i] = ((long) (this.crcs[i] ^ Integer.MIN_VALUE) << 32) | i;
+    }
+    Arrays.sort(keys);
+    final int[] order = new int[count];
+    for (int i = 0; i < count; i++) {
+      order[i] = (int) keys[i];
+    }
+    // Break ties by SHA-1. CRC32 collisions are rare, so runs are short.
+    for (int start = 0; start < count; ) {
+      int end = start + 1;
+      while (end < count && (keys[end] >>> 32) == (keys[start] >>> 32)) {
+        end++;
+      }
+      for (int i = start + 1; i < end; i++) {
+        final int index = order[i];
+        int j = i - 1;
+        while (j >= start && this.compareSha1(order[j], index) > 0) {
+          order[j + 1] = order[j];
+          j--;
+        }
+        order[j + 1] = index;
+      }
+      start = end;
+    }
+    return order;
+  }
+
+  private int compareSha1(final int first, final int second) {
+    final int firstOffset = first * SHA1_LENGTH;
+    final int secondOffset = second * SHA1_LENGTH;
+    return Arrays.compareUnsigned(
+        this.sha1s, firstOffset, firstOffset + SHA1_LENGTH,
+        this.sha1s, secondOffset, secondOffset + SHA1_LENGTH);
+  }
+}
@@ -11,9 +11,14 @@ import static java.util.Objects.requireNonNull;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import jdk.incubator.foreign.MemorySegment;
 import me.hugmanrique.cartage.Cartridge;
+import me.hugmanrique.cartage.CartridgeArena;
+import me.hugmanrique.cartage.hash.MultiHasher;
+import me.hugmanrique.cartage.util.ChannelUtils;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
@@ -38,6 +43,21 @@ public interface GBCartridge extends Cartridge {
     return new GBCartridgeImpl(data);
   }
 
+  /**
+   * Reads a cartridge from the given path, updating the given hasher with the file contents as
+   * they are read. Each chunk is hashed right after it is read, so the file is only traversed once.
+   *
+   * @param path the path
+   * @param hasher the hasher
+   * @return the read cartridge
+   * @throws IOException if an I/O error occurs
+   */
+  static GBCartridge read(final Path path, final MultiHasher hasher) throws IOException {
+    requireNonNull(hasher);
+    byte[] data = hasher.readAllBytes(path);
+    return new GBCartridgeImpl(data);
+  }
+
   /**
    * Reads a cartridge from the given stream. The stream is not closed.
    *
@@ -51,6 +71,130 @@ public interface GBCartridge extends Cartridge {
     return new GBCartridgeImpl(data);
   }
 
+  /**
+   * Reads a cartridge from the given stream, updating the given hasher with the stream contents as
+   * they are read. The stream is not closed.
+   *
+   * @param stream the input stream
+   * @param hasher the hasher
+   * @return the read cartridge
+   * @throws IOException if an I/O error occurs
+   */
+  static GBCartridge read(final InputStream stream, final MultiHasher hasher)
+      throws IOException {
+    requireNonNull(hasher);
+    byte[] data = hasher.readAllBytes(stream);
+    return new GBCartridgeImpl(data);
+  }
+
+  /**
+   * Maps the cartridge at the given path into memory in read-only mode.
+   *
+   * <p>Unlike {@link #read(Path)}, the file contents are not copied into the heap. Instead, pages
+   * are loaded by the operating system as they are accessed, which makes reading a few fields (e.g.
+   * the header) considerably cheaper. Any attempt to modify the returned cartridge fails with
+   * {@link UnsupportedOperationException}. The file is unmapped when the cartridge is closed.
+   *
+   * @param path the path
+   * @return the mapped cartridge
+   * @throws IOException if an I/O error occurs
+   */
+  static GBCartridge map(final Path path) throws IOException {
+    return map(path, FileChannel.MapMode.READ_ONLY);
+  }
+
+  /**
+   * Maps the cartridge at the given path into memory in the given mode.
+   *
+   * <p>In {@link FileChannel.MapMode#READ_WRITE} mode, modifications to the cartridge are
+   * eventually written to the file, which allows modifying (e.g. patching) a file without copying
+   * it into the heap. In {@link FileChannel.MapMode#PRIVATE} mode, modifications are only visible
+   * to the returned cartridge. The file is unmapped when the cartridge is closed.
+   *
+   * @param path the path
+   * @param mode the mapping mode
+   * @return the mapped cartridge
+   * @throws IOException if an I/O error occurs
+   * @see #map(Path) to map a file in read-only mode
+   */
+  static GBCartridge map(final Path path, final FileChannel.MapMode mode) throws IOException {
+    requireNonNull(path);
+    requireNonNull(mode);
+    var segment = MemorySegment.mapFile(path, 0, Files.size(path), mode);
+    return new GBCartridgeImpl(segment);
+  }
+
+  /**
+   * Reads the header of the cartridge at the given path, without reading the rest of the file.
+   *
+   * <p>Only the first {@link Header#END_ADDR} bytes of the file are read. The returned header is
+   * read-only, and any attempt to modify it fails with {@link UnsupportedOperationException}.
+   *
+   * @param path the path
+   * @return the read header
+   * @throws java.io.EOFException if the file is too small to contain a header
+   * @throws IOException if an I/O error occurs
+   */
+  static Header readHeader(final Path path) throws IOException {
+    requireNonNull(path);
+    try (var channel = FileChannel.open(path)) {
+      return readHeader(channel);
+    }
+  }
+
+  /**
+   * Reads the header of the cartridge contained in the given channel, using positional reads.
+   * The position of the channel is not modified.
+   *
+   * @param channel the file channel
+   * @return the read header
+   * @throws java.io.EOFException if the file is too small to contain a header
+   * @throws IOException if an I/O error occurs
+   * @see #readHeader(Path)
+   */
+  static Header readHeader(final FileChannel channel) throws IOException {
+    requireNonNull(channel);
+    final byte[] data = ChannelUtils.readFully(channel, 0, Header.END_ADDR);
+    final var segment = MemorySegment.ofArray(data).withAccessModes(MemorySegment.READ);
+    return new GBCartridgeImpl(segment).header();
+  }
+
+  /**
+   * Allocates a cartridge of the given size off-heap, initially filled with zeros.
+   *
+   * <p>The contents are not managed by the garbage collector, and are released when the cartridge
+   * is closed.
+   *
+   * @param size the size of the cartridge, in bytes
+   * @return the allocated cartridge
+   * @throws IllegalArgumentException if {@code size} is less than 0
+   */
+  static GBCartridge allocate(final long size) {
+    return new GBCartridgeImpl(MemorySegment.allocateNative(size));
+  }
+
+  /**
+   * Allocates a cartridge of the given size off-heap, initially filled with zeros, and registers
+   * it in the given arena.
+   *
+   * @param size the size of the cartridge, in bytes
+   * @param arena the arena that closes the cartridge
+   * @return the allocated cartridge
+   * @throws IllegalArgumentException if {@code size} is less than 0
+   * @throws IllegalStateException if the arena is closed
+   * @see #allocate(long)
+   */
+  static GBCartridge allocate(final long size, final CartridgeArena arena) {
+    requireNonNull(arena);
+    final GBCartridge cartridge = allocate(size);
+    try {
+      return arena.register(cartridge);
+    } catch (final IllegalStateException e) {
+      cartridge.close();
+      throw e;
+    }
+  }
+
   /**
    * Returns the cartridge header.
    *
@@ -58,6 +202,61 @@ public interface GBCartridge extends Cartridge {
    */
   Header header();
 
+  /**
+   * Creates a new Game Boy cartridge that shares this cartridge's contents.
+   *
+   * @return the new cartridge
+   * @throws IllegalStateException if the cartridge is closed
+   * @see Cartridge#duplicate()
+   */
+  @Override
+  GBCartridge duplicate();
+
+  /**
+   * Creates a new, read-only Game Boy cartridge that shares this cartridge's contents.
+   *
+   * @return the new cartridge
+   * @throws IllegalStateException if the cartridge is closed
+   * @see Cartridge#asReadOnly()
+   */
+  @Override
+  GBCartridge asReadOnly();
+
+  /**
+   * Creates a new Game Boy cartridge that shares this cartridge's contents, and prevents the
+   * contents from being released until it is closed.
+   *
+   * @return the new cartridge
+   * @throws IllegalStateException if the cartridge is closed
+   * @see Cartridge#acquire()
+   */
+  @Override
+  GBCartridge acquire();
+
+  /**
+   * Sets whether the checksums of the cartridge are maintained incrementally. Disabled by default.
+   *
+   * <p>When enabled, the write methods of this cartridge keep the sums of the bytes covered by the
+   * global checksum and the header checksum up to date. After the first call, {@link
+   * #computeChecksum()}, {@link Header#computeChecksum()} and {@link Header#setChecksum()} no
+   * longer scan the ROM, while each write costs additional time proportional to its length.
+   *
+   * <p>Cartridges created afterwards by {@link #duplicate()}, {@link #slice(long, long)} and
+   * {@link #acquire()} share the tracked state. Concurrent writes must be synchronized
+   * externally.
+   *
+   * @param enabled {@code true} to enable incremental checksum maintenance
+   */
+  void setChecksumTracking(final boolean enabled);
+
+  /**
+   * Returns whether the checksums of the cartridge are maintained incrementally.
+   *
+   * @return {@code true} if checksum tracking is enabled
+   * @see #setChecksumTracking(boolean)
+   */
+  boolean isChecksumTracking();
+
   /**
    * Computes the checksum of the ROM contents.
    *
@@ -114,12 +313,15 @@ public interface GBCartridge extends Cartridge {
      * @return the type with the given identifier, or {@code null} if unknown
      */
     public static @Nullable Type of(final byte value) {
+      return BY_VALUE[value & 0xFF];
+    }
+
+    private static final @Nullable Type[] BY_VALUE = new Type[256];
+
+    static {
       for (var type : values()) {
-        if (type.value() == value) {
-          return type;
-        }
+        BY_VALUE[type.value() & 0xFF] = type;
       }
-      return null;
     }
 
     private final byte value;
@@ -153,6 +355,11 @@ public interface GBCartridge extends Cartridge {
    */
   interface Header {
 
+    /**
+     * The address past the last byte of the header. All header fields are located before it.
+     */
+    int END_ADDR = 0x150;
+
     /**
      * Returns the address to which the console's boot procedure jumps after initialization.
      *
@@ -226,6 +433,15 @@ public interface GBCartridge extends Cartridge {
      */
     void setValidLogo();
 
+    /**
+     * Returns whether the Nintendo logo bitmap is valid, i.e. the console's boot procedure accepts
+     * it.
+     *
+     * @return {@code true} if the logo is valid
+     * @see #logo() for details on verification
+     */
+    boolean hasValidLogo();
+
     /**
      * Returns the 16-character uppercase cartridge title.
      *
@@ -503,5 +719,109 @@ public interface GBCartridge extends Cartridge {
      * @param checksum the global checksum
      */
     void setGlobalChecksum(final short checksum);
+
+    /**
+     * Decodes all the header fields into an immutable snapshot. Later changes to the header are
+     * not reflected in the returned snapshot.
+     *
+     * @return the snapshot
+     */
+    Snapshot snapshot();
+
+    /**
+     * An immutable copy of the fields of a Game Boy cartridge header.
+     *
+     * @param entryPoint the entry point address, or {@code null} if the entry point area contains
+     *     no jump instruction
+     * @param hasValidLogo whether the Nintendo logo is valid
+     * @param title the cartridge title
+     * @param manufacturer the manufacturer code
+     * @param gbc the GBC flag value
+     * @param licensee the licensee code
+     * @param sgb the SGB flag value
+     * @param type the cartridge type, or {@code null} if unknown
+     * @param romSize the ROM size code
+     * @param ramSize the RAM size code
+     * @param destination the destination code
+     * @param version the version
+     * @param checksum the header checksum
+     * @param globalChecksum the global checksum
+     * @see Header#snapshot()
+     */
+    record Snapshot(@Nullable Short entryPoint, boolean hasValidLogo, String title,
+                    String manufacturer, byte gbc, short licensee, byte sgb, @Nullable Type type,
+                    byte romSize, byte ramSize, boolean destination, byte version, byte checksum,
+                    short globalChecksum) {
+
+      /**
+       * Creates a header snapshot.
+       */
+      public Snapshot {
+        requireNonNull(title);
+        requireNonNull(manufacturer);
+      }
+
+      /**
+       * Returns whether the cartridge supports GBC functions.
+       *
+       * @return {@code true} if the cartridge supports GBC functions
+       * @see Header#hasColorFunctions()
+       */
+      public boolean hasColorFunctions() {
+        return this.gbc == GBCartridgeHeaderImpl.SUPPORTS_GBC || this.requiresColor();
+      }
+
+      /**
+       * Returns whether the cartridge requires a GBC to run.
+       *
+       * @return {@code true} if the cartridge requires a GBC to run
+       * @see Header#requiresColor()
+       */
+      public boolean requiresColor() {
+        return this.gbc == GBCartridgeHeaderImpl.REQUIRES_GBC;
+      }
+
+      /**
+       * Returns whether the cartridge supports SGB functions.
+       *
+       * @return {@code true} if the cartridge supports SGB functions
+       * @see Header#hasSuperFunctions()
+       */
+      public boolean hasSuperFunctions() {
+        return this.sgb == GBCartridgeHeaderImpl.SUPPORTS_SGB;
+      }
+
+      /**
+       * Returns the ROM size.
+       *
+       * @return the ROM size, in bytes
+       * @throws IllegalArgumentException if the ROM size code is invalid
+       * @see Header#romSizeBytes()
+       */
+      public int romSizeBytes() {
+        return GBCartridgeHeaderImpl.romSizeBytes(this.romSize);
+      }
+
+      /**
+       * Returns the RAM size, if any.
+       *
+       * @return the RAM size, in bytes
+       * @throws IllegalStateException if the RAM size code is invalid
+       * @see Header#ramSizeBytes()
+       */
+      public int ramSizeBytes() {
+        return GBCartridgeHeaderImpl.ramSizeBytes(this.ramSize);
+      }
+
+      /**
+       * Returns whether the cartridge is supposed to be sold in Japan.
+       *
+       * @return {@code true} if the cartridge is solely distributed in Japan
+       * @see Header#japaneseDistribution()
+       */
+      public boolean japaneseDistribution() {
+        return !this.destination;
+      }
+    }
   }
 }
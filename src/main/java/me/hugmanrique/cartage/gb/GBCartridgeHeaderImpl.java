@@ -9,7 +9,10 @@ package me.hugmanrique.cartage.gb;
 
 import static java.util.Objects.requireNonNull;
 
+import java.util.Arrays;
+import me.hugmanrique.cartage.util.ByteSumTracker;
 import me.hugmanrique.cartage.util.StringUtils;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * The default {@link GBCartridge.Header} implementation.
@@ -34,10 +37,10 @@ record GBCartridgeHeaderImpl(GBCartridge cartridge) implements GBCartridge.Heade
   private static final int MANUFACTURER_ADDR = 0x13F;
   private static final int MANUFACTURER_LENGTH = 4;
   private static final int GBC_FLAG_ADDR = 0x143;
-  private static final byte SUPPORTS_GBC = (byte) 0x80;
-  private static final byte REQUIRES_GBC = (byte) 0xC0;
+  static final byte SUPPORTS_GBC = (byte) 0x80;
+  static final byte REQUIRES_GBC = (byte) 0xC0;
   private static final int SGB_FLAG_ADDR = 0x146;
-  private static final byte SUPPORTS_SGB = 0x3;
+  static final byte SUPPORTS_SGB = 0x3;
   private static final int OLD_LICENSEE_ADDR = 0x14B;
   private static final byte USE_NEW_LICENSEE = 0x33;
   private static final int NEW_LICENSEE_ADDR = 0x144;
@@ -49,8 +52,8 @@ record GBCartridgeHeaderImpl(GBCartridge cartridge) implements GBCartridge.Heade
   private static final int DEST_CODE_ADDR = 0x14A;
   private static final int VERSION_ADDR = 0x14C;
   private static final int CHECKSUM_ADDR = 0x14D; // header checksum
-  private static final int CHECKSUM_START = 0x134;
-  private static final int CHECKSUM_END = 0x14C;
+  static final int CHECKSUM_START = 0x134;
+  static final int CHECKSUM_END = 0x14C;
 
   private static String prepareString(final String value, final int expectedLength) {
     requireNonNull(value);
@@ -151,6 +154,11 @@ record GBCartridgeHeaderImpl(GBCartridge cartridge) implements GBCartridge.Heade
     this.setLogo(VALID_LOGO);
   }
 
+  @Override
+  public boolean hasValidLogo() {
+    return Arrays.equals(this.logo(), VALID_LOGO);
+  }
+
   @Override
   public String title() {
     return this.cartridge.getAscii(TITLE_ADDR, TITLE_LENGTH);
@@ -247,7 +255,17 @@ record GBCartridgeHeaderImpl(GBCartridge cartridge) implements GBCartridge.Heade
 
   @Override
   public int romSizeBytes() {
-    byte code = this.romSize();
+    return romSizeBytes(this.romSize());
+  }
+
+  /**
+   * Returns the ROM size identified by the given code.
+   *
+   * @param code the ROM size code
+   * @return the ROM size, in bytes
+   * @throws IllegalArgumentException if the code is invalid
+   */
+  static int romSizeBytes(final byte code) {
     return switch (code) {
       case 0, 1, 2, 3, 4, 5, 6, 7, 8 -> BASE_ROM_SIZE << code;
       case 0x52 -> 0x120000;
@@ -272,7 +290,17 @@ record GBCartridgeHeaderImpl(GBCartridge cartridge) implements GBCartridge.Heade
 
   @Override
   public int ramSizeBytes() {
-    byte code = this.ramSize();
+    return ramSizeBytes(this.ramSize());
+  }
+
+  /**
+   * Returns the RAM size identified by the given code.
+   *
+   * @param code the RAM size code
+   * @return the RAM size, in bytes
+   * @throws IllegalStateException if the code is invalid
+   */
+  static int ramSizeBytes(final byte code) {
     return switch (code) {
       case 0 -> 0;
       case 1 -> 1 << 11; // 2 KB
@@ -325,6 +353,12 @@ record GBCartridgeHeaderImpl(GBCartridge cartridge) implements GBCartridge.Heade
 
   @Override
   public byte computeChecksum() {
+    final @Nullable ByteSumTracker tracker =
+        this.cartridge instanceof GBCartridgeImpl impl ? impl.checksumTracker() : null;
+    if (tracker != null) {
+      final long sum = tracker.sum(GBCartridgeImpl.HEADER_SUM);
+      return (byte) -(sum + CHECKSUM_END - CHECKSUM_START + 1);
+    }
     byte checksum = 0;
     for (int offset = CHECKSUM_START; offset <= CHECKSUM_END; offset++) {
       checksum -= (byte) (this.cartridge.getByte(offset) + 1);
@@ -344,6 +378,20 @@ record GBCartridgeHeaderImpl(GBCartridge cartridge) implements GBCartridge.Heade
     return checksum;
   }
 
+  @Override
+  public GBCartridge.Header.Snapshot snapshot() {
+    @Nullable Short entryPoint;
+    try {
+      entryPoint = this.entryPoint();
+    } catch (final IllegalStateException e) {
+      entryPoint = null;
+    }
+    return new GBCartridge.Header.Snapshot(entryPoint, this.hasValidLogo(), this.title(),
+        this.manufacturer(), this.gbc(), this.licensee(), this.sgb(), this.type(), this.romSize(),
+        this.ramSize(), this.destination(), this.version(), this.checksum(),
+        this.globalChecksum());
+  }
+
   // Global checksum is big endian
 
   @Override
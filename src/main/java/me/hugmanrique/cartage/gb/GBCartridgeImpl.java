@@ -8,21 +8,44 @@
 package me.hugmanrique.cartage.gb;
 
 import static java.util.Objects.requireNonNull;
+import static me.hugmanrique.cartage.gb.GBCartridgeHeaderImpl.CHECKSUM_END;
+import static me.hugmanrique.cartage.gb.GBCartridgeHeaderImpl.CHECKSUM_START;
 import static me.hugmanrique.cartage.gb.GBCartridgeHeaderImpl.GLOBAL_CHECKSUM_ADDR;
 
 import java.nio.ByteOrder;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import jdk.incubator.foreign.MemorySegment;
 import me.hugmanrique.cartage.AbstractCartridge;
+import me.hugmanrique.cartage.util.ByteSumTracker;
+import me.hugmanrique.cartage.util.TrackedCartridgeView;
+import me.hugmanrique.cartage.util.NumberUtils;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * The default {@link GBCartridge} implementation.
  */
 final class GBCartridgeImpl extends AbstractCartridge implements GBCartridge {
 
+  // Ranges of the tracked sums, the global checksum bytes are skipped
+  static final int HEADER_SUM = 0;
+  private static final int GLOBAL_HEAD_SUM = 1;
+  private static final int GLOBAL_TAIL_SUM = 2;
+
+  private static final int SUM_CHUNK_LENGTH = 1 << 14; // 16 KB
+  // Shared cartridges with larger ROMs are summed in parallel
+  private static final int PARALLEL_THRESHOLD = 1 << 20; // 1 MB
+
   private final GBCartridge.Header header;
+  private @Nullable ByteSumTracker checksumTracker;
 
   GBCartridgeImpl(final byte[] data) {
-    super(MemorySegment.ofArray(requireNonNull(data)), ByteOrder.LITTLE_ENDIAN);
+    this(MemorySegment.ofArray(requireNonNull(data)));
+  }
+
+  GBCartridgeImpl(final MemorySegment segment) {
+    super(segment, ByteOrder.LITTLE_ENDIAN);
     this.header = new GBCartridgeHeaderImpl(this);
   }
 
@@ -31,16 +54,146 @@ final class GBCartridgeImpl extends AbstractCartridge implements GBCartridge {
     return this.header;
   }
 
+  @Override
+  public GBCartridge duplicate() {
+    return (GBCartridge) super.duplicate();
+  }
+
+  @Override
+  public GBCartridge asReadOnly() {
+    return (GBCartridge) super.asReadOnly();
+  }
+
+  @Override
+  public GBCartridge acquire() {
+    return (GBCartridge) super.acquire();
+  }
+
+  @Override
+  protected GBCartridgeImpl createView(final MemorySegment segment) {
+    final var view = new GBCartridgeImpl(segment);
+    view.checksumTracker = this.checksumTracker;
+    view.setWriteHooksEnabled(this.checksumTracker != null);
+    return view;
+  }
+
+  @Override
+  protected AbstractCartridge createSlice(final MemorySegment segment, final long offset) {
+    final ByteSumTracker tracker = this.checksumTracker;
+    return (tracker != null)
+        ? new TrackedCartridgeView(segment, this.order(), tracker, offset)
+        : super.createSlice(segment, offset);
+  }
+
+  @Override
+  public void setChecksumTracking(final boolean enabled) {
+    this.checksumTracker = enabled ? new ByteSumTracker(this,
+        CHECKSUM_START, CHECKSUM_END + 1,
+        0, GLOBAL_CHECKSUM_ADDR,
+        GLOBAL_CHECKSUM_ADDR + 2, this.size()) : null;
+    this.setWriteHooksEnabled(enabled);
+  }
+
+  @Override
+  public boolean isChecksumTracking() {
+    return this.checksumTracker != null;
+  }
+
+  /**
+   * Returns the tracker of the checksummed byte sums, if checksum tracking is enabled.
+   *
+   * @return the tracker, or {@code null} if disabled
+   */
+  @Nullable ByteSumTracker checksumTracker() {
+    return this.checksumTracker;
+  }
+
+  @Override
+  protected void beforeWrite(final long offset, final long length) {
+    if (this.checksumTracker != null) {
+      this.checksumTracker.beforeWrite(offset, length);
+    }
+  }
+
+  @Override
+  protected void afterWrite(final long offset, final long length) {
+    if (this.checksumTracker != null) {
+      this.checksumTracker.afterWrite(offset, length);
+    }
+  }
+
   @Override
   public short computeChecksum() {
     final int length = this.header.romSizeBytes();
-    short checksum = 0;
-    for (int i = 0; i < length; i++) {
-      if (i == GLOBAL_CHECKSUM_ADDR || i == GLOBAL_CHECKSUM_ADDR + 1) {
-        continue; // skip checksum bytes
+    Objects.checkFromIndexSize(0, length, this.size());
+    final ByteSumTracker tracker = this.checksumTracker;
+    if (tracker != null) {
+      // The tracked sums skip the checksum bytes and cover the whole cartridge, which is
+      // usually as large as the ROM (which is always larger than the header).
+      final int tailLength = (int) (this.size() - length);
+      return (short) (tracker.sum(GLOBAL_HEAD_SUM) + tracker.sum(GLOBAL_TAIL_SUM)
+          - sumBytes(this, length, tailLength));
+    }
+
+    long sum;
+    if (length >= PARALLEL_THRESHOLD && this.isShared()) {
+      try (var cartridge = this.acquire()) {
+        sum = ForkJoinPool.commonPool().invoke(new ChecksumTask(cartridge, 0, length));
+      }
+    } else {
+      sum = sumBytes(this, 0, length);
+    }
+    // Skip checksum bytes, the sum is only significant modulo 2^16
+    for (int i = GLOBAL_CHECKSUM_ADDR; i < Math.min(length, GLOBAL_CHECKSUM_ADDR + 2); i++) {
+      sum -= this.getUnsignedByte(i);
+    }
+    return (short) sum;
+  }
+
+  /**
+   * Returns the sum of the unsigned bytes in the given range of the cartridge.
+   *
+   * @param cartridge the cartridge
+   * @param offset the offset of the first byte
+   * @param length the number of bytes to sum
+   * @return the sum
+   */
+  private static long sumBytes(final GBCartridge cartridge, final int offset, final int length) {
+    final byte[] chunk = new byte[Math.min(length, SUM_CHUNK_LENGTH)];
+    long sum = 0;
+    for (int done = 0; done < length; done += chunk.length) {
+      final int chunkLength = Math.min(chunk.length, length - done);
+      cartridge.getBytes(offset + done, chunk, 0, chunkLength);
+      sum += NumberUtils.sumUnsignedBytes(chunk, 0, chunkLength);
+    }
+    return sum;
+  }
+
+  /**
+   * Sums the bytes of a shared cartridge by recursively splitting the range into halves.
+   */
+  private static final class ChecksumTask extends RecursiveTask<Long> {
+
+    private final GBCartridge cartridge;
+    private final int offset;
+    private final int length;
+
+    private ChecksumTask(final GBCartridge cartridge, final int offset, final int length) {
+      this.cartridge = cartridge;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    @Override
+    protected Long compute() {
+      if (this.length <= PARALLEL_THRESHOLD) {
+        return sumBytes(this.cartridge, this.offset, this.length);
       }
-      checksum += (short) (this.getByte(i) & 0xFF);
+      final int half = this.length >>> 1;
+      final var left = new ChecksumTask(this.cartridge, this.offset, half);
+      left.fork();
+      final var right = new ChecksumTask(this.cartridge, this.offset + half, this.length - half);
+      return right.compute() + left.join();
     }
-    return checksum;
   }
 }
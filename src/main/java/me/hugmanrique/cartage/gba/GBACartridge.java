@@ -11,9 +11,14 @@ import static java.util.Objects.requireNonNull;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import jdk.incubator.foreign.MemorySegment;
 import me.hugmanrique.cartage.Cartridge;
+import me.hugmanrique.cartage.CartridgeArena;
+import me.hugmanrique.cartage.hash.MultiHasher;
+import me.hugmanrique.cartage.util.ChannelUtils;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
@@ -37,6 +42,21 @@ public interface GBACartridge extends Cartridge {
     return new GBACartridgeImpl(data);
   }
 
+  /**
+   * Reads a cartridge from the given path, updating the given hasher with the file contents as
+   * they are read. Each chunk is hashed right after it is read, so the file is only traversed once.
+   *
+   * @param path the path
+   * @param hasher the hasher
+   * @return the read cartridge
+   * @throws IOException if an I/O error occurs
+   */
+  static GBACartridge read(final Path path, final MultiHasher hasher) throws IOException {
+    requireNonNull(hasher);
+    byte[] data = hasher.readAllBytes(path);
+    return new GBACartridgeImpl(data);
+  }
+
   /**
    * Reads a cartridge from the given stream. The stream is not closed.
    *
@@ -50,6 +70,130 @@ public interface GBACartridge extends Cartridge {
     return new GBACartridgeImpl(data);
   }
 
+  /**
+   * Reads a cartridge from the given stream, updating the given hasher with the stream contents as
+   * they are read. The stream is not closed.
+   *
+   * @param stream the input stream
+   * @param hasher the hasher
+   * @return the read cartridge
+   * @throws IOException if an I/O error occurs
+   */
+  static GBACartridge read(final InputStream stream, final MultiHasher hasher)
+      throws IOException {
+    requireNonNull(hasher);
+    byte[] data = hasher.readAllBytes(stream);
+    return new GBACartridgeImpl(data);
+  }
+
+  /**
+   * Maps the cartridge at the given path into memory in read-only mode.
+   *
+   * <p>Unlike {@link #read(Path)}, the file contents are not copied into the heap. Instead, pages
+   * are loaded by the operating system as they are accessed, which makes reading a few fields (e.g.
+   * the header) considerably cheaper. Any attempt to modify the returned cartridge fails with
+   * {@link UnsupportedOperationException}. The file is unmapped when the cartridge is closed.
+   *
+   * @param path the path
+   * @return the mapped cartridge
+   * @throws IOException if an I/O error occurs
+   */
+  static GBACartridge map(final Path path) throws IOException {
+    return map(path, FileChannel.MapMode.READ_ONLY);
+  }
+
+  /**
+   * Maps the cartridge at the given path into memory in the given mode.
+   *
+   * <p>In {@link FileChannel.MapMode#READ_WRITE} mode, modifications to the cartridge are
+   * eventually written to the file, which allows modifying (e.g. patching) a file without copying
+   * it into the heap. In {@link FileChannel.MapMode#PRIVATE} mode, modifications are only visible
+   * to the returned cartridge. The file is unmapped when the cartridge is closed.
+   *
+   * @param path the path
+   * @param mode the mapping mode
+   * @return the mapped cartridge
+   * @throws IOException if an I/O error occurs
+   * @see #map(Path) to map a file in read-only mode
+   */
+  static GBACartridge map(final Path path, final FileChannel.MapMode mode) throws IOException {
+    requireNonNull(path);
+    requireNonNull(mode);
+    var segment = MemorySegment.mapFile(path, 0, Files.size(path), mode);
+    return new GBACartridgeImpl(segment);
+  }
+
+  /**
+   * Reads the header of the cartridge at the given path, without reading the rest of the file.
+   *
+   * <p>Only the first {@link Header#END_ADDR} bytes of the file are read. The returned header is
+   * read-only, and any attempt to modify it fails with {@link UnsupportedOperationException}.
+   *
+   * @param path the path
+   * @return the read header
+   * @throws java.io.EOFException if the file is too small to contain a header
+   * @throws IOException if an I/O error occurs
+   */
+  static Header readHeader(final Path path) throws IOException {
+    requireNonNull(path);
+    try (var channel = FileChannel.open(path)) {
+      return readHeader(channel);
+    }
+  }
+
+  /**
+   * Reads the header of the cartridge contained in the given channel, using positional reads.
+   * The position of the channel is not modified.
+   *
+   * @param channel the file channel
+   * @return the read header
+   * @throws java.io.EOFException if the file is too small to contain a header
+   * @throws IOException if an I/O error occurs
+   * @see #readHeader(Path)
+   */
+  static Header readHeader(final FileChannel channel) throws IOException {
+    requireNonNull(channel);
+    final byte[] data = ChannelUtils.readFully(channel, 0, Header.END_ADDR);
+    final var segment = MemorySegment.ofArray(data).withAccessModes(MemorySegment.READ);
+    return new GBACartridgeImpl(segment).header();
+  }
+
+  /**
+   * Allocates a cartridge of the given size off-heap, initially filled with zeros.
+   *
+   * <p>The contents are not managed by the garbage collector, and are released when the cartridge
+   * is closed.
+   *
+   * @param size the size of the cartridge, in bytes
+   * @return the allocated cartridge
+   * @throws IllegalArgumentException if {@code size} is less than 0
+   */
+  static GBACartridge allocate(final long size) {
+    return new GBACartridgeImpl(MemorySegment.allocateNative(size));
+  }
+
+  /**
+   * Allocates a cartridge of the given size off-heap, initially filled with zeros, and registers
+   * it in the given arena.
+   *
+   * @param size the size of the cartridge, in bytes
+   * @param arena the arena that closes the cartridge
+   * @return the allocated cartridge
+   * @throws IllegalArgumentException if {@code size} is less than 0
+   * @throws IllegalStateException if the arena is closed
+   * @see #allocate(long)
+   */
+  static GBACartridge allocate(final long size, final CartridgeArena arena) {
+    requireNonNull(arena);
+    final GBACartridge cartridge = allocate(size);
+    try {
+      return arena.register(cartridge);
+    } catch (final IllegalStateException e) {
+      cartridge.close();
+      throw e;
+    }
+  }
+
   /**
    * Returns the cartridge header.
    *
@@ -57,6 +201,73 @@ public interface GBACartridge extends Cartridge {
    */
   Header header();
 
+  /**
+   * Detects the type of the backup media of this cartridge from the library ID strings (e.g.
+   * {@code "FLASH1M_V103"}) that the backup libraries embed in the cartridge.
+   *
+   * <p>The whole cartridge is searched on every call.
+   *
+   * @return the save type, or {@code null} if the cartridge contains no library ID string
+   * @throws IllegalStateException if the cartridge is closed
+   * @see SaveType#EEPROM_64K
+   */
+  @Nullable SaveType saveType();
+
+  /**
+   * Creates a new Game Boy Advance cartridge that shares this cartridge's contents.
+   *
+   * @return the new cartridge
+   * @throws IllegalStateException if the cartridge is closed
+   * @see Cartridge#duplicate()
+   */
+  @Override
+  GBACartridge duplicate();
+
+  /**
+   * Creates a new, read-only Game Boy Advance cartridge that shares this cartridge's contents.
+   *
+   * @return the new cartridge
+   * @throws IllegalStateException if the cartridge is closed
+   * @see Cartridge#asReadOnly()
+   */
+  @Override
+  GBACartridge asReadOnly();
+
+  /**
+   * Creates a new Game Boy Advance cartridge that shares this cartridge's contents, and prevents
+   * the contents from being released until it is closed.
+   *
+   * @return the new cartridge
+   * @throws IllegalStateException if the cartridge is closed
+   * @see Cartridge#acquire()
+   */
+  @Override
+  GBACartridge acquire();
+
+  /**
+   * Sets whether the checksums of the cartridge are maintained incrementally. Disabled by default.
+   *
+   * <p>When enabled, the write methods of this cartridge keep the sum of the bytes covered by the
+   * header checksum up to date. After the first call, {@link Header#computeChecksum()} and {@link
+   * Header#setChecksum()} no longer scan the header, while each write costs additional time
+   * proportional to its length.
+   *
+   * <p>Cartridges created afterwards by {@link #duplicate()}, {@link #slice(long, long)} and
+   * {@link #acquire()} share the tracked state. Concurrent writes must be synchronized
+   * externally.
+   *
+   * @param enabled {@code true} to enable incremental checksum maintenance
+   */
+  void setChecksumTracking(final boolean enabled);
+
+  /**
+   * Returns whether the checksums of the cartridge are maintained incrementally.
+   *
+   * @return {@code true} if checksum tracking is enabled
+   * @see #setChecksumTracking(boolean)
+   */
+  boolean isChecksumTracking();
+
   /**
    * Specifies additional hardware present in the cartridge.
    */
@@ -78,12 +289,15 @@ public interface GBACartridge extends Cartridge {
      * @return the type with the given identifier, or {@code null} if unknown
      */
     public static @Nullable Type of(final byte value) {
+      return BY_VALUE[value & 0xFF];
+    }
+
+    private static final @Nullable Type[] BY_VALUE = new Type[256];
+
+    static {
       for (var type : values()) {
-        if (type.value() == value) {
-          return type;
-        }
+        BY_VALUE[type.value() & 0xFF] = type;
       }
-      return null;
     }
 
     private final byte value;
@@ -121,12 +335,15 @@ public interface GBACartridge extends Cartridge {
      * @return the destination with the given identifier, or {@code null} if unknown
      */
     public static @Nullable Destination of(final byte value) {
+      return BY_VALUE[value & 0xFF];
+    }
+
+    private static final @Nullable Destination[] BY_VALUE = new Destination[256];
+
+    static {
       for (var dest : values()) {
-        if (dest.value() == value) {
-          return dest;
-        }
+        BY_VALUE[dest.value() & 0xFF] = dest;
       }
-      return null;
     }
 
     private final byte value;
@@ -164,12 +381,15 @@ public interface GBACartridge extends Cartridge {
      * @return the type with the given identifier, or {@code null} if unknown
      */
     public static @Nullable DACSType of(final byte value) {
+      return BY_VALUE[value & 0xFF];
+    }
+
+    private static final @Nullable DACSType[] BY_VALUE = new DACSType[256];
+
+    static {
       for (var type : values()) {
-        if (type.value() == value) {
-          return type;
-        }
+        BY_VALUE[type.value() & 0xFF] = type;
       }
-      return null;
     }
 
     private final byte value;
@@ -223,6 +443,11 @@ public interface GBACartridge extends Cartridge {
      */
     int ENTRY_INSTRUCTION_ADDR = 0x8000000;
 
+    /**
+     * The address past the last byte of the header. All header fields are located before it.
+     */
+    int END_ADDR = 0xC0;
+
     /**
      * Returns the address to which the console's boot procedure jumps after initialization.
      *
@@ -300,6 +525,15 @@ public interface GBACartridge extends Cartridge {
      */
     void setValidLogo();
 
+    /**
+     * Returns whether the Nintendo logo bitmap is valid, i.e. the console's boot procedure accepts
+     * it.
+     *
+     * @return {@code true} if the logo is valid
+     * @see #logo() for details on verification
+     */
+    boolean hasValidLogo();
+
     /**
      * Returns the 12-character uppercase cartridge title.
      *
@@ -478,5 +712,48 @@ public interface GBACartridge extends Cartridge {
      * @see #computeChecksum() to compute, but not overwrite, the header checksum
      */
     byte setChecksum();
+
+    /**
+     * Decodes all the header fields into an immutable snapshot. Later changes to the header are
+     * not reflected in the returned snapshot.
+     *
+     * @return the snapshot
+     */
+    Snapshot snapshot();
+
+    /**
+     * An immutable copy of the fields of a Game Boy Advance cartridge header.
+     *
+     * @param entryPoint the entry point address, or {@code null} if the entry point instruction is
+     *     not a {@code B} instruction
+     * @param hasValidLogo whether the Nintendo logo is valid
+     * @param title the cartridge title
+     * @param code the game code
+     * @param type the cartridge type, or {@code null} if unknown
+     * @param shortTitle the short title
+     * @param destination the destination, or {@code null} if unknown
+     * @param licensee the licensee code
+     * @param requiredConsole the required console value
+     * @param dacs the DACS type, or {@code null} if the debugging handler is disabled or the type
+     *     is unknown
+     * @param version the version
+     * @param checksum the header checksum
+     * @see Header#snapshot()
+     */
+    record Snapshot(@Nullable Integer entryPoint, boolean hasValidLogo, String title, String code,
+                    @Nullable Type type, String shortTitle, @Nullable Destination destination,
+                    String licensee, byte requiredConsole, @Nullable DACSType dacs, byte version,
+                    byte checksum) {
+
+      /**
+       * Creates a header snapshot.
+       */
+      public Snapshot {
+        requireNonNull(title);
+        requireNonNull(code);
+        requireNonNull(shortTitle);
+        requireNonNull(licensee);
+      }
+    }
   }
 }
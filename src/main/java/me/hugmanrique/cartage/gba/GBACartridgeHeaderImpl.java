@@ -10,6 +10,7 @@ package me.hugmanrique.cartage.gba;
 import static java.util.Objects.requireNonNull;
 
 import java.nio.ByteBuffer;
+import me.hugmanrique.cartage.util.ByteSumTracker;
 import me.hugmanrique.cartage.util.StringUtils;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -27,6 +28,7 @@ record GBACartridgeHeaderImpl(GBACartridge cartridge) implements GBACartridge.He
   private static final int LOGO_ADDR = 0x4;
   private static final int LOGO_LENGTH = GBACartridge.Header.LOGO_LENGTH;
   private static final int DEBUG_ENABLE_ADDR = 0x9C; // within logo
+  private static final int DEBUG_BITS = 0x84; // bits 2 and 7
   private static final byte ENABLE_DEBUG;
   private static final byte DISABLE_DEBUG;
   static final byte[] VALID_LOGO;
@@ -70,8 +72,8 @@ record GBACartridgeHeaderImpl(GBACartridge cartridge) implements GBACartridge.He
   private static final int DACS_ADDR = 0xB4;
   private static final int VERSION_ADDR = 0xBC;
   private static final int CHECKSUM_ADDR = 0xBD; // header checksum
-  private static final int CHECKSUM_START = 0xA0;
-  private static final int CHECKSUM_END = 0xBC;
+  static final int CHECKSUM_START = 0xA0;
+  static final int CHECKSUM_END = 0xBC;
 
   private static String prepareString(final String value, final int expectedLength,
                                       final boolean pad) {
@@ -160,6 +162,19 @@ record GBACartridgeHeaderImpl(GBACartridge cartridge) implements GBACartridge.He
     this.setLogo(VALID_LOGO);
   }
 
+  @Override
+  public boolean hasValidLogo() {
+    final byte[] logo = this.logo();
+    final int debugOffset = DEBUG_ENABLE_ADDR - LOGO_ADDR;
+    for (int i = 0; i < LOGO_LENGTH; i++) {
+      final int mask = i == debugOffset ? ~DEBUG_BITS & 0xFF : 0xFF;
+      if (((logo[i] ^ VALID_LOGO[i]) & mask) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   @Override
   public String title() {
     return this.cartridge.getAscii(TITLE_ADDR, TITLE_LENGTH);
@@ -274,6 +289,11 @@ record GBACartridgeHeaderImpl(GBACartridge cartridge) implements GBACartridge.He
 
   @Override
   public byte computeChecksum() {
+    final @Nullable ByteSumTracker tracker =
+        this.cartridge instanceof GBACartridgeImpl impl ? impl.checksumTracker() : null;
+    if (tracker != null) {
+      return (byte) (-tracker.sum(GBACartridgeImpl.HEADER_SUM) - 0x19);
+    }
     byte checksum = 0;
     for (int offset = CHECKSUM_START; offset <= CHECKSUM_END; offset++) {
       checksum -= this.cartridge.getByte(offset);
@@ -292,4 +312,13 @@ record GBACartridgeHeaderImpl(GBACartridge cartridge) implements GBACartridge.He
     this.setChecksum(checksum);
     return checksum;
   }
+
+  @Override
+  public GBACartridge.Header.Snapshot snapshot() {
+    final int instr = this.cartridge.getInt(ENTRY_POINT_ADDR);
+    final @Nullable Integer entryPoint = isBranchInstruction(instr) ? this.entryPoint() : null;
+    return new GBACartridge.Header.Snapshot(entryPoint, this.hasValidLogo(), this.title(),
+        this.code(), this.type(), this.shortTitle(), this.destination(), this.licensee(),
+        this.requiredConsole(), this.dacs(), this.version(), this.checksum());
+  }
 }
@@ -8,20 +8,33 @@
 package me.hugmanrique.cartage.gba;
 
 import static java.util.Objects.requireNonNull;
+import static me.hugmanrique.cartage.gba.GBACartridgeHeaderImpl.CHECKSUM_END;
+import static me.hugmanrique.cartage.gba.GBACartridgeHeaderImpl.CHECKSUM_START;
 
 import java.nio.ByteOrder;
 import jdk.incubator.foreign.MemorySegment;
 import me.hugmanrique.cartage.AbstractCartridge;
+import me.hugmanrique.cartage.util.ByteSumTracker;
+import me.hugmanrique.cartage.util.TrackedCartridgeView;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * The default {@link GBACartridge} implementation.
  */
 final class GBACartridgeImpl extends AbstractCartridge implements GBACartridge {
 
+  // Range of the tracked sum
+  static final int HEADER_SUM = 0;
+
   private final GBACartridge.Header header;
+  private @Nullable ByteSumTracker checksumTracker;
 
   GBACartridgeImpl(final byte[] data) {
-    super(MemorySegment.ofArray(requireNonNull(data)), ByteOrder.LITTLE_ENDIAN);
+    this(MemorySegment.ofArray(requireNonNull(data)));
+  }
+
+  GBACartridgeImpl(final MemorySegment segment) {
+    super(segment, ByteOrder.LITTLE_ENDIAN);
     this.header = new GBACartridgeHeaderImpl(this);
   }
 
@@ -29,4 +42,75 @@ final class GBACartridgeImpl extends AbstractCartridge implements GBACartridge {
   public Header header() {
     return this.header;
   }
+
+  @Override
+  public @Nullable SaveType saveType() {
+    return SaveType.detect(this);
+  }
+
+  @Override
+  public GBACartridge duplicate() {
+    return (GBACartridge) super.duplicate();
+  }
+
+  @Override
+  public GBACartridge asReadOnly() {
+    return (GBACartridge) super.asReadOnly();
+  }
+
+  @Override
+  public GBACartridge acquire() {
+    return (GBACartridge) super.acquire();
+  }
+
+  @Override
+  protected GBACartridgeImpl createView(final MemorySegment segment) {
+    final var view = new GBACartridgeImpl(segment);
+    view.checksumTracker = this.checksumTracker;
+    view.setWriteHooksEnabled(this.checksumTracker != null);
+    return view;
+  }
+
+  @Override
+  protected AbstractCartridge createSlice(final MemorySegment segment, final long offset) {
+    final ByteSumTracker tracker = this.checksumTracker;
+    return (tracker != null)
+        ? new TrackedCartridgeView(segment, this.order(), tracker, offset)
+        : super.createSlice(segment, offset);
+  }
+
+  @Override
+  public void setChecksumTracking(final boolean enabled) {
+    this.checksumTracker = enabled
+        ? new ByteSumTracker(this, CHECKSUM_START, CHECKSUM_END + 1) : null;
+    this.setWriteHooksEnabled(enabled);
+  }
+
+  @Override
+  public boolean isChecksumTracking() {
+    return this.checksumTracker != null;
+  }
+
+  /**
+   * Returns the tracker of the header checksum byte sum, if checksum tracking is enabled.
+   *
+   * @return the tracker, or {@code null} if disabled
+   */
+  @Nullable ByteSumTracker checksumTracker() {
+    return this.checksumTracker;
+  }
+
+  @Override
+  protected void beforeWrite(final long offset, final long length) {
+    if (this.checksumTracker != null) {
+      this.checksumTracker.beforeWrite(offset, length);
+    }
+  }
+
+  @Override
+  protected void afterWrite(final long offset, final long length) {
+    if (this.checksumTracker != null) {
+      this.checksumTracker.afterWrite(offset, length);
+    }
+  }
 }
@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.gba;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import jdk.incubator.foreign.MappedMemorySegments;
+import jdk.incubator.foreign.MemorySegment;
+import me.hugmanrique.cartage.AbstractCartridge;
+
+/**
+ * The contents of the backup media of a Game Boy Advance cartridge, backed by a memory-mapped
+ * save file.
+ *
+ * <p>Modifications are written to the mapped file. The operating system eventually writes them
+ * back to the storage device; {@link #force()} does it immediately, but only for the pages
+ * modified since the last call, so syncing a save file costs time proportional to the number of
+ * modified bytes instead of the file size. Writes through views and slices are tracked too.
+ *
+ * <p>The accessors use the little-endian byte order by default.
+ */
+public final class SaveData extends AbstractCartridge {
+
+  /**
+   * The length of the pages in which modifications are tracked.
+   */
+  public static final int PAGE_LENGTH = 1 << 12; // 4 KB
+
+  private static final byte ERASED = (byte) 0xFF;
+
+  /**
+   * Opens the save file at the given path, creating it if it doesn't exist. If the file is
+   * smaller than the given type's size, it is extended with erased ({@code 0xFF}) bytes. If it is
+   * larger, only the first {@link SaveType#size()} bytes are mapped.
+   *
+   * @param path the path
+   * @param type the save type
+   * @return the save data
+   * @throws IOException if an I/O error occurs
+   */
+  public static SaveData open(final Path path, final SaveType type) throws IOException {
+    requireNonNull(path);
+    requireNonNull(type);
+    try (var channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      final long size = channel.size();
+      if (size < type.size()) {
+        final var padding = ByteBuffer.allocate((int) (type.size() - size));
+        while (padding.hasRemaining()) {
+          padding.put(ERASED);
+        }
+        padding.flip();
+        long position = size;
+        while (padding.hasRemaining()) {
+          position += channel.write(padding, position);
+        }
+      }
+    }
+    final var segment = MemorySegment.mapFile(path, 0, type.size(),
+        FileChannel.MapMode.READ_WRITE);
+    return new SaveData(segment, type, new DirtyPages(), 0);
+  }
+
+  /**
+   * Opens the existing save file at the given path, whose save type is inferred from its size.
+   *
+   * @param path the path
+   * @return the save data
+   * @throws IOException if an I/O error occurs, or if no save type has the size of the file
+   * @see SaveType#ofSize(long)
+   */
+  public static SaveData open(final Path path) throws IOException {
+    final long size = Files.size(path);
+    final SaveType type = SaveType.ofSize(size);
+    if (type == null) {
+      throw new IOException("Cannot infer the save type of " + path + " of size " + size);
+    }
+    return open(path, type);
+  }
+
+  private final SaveType type;
+  private final DirtyPages dirtyPages;
+  // Offset of this cartridge in the save data, non-zero for slices
+  private final long base;
+
+  private SaveData(final MemorySegment segment, final SaveType type,
+                   final DirtyPages dirtyPages, final long base) {
+    super(segment, ByteOrder.LITTLE_ENDIAN);
+    this.type = type;
+    this.dirtyPages = dirtyPages;
+    this.base = base;
+    this.setWriteHooksEnabled(true);
+  }
+
+  /**
+   * Returns the save type.
+   *
+   * @return the save type
+   */
+  public SaveType type() {
+    return this.type;
+  }
+
+  /**
+   * Returns whether any page has been modified since the last call to {@link #force()}.
+   *
+   * @return {@code true} if there are modified pages
+   */
+  public boolean isDirty() {
+    return this.dirtyPages.count() > 0;
+  }
+
+  /**
+   * Returns the number of pages modified since the last call to {@link #force()}.
+   *
+   * @return the number of modified pages
+   */
+  public int dirtyPageCount() {
+    return this.dirtyPages.count();
+  }
+
+  /**
+   * Writes the pages modified since the last call to the storage device, and waits until done.
+   * If this is a slice of the save data, only the pages it overlaps are written.
+   *
+   * @throws IllegalStateException if the save data is closed
+   */
+  public void force() {
+    if (!this.isAlive()) {
+      throw new IllegalStateException("This save data is closed");
+    }
+    final MemorySegment segment = this.segment();
+    if (segment.byteSize() == 0) {
+      return;
+    }
+    // Pages are numbered from the start of the save data. Forcing part of a page writes all of
+    // it, since the mapping starts at the beginning of the file.
+    final int[] runs = this.dirtyPages.drain((int) (this.base / PAGE_LENGTH),
+        (int) ((this.base + segment.byteSize() - 1) / PAGE_LENGTH) + 1);
+    for (int i = 0; i < runs.length; i += 2) {
+      final long start = Math.max(0, (long) runs[i] * PAGE_LENGTH - this.base);
+      final long end = Math.min(segment.byteSize(),
+          (long) runs[i + 1] * PAGE_LENGTH - this.base);
+      MappedMemorySegments.force(segment.asSlice(start, end - start));
+    }
+  }
+
+  /**
+   * Erases the save data, setting all bytes to {@code 0xFF}.
+   */
+  public void erase() {
+    final byte[] erased = new byte[PAGE_LENGTH];
+    Arrays.fill(erased, ERASED);
+    for (long offset = 0; offset < this.size(); offset += PAGE_LENGTH) {
+      this.setBytes(offset, erased, 0, (int) Math.min(PAGE_LENGTH, this.size() - offset));
+    }
+  }
+
+  /**
+   * Closes the save data, writing the modified pages to the storage device first if this
+   * instance owns the mapping.
+   */
+  @Override
+  public void close() {
+    if (this.isAlive() && this.segment().hasAccessModes(MemorySegment.CLOSE)) {
+      this.force();
+    }
+    super.close();
+  }
+
+  @Override
+  protected SaveData createView(final MemorySegment segment) {
+    return new SaveData(segment, this.type, this.dirtyPages, this.base);
+  }
+
+  @Override
+  protected SaveData createSlice(final MemorySegment segment, final long offset) {
+    return new SaveData(segment, this.type, this.dirtyPages, this.base + offset);
+  }
+
+  @Override
+  protected void afterWrite(final long offset, final long length) {
+    if (length > 0) {
+      final long start = this.base + offset;
+      this.dirtyPages.mark((int) (start / PAGE_LENGTH),
+          (int) ((start + length - 1) / PAGE_LENGTH) + 1);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "SaveData{"
+        + "type=" + type
+        + ", dirtyPages=" + dirtyPages.count()
+        + '}';
+  }
+
+  /**
+   * The set of modified pages, shared by all views of the save data.
+   */
+  private static final class DirtyPages {
+
+    private final BitSet pages = new BitSet();
+
+    synchronized void mark(final int from, final int to) {
+      this.pages.set(from, to);
+    }
+
+    synchronized int count() {
+      return this.pages.cardinality();
+    }
+
+    /**
+     * Clears the pages in the given range, and returns the start (inclusive) and end (exclusive)
+     * indices of each run of consecutive pages that were set in it, in pairs.
+     */
+    synchronized int[] drain(final int from, final int to) {
+      int[] runs = new int[8];
+      int length = 0;
+      for (int start = this.pages.nextSetBit(from); start >= 0 && start < to; ) {
+        final int end = Math.min(this.pages.nextClearBit(start), to);
+        if (length == runs.length) {
+          runs = Arrays.copyOf(runs, length << 1);
+        }
+        runs[length++] = start;
+        runs[length++] = end;
+        start = this.pages.nextSetBit(end);
+      }
+      this.pages.clear(from, to);
+      return Arrays.copyOf(runs, length);
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.gba;
+
+import me.hugmanrique.cartage.Cartridge;
+import me.hugmanrique.cartage.search.AhoCorasickSearcher;
+import me.hugmanrique.cartage.search.BytePattern;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The backup media types of Game Boy Advance cartridges.
+ *
+ * @see GBACartridge#saveType()
+ * @see SaveData
+ */
+public enum SaveType {
+  /**
+   * 32 KB of battery-backed static RAM.
+   */
+  SRAM(0x8000),
+  /**
+   * A 512 B serial EEPROM.
+   */
+  EEPROM_4K(0x200),
+  /**
+   * An 8 KB serial EEPROM.
+   */
+  EEPROM_64K(0x2000),
+  /**
+   * 64 KB of flash memory.
+   */
+  FLASH_512K(0x10000),
+  /**
+   * 128 KB of flash memory, in two banks.
+   */
+  FLASH_1M(0x20000);
+
+  // The library ID strings embedded by the Nintendo SDK backup libraries, word-aligned
+  private static final String[] LIBRARY_IDS = {"SRAM_V", "SRAM_F_V", "EEPROM_V", "FLASH_V",
+      "FLASH512_V", "FLASH1M_V"};
+  private static final SaveType[] LIBRARY_TYPES = {SRAM, SRAM, EEPROM_64K, FLASH_512K,
+      FLASH_512K, FLASH_1M};
+  private static final AhoCorasickSearcher LIBRARY_SEARCHER;
+
+  static {
+    final BytePattern[] patterns = new BytePattern[LIBRARY_IDS.length];
+    for (int i = 0; i < patterns.length; i++) {
+      patterns[i] = BytePattern.ofAscii(LIBRARY_IDS[i]);
+    }
+    LIBRARY_SEARCHER = new AhoCorasickSearcher(patterns);
+  }
+
+  private final int size;
+
+  SaveType(final int size) {
+    this.size = size;
+  }
+
+  /**
+   * Returns the size of the backup media.
+   *
+   * @return the size, in bytes
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns the save type of a save file with the given size.
+   *
+   * @param size the size of the save file, in bytes
+   * @return the save type, or {@code null} if no type has the given size
+   */
+  public static @Nullable SaveType ofSize(final long size) {
+    for (SaveType type : values()) {
+      if (type.size == size) {
+        return type;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Detects the save type of the given cartridge from the first library ID string in its
+   * contents. The size of an EEPROM cannot be told from its ID string, so {@link #EEPROM_64K},
+   * whose save data can hold either size, is returned for both.
+   *
+   * @param cartridge the cartridge
+   * @return the save type, or {@code null} if the cartridge contains no library ID string
+   */
+  static @Nullable SaveType detect(final Cartridge cartridge) {
+    final long[][] offsets = LIBRARY_SEARCHER.search(cartridge);
+    @Nullable SaveType type = null;
+    long first = Long.MAX_VALUE;
+    for (int i = 0; i < offsets.length; i++) {
+      for (long offset : offsets[i]) {
+        if ((offset & 3) == 0) {
+          if (offset < first) {
+            type = LIBRARY_TYPES[i];
+            first = offset;
+          }
+          break;
+        }
+      }
+    }
+    return type;
+  }
+}
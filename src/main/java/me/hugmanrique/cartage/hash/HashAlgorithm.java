@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.hash;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The hash algorithms commonly used to identify cartridge images.
+ */
+public enum HashAlgorithm {
+  /**
+   * The 32-bit cyclic redundancy check used by ZIP archives.
+   *
+   * @see java.util.zip.CRC32
+   */
+  CRC32(null, 4),
+  /**
+   * The MD5 message digest.
+   */
+  MD5("MD5", 16),
+  /**
+   * The SHA-1 message digest.
+   */
+  SHA_1("SHA-1", 20),
+  /**
+   * The SHA-256 message digest.
+   */
+  SHA_256("SHA-256", 32);
+
+  private final @Nullable String digestName;
+  private final int length;
+
+  HashAlgorithm(final @Nullable String digestName, final int length) {
+    this.digestName = digestName;
+    this.length = length;
+  }
+
+  /**
+   * Returns the name of the {@link java.security.MessageDigest} that computes this hash.
+   *
+   * @return the digest name, or {@code null} if the hash is not computed by a message digest
+   */
+  @Nullable String digestName() {
+    return this.digestName;
+  }
+
+  /**
+   * Returns the length of the hash values computed by this algorithm.
+   *
+   * @return the length in bytes
+   */
+  public int length() {
+    return this.length;
+  }
+}
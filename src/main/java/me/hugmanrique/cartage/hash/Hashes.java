@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.hash;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The hash values computed by a {@link MultiHasher}.
+ *
+ * <p>Instances of this class are immutable.
+ */
+public final class Hashes {
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private final Map<HashAlgorithm, byte[]> values;
+
+  Hashes(final EnumMap<HashAlgorithm, byte[]> values) {
+    this.values = values;
+  }
+
+  /**
+   * Returns the algorithms of the hash values in this object.
+   *
+   * @return an unmodifiable view of the algorithms
+   */
+  public Set<HashAlgorithm> algorithms() {
+    return Collections.unmodifiableSet(this.values.keySet());
+  }
+
+  /**
+   * Returns the hash value computed by the given algorithm, in big-endian byte order.
+   *
+   * @param algorithm the algorithm
+   * @return a copy of the hash value
+   * @throws IllegalArgumentException if the hash value was not computed
+   */
+  public byte[] get(final HashAlgorithm algorithm) {
+    return this.value(algorithm).clone();
+  }
+
+  /**
+   * Returns the hash value computed by the given algorithm as a lowercase hexadecimal string.
+   *
+   * @param algorithm the algorithm
+   * @return the hexadecimal string
+   * @throws IllegalArgumentException if the hash value was not computed
+   */
+  public String toHexString(final HashAlgorithm algorithm) {
+    final byte[] value = this.value(algorithm);
+    final char[] chars = new char[value.length << 1];
+    for (int i = 0; i < value.length; i++) {
+      chars[i << 1] = HEX_DIGITS[(value[i] >>> 4) & 0xF];
+      chars[(i << 1) + 1] = HEX_DIGITS[value[i] & 0xF];
+    }
+    return new String(chars);
+  }
+
+  private byte[] value(final HashAlgorithm algorithm) {
+    requireNonNull(algorithm);
+    final byte[] value = this.values.get(algorithm);
+    if (value == null) {
+      throw new IllegalArgumentException("The " + algorithm + " hash was not computed");
+    }
+    return value;
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof Hashes other) || !this.values.keySet().equals(other.values.keySet())) {
+      return false;
+    }
+    for (var entry : this.values.entrySet()) {
+      if (!Arrays.equals(entry.getValue(), other.values.get(entry.getKey()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = 1;
+    for (var entry : this.values.entrySet()) {
+      result = 31 * result + entry.getKey().hashCode();
+      result = 31 * result + Arrays.hashCode(entry.getValue());
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    final var builder = new StringBuilder("Hashes{");
+    for (var algorithm : this.values.keySet()) {
+      if (builder.length() > 7) {
+        builder.append(", ");
+      }
+      builder.append(algorithm).append('=').append(this.toHexString(algorithm));
+    }
+    return builder.append('}').toString();
+  }
+}
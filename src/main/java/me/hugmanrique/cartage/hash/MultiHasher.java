@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.hash;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.zip.CRC32;
+import me.hugmanrique.cartage.util.ChannelUtils;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Computes several hash values of the same data at once.
+ *
+ * <p>Each chunk of data passed to an {@code update} method is fed to every algorithm before
+ * moving on to the next chunk, so the data only needs to be read once, and each chunk is hashed
+ * while it is still in the processor caches.
+ *
+ * <p>This class is not thread-safe.
+ */
+public final class MultiHasher {
+
+  private static final int CHUNK_LENGTH = 1 << 16; // 64 KB
+  private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+  private final Set<HashAlgorithm> algorithms;
+  private final @Nullable CRC32 crc32;
+  private final MessageDigest[] digests;
+  private final HashAlgorithm[] digestAlgorithms;
+
+  /**
+   * Creates a hasher that computes the given hash values.
+   *
+   * @param algorithms the algorithms
+   * @throws NullPointerException if any of the algorithms is {@code null}
+   */
+  public MultiHasher(final HashAlgorithm... algorithms) {
+    this.algorithms = EnumSet.noneOf(HashAlgorithm.class);
+    for (HashAlgorithm algorithm : algorithms) {
+      this.algorithms.add(requireNonNull(algorithm));
+    }
+    this.crc32 = this.algorithms.contains(HashAlgorithm.CRC32) ? new CRC32() : null;
+    this.digestAlgorithms = this.algorithms.stream()
+        .filter(algorithm -> algorithm.digestName() != null)
+        .toArray(HashAlgorithm[]::new);
+    this.digests = new MessageDigest[this.digestAlgorithms.length];
+    for (int i = 0; i < this.digests.length; i++) {
+      final String name = requireNonNull(this.digestAlgorithms[i].digestName());
+      try {
+        this.digests[i] = MessageDigest.getInstance(name);
+      } catch (NoSuchAlgorithmException e) {
+        // Every Java platform implementation must support MD5, SHA-1 and SHA-256
+        throw new AssertionError(e);
+      }
+    }
+  }
+
+  /**
+   * Returns the algorithms of the hash values computed by this hasher.
+   *
+   * @return an unmodifiable view of the algorithms
+   */
+  public Set<HashAlgorithm> algorithms() {
+    return Collections.unmodifiableSet(this.algorithms);
+  }
+
+  /**
+   * Updates the hash values with the given bytes.
+   *
+   * @param src the source array
+   * @param offset the offset in the array of the first byte
+   * @param length the number of bytes
+   * @throws IndexOutOfBoundsException if the range is out of bounds
+   */
+  public void update(final byte[] src, final int offset, final int length) {
+    Objects.checkFromIndexSize(offset, length, src.length);
+    if (this.crc32 != null) {
+      this.crc32.update(src, offset, length);
+    }
+    for (MessageDigest digest : this.digests) {
+      digest.update(src, offset, length);
+    }
+  }
+
+  /**
+   * Updates the hash values with the remaining bytes in the given buffer. Upon return, the
+   * buffer's position will be equal to its limit.
+   *
+   * @param src the source buffer
+   */
+  public void update(final ByteBuffer src) {
+    final int position = src.position();
+    if (this.crc32 != null) {
+      this.crc32.update(src);
+    }
+    for (MessageDigest digest : this.digests) {
+      src.position(position);
+      digest.update(src);
+    }
+    src.position(src.limit());
+  }
+
+  /**
+   * Completes the hash computations and resets the hasher.
+   *
+   * @return the hash values
+   */
+  public Hashes digest() {
+    final var values = new EnumMap<HashAlgorithm, byte[]>(HashAlgorithm.class);
+    if (this.crc32 != null) {
+      final int value = (int) this.crc32.getValue();
+      values.put(HashAlgorithm.CRC32, ByteBuffer.allocate(Integer.BYTES).putInt(value).array());
+      this.crc32.reset();
+    }
+    for (int i = 0; i < this.digests.length; i++) {
+      values.put(this.digestAlgorithms[i], this.digests[i].digest());
+    }
+    return new Hashes(values);
+  }
+
+  /**
+   * Reads all the bytes from the file at the given path, updating the hash values with each chunk
+   * as soon as it is read.
+   *
+   * @param path the path
+   * @return the read bytes
+   * @throws IOException if an I/O error occurs
+   * @throws OutOfMemoryError if the file is too large to fit in an array
+   */
+  public byte[] readAllBytes(final Path path) throws IOException {
+    requireNonNull(path);
+    try (var channel = FileChannel.open(path)) {
+      final long size = channel.size();
+      if (size > MAX_ARRAY_LENGTH) {
+        throw new OutOfMemoryError("Required array size too large");
+      }
+      final byte[] data = new byte[(int) size];
+      for (int position = 0; position < data.length; ) {
+        final int length = Math.min(data.length - position, CHUNK_LENGTH);
+        ChannelUtils.readFully(channel, position, ByteBuffer.wrap(data, position, length));
+        this.update(data, position, length);
+        position += length;
+      }
+      return data;
+    }
+  }
+
+  /**
+   * Reads all the remaining bytes from the given stream, updating the hash values with each chunk
+   * as soon as it is read. The stream is not closed.
+   *
+   * @param stream the input stream
+   * @return the read bytes
+   * @throws IOException if an I/O error occurs
+   */
+  public byte[] readAllBytes(final InputStream stream) throws IOException {
+    requireNonNull(stream);
+    final var output = new ByteArrayOutputStream();
+    final byte[] chunk = new byte[CHUNK_LENGTH];
+    int read;
+    while ((read = stream.read(chunk)) >= 0) {
+      this.update(chunk, 0, read);
+      output.write(chunk, 0, read);
+    }
+    return output.toByteArray();
+  }
+
+  @Override
+  public String toString() {
+    return "MultiHasher{"
+        + "algorithms=" + algorithms
+        + '}';
+  }
+}
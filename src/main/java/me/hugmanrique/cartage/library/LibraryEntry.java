@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.library;
+
+import me.hugmanrique.cartage.CartridgeFormat;
+
+/**
+ * A row of a {@link LibraryIndex}, used while assembling its columns.
+ */
+record LibraryEntry(String path, long fileSize, long lastModified, CartridgeFormat format,
+                    String title, String code, String licensee, String type, byte version,
+                    byte checksum, short globalChecksum, int crc32, byte[] sha1) {
+}
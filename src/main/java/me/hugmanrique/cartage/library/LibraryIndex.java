@@ -0,0 +1,479 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.library;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import me.hugmanrique.cartage.CartridgeFormat;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * An index of the cartridges in a ROM library, created by a {@link LibraryIndexer}.
+ *
+ * <p>Each indexed file is identified by its position in the index, and its header fields and
+ * hashes are stored in column-oriented arrays, sorted by path. The index can be {@linkplain
+ * #write(Path) written} to a file in the same columnar layout, and {@linkplain #read(Path) read}
+ * back to perform an incremental rescan.
+ *
+ * <p>The index also records the size and last modification time of the files that are not
+ * cartridges or could not be read, so that rescans skip them until they change. These files are
+ * not part of the entries of the index.
+ *
+ * <p>Instances of this class are immutable.
+ */
+public final class LibraryIndex {
+
+  /**
+   * An index that contains no files.
+   */
+  public static final LibraryIndex EMPTY = new LibraryIndex(List.of(), List.of());
+
+  static final int SHA1_LENGTH = 20;
+
+  private static final int MAGIC = 0x434C4942; // "CLIB"
+  private static final int VERSION = 2; // version 1 did not record skipped files
+  private static final CartridgeFormat[] FORMATS = CartridgeFormat.values();
+
+  /**
+   * Reads the index at the given path.
+   *
+   * @param path the path
+   * @return the read index
+   * @throws IOException if an I/O error occurs, or the file does not contain a valid index
+   * @see #write(Path)
+   */
+  public static LibraryIndex read(final Path path) throws IOException {
+    requireNonNull(path);
+    try (var stream = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+      final int magic = stream.readInt();
+      final int version = stream.readInt();
+      if (magic != MAGIC || version < 1 || version > VERSION) {
+        throw new IOException("Invalid library index, got magic " + Integer.toHexString(magic)
+            + " and version " + version);
+      }
+      final int count = stream.readInt();
+      if (count < 0) {
+        throw new IOException("Invalid library index, got " + count + " entries");
+      }
+      return new LibraryIndex(stream, count, version);
+    }
+  }
+
+  private final int count;
+  private final String[] paths;
+  private final long[] fileSizes;
+  private final long[] lastModified;
+  private final byte[] formats;
+  private final String[] titles;
+  private final String[] codes;
+  private final String[] licensees;
+  private final String[] types;
+  private final byte[] versions;
+  private final byte[] checksums;
+  private final short[] globalChecksums;
+  private final int[] crc32s;
+  private final byte[] sha1s;
+  private final String[] skippedPaths;
+  private final long[] skippedFileSizes;
+  private final long[] skippedLastModified;
+  private volatile @Nullable Map<String, Integer> pathIndices; // created lazily
+  private volatile @Nullable Map<String, Integer> skippedIndices; // created lazily
+
+  LibraryIndex(final List<LibraryEntry> entries, final List<SkippedFile> skipped) {
+    this.count = entries.size();
+    this.paths = new String[this.count];
+    this.fileSizes = new long[this.count];
+    this.lastModified = new long[this.count];
+    this.formats = new byte[this.count];
+    this.titles = new String[this.count];
+    this.codes = new String[this.count];
+    this.licensees = new String[this.count];
+    this.types = new String[this.count];
+    this.versions = new byte[this.count];
+    this.checksums = new byte[this.count];
+    this.globalChecksums = new short[this.count];
+    this.crc32s = new int[this.count];
+    this.sha1s = new byte[this.count * SHA1_LENGTH];
+    for (int i = 0; i < this.count; i++) {
+      final LibraryEntry entry = entries.get(i);
+      this.paths[i] = entry.path();
+      this.fileSizes[i] = entry.fileSize();
+      this.lastModified[i] = entry.lastModified();
+      this.formats[i] = (byte) entry.format().ordinal();
+      this.titles[i] = entry.title();
+      this.codes[i] = entry.code();
+      this.licensees[i] = entry.licensee();
+      this.types[i] = entry.type();
+      this.versions[i] = entry.version();
+      this.checksums[i] = entry.checksum();
+      this.globalChecksums[i] = entry.globalChecksum();
+      this.crc32s[i] = entry.crc32();
+      System.arraycopy(entry.sha1(), 0, this.sha1s, i * SHA1_LENGTH, SHA1_LENGTH);
+    }
+    this.skippedPaths = new String[skipped.size()];
+    this.skippedFileSizes = new long[skipped.size()];
+    this.skippedLastModified = new long[skipped.size()];
+    for (int i = 0; i < skipped.size(); i++) {
+      final SkippedFile file = skipped.get(i);
+      this.skippedPaths[i] = file.path();
+      this.skippedFileSizes[i] = file.fileSize();
+      this.skippedLastModified[i] = file.lastModified();
+    }
+  }
+
+  private LibraryIndex(final DataInputStream stream, final int count, final int version)
+      throws IOException {
+    this.count = count;
+    this.paths = readStrings(stream, count);
+    this.fileSizes = new long[count];
+    for (int i = 0; i < count; i++) {
+      this.fileSizes[i] = stream.readLong();
+    }
+    this.lastModified = new long[count];
+    for (int i = 0; i < count; i++) {
+      this.lastModified[i] = stream.readLong();
+    }
+    this.formats = stream.readNBytes(count);
+    for (byte format : this.formats) {
+      if (format < 0 || format >= FORMATS.length) {
+        throw new IOException("Invalid library index, got format " + format);
+      }
+    }
+    this.titles = readStrings(stream, count);
+    this.codes = readStrings(stream, count);
+    this.licensees = readStrings(stream, count);
+    this.types = readStrings(stream, count);
+    this.versions = stream.readNBytes(count);
+    this.checksums = stream.readNBytes(count);
+    this.globalChecksums = new short[count];
+    for (int i = 0; i < count; i++) {
+      this.globalChecksums[i] = stream.readShort();
+    }
+    this.crc32s = new int[count];
+    for (int i = 0; i < count; i++) {
+      this.crc32s[i] = stream.readInt();
+    }
+    this.sha1s = stream.readNBytes(count * SHA1_LENGTH);
+    if (this.sha1s.length != count * SHA1_LENGTH) {
+      throw new IOException("Invalid library index, unexpected length");
+    }
+    final int skippedCount = (version >= 2) ? stream.readInt() : 0;
+    if (skippedCount < 0) {
+      throw new IOException("Invalid library index, got " + skippedCount + " skipped files");
+    }
+    this.skippedPaths = readStrings(stream, skippedCount);
+    this.skippedFileSizes = new long[skippedCount];
+    for (int i = 0; i < skippedCount; i++) {
+      this.skippedFileSizes[i] = stream.readLong();
+    }
+    this.skippedLastModified = new long[skippedCount];
+    for (int i = 0; i < skippedCount; i++) {
+      this.skippedLastModified[i] = stream.readLong();
+    }
+    if (stream.read() != -1) {
+      throw new IOException("Invalid library index, unexpected length");
+    }
+  }
+
+  private static String[] readStrings(final DataInputStream stream, final int count)
+      throws IOException {
+    final String[] strings = new String[count];
+    for (int i = 0; i < count; i++) {
+      strings[i] = stream.readUTF();
+    }
+    return strings;
+  }
+
+  /**
+   * Returns the number of files in this index.
+   *
+   * @return the number of files
+   */
+  public int size() {
+    return this.count;
+  }
+
+  /**
+   * Finds the entry of the file at the given path.
+   *
+   * @param path the path
+   * @return the index of the entry, or {@code -1} if the file is not indexed
+   */
+  public int indexOf(final Path path) {
+    Map<String, Integer> indices = this.pathIndices;
+    if (indices == null) {
+      indices = indices(this.paths);
+      this.pathIndices = indices;
+    }
+    return indices.getOrDefault(key(path), -1);
+  }
+
+  /**
+   * Returns whether the file at the given path was skipped when this index was created, and its
+   * size and last modification time are the given ones.
+   *
+   * @param path the path
+   * @param fileSize the current size of the file
+   * @param lastModified the current modification time of the file, in milliseconds since the
+   *     epoch
+   * @return {@code true} if the unchanged file was skipped
+   */
+  boolean isSkipped(final Path path, final long fileSize, final long lastModified) {
+    Map<String, Integer> indices = this.skippedIndices;
+    if (indices == null) {
+      indices = indices(this.skippedPaths);
+      this.skippedIndices = indices;
+    }
+    final int index = indices.getOrDefault(key(path), -1);
+    return index >= 0 && this.skippedFileSizes[index] == fileSize
+        && this.skippedLastModified[index] == lastModified;
+  }
+
+  private static String key(final Path path) {
+    return path.toAbsolutePath().normalize().toString();
+  }
+
+  private static Map<String, Integer> indices(final String[] paths) {
+    final Map<String, Integer> indices = new HashMap<>(paths.length * 2);
+    for (int i = 0; i < paths.length; i++) {
+      indices.put(paths[i], i);
+    }
+    return indices;
+  }
+
+  /**
+   * Returns the absolute path of the given file.
+   *
+   * @param index the index of the entry
+   * @return the path
+   * @throws IndexOutOfBoundsException if the index is out of bounds
+   */
+  public Path path(final int index) {
+    return Path.of(this.paths[this.checkIndex(index)]);
+  }
+
+  /**
+   * Returns the size of the given file at the time it was indexed.
+   *
+   * @param index the index of the entry
+   * @return the size in bytes
+   * @throws IndexOutOfBoundsException if the index is out of bounds
+   */
+  public long fileSize(final int index) {
+    return this.fileSizes[this.checkIndex(index)];
+  }
+
+  /**
+   * Returns the last modification time of the given file at the time it was indexed.
+   *
+   * @param index the index of the entry
+   * @return the modification time, in milliseconds since the epoch
+   * @throws IndexOutOfBoundsException if the index is out of bounds
+   */
+  public long lastModified(final int index) {
+    return this.lastModified[this.checkIndex(index)];
+  }
+
+  /**
+   * Returns the format of the given cartridge.
+   *
+   * @param index the index of the entry
+   * @return the cartridge format
+   * @throws IndexOutOfBoundsException if the index is out of bounds
+   */
+  public CartridgeFormat format(final int index) {
+    return FORMATS[this.formats[this.checkIndex(index)]];
+  }
+
+  /**
+   * Returns the title of the given cartridge, without trailing padding.
+   *
+   * @param index the index of the entry
+   * @return the cartridge title
+   * @throws IndexOutOfBoundsException if the index is out of bounds
+   */
+  public String title(final int index) {
+    return this.titles[this.checkIndex(index)];
+  }
+
+  /**
+   * Returns the game code of the given GBA cartridge, or the manufacturer code of the given GB
+   * cartridge.
+   *
+   * @param index the index of the entry
+   * @return the code
+   * @throws IndexOutOfBoundsException if the index is out of bounds
+   */
+  public String code(final int index) {
+    return this.codes[this.checkIndex(index)];
+  }
+
+  /**
+   * Returns the licensee code of the given cartridge. The 16-bit licensee code of GB cartridges
+   * is formatted as 4 hexadecimal digits.
+   *
+   * @param index the index of the entry
+   * @return the licensee code
+   * @throws IndexOutOfBoundsException if the index is out of bounds
+   */
+  public String licensee(final int index) {
+    return this.licensees[this.checkIndex(index)];
+  }
+
+  /**
+   * Returns the name of the type constant of the given cartridge.
+   *
+   * @param index the index of the entry
+   * @return the type name, or an empty string if unknown
+   * @throws IndexOutOfBoundsException if the index is out of bounds
+   * @see me.hugmanrique.cartage.gb.GBCartridge.Type
+   * @see me.hugmanrique.cartage.gba.GBACartridge.Type
+   */
+  public String type(final int index) {
+    return this.types[this.checkIndex(index)];
+  }
+
+  /**
+   * Returns the version number of the given cartridge.
+   *
+   * @param index the index of the entry
+   * @return the version number
+   * @throws IndexOutOfBoundsException if the index is out of bounds
+   */
+  public byte version(final int index) {
+    return this.versions[this.checkIndex(index)];
+  }
+
+  /**
+   * Returns the header checksum of the given cartridge.
+   *
+   * @param index the index of the entry
+   * @return the header checksum
+   * @throws IndexOutOfBoundsException if the index is out of bounds
+   */
+  public byte checksum(final int index) {
+    return this.checksums[this.checkIndex(index)];
+  }
+
+  /**
+   * Returns the global checksum of the given GB cartridge.
+   *
+   * @param index the index of the entry
+   * @return the global checksum, or {@code 0} for GBA cartridges
+   * @throws IndexOutOfBoundsException if the index is out of bounds
+   */
+  public short globalChecksum(final int index) {
+    return this.globalChecksums[this.checkIndex(index)];
+  }
+
+  /**
+   * Returns the CRC32 of the contents of the given file.
+   *
+   * @param index the index of the entry
+   * @return the CRC32 value
+   * @throws IndexOutOfBoundsException if the index is out of bounds
+   */
+  public int crc32(final int index) {
+    return this.crc32s[this.checkIndex(index)];
+  }
+
+  /**
+   * Returns the SHA-1 of the contents of the given file.
+   *
+   * @param index the index of the entry
+   * @return the SHA-1 value
+   * @throws IndexOutOfBoundsException if the index is out of bounds
+   */
+  public byte[] sha1(final int index) {
+    final int offset = this.checkIndex(index) * SHA1_LENGTH;
+    return Arrays.copyOfRange(this.sha1s, offset, offset + SHA1_LENGTH);
+  }
+
+  LibraryEntry entry(final int index) {
+    return new LibraryEntry(this.paths[index], this.fileSizes[index], this.lastModified[index],
+        this.format(index), this.titles[index], this.codes[index], this.licensees[index],
+        this.types[index], this.versions[index], this.checksums[index],
+        this.globalChecksums[index], this.crc32s[index], this.sha1(index));
+  }
+
+  private int checkIndex(final int index) {
+    return Objects.checkIndex(index, this.count);
+  }
+
+  /**
+   * Writes this index to the given path, replacing the file if it already exists.
+   *
+   * @param path the path
+   * @throws IOException if an I/O error occurs
+   * @see #read(Path)
+   */
+  public void write(final Path path) throws IOException {
+    requireNonNull(path);
+    try (var stream = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(path)))) {
+      stream.writeInt(MAGIC);
+      stream.writeInt(VERSION);
+      stream.writeInt(this.count);
+      writeStrings(stream, this.paths);
+      for (long fileSize : this.fileSizes) {
+        stream.writeLong(fileSize);
+      }
+      for (long time : this.lastModified) {
+        stream.writeLong(time);
+      }
+      stream.write(this.formats);
+      writeStrings(stream, this.titles);
+      writeStrings(stream, this.codes);
+      writeStrings(stream, this.licensees);
+      writeStrings(stream, this.types);
+      stream.write(this.versions);
+      stream.write(this.checksums);
+      for (short globalChecksum : this.globalChecksums) {
+        stream.writeShort(globalChecksum);
+      }
+      for (int crc32 : this.crc32s) {
+        stream.writeInt(crc32);
+      }
+      stream.write(this.sha1s);
+      stream.writeInt(this.skippedPaths.length);
+      writeStrings(stream, this.skippedPaths);
+      for (long fileSize : this.skippedFileSizes) {
+        stream.writeLong(fileSize);
+      }
+      for (long time : this.skippedLastModified) {
+        stream.writeLong(time);
+      }
+    }
+  }
+
+  private static void writeStrings(final DataOutputStream stream, final String[] strings)
+      throws IOException {
+    for (String string : strings) {
+      stream.writeUTF(string);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "LibraryIndex{"
+        + "size=" + count
+        + '}';
+  }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.library;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import me.hugmanrique.cartage.CartridgeFormat;
+import me.hugmanrique.cartage.gb.GBCartridge;
+import me.hugmanrique.cartage.gba.GBACartridge;
+import me.hugmanrique.cartage.hash.HashAlgorithm;
+import me.hugmanrique.cartage.hash.Hashes;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Walks a directory tree and indexes the header fields and hashes of every GB and GBA cartridge
+ * found in it.
+ *
+ * <p>Files are opened and hashed by a bounded pool of worker threads. The number of files being
+ * processed at once is limited, so the directory walk blocks while all the permits are taken
+ * instead of queueing an unbounded amount of work. Each file is {@linkplain GBCartridge#map(Path)
+ * mapped} into memory, so the heap usage of a scan doesn't depend on the size of the cartridges.
+ *
+ * <p>Rescans only open the files whose size or last modification time changed since the previous
+ * scan. Files that are not valid cartridges, or cannot be read, are skipped and recorded in the
+ * index, so they are only retried once they change.
+ */
+public final class LibraryIndexer {
+
+  private static final HashAlgorithm[] ALGORITHMS = {HashAlgorithm.CRC32, HashAlgorithm.SHA_1};
+
+  private final int parallelism;
+  private final int maxOpenFiles;
+
+  /**
+   * Creates an indexer that uses one worker thread per available processor.
+   */
+  public LibraryIndexer() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates an indexer that uses the given number of worker threads, and processes up to twice
+   * as many files at once.
+   *
+   * @param parallelism the number of worker threads
+   * @throws IllegalArgumentException if {@code parallelism} is not positive
+   */
+  public LibraryIndexer(final int parallelism) {
+    this(parallelism, parallelism * 2);
+  }
+
+  /**
+   * Creates an indexer.
+   *
+   * @param parallelism the number of worker threads
+   * @param maxOpenFiles the maximum number of files processed at once
+   * @throws IllegalArgumentException if any of the values is not positive
+   */
+  public LibraryIndexer(final int parallelism, final int maxOpenFiles) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("Got non-positive parallelism " + parallelism);
+    }
+    if (maxOpenFiles <= 0) {
+      throw new IllegalArgumentException("Got non-positive max open files " + maxOpenFiles);
+    }
+    this.parallelism = parallelism;
+    this.maxOpenFiles = maxOpenFiles;
+  }
+
+  /**
+   * Indexes the cartridges in the given directory tree.
+   *
+   * @param root the root directory
+   * @return the index
+   * @throws IOException if an I/O error occurs while walking the tree
+   * @throws InterruptedIOException if the current thread is interrupted while scanning
+   */
+  public LibraryIndex scan(final Path root) throws IOException {
+    return this.scan(root, LibraryIndex.EMPTY);
+  }
+
+  /**
+   * Indexes the cartridges in the given directory tree, reusing the entries of the given index
+   * whose file size and last modification time are unchanged.
+   *
+   * @param root the root directory
+   * @param previous the index of a previous scan
+   * @return the index
+   * @throws IOException if an I/O error occurs while walking the tree
+   * @throws InterruptedIOException if the current thread is interrupted while scanning
+   */
+  public LibraryIndex scan(final Path root, final LibraryIndex previous) throws IOException {
+    requireNonNull(root);
+    requireNonNull(previous);
+    final var entries = new ConcurrentLinkedQueue<LibraryEntry>();
+    final var skipped = new ConcurrentLinkedQueue<SkippedFile>();
+    final var permits = new Semaphore(this.maxOpenFiles);
+    final ExecutorService executor = Executors.newFixedThreadPool(this.parallelism, task -> {
+      final var thread = new Thread(task, "cartage-library-indexer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      Files.walkFileTree(root.toAbsolutePath().normalize(), new SimpleFileVisitor<>() {
+        @Override
+        public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes)
+            throws InterruptedIOException {
+          if (!attributes.isRegularFile()) {
+            return FileVisitResult.CONTINUE;
+          }
+          final long size = attributes.size();
+          final long lastModified = attributes.lastModifiedTime().toMillis();
+          final int index = previous.indexOf(file);
+          if (index >= 0 && previous.fileSize(index) == size
+              && previous.lastModified(index) == lastModified) {
+            entries.add(previous.entry(index));
+            return FileVisitResult.CONTINUE;
+          }
+          if (previous.isSkipped(file, size, lastModified)) {
+            skipped.add(new SkippedFile(file.toString(), size, lastModified));
+            return FileVisitResult.CONTINUE;
+          }
+          try {
+            permits.acquire();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while scanning " + file);
+          }
+          executor.execute(() -> {
+            try {
+              final LibraryEntry entry = index(file, size, lastModified);
+              if (entry != null) {
+                entries.add(entry);
+              } else {
+                skipped.add(new SkippedFile(file.toString(), size, lastModified));
+              }
+            } finally {
+              permits.release();
+            }
+          });
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(final Path file, final IOException e) {
+          return FileVisitResult.CONTINUE;
+        }
+      });
+      executor.shutdown();
+      if (!executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS)) {
+        throw new AssertionError();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while scanning " + root);
+    } finally {
+      executor.shutdownNow();
+    }
+    final List<LibraryEntry> sorted = new ArrayList<>(entries);
+    sorted.sort(Comparator.comparing(LibraryEntry::path));
+    final List<SkippedFile> skippedFiles = new ArrayList<>(skipped);
+    skippedFiles.sort(Comparator.comparing(SkippedFile::path));
+    return new LibraryIndex(sorted, skippedFiles);
+  }
+
+  private static @Nullable LibraryEntry index(final Path path, final long size,
+                                              final long lastModified) {
+    try {
+      final CartridgeFormat format;
+      try (var channel = FileChannel.open(path)) {
+        format = CartridgeFormat.detect(channel);
+      }
+      if (format == null) {
+        return null;
+      }
+      return switch (format) {
+        case GB -> indexGB(path, size, lastModified);
+        case GBA -> indexGBA(path, size, lastModified);
+      };
+    } catch (IOException | RuntimeException e) {
+      // Skip unreadable or malformed files, they will be retried once they change
+      return null;
+    }
+  }
+
+  private static LibraryEntry indexGB(final Path path, final long size, final long lastModified)
+      throws IOException {
+    try (var cartridge = GBCartridge.map(path)) {
+      final GBCartridge.Header.Snapshot header = cartridge.header().snapshot();
+      final Hashes hashes = cartridge.hash(ALGORITHMS);
+      final GBCartridge.Type type = header.type();
+      return new LibraryEntry(path.toString(), size, lastModified, CartridgeFormat.GB,
+          stripPadding(header.title()), stripPadding(header.manufacturer()),
+          String.format("%04X", header.licensee() & 0xFFFF),
+          (type != null) ? type.name() : "", header.version(), header.checksum(),
+          header.globalChecksum(), crc32(hashes), hashes.get(HashAlgorithm.SHA_1));
+    }
+  }
+
+  private static LibraryEntry indexGBA(final Path path, final long size, final long lastModified)
+      throws IOException {
+    try (var cartridge = GBACartridge.map(path)) {
+      final GBACartridge.Header.Snapshot header = cartridge.header().snapshot();
+      final Hashes hashes = cartridge.hash(ALGORITHMS);
+      final GBACartridge.Type type = header.type();
+      return new LibraryEntry(path.toString(), size, lastModified, CartridgeFormat.GBA,
+          stripPadding(header.title()), stripPadding(header.code()),
+          stripPadding(header.licensee()), (type != null) ? type.name() : "", header.version(),
+          header.checksum(), (short) 0, crc32(hashes), hashes.get(HashAlgorithm.SHA_1));
+    }
+  }
+
+  private static int crc32(final Hashes hashes) {
+    return ByteBuffer.wrap(hashes.get(HashAlgorithm.CRC32)).getInt();
+  }
+
+  private static String stripPadding(final String value) {
+    int end = value.length();
+    while (end > 0 && value.charAt(end - 1) == '\0') {
+      end--;
+    }
+    return value.substring(0, end);
+  }
+
+  @Override
+  public String toString() {
+    return "LibraryIndexer{"
+        + "parallelism=" + parallelism
+        + ", maxOpenFiles=" + maxOpenFiles
+        + '}';
+  }
+}
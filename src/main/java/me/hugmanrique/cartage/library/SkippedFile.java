@@ -0,0 +1,15 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.library;
+
+/**
+ * A file that is not a cartridge or cannot be read, recorded in a {@link LibraryIndex} so that
+ * rescans skip it until it changes.
+ */
+record SkippedFile(String path, long fileSize, long lastModified) {
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.patch;
+
+import static java.util.Objects.requireNonNull;
+import static me.hugmanrique.cartage.patch.PatchSupport.CHUNK_LENGTH;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import me.hugmanrique.cartage.Cartridge;
+
+/**
+ * Creates Beat Patching System (BPS) patches.
+ *
+ * <p>The creator indexes the blocks of the source data by their rolling hash, and then walks the
+ * target data looking up the hash of the block starting at each offset. Candidate matches are
+ * verified and extended in both directions, and encoded as source or target copies; unmatched
+ * bytes are stored in the patch. Target blocks are indexed as they are walked, so repeated target
+ * data (e.g. padding) is encoded as a target copy.
+ *
+ * <p>Each hash table holds a single offset per bucket and has a bounded number of buckets, so
+ * the memory usage does not depend on the size of the cartridges.
+ *
+ * @see BPSPatcher
+ * @see <a href="https://www.romhacking.net/documents/746/">BPS file format</a>
+ */
+public final class BPSPatchCreator implements PatchCreator {
+
+  private static final BPSPatchCreator FAST = new BPSPatchCreator(16, 16, 8, 20, false);
+  private static final BPSPatchCreator BEST = new BPSPatchCreator(6, 1, 4, 22, true);
+
+  /**
+   * Returns a patch creator that favors speed over patch size. Only the source blocks at offsets
+   * multiple of the block length are indexed, so matches shorter than twice the block length
+   * may be missed.
+   *
+   * @return the patch creator
+   */
+  public static BPSPatchCreator fast() {
+    return FAST;
+  }
+
+  /**
+   * Returns a patch creator that favors patch size over speed. The source blocks at every offset
+   * are indexed, the blocks are shorter, and a match is deferred if a longer one starts at the
+   * next offset.
+   *
+   * @return the patch creator
+   */
+  public static BPSPatchCreator best() {
+    return BEST;
+  }
+
+  private static final int SOURCE_READ = 0;
+  private static final int TARGET_READ = 1;
+  private static final int SOURCE_COPY = 2;
+  private static final int TARGET_COPY = 3;
+
+  private static final int HASH_MULTIPLIER = 0x01000193;
+  private static final int SLOT_MULTIPLIER = 0x9E3779B1;
+  private static final int MIN_TABLE_BITS = 4;
+
+  private final int blockLength;
+  private final int sourceStep;
+  private final int minSourceRead;
+  private final int maxTableBits;
+  private final boolean lazy;
+  private final int outgoingFactor; // HASH_MULTIPLIER^(blockLength - 1)
+
+  private BPSPatchCreator(final int blockLength, final int sourceStep, final int minSourceRead,
+                          final int maxTableBits, final boolean lazy) {
+    this.blockLength = blockLength;
+    this.sourceStep = sourceStep;
+    this.minSourceRead = minSourceRead;
+    this.maxTableBits = maxTableBits;
+    this.lazy = lazy;
+    int factor = 1;
+    for (int i = 1; i < blockLength; i++) {
+      factor *= HASH_MULTIPLIER;
+    }
+    this.outgoingFactor = factor;
+  }
+
+  @Override
+  public void create(final Cartridge source, final Cartridge target, final OutputStream patch)
+      throws IOException {
+    requireNonNull(source);
+    requireNonNull(target);
+    requireNonNull(patch);
+    new Encoder(requireSize(source), source, requireSize(target), target, new PatchOutput(patch))
+        .encode();
+  }
+
+  private static int requireSize(final Cartridge cartridge) {
+    final long size = cartridge.size();
+    if (size >= Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Cartridge of size " + size + " is too large");
+    }
+    return (int) size;
+  }
+
+  private int tableBits(final long positions) {
+    final int bits = Long.SIZE - Long.numberOfLeadingZeros(positions);
+    return Math.max(MIN_TABLE_BITS, Math.min(this.maxTableBits, bits));
+  }
+
+  private static int slot(final int hash, final int bits) {
+    return (hash * SLOT_MULTIPLIER) >>> (Integer.SIZE - bits);
+  }
+
+  private int hashAt(final Cartridge cartridge, final int offset) {
+    int hash = 0;
+    for (int i = 0; i < this.blockLength; i++) {
+      hash = hash * HASH_MULTIPLIER + (cartridge.getByte(offset + i) & 0xFF);
+    }
+    return hash;
+  }
+
+  private int roll(final int hash, final byte outgoing, final byte incoming) {
+    return (hash - (outgoing & 0xFF) * this.outgoingFactor) * HASH_MULTIPLIER + (incoming & 0xFF);
+  }
+
+  /**
+   * Returns the length of the common prefix of two ranges, which may belong to the same
+   * cartridge and overlap.
+   */
+  private static int commonLength(final Cartridge first, final int firstOffset,
+                                  final Cartridge second, final int secondOffset,
+                                  final int maxLength) {
+    int length = 0;
+    while (length <= maxLength - Long.BYTES
+        && first.getLong(firstOffset + length) == second.getLong(secondOffset + length)) {
+      length += Long.BYTES;
+    }
+    while (length < maxLength
+        && first.getByte(firstOffset + length) == second.getByte(secondOffset + length)) {
+      length++;
+    }
+    return length;
+  }
+
+  /**
+   * Holds the state of a single patch creation.
+   */
+  private final class Encoder {
+
+    private final int sourceSize;
+    private final Cartridge source;
+    private final int targetSize;
+    private final Cartridge target;
+    private final PatchOutput output;
+
+    private final int sourceBits;
+    private final int[] sourceTable; // source offset + 1 by block hash slot, or 0 if empty
+    private final int targetBits;
+    private final int[] targetTable; // target offset + 1 by block hash slot, or 0 if empty
+
+    private int hashOffset = -1; // target offset of the cached block hash
+    private int hash;
+
+    private int matchAction;
+    private int matchStart;
+    private int matchOffset;
+    private int matchLength;
+
+    private long sourceRelative;
+    private long targetRelative;
+    private final byte[] chunk = new byte[CHUNK_LENGTH];
+
+    Encoder(final int sourceSize, final Cartridge source, final int targetSize,
+            final Cartridge target, final PatchOutput output) {
+      this.sourceSize = sourceSize;
+      this.source = source;
+      this.targetSize = targetSize;
+      this.target = target;
+      this.output = output;
+      this.sourceBits = tableBits(sourceSize / sourceStep);
+      this.sourceTable = new int[1 << this.sourceBits];
+      this.targetBits = tableBits(targetSize);
+      this.targetTable = new int[1 << this.targetBits];
+    }
+
+    void encode() throws IOException {
+      this.output.writeAscii("BPS1");
+      this.output.writeNumber(this.sourceSize);
+      this.output.writeNumber(this.targetSize);
+      this.output.writeNumber(0); // metadata length
+      this.indexSource();
+
+      int offset = 0;
+      int literal = 0; // start of the target bytes to store in the patch
+      while (offset < this.targetSize) {
+        if (!this.findMatch(offset) || this.deferMatch(offset)) {
+          this.indexTarget(offset);
+          offset++;
+          continue;
+        }
+        this.extendBackward(literal);
+        this.writeLiteral(literal, this.matchStart);
+        this.writeMatch();
+        final int end = this.matchStart + this.matchLength;
+        if (lazy) {
+          for (int i = offset; i < end; i++) {
+            this.indexTarget(i);
+          }
+        } else {
+          this.indexTarget(offset);
+        }
+        offset = end;
+        literal = end;
+      }
+      this.writeLiteral(literal, offset);
+      this.output.finish(PatchSupport.crc32(this.source, this.sourceSize),
+          PatchSupport.crc32(this.target, this.targetSize));
+    }
+
+    private void indexSource() {
+      final int last = this.sourceSize - blockLength;
+      if (last < 0) {
+        return;
+      }
+      int blockHash = hashAt(this.source, 0);
+      for (int offset = 0; ; offset += sourceStep) {
+        this.sourceTable[slot(blockHash, this.sourceBits)] = offset + 1;
+        if (offset + sourceStep > last) {
+          return;
+        }
+        if (sourceStep == 1) {
+          blockHash = roll(blockHash, this.source.getByte(offset),
+              this.source.getByte(offset + blockLength));
+        } else {
+          blockHash = hashAt(this.source, offset + sourceStep);
+        }
+      }
+    }
+
+    private int targetHash(final int offset) {
+      if (offset != this.hashOffset) {
+        if (offset == this.hashOffset + 1 && this.hashOffset >= 0) {
+          this.hash = roll(this.hash, this.target.getByte(this.hashOffset),
+              this.target.getByte(offset + blockLength - 1));
+        } else {
+          this.hash = hashAt(this.target, offset);
+        }
+        this.hashOffset = offset;
+      }
+      return this.hash;
+    }
+
+    private void indexTarget(final int offset) {
+      if (offset <= this.targetSize - blockLength) {
+        this.targetTable[slot(this.targetHash(offset), this.targetBits)] = offset + 1;
+      }
+    }
+
+    /**
+     * Finds the longest match starting at the given target offset, preferring source reads
+     * since they need no offset.
+     *
+     * @return whether a match was found
+     */
+    private boolean findMatch(final int offset) {
+      int bestLength = 0;
+      if (offset < this.sourceSize) {
+        final int length = commonLength(this.source, offset, this.target, offset,
+            Math.min(this.sourceSize, this.targetSize) - offset);
+        if (length >= minSourceRead) {
+          this.setMatch(SOURCE_READ, offset, offset, length);
+          bestLength = length;
+        }
+      }
+      if (offset > this.targetSize - blockLength) {
+        return bestLength > 0;
+      }
+      final int blockHash = this.targetHash(offset);
+      final int sourceOffset = this.sourceTable[slot(blockHash, this.sourceBits)] - 1;
+      if (sourceOffset >= 0) {
+        final int length = commonLength(this.source, sourceOffset, this.target, offset,
+            Math.min(this.sourceSize - sourceOffset, this.targetSize - offset));
+        if (length >= blockLength && length > bestLength) {
+          this.setMatch(SOURCE_COPY, offset, sourceOffset, length);
+          bestLength = length;
+        }
+      }
+      final int targetOffset = this.targetTable[slot(blockHash, this.targetBits)] - 1;
+      if (targetOffset >= 0 && targetOffset < offset) {
+        final int length = commonLength(this.target, targetOffset, this.target, offset,
+            this.targetSize - offset);
+        if (length >= blockLength && length > bestLength) {
+          this.setMatch(TARGET_COPY, offset, targetOffset, length);
+          bestLength = length;
+        }
+      }
+      return bestLength > 0;
+    }
+
+    /**
+     * Returns whether the current match should be discarded in favor of a longer match starting
+     * at the next target offset. The current match is kept otherwise.
+     */
+    private boolean deferMatch(final int offset) {
+      if (!lazy || offset + 1 >= this.targetSize) {
+        return false;
+      }
+      final int action = this.matchAction;
+      final int matchOffset = this.matchOffset;
+      final int length = this.matchLength;
+      if (this.findMatch(offset + 1) && this.matchLength > length + 1) {
+        return true;
+      }
+      this.setMatch(action, offset, matchOffset, length);
+      return false;
+    }
+
+    private void setMatch(final int action, final int start, final int offset, final int length) {
+      this.matchAction = action;
+      this.matchStart = start;
+      this.matchOffset = offset;
+      this.matchLength = length;
+    }
+
+    /**
+     * Extends the current match backwards over the pending literal bytes.
+     */
+    private void extendBackward(final int literal) {
+      final Cartridge from = (this.matchAction == TARGET_COPY) ? this.target : this.source;
+      while (this.matchStart > literal && this.matchOffset > 0
+          && from.getByte(this.matchOffset - 1) == this.target.getByte(this.matchStart - 1)) {
+        this.matchStart--;
+        this.matchOffset--;
+        this.matchLength++;
+      }
+    }
+
+    private void writeLiteral(final int start, final int end) throws IOException {
+      if (start == end) {
+        return;
+      }
+      this.output.writeNumber(((long) (end - start - 1) << 2) | TARGET_READ);
+      for (int offset = start; offset < end; offset += CHUNK_LENGTH) {
+        final int count = Math.min(end - offset, CHUNK_LENGTH);
+        this.target.getBytes(offset, this.chunk, 0, count);
+        this.output.write(this.chunk, 0, count);
+      }
+    }
+
+    private void writeMatch() throws IOException {
+      this.output.writeNumber(((long) (this.matchLength - 1) << 2) | this.matchAction);
+      switch (this.matchAction) {
+        case SOURCE_COPY -> {
+          this.writeOffset(this.matchOffset - this.sourceRelative);
+          this.sourceRelative = this.matchOffset + this.matchLength;
+        }
+        case TARGET_COPY -> {
+          this.writeOffset(this.matchOffset - this.targetRelative);
+          this.targetRelative = this.matchOffset + this.matchLength;
+        }
+        default -> { // SOURCE_READ
+        }
+      }
+    }
+
+    private void writeOffset(final long delta) throws IOException {
+      this.output.writeNumber((Math.abs(delta) << 1) | (delta < 0 ? 1 : 0));
+    }
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.patch;
+
+import static java.util.Objects.requireNonNull;
+import static me.hugmanrique.cartage.patch.PatchSupport.CHUNK_LENGTH;
+import static me.hugmanrique.cartage.patch.PatchSupport.FOOTER_LENGTH;
+import static me.hugmanrique.cartage.patch.PatchSupport.requireCrc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import me.hugmanrique.cartage.Cartridge;
+
+/**
+ * Applies Beat Patching System (BPS) patches.
+ *
+ * <p>A BPS patch is a sequence of actions, each of which produces the next bytes of the target
+ * data by copying them from the source data, the patch, or previously produced target data.
+ * Since source data is copied from arbitrary offsets, the CRC32 of the source data is computed in
+ * a separate pass before patching. The CRC32 of the target data is computed as it is written.
+ *
+ * <p>For the same reason, BPS patches cannot be applied in place, nor to a target cartridge that
+ * {@linkplain Cartridge#sharesContents(Cartridge) shares its contents} with the source.
+ *
+ * @see <a href="https://www.romhacking.net/documents/746/">BPS file format</a>
+ */
+public final class BPSPatcher implements Patcher {
+
+  private static final BPSPatcher INSTANCE = new BPSPatcher();
+
+  /**
+   * Returns a patcher instance.
+   *
+   * @return the patcher
+   */
+  public static BPSPatcher get() {
+    return INSTANCE;
+  }
+
+  private static final int SOURCE_READ = 0;
+  private static final int TARGET_READ = 1;
+  private static final int SOURCE_COPY = 2;
+
+  private BPSPatcher() {}
+
+  @Override
+  public void apply(final InputStream patch, final Cartridge source, final Cartridge target)
+      throws IOException {
+    requireNonNull(source);
+    requireNonNull(target);
+    if (source.sharesContents(target)) {
+      throw new UnsupportedOperationException("BPS patches cannot be applied in place");
+    }
+    final var input = new PatchInput(patch);
+    input.requireMagic("BPS1", "BPS");
+    final long sourceSize = input.readNumber();
+    final long targetSize = input.readNumber();
+    input.skip(input.readNumber()); // metadata
+    if (source.size() < sourceSize || target.size() < targetSize) {
+      throw new PatchException("Expected source and target sizes of at least " + sourceSize
+          + " and " + targetSize + " bytes, got " + source.size() + " and " + target.size());
+    }
+    final int sourceCrc = PatchSupport.crc32(source, sourceSize);
+    final var targetCrc = new CRC32();
+    final byte[] chunk = new byte[CHUNK_LENGTH];
+    long offset = 0;
+    long sourceOffset = 0;
+    long targetOffset = 0;
+
+    while (!input.remainingAtMost(FOOTER_LENGTH)) {
+      final long data = input.readNumber();
+      final long length = (data >>> 2) + 1;
+      if (length > targetSize - offset) {
+        throw new PatchException("BPS action is out of the target bounds");
+      }
+      switch ((int) (data & 3)) {
+        case SOURCE_READ -> {
+          requireRange(offset, length, sourceSize, "source");
+          PatchSupport.copy(source, offset, target, offset, length, chunk, targetCrc);
+        }
+        case TARGET_READ -> {
+          for (long copied = 0; copied < length; ) {
+            final int count = (int) Math.min(length - copied, chunk.length);
+            input.readFully(chunk, 0, count);
+            target.setBytes(offset + copied, chunk, 0, count);
+            targetCrc.update(chunk, 0, count);
+            copied += count;
+          }
+        }
+        case SOURCE_COPY -> {
+          sourceOffset += readOffset(input);
+          requireRange(sourceOffset, length, sourceSize, "source");
+          PatchSupport.copy(source, sourceOffset, target, offset, length, chunk, targetCrc);
+          sourceOffset += length;
+        }
+        default -> { // TARGET_COPY
+          targetOffset += readOffset(input);
+          requireRange(targetOffset, 1, offset, "target");
+          this.targetCopy(target, targetOffset, offset, length, chunk, targetCrc);
+          targetOffset += length;
+        }
+      }
+      offset += length;
+    }
+    if (offset != targetSize) {
+      throw new PatchException("Expected " + targetSize + " target bytes, got " + offset);
+    }
+
+    final int expectedSourceCrc = input.readIntLE();
+    final int expectedTargetCrc = input.readIntLE();
+    final int patchCrc = input.crc32();
+    requireCrc(input.readIntLE(), patchCrc, "patch");
+    requireCrc(expectedSourceCrc, sourceCrc, "source");
+    requireCrc(expectedTargetCrc, (int) targetCrc.getValue(), "target");
+  }
+
+  private static long readOffset(final PatchInput input) throws IOException {
+    final long data = input.readNumber();
+    final long magnitude = data >>> 1;
+    return ((data & 1) != 0) ? -magnitude : magnitude;
+  }
+
+  private static void requireRange(final long offset, final long length, final long size,
+                                   final String name) throws PatchException {
+    if (offset < 0 || length > size - offset) {
+      throw new PatchException("BPS action reads out of the " + name + " bounds");
+    }
+  }
+
+  /**
+   * Copies previously written target bytes. The ranges may overlap, in which case the copied
+   * bytes repeat with a period equal to the distance between both offsets.
+   */
+  private void targetCopy(final Cartridge target, final long from, final long to,
+                          final long length, final byte[] chunk, final CRC32 targetCrc) {
+    final long distance = to - from;
+    if (distance >= Math.min(length, chunk.length)) {
+      // Every chunk is read from bytes written by previous chunks
+      PatchSupport.copy(target, from, target, to, length, chunk, targetCrc);
+      return;
+    }
+    // Read one period and replicate it, instead of copying byte by byte
+    final int period = (int) distance;
+    target.getBytes(from, chunk, 0, period);
+    int filled = period;
+    final int chunkLength = (int) Math.min(length, chunk.length - chunk.length % period);
+    while (filled < chunkLength) {
+      final int count = Math.min(filled, chunkLength - filled);
+      System.arraycopy(chunk, 0, chunk, filled, count);
+      filled += count;
+    }
+    for (long copied = 0; copied < length; ) {
+      final int count = (int) Math.min(length - copied, chunkLength);
+      target.setBytes(to + copied, chunk, 0, count);
+      targetCrc.update(chunk, 0, count);
+      copied += count;
+    }
+  }
+}
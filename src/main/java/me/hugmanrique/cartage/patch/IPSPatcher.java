@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.patch;
+
+import static java.util.Objects.requireNonNull;
+import static me.hugmanrique.cartage.patch.PatchSupport.CHUNK_LENGTH;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import me.hugmanrique.cartage.Cartridge;
+
+/**
+ * Applies International Patching System (IPS) patches.
+ *
+ * <p>An IPS patch is a sequence of records, each of which overwrites a range of bytes with either
+ * the given data or a repeated byte value. IPS patches contain no checksums, so they can't be
+ * checked against the source data. The truncation extension is ignored.
+ *
+ * <p>If the source and target cartridges differ, the source contents are copied into the target
+ * before applying the records.
+ *
+ * @see <a href="https://zerosoft.zophar.net/ips.php">IPS file format</a>
+ */
+public final class IPSPatcher implements Patcher {
+
+  private static final IPSPatcher INSTANCE = new IPSPatcher();
+
+  /**
+   * Returns a patcher instance.
+   *
+   * @return the patcher
+   */
+  public static IPSPatcher get() {
+    return INSTANCE;
+  }
+
+  private static final int EOF_MARKER = 0x454F46; // "EOF"
+  private static final int OFFSET_LENGTH = 3;
+  private static final int SIZE_LENGTH = 2;
+
+  private IPSPatcher() {}
+
+  @Override
+  public void apply(final InputStream patch, final Cartridge source, final Cartridge target)
+      throws IOException {
+    requireNonNull(source);
+    requireNonNull(target);
+    final var input = new PatchInput(patch);
+    input.requireMagic("PATCH", "IPS");
+    final byte[] chunk = new byte[CHUNK_LENGTH];
+    try {
+      PatchSupport.copy(source, 0, target, 0, Math.min(source.size(), target.size()), chunk,
+          null);
+      int offset;
+      while ((offset = input.readUnsigned(OFFSET_LENGTH)) != EOF_MARKER) {
+        final int size = input.readUnsigned(SIZE_LENGTH);
+        if (size == 0) {
+          // Run-length encoded record
+          final int length = input.readUnsigned(SIZE_LENGTH);
+          Arrays.fill(chunk, 0, Math.min(length, chunk.length), (byte) input.read());
+          for (int written = 0; written < length; ) {
+            final int count = Math.min(length - written, chunk.length);
+            target.setBytes(offset + written, chunk, 0, count);
+            written += count;
+          }
+        } else {
+          for (int written = 0; written < size; ) {
+            final int count = Math.min(size - written, chunk.length);
+            input.readFully(chunk, 0, count);
+            target.setBytes(offset + written, chunk, 0, count);
+            written += count;
+          }
+        }
+      }
+    } catch (IndexOutOfBoundsException e) {
+      throw new PatchException("IPS record is out of the target bounds", e);
+    }
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.patch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import me.hugmanrique.cartage.Cartridge;
+
+/**
+ * Creates patches that transform a source {@link Cartridge} into a target cartridge.
+ *
+ * <p>Unless otherwise noted, implementations are thread-safe.
+ *
+ * @see Patcher to apply the created patches
+ */
+public interface PatchCreator {
+
+  /**
+   * Creates a patch that transforms the contents of the source cartridge into the contents of the
+   * target cartridge, and writes it to the given stream. The offsets of the cartridges are not
+   * modified. The stream is not closed.
+   *
+   * @param source the source cartridge
+   * @param target the target cartridge
+   * @param patch the patch output stream
+   * @throws IOException if an I/O error occurs
+   * @throws IllegalArgumentException if any of the cartridges is too large for the patch format
+   */
+  void create(final Cartridge source, final Cartridge target, final OutputStream patch)
+      throws IOException;
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.patch;
+
+import java.io.IOException;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Indicates a patch is malformed, or does not apply to the given source data.
+ */
+public class PatchException extends IOException {
+
+  /**
+   * Constructs a patch exception with the given detail message and no cause.
+   *
+   * @param message the detail message
+   */
+  public PatchException(final String message) {
+    super(message);
+  }
+
+  /**
+   * Constructs a patch exception with the given detail message and cause.
+   *
+   * @param message the detail message
+   * @param cause the cause
+   */
+  public PatchException(final String message, final @Nullable Throwable cause) {
+    super(message, cause);
+  }
+}
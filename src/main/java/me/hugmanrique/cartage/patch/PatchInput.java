@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.patch;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Reads a patch from a stream through a buffer, keeping the CRC32 of the consumed bytes.
+ *
+ * <p>The buffer allows looking ahead for the end of the stream, which UPS and BPS patches need to
+ * find their footer.
+ *
+ * <p>This class is not thread-safe.
+ */
+final class PatchInput {
+
+  private static final int BUFFER_LENGTH = 1 << 16; // 64 KB
+
+  private final InputStream stream;
+  private final byte[] buffer = new byte[BUFFER_LENGTH];
+  private int position;
+  private int limit;
+  private boolean eof;
+  private final CRC32 crc = new CRC32();
+  private int crcPosition; // start of the consumed bytes not added to the CRC yet
+
+  PatchInput(final InputStream stream) {
+    this.stream = requireNonNull(stream);
+  }
+
+  /**
+   * Tries to buffer at least the given number of bytes.
+   *
+   * @param length the number of bytes
+   * @return {@code true} if the bytes are buffered, {@code false} if the stream ends before
+   */
+  private boolean fill(final int length) throws IOException {
+    if (this.limit - this.position >= length) {
+      return true;
+    }
+    if (this.buffer.length - this.position < length) {
+      // Make room, discarding consumed bytes
+      this.crc.update(this.buffer, this.crcPosition, this.position - this.crcPosition);
+      System.arraycopy(this.buffer, this.position, this.buffer, 0, this.limit - this.position);
+      this.limit -= this.position;
+      this.position = 0;
+      this.crcPosition = 0;
+    }
+    while (!this.eof && this.limit - this.position < length) {
+      final int read = this.stream.read(this.buffer, this.limit, this.buffer.length - this.limit);
+      if (read < 0) {
+        this.eof = true;
+      } else {
+        this.limit += read;
+      }
+    }
+    return this.limit - this.position >= length;
+  }
+
+  /**
+   * Returns whether at most the given number of bytes remain in the stream.
+   *
+   * @param length the number of bytes
+   * @return {@code true} if the stream has at most {@code length} remaining bytes
+   * @throws IOException if an I/O error occurs
+   */
+  boolean remainingAtMost(final int length) throws IOException {
+    return !this.fill(length + 1);
+  }
+
+  /**
+   * Reads an unsigned byte.
+   *
+   * @return the byte value
+   * @throws PatchException if the end of the stream is reached
+   * @throws IOException if an I/O error occurs
+   */
+  int read() throws IOException {
+    if (!this.fill(1)) {
+      throw new PatchException("Unexpected end of patch");
+    }
+    return this.buffer[this.position++] & 0xFF;
+  }
+
+  /**
+   * Reads the given number of bytes into an array.
+   *
+   * @param dest the destination array
+   * @param offset the offset in the array of the first byte
+   * @param length the number of bytes
+   * @throws PatchException if the end of the stream is reached
+   * @throws IOException if an I/O error occurs
+   */
+  void readFully(final byte[] dest, final int offset, final int length) throws IOException {
+    int transferred = 0;
+    while (transferred < length) {
+      if (!this.fill(1)) {
+        throw new PatchException("Unexpected end of patch");
+      }
+      final int count = Math.min(length - transferred, this.limit - this.position);
+      System.arraycopy(this.buffer, this.position, dest, offset + transferred, count);
+      this.position += count;
+      transferred += count;
+    }
+  }
+
+  /**
+   * Skips the given number of bytes.
+   *
+   * @param length the number of bytes
+   * @throws PatchException if the end of the stream is reached
+   * @throws IOException if an I/O error occurs
+   */
+  void skip(final long length) throws IOException {
+    long remaining = length;
+    while (remaining > 0) {
+      if (!this.fill(1)) {
+        throw new PatchException("Unexpected end of patch");
+      }
+      final int count = (int) Math.min(remaining, this.limit - this.position);
+      this.position += count;
+      remaining -= count;
+    }
+  }
+
+  /**
+   * Reads an unsigned big-endian integer of the given length.
+   *
+   * @param length the number of bytes, at most 4
+   * @return the integer value
+   * @throws PatchException if the end of the stream is reached
+   * @throws IOException if an I/O error occurs
+   */
+  int readUnsigned(final int length) throws IOException {
+    int value = 0;
+    for (int i = 0; i < length; i++) {
+      value = (value << 8) | this.read();
+    }
+    return value;
+  }
+
+  /**
+   * Reads a little-endian 32-bit integer.
+   *
+   * @return the integer value
+   * @throws PatchException if the end of the stream is reached
+   * @throws IOException if an I/O error occurs
+   */
+  int readIntLE() throws IOException {
+    return Integer.reverseBytes(this.readUnsigned(Integer.BYTES));
+  }
+
+  /**
+   * Reads a variable-length number, as encoded by UPS and BPS patches. Each byte holds 7 bits of
+   * the number, and the last byte has its most significant bit set. Each continuation also adds
+   * an offset, so every number has a single encoding.
+   *
+   * @return the number
+   * @throws PatchException if the number overflows, or the end of the stream is reached
+   * @throws IOException if an I/O error occurs
+   */
+  long readNumber() throws IOException {
+    long value = 0;
+    long shift = 1;
+    while (true) {
+      final int data = this.read();
+      value += (data & 0x7F) * shift;
+      if ((data & 0x80) != 0) {
+        return value;
+      }
+      if (shift > (1L << 48)) {
+        throw new PatchException("Variable-length number is too large");
+      }
+      shift <<= 7;
+      value += shift;
+    }
+  }
+
+  /**
+   * Reads the given magic string, and checks it matches.
+   *
+   * @param magic the expected ASCII string
+   * @param format the format name
+   * @throws PatchException if the magic string does not match
+   * @throws IOException if an I/O error occurs
+   */
+  void requireMagic(final String magic, final String format) throws IOException {
+    final byte[] expected = magic.getBytes(StandardCharsets.US_ASCII);
+    final byte[] actual = new byte[expected.length];
+    try {
+      this.readFully(actual, 0, actual.length);
+    } catch (PatchException e) {
+      throw new PatchException("Not a valid " + format + " patch, too short", e);
+    }
+    if (!Arrays.equals(expected, actual)) {
+      throw new PatchException("Not a valid " + format + " patch, got magic "
+          + new String(actual, StandardCharsets.ISO_8859_1));
+    }
+  }
+
+  /**
+   * Returns the CRC32 of the bytes consumed so far.
+   *
+   * @return the CRC32 value
+   */
+  int crc32() {
+    this.crc.update(this.buffer, this.crcPosition, this.position - this.crcPosition);
+    this.crcPosition = this.position;
+    return (int) this.crc.getValue();
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.patch;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Writes a patch to a stream through a buffer, keeping the CRC32 of the written bytes.
+ *
+ * <p>This class is not thread-safe.
+ */
+final class PatchOutput {
+
+  private static final int BUFFER_LENGTH = 1 << 16; // 64 KB
+
+  private final OutputStream stream;
+  private final byte[] buffer = new byte[BUFFER_LENGTH];
+  private int position;
+  private final CRC32 crc = new CRC32();
+  private int crcPosition; // start of the written bytes not added to the CRC yet
+
+  PatchOutput(final OutputStream stream) {
+    this.stream = requireNonNull(stream);
+  }
+
+  /**
+   * Writes a byte.
+   *
+   * @param value the byte value
+   * @throws IOException if an I/O error occurs
+   */
+  void write(final int value) throws IOException {
+    if (this.position == this.buffer.length) {
+      this.flush();
+    }
+    this.buffer[this.position++] = (byte) value;
+  }
+
+  /**
+   * Writes a range of bytes.
+   *
+   * @param src the source array
+   * @param offset the offset in the array of the first byte
+   * @param length the number of bytes
+   * @throws IOException if an I/O error occurs
+   */
+  void write(final byte[] src, final int offset, final int length) throws IOException {
+    int transferred = 0;
+    while (transferred < length) {
+      if (this.position == this.buffer.length) {
+        this.flush();
+      }
+      final int count = Math.min(length - transferred, this.buffer.length - this.position);
+      System.arraycopy(src, offset + transferred, this.buffer, this.position, count);
+      this.position += count;
+      transferred += count;
+    }
+  }
+
+  /**
+   * Writes an ASCII string.
+   *
+   * @param value the string
+   * @throws IOException if an I/O error occurs
+   */
+  void writeAscii(final String value) throws IOException {
+    final byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+    this.write(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Writes a little-endian 32-bit integer.
+   *
+   * @param value the integer value
+   * @throws IOException if an I/O error occurs
+   */
+  void writeIntLE(final int value) throws IOException {
+    for (int i = 0; i < Integer.BYTES; i++) {
+      this.write(value >>> (i * 8));
+    }
+  }
+
+  /**
+   * Writes a variable-length number, as encoded by UPS and BPS patches.
+   *
+   * @param value the non-negative number
+   * @throws IOException if an I/O error occurs
+   * @see PatchInput#readNumber()
+   */
+  void writeNumber(final long value) throws IOException {
+    long data = value;
+    while (true) {
+      final int bits = (int) (data & 0x7F);
+      data >>>= 7;
+      if (data == 0) {
+        this.write(0x80 | bits);
+        return;
+      }
+      this.write(bits);
+      data--;
+    }
+  }
+
+  /**
+   * Returns the CRC32 of the bytes written so far.
+   *
+   * @return the CRC32 value
+   */
+  int crc32() {
+    this.crc.update(this.buffer, this.crcPosition, this.position - this.crcPosition);
+    this.crcPosition = this.position;
+    return (int) this.crc.getValue();
+  }
+
+  /**
+   * Writes the buffered bytes to the stream.
+   *
+   * @throws IOException if an I/O error occurs
+   */
+  void flush() throws IOException {
+    this.crc.update(this.buffer, this.crcPosition, this.position - this.crcPosition);
+    this.stream.write(this.buffer, 0, this.position);
+    this.position = 0;
+    this.crcPosition = 0;
+  }
+
+  /**
+   * Writes the UPS/BPS footer, and flushes the buffered bytes.
+   *
+   * @param sourceCrc the CRC32 of the source data
+   * @param targetCrc the CRC32 of the target data
+   * @throws IOException if an I/O error occurs
+   */
+  void finish(final int sourceCrc, final int targetCrc) throws IOException {
+    this.writeIntLE(sourceCrc);
+    this.writeIntLE(targetCrc);
+    this.writeIntLE(this.crc32());
+    this.flush();
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.patch;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import me.hugmanrique.cartage.Cartridge;
+import me.hugmanrique.cartage.hash.HashAlgorithm;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Provides utilities shared by the patch appliers and creators.
+ */
+final class PatchSupport {
+
+  static final int CHUNK_LENGTH = 1 << 14; // 16 KB
+  static final int FOOTER_LENGTH = 3 * Integer.BYTES;
+
+  /**
+   * Computes the CRC32 of the first bytes of the given cartridge.
+   *
+   * @param cartridge the cartridge
+   * @param length the number of bytes
+   * @return the CRC32 value
+   */
+  static int crc32(final Cartridge cartridge, final long length) {
+    try (var slice = cartridge.slice(0, length)) {
+      return ByteBuffer.wrap(slice.hash(HashAlgorithm.CRC32).get(HashAlgorithm.CRC32)).getInt();
+    }
+  }
+
+  /**
+   * Reads bytes from a source cartridge whose data ends at the given size. Bytes past the end
+   * read as zero.
+   *
+   * @param source the source cartridge
+   * @param sourceSize the size of the source data
+   * @param offset the offset of the first byte
+   * @param dest the destination array
+   * @param length the number of bytes
+   */
+  static void readSource(final Cartridge source, final long sourceSize, final long offset,
+                         final byte[] dest, final int length) {
+    final int available = (int) Math.max(0, Math.min(length, sourceSize - offset));
+    if (available > 0) {
+      source.getBytes(offset, dest, 0, available);
+    }
+    Arrays.fill(dest, available, length, (byte) 0);
+  }
+
+  /**
+   * Copies a range of bytes between cartridges, in chunks.
+   *
+   * @param source the source cartridge
+   * @param sourceOffset the offset of the first source byte
+   * @param target the target cartridge
+   * @param targetOffset the offset of the first target byte
+   * @param length the number of bytes
+   * @param chunk the array used to transfer each chunk
+   * @param crc the checksum to update with the copied bytes, if any
+   */
+  static void copy(final Cartridge source, final long sourceOffset, final Cartridge target,
+                   final long targetOffset, final long length, final byte[] chunk,
+                   final @Nullable CRC32 crc) {
+    final boolean unchanged = source == target && sourceOffset == targetOffset;
+    if (unchanged && crc == null) {
+      return;
+    }
+    for (long copied = 0; copied < length; ) {
+      final int count = (int) Math.min(length - copied, chunk.length);
+      source.getBytes(sourceOffset + copied, chunk, 0, count);
+      if (!unchanged) {
+        target.setBytes(targetOffset + copied, chunk, 0, count);
+      }
+      if (crc != null) {
+        crc.update(chunk, 0, count);
+      }
+      copied += count;
+    }
+  }
+
+  /**
+   * Checks that a CRC32 value matches the expected one.
+   *
+   * @param expected the expected value
+   * @param actual the actual value
+   * @param name the name of the checked data
+   * @throws PatchException if the values differ
+   */
+  static void requireCrc(final int expected, final int actual, final String name)
+      throws PatchException {
+    if (expected != actual) {
+      throw new PatchException("Expected " + name + " CRC32 " + Integer.toHexString(expected)
+          + ", got " + Integer.toHexString(actual));
+    }
+  }
+
+  private PatchSupport() {
+    throw new AssertionError();
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.patch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import me.hugmanrique.cartage.Cartridge;
+
+/**
+ * Applies patches to {@link Cartridge cartridges}.
+ *
+ * <p>Patches are read sequentially from a stream, and the patched data is written into the target
+ * cartridge in bulk. To patch a file without copying it into the heap, copy the file and
+ * {@linkplain me.hugmanrique.cartage.gba.GBACartridge#map(java.nio.file.Path,
+ * java.nio.channels.FileChannel.MapMode) map} the copy in read-write mode as the target.
+ *
+ * <p>Unless otherwise noted, implementations are thread-safe.
+ */
+public interface Patcher {
+
+  /**
+   * Applies the given patch to the source cartridge, writing the result into the target
+   * cartridge. The offsets of the cartridges are not modified. The patch stream is not closed.
+   *
+   * <p>If an exception is thrown, the contents of the target cartridge are unspecified.
+   *
+   * @param patch the patch input stream
+   * @param source the source cartridge
+   * @param target the target cartridge, which must be large enough to hold the patched data
+   * @throws PatchException if the patch is malformed, or does not apply to the source cartridge
+   * @throws IOException if an I/O error occurs
+   * @throws UnsupportedOperationException if the target cartridge is read-only, or it
+   *     {@linkplain Cartridge#sharesContents(Cartridge) shares its contents} with the source
+   *     cartridge and the patch format cannot be applied in place
+   */
+  void apply(final InputStream patch, final Cartridge source, final Cartridge target)
+      throws IOException;
+
+  /**
+   * Applies the given patch to the given cartridge in place. The offset of the cartridge is not
+   * modified. The patch stream is not closed.
+   *
+   * <p>If an exception is thrown, the contents of the cartridge are unspecified.
+   *
+   * @param patch the patch input stream
+   * @param cartridge the cartridge
+   * @throws PatchException if the patch is malformed, or does not apply to the cartridge
+   * @throws IOException if an I/O error occurs
+   * @throws UnsupportedOperationException if the cartridge is read-only, or the patch format
+   *     cannot be applied in place
+   */
+  default void apply(final InputStream patch, final Cartridge cartridge) throws IOException {
+    this.apply(patch, cartridge, cartridge);
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.patch;
+
+import static java.util.Objects.requireNonNull;
+import static me.hugmanrique.cartage.patch.PatchSupport.CHUNK_LENGTH;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import me.hugmanrique.cartage.Cartridge;
+
+/**
+ * Creates Universal Patching System (UPS) patches.
+ *
+ * <p>UPS patches XOR each target byte with the source byte at the same offset, so they are only
+ * compact if the data was modified in place. Use a {@link BPSPatchCreator} if the data may have
+ * shifted. Bytes past the end of the source or target data XOR as zero, and the patch covers
+ * both, so it can also be applied in reverse to obtain the source data from the target data.
+ *
+ * @see UPSPatcher
+ */
+public final class UPSPatchCreator implements PatchCreator {
+
+  private static final UPSPatchCreator INSTANCE = new UPSPatchCreator();
+
+  /**
+   * Returns a patch creator instance.
+   *
+   * @return the patch creator
+   */
+  public static UPSPatchCreator get() {
+    return INSTANCE;
+  }
+
+  private UPSPatchCreator() {}
+
+  @Override
+  public void create(final Cartridge source, final Cartridge target, final OutputStream patch)
+      throws IOException {
+    requireNonNull(source);
+    requireNonNull(target);
+    final var output = new PatchOutput(patch);
+    final long sourceSize = source.size();
+    final long targetSize = target.size();
+    output.writeAscii("UPS1");
+    output.writeNumber(sourceSize);
+    output.writeNumber(targetSize);
+
+    final byte[] sourceChunk = new byte[CHUNK_LENGTH];
+    final byte[] targetChunk = new byte[CHUNK_LENGTH];
+    long last = 0; // offset after the end of the last hunk
+    boolean inHunk = false;
+    final long size = Math.max(sourceSize, targetSize);
+    for (long offset = 0; offset < size; ) {
+      final int count = (int) Math.min(size - offset, CHUNK_LENGTH);
+      PatchSupport.readSource(source, sourceSize, offset, sourceChunk, count);
+      PatchSupport.readSource(target, targetSize, offset, targetChunk, count);
+      for (int i = 0; i < count; i++) {
+        final int xor = (sourceChunk[i] ^ targetChunk[i]) & 0xFF;
+        if (inHunk) {
+          output.write(xor);
+          if (xor == 0) {
+            inHunk = false;
+            last = offset + i + 1;
+          }
+        } else if (xor != 0) {
+          output.writeNumber(offset + i - last);
+          output.write(xor);
+          inHunk = true;
+        }
+      }
+      offset += count;
+    }
+    if (inHunk) {
+      output.write(0); // terminator past the end
+    }
+    output.finish(PatchSupport.crc32(source, sourceSize), PatchSupport.crc32(target, targetSize));
+  }
+}
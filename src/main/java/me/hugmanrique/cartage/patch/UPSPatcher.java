@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.patch;
+
+import static java.util.Objects.requireNonNull;
+import static me.hugmanrique.cartage.patch.PatchSupport.CHUNK_LENGTH;
+import static me.hugmanrique.cartage.patch.PatchSupport.FOOTER_LENGTH;
+import static me.hugmanrique.cartage.patch.PatchSupport.requireCrc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import me.hugmanrique.cartage.Cartridge;
+
+/**
+ * Applies Universal Patching System (UPS) patches.
+ *
+ * <p>A UPS patch is a sequence of hunks, each of which skips some bytes and XORs the following
+ * ones with the patch data. Source bytes past the end of the source data read as zero, and
+ * target bytes past the end of the target data are discarded, so that patches can cover both
+ * and be reversed. Hunks are applied in order, so the CRC32 of the source data is computed as it
+ * is read, and the CRC32 of the target data as it is written. Each cartridge is traversed once.
+ *
+ * <p>UPS patches can be applied in place. In that case, the patch is checked against the source
+ * data after the cartridge is modified, since the checksums are at the end of the patch.
+ *
+ * @see <a href="https://www.romhacking.net/documents/392/">UPS file format</a>
+ */
+public final class UPSPatcher implements Patcher {
+
+  private static final UPSPatcher INSTANCE = new UPSPatcher();
+
+  /**
+   * Returns a patcher instance.
+   *
+   * @return the patcher
+   */
+  public static UPSPatcher get() {
+    return INSTANCE;
+  }
+
+  private UPSPatcher() {}
+
+  @Override
+  public void apply(final InputStream patch, final Cartridge source, final Cartridge target)
+      throws IOException {
+    requireNonNull(source);
+    requireNonNull(target);
+    final var input = new PatchInput(patch);
+    input.requireMagic("UPS1", "UPS");
+    final long sourceSize = input.readNumber();
+    final long targetSize = input.readNumber();
+    if (source.size() < sourceSize || target.size() < targetSize) {
+      throw new PatchException("Expected source and target sizes of at least " + sourceSize
+          + " and " + targetSize + " bytes, got " + source.size() + " and " + target.size());
+    }
+    final long size = Math.max(sourceSize, targetSize);
+    final var sourceCrc = new CRC32();
+    final var targetCrc = new CRC32();
+    final byte[] chunk = new byte[CHUNK_LENGTH];
+    final byte[] xor = new byte[CHUNK_LENGTH];
+    long offset = 0;
+
+    while (!input.remainingAtMost(FOOTER_LENGTH)) {
+      final long skipped = input.readNumber();
+      if (skipped > size - offset) {
+        throw new PatchException("UPS hunk is out of the source and target bounds");
+      }
+      this.copy(source, sourceSize, target, targetSize, offset, skipped, chunk, sourceCrc,
+          targetCrc);
+      offset += skipped;
+
+      // XOR bytes until (and including) the next zero byte
+      boolean end = false;
+      while (!end) {
+        int count = 0;
+        while (count < xor.length && !end) {
+          final int value = input.read();
+          xor[count++] = (byte) value;
+          end = value == 0;
+        }
+        if (count > size - offset) {
+          // Some encoders place the terminator of a hunk ending at the end past it
+          if (!end || count - 1 != size - offset) {
+            throw new PatchException("UPS hunk is out of the source and target bounds");
+          }
+          count--;
+        }
+        this.readSource(source, sourceSize, offset, chunk, count, sourceCrc);
+        for (int i = 0; i < count; i++) {
+          chunk[i] ^= xor[i];
+        }
+        this.write(target, targetSize, offset, chunk, count, false, targetCrc);
+        offset += count;
+      }
+    }
+    // Copy the remaining target data, and hash the source data that was never read
+    this.copy(source, sourceSize, target, targetSize, offset, size - offset, chunk, sourceCrc,
+        targetCrc);
+
+    final int expectedSourceCrc = input.readIntLE();
+    final int expectedTargetCrc = input.readIntLE();
+    final int patchCrc = input.crc32();
+    requireCrc(input.readIntLE(), patchCrc, "patch");
+    requireCrc(expectedSourceCrc, (int) sourceCrc.getValue(), "source");
+    requireCrc(expectedTargetCrc, (int) targetCrc.getValue(), "target");
+  }
+
+  /**
+   * Copies unchanged source bytes into the target, zeroing the bytes past the source data.
+   */
+  private void copy(final Cartridge source, final long sourceSize, final Cartridge target,
+                    final long targetSize, final long offset, final long length,
+                    final byte[] chunk, final CRC32 sourceCrc, final CRC32 targetCrc) {
+    for (long copied = 0; copied < length; ) {
+      final long position = offset + copied;
+      final int count = (int) Math.min(length - copied, chunk.length);
+      this.readSource(source, sourceSize, position, chunk, count, sourceCrc);
+      // Unchanged source bytes need not be written when applying the patch in place
+      final boolean unchanged = source == target && position + count <= sourceSize;
+      this.write(target, targetSize, position, chunk, count, unchanged, targetCrc);
+      copied += count;
+    }
+  }
+
+  /**
+   * Reads source bytes into the given array, zeroing the bytes past the source data, and updates
+   * the source checksum with the bytes within it.
+   */
+  private void readSource(final Cartridge source, final long sourceSize, final long offset,
+                          final byte[] chunk, final int count, final CRC32 sourceCrc) {
+    PatchSupport.readSource(source, sourceSize, offset, chunk, count);
+    sourceCrc.update(chunk, 0, (int) Math.max(0, Math.min(count, sourceSize - offset)));
+  }
+
+  /**
+   * Writes bytes into the target, discarding the bytes past the target data, and updates the
+   * target checksum with the bytes within it.
+   */
+  private void write(final Cartridge target, final long targetSize, final long offset,
+                     final byte[] chunk, final int count, final boolean unchanged,
+                     final CRC32 targetCrc) {
+    final int length = (int) Math.max(0, Math.min(count, targetSize - offset));
+    if (length > 0 && !unchanged) {
+      target.setBytes(offset, chunk, 0, length);
+    }
+    targetCrc.update(chunk, 0, length);
+  }
+}
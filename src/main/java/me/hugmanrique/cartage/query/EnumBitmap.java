@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.query;
+
+import java.util.BitSet;
+import java.util.function.Predicate;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Keeps a bitmap of the rows that contain each constant of an enum.
+ *
+ * @param <E> the enum type
+ */
+final class EnumBitmap<E extends Enum<E>> {
+
+  private final E[] constants;
+  private final BitSet[] bitmaps;
+
+  EnumBitmap(final Class<E> type) {
+    this.constants = type.getEnumConstants();
+    this.bitmaps = new BitSet[this.constants.length];
+    for (int i = 0; i < this.bitmaps.length; i++) {
+      this.bitmaps[i] = new BitSet();
+    }
+  }
+
+  /**
+   * Records the value of a row. Rows with unknown values are not recorded.
+   *
+   * @param row the row index
+   * @param value the value, or {@code null} if unknown
+   */
+  void set(final int row, final @Nullable E value) {
+    if (value != null) {
+      this.bitmaps[value.ordinal()].set(row);
+    }
+  }
+
+  /**
+   * Returns the rows whose value matches the given filter. Rows with unknown values never match.
+   *
+   * @param filter the filter
+   * @return a new bitmap of the matching rows
+   */
+  BitSet rows(final Predicate<? super E> filter) {
+    final var rows = new BitSet();
+    for (E constant : this.constants) {
+      if (filter.test(constant)) {
+        rows.or(this.bitmaps[constant.ordinal()]);
+      }
+    }
+    return rows;
+  }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.query;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.function.Predicate;
+import me.hugmanrique.cartage.gba.GBACartridge;
+import me.hugmanrique.cartage.gba.GBACartridge.DACSType;
+import me.hugmanrique.cartage.gba.GBACartridge.Destination;
+import me.hugmanrique.cartage.gba.GBACartridge.Header;
+import me.hugmanrique.cartage.gba.GBACartridge.Type;
+
+/**
+ * An index of the header fields of a set of {@link GBACartridge} cartridges, which finds the
+ * cartridges that satisfy some conditions without inspecting each header.
+ *
+ * <p>The index keeps a bitmap of the rows for each enum constant and boolean field, and the
+ * numeric fields sorted by value. Rows are numbered in the order headers are added to the
+ * {@link Builder}. Instances of this class are immutable, but queries are not thread-safe.
+ */
+public final class GBAHeaderIndex {
+
+  /**
+   * Creates a builder for a GBA header index.
+   *
+   * @return the builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private final int size;
+  private final EnumBitmap<Type> types;
+  private final EnumBitmap<Destination> destinations;
+  private final EnumBitmap<DACSType> dacsTypes;
+  private final SortedColumn versions;
+  private final BitSet validLogos;
+  private final BitSet validChecksums;
+
+  private GBAHeaderIndex(final Builder builder) {
+    this.size = builder.size;
+    this.types = builder.types;
+    this.destinations = builder.destinations;
+    this.dacsTypes = builder.dacsTypes;
+    this.versions = builder.versions.build();
+    this.validLogos = builder.validLogos;
+    this.validChecksums = builder.validChecksums;
+  }
+
+  /**
+   * Returns the number of rows in this index.
+   *
+   * @return the number of rows
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Creates a query that initially matches every row.
+   *
+   * @return the query
+   */
+  public Query query() {
+    return new Query();
+  }
+
+  /**
+   * A query over the rows of a {@link GBAHeaderIndex}. Each method adds a condition, which must be
+   * satisfied in addition to the previous ones.
+   */
+  public final class Query extends HeaderQuery {
+
+    private Query() {
+      super(size);
+    }
+
+    /**
+     * Matches the rows whose type satisfies the given filter. Rows with an unknown type never
+     * match.
+     *
+     * @param filter the type filter
+     * @return this query
+     */
+    public Query type(final Predicate<? super Type> filter) {
+      requireNonNull(filter);
+      this.and(types.rows(filter));
+      return this;
+    }
+
+    /**
+     * Matches the rows whose type is one of the given types.
+     *
+     * @param first the first type
+     * @param rest the other types
+     * @return this query
+     */
+    public Query type(final Type first, final Type... rest) {
+      return this.type(EnumSet.of(first, rest)::contains);
+    }
+
+    /**
+     * Matches the rows whose destination satisfies the given filter. Rows with an unknown
+     * destination never match.
+     *
+     * @param filter the destination filter
+     * @return this query
+     */
+    public Query destination(final Predicate<? super Destination> filter) {
+      requireNonNull(filter);
+      this.and(destinations.rows(filter));
+      return this;
+    }
+
+    /**
+     * Matches the rows whose destination is one of the given destinations.
+     *
+     * @param first the first destination
+     * @param rest the other destinations
+     * @return this query
+     */
+    public Query destination(final Destination first, final Destination... rest) {
+      return this.destination(EnumSet.of(first, rest)::contains);
+    }
+
+    /**
+     * Matches the rows whose debugging-and-communication system type satisfies the given filter.
+     * Rows without a DACS type never match.
+     *
+     * @param filter the DACS type filter
+     * @return this query
+     */
+    public Query dacs(final Predicate<? super DACSType> filter) {
+      requireNonNull(filter);
+      this.and(dacsTypes.rows(filter));
+      return this;
+    }
+
+    /**
+     * Matches the rows whose version number is in the given range.
+     *
+     * @param min the minimum version (inclusive)
+     * @param max the maximum version (inclusive)
+     * @return this query
+     */
+    public Query version(final int min, final int max) {
+      this.and(versions.range(min, max));
+      return this;
+    }
+
+    /**
+     * Matches the rows whose Nintendo logo validity equals the given value.
+     *
+     * @param valid whether the logo must be valid
+     * @return this query
+     * @see Header#hasValidLogo()
+     */
+    public Query validLogo(final boolean valid) {
+      this.and(validLogos, valid);
+      return this;
+    }
+
+    /**
+     * Matches the rows whose header checksum validity equals the given value.
+     *
+     * @param valid whether the stored header checksum must equal the computed checksum
+     * @return this query
+     * @see Header#computeChecksum()
+     */
+    public Query validChecksum(final boolean valid) {
+      this.and(validChecksums, valid);
+      return this;
+    }
+  }
+
+  /**
+   * Accumulates the header fields of GBA cartridges into a {@link GBAHeaderIndex}.
+   *
+   * <p>This class is not thread-safe.
+   */
+  public static final class Builder {
+
+    private int size;
+    private final EnumBitmap<Type> types = new EnumBitmap<>(Type.class);
+    private final EnumBitmap<Destination> destinations = new EnumBitmap<>(Destination.class);
+    private final EnumBitmap<DACSType> dacsTypes = new EnumBitmap<>(DACSType.class);
+    private final SortedColumn.Builder versions = new SortedColumn.Builder();
+    private final BitSet validLogos = new BitSet();
+    private final BitSet validChecksums = new BitSet();
+    private boolean built;
+
+    private Builder() {}
+
+    /**
+     * Adds the fields of the given header as a new row.
+     *
+     * @param header the cartridge header
+     * @return the index of the row
+     * @throws IllegalStateException if the index was already built
+     */
+    public int add(final Header header) {
+      final Header.Snapshot snapshot = header.snapshot();
+      return this.add(snapshot, snapshot.checksum() == header.computeChecksum());
+    }
+
+    /**
+     * Adds the fields of the given header snapshot as a new row.
+     *
+     * @param snapshot the header snapshot
+     * @param validChecksum whether the header checksum is valid
+     * @return the index of the row
+     * @throws IllegalStateException if the index was already built
+     */
+    public int add(final Header.Snapshot snapshot, final boolean validChecksum) {
+      requireNonNull(snapshot);
+      if (this.built) {
+        throw new IllegalStateException("The index was already built");
+      }
+      final int row = this.size++;
+      this.types.set(row, snapshot.type());
+      this.destinations.set(row, snapshot.destination());
+      this.dacsTypes.set(row, snapshot.dacs());
+      this.versions.add(Byte.toUnsignedInt(snapshot.version()));
+      this.validLogos.set(row, snapshot.hasValidLogo());
+      this.validChecksums.set(row, validChecksum);
+      return row;
+    }
+
+    /**
+     * Builds the index. The builder cannot be used afterwards.
+     *
+     * @return the index
+     * @throws IllegalStateException if the index was already built
+     */
+    public GBAHeaderIndex build() {
+      if (this.built) {
+        throw new IllegalStateException("The index was already built");
+      }
+      this.built = true;
+      return new GBAHeaderIndex(this);
+    }
+  }
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.query;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.function.Predicate;
+import me.hugmanrique.cartage.gb.GBCartridge;
+import me.hugmanrique.cartage.gb.GBCartridge.Header;
+import me.hugmanrique.cartage.gb.GBCartridge.Type;
+
+/**
+ * An index of the header fields of a set of {@link GBCartridge} cartridges, which finds the
+ * cartridges that satisfy some conditions without inspecting each header.
+ *
+ * <p>The index keeps a bitmap of the rows for each enum constant and boolean field, and the
+ * numeric fields sorted by value. Rows are numbered in the order headers are added to the
+ * {@link Builder}. Instances of this class are immutable, but queries are not thread-safe.
+ */
+public final class GBHeaderIndex {
+
+  /**
+   * Creates a builder for a GB header index.
+   *
+   * @return the builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private final int size;
+  private final EnumBitmap<Type> types;
+  private final SortedColumn romSizes;
+  private final SortedColumn ramSizes;
+  private final SortedColumn licensees;
+  private final SortedColumn versions;
+  private final BitSet colorFunctions;
+  private final BitSet requiresColor;
+  private final BitSet superFunctions;
+  private final BitSet japaneseDistribution;
+  private final BitSet validLogos;
+  private final BitSet validChecksums;
+
+  private GBHeaderIndex(final Builder builder) {
+    this.size = builder.size;
+    this.types = builder.types;
+    this.romSizes = builder.romSizes.build();
+    this.ramSizes = builder.ramSizes.build();
+    this.licensees = builder.licensees.build();
+    this.versions = builder.versions.build();
+    this.colorFunctions = builder.colorFunctions;
+    this.requiresColor = builder.requiresColor;
+    this.superFunctions = builder.superFunctions;
+    this.japaneseDistribution = builder.japaneseDistribution;
+    this.validLogos = builder.validLogos;
+    this.validChecksums = builder.validChecksums;
+  }
+
+  /**
+   * Returns the number of rows in this index.
+   *
+   * @return the number of rows
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Creates a query that initially matches every row.
+   *
+   * @return the query
+   */
+  public Query query() {
+    return new Query();
+  }
+
+  /**
+   * A query over the rows of a {@link GBHeaderIndex}. Each method adds a condition, which must be
+   * satisfied in addition to the previous ones.
+   */
+  public final class Query extends HeaderQuery {
+
+    private Query() {
+      super(size);
+    }
+
+    /**
+     * Matches the rows whose type satisfies the given filter. Rows with an unknown type never
+     * match.
+     *
+     * @param filter the type filter
+     * @return this query
+     */
+    public Query type(final Predicate<? super Type> filter) {
+      requireNonNull(filter);
+      this.and(types.rows(filter));
+      return this;
+    }
+
+    /**
+     * Matches the rows whose type is one of the given types.
+     *
+     * @param first the first type
+     * @param rest the other types
+     * @return this query
+     */
+    public Query type(final Type first, final Type... rest) {
+      return this.type(EnumSet.of(first, rest)::contains);
+    }
+
+    /**
+     * Matches the rows whose ROM size is in the given range. Rows with an invalid ROM size code
+     * have a size of {@code -1}.
+     *
+     * @param min the minimum size in bytes (inclusive)
+     * @param max the maximum size in bytes (inclusive)
+     * @return this query
+     * @see Header#romSizeBytes()
+     */
+    public Query romSize(final int min, final int max) {
+      this.and(romSizes.range(min, max));
+      return this;
+    }
+
+    /**
+     * Matches the rows whose RAM size is in the given range. Rows with an invalid RAM size code
+     * have a size of {@code -1}.
+     *
+     * @param min the minimum size in bytes (inclusive)
+     * @param max the maximum size in bytes (inclusive)
+     * @return this query
+     * @see Header#ramSizeBytes()
+     */
+    public Query ramSize(final int min, final int max) {
+      this.and(ramSizes.range(min, max));
+      return this;
+    }
+
+    /**
+     * Matches the rows with the given licensee code.
+     *
+     * @param licensee the licensee code
+     * @return this query
+     * @see Header#licensee()
+     */
+    public Query licensee(final short licensee) {
+      this.and(licensees.range(licensee, licensee));
+      return this;
+    }
+
+    /**
+     * Matches the rows whose version number is in the given range.
+     *
+     * @param min the minimum version (inclusive)
+     * @param max the maximum version (inclusive)
+     * @return this query
+     */
+    public Query version(final int min, final int max) {
+      this.and(versions.range(min, max));
+      return this;
+    }
+
+    /**
+     * Matches the rows whose GBC support equals the given value.
+     *
+     * @param supported whether the cartridge must support GBC functions
+     * @return this query
+     * @see Header#hasColorFunctions()
+     */
+    public Query colorFunctions(final boolean supported) {
+      this.and(colorFunctions, supported);
+      return this;
+    }
+
+    /**
+     * Matches the rows whose GBC requirement equals the given value.
+     *
+     * @param required whether the cartridge must require a GBC
+     * @return this query
+     * @see Header#requiresColor()
+     */
+    public Query requiresColor(final boolean required) {
+      this.and(requiresColor, required);
+      return this;
+    }
+
+    /**
+     * Matches the rows whose SGB support equals the given value.
+     *
+     * @param supported whether the cartridge must support SGB functions
+     * @return this query
+     * @see Header#hasSuperFunctions()
+     */
+    public Query superFunctions(final boolean supported) {
+      this.and(superFunctions, supported);
+      return this;
+    }
+
+    /**
+     * Matches the rows whose Japanese distribution equals the given value.
+     *
+     * @param japanese whether the cartridge must be solely distributed in Japan
+     * @return this query
+     * @see Header#japaneseDistribution()
+     */
+    public Query japaneseDistribution(final boolean japanese) {
+      this.and(japaneseDistribution, japanese);
+      return this;
+    }
+
+    /**
+     * Matches the rows whose Nintendo logo validity equals the given value.
+     *
+     * @param valid whether the logo must be valid
+     * @return this query
+     * @see Header#hasValidLogo()
+     */
+    public Query validLogo(final boolean valid) {
+      this.and(validLogos, valid);
+      return this;
+    }
+
+    /**
+     * Matches the rows whose header checksum validity equals the given value.
+     *
+     * @param valid whether the stored header checksum must equal the computed checksum
+     * @return this query
+     * @see Header#computeChecksum()
+     */
+    public Query validChecksum(final boolean valid) {
+      this.and(validChecksums, valid);
+      return this;
+    }
+  }
+
+  /**
+   * Accumulates the header fields of GB cartridges into a {@link GBHeaderIndex}.
+   *
+   * <p>This class is not thread-safe.
+   */
+  public static final class Builder {
+
+    private int size;
+    private final EnumBitmap<Type> types = new EnumBitmap<>(Type.class);
+    private final SortedColumn.Builder romSizes = new SortedColumn.Builder();
+    private final SortedColumn.Builder ramSizes = new SortedColumn.Builder();
+    private final SortedColumn.Builder licensees = new SortedColumn.Builder();
+    private final SortedColumn.Builder versions = new SortedColumn.Builder();
+    private final BitSet colorFunctions = new BitSet();
+    private final BitSet requiresColor = new BitSet();
+    private final BitSet superFunctions = new BitSet();
+    private final BitSet japaneseDistribution = new BitSet();
+    private final BitSet validLogos = new BitSet();
+    private final BitSet validChecksums = new BitSet();
+    private boolean built;
+
+    private Builder() {}
+
+    /**
+     * Adds the fields of the given header as a new row.
+     *
+     * @param header the cartridge header
+     * @return the index of the row
+     * @throws IllegalStateException if the index was already built
+     */
+    public int add(final Header header) {
+      final Header.Snapshot snapshot = header.snapshot();
+      return this.add(snapshot, snapshot.checksum() == header.computeChecksum());
+    }
+
+    /**
+     * Adds the fields of the given header snapshot as a new row.
+     *
+     * @param snapshot the header snapshot
+     * @param validChecksum whether the header checksum is valid
+     * @return the index of the row
+     * @throws IllegalStateException if the index was already built
+     */
+    public int add(final Header.Snapshot snapshot, final boolean validChecksum) {
+      requireNonNull(snapshot);
+      if (this.built) {
+        throw new IllegalStateException("The index was already built");
+      }
+      final int row = this.size++;
+      this.types.set(row, snapshot.type());
+      this.romSizes.add(romSizeBytes(snapshot));
+      this.ramSizes.add(ramSizeBytes(snapshot));
+      this.licensees.add(snapshot.licensee());
+      this.versions.add(Byte.toUnsignedInt(snapshot.version()));
+      this.colorFunctions.set(row, snapshot.hasColorFunctions());
+      this.requiresColor.set(row, snapshot.requiresColor());
+      this.superFunctions.set(row, snapshot.hasSuperFunctions());
+      this.japaneseDistribution.set(row, snapshot.japaneseDistribution());
+      this.validLogos.set(row, snapshot.hasValidLogo());
+      this.validChecksums.set(row, validChecksum);
+      return row;
+    }
+
+    private static int romSizeBytes(final Header.Snapshot snapshot) {
+      try {
+        return snapshot.romSizeBytes();
+      } catch (IllegalArgumentException | IllegalStateException e) {
+        return -1;
+      }
+    }
+
+    private static int ramSizeBytes(final Header.Snapshot snapshot) {
+      try {
+        return snapshot.ramSizeBytes();
+      } catch (IllegalArgumentException | IllegalStateException e) {
+        return -1;
+      }
+    }
+
+    /**
+     * Builds the index. The builder cannot be used afterwards.
+     *
+     * @return the index
+     * @throws IllegalStateException if the index was already built
+     */
+    public GBHeaderIndex build() {
+      if (this.built) {
+        throw new IllegalStateException("The index was already built");
+      }
+      this.built = true;
+      return new GBHeaderIndex(this);
+    }
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.query;
+
+import java.util.BitSet;
+import java.util.stream.IntStream;
+
+/**
+ * A conjunction of conditions over the rows of a header index.
+ *
+ * <p>Each condition intersects the bitmap of matching rows with the bitmap of the rows that
+ * satisfy it, so adding a condition takes time proportional to the number of rows divided by 64.
+ *
+ * <p>This class is not thread-safe.
+ */
+public abstract class HeaderQuery {
+
+  private final BitSet rows;
+
+  HeaderQuery(final int size) {
+    this.rows = new BitSet(size);
+    this.rows.set(0, size);
+  }
+
+  final void and(final BitSet condition) {
+    this.rows.and(condition);
+  }
+
+  final void and(final BitSet condition, final boolean expected) {
+    if (expected) {
+      this.rows.and(condition);
+    } else {
+      this.rows.andNot(condition);
+    }
+  }
+
+  /**
+   * Returns the rows that satisfy every condition of this query.
+   *
+   * @return a new bitmap of the matching rows
+   */
+  public BitSet rows() {
+    return (BitSet) this.rows.clone();
+  }
+
+  /**
+   * Returns the number of rows that satisfy every condition of this query.
+   *
+   * @return the number of matching rows
+   */
+  public int count() {
+    return this.rows.cardinality();
+  }
+
+  /**
+   * Returns the indices of the rows that satisfy every condition of this query, in increasing
+   * order.
+   *
+   * @return a stream of row indices
+   */
+  public IntStream stream() {
+    return this.rows().stream();
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "{"
+        + "count=" + this.count()
+        + '}';
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.query;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Stores the integer values of a column sorted by value, so the rows whose value is in a range
+ * can be found with two binary searches.
+ */
+final class SortedColumn {
+
+  private static final long ROW_MASK = 0xFFFFFFFFL;
+
+  // Each key holds a value in the upper half and its row in the lower half
+  private final long[] keys;
+
+  /**
+   * Accumulates the values of a column in row order.
+   */
+  static final class Builder {
+
+    private int[] values = new int[64];
+    private int count;
+
+    void add(final int value) {
+      if (this.count == this.values.length) {
+        this.values = Arrays.copyOf(this.values, this.count << 1);
+      }
+      this.values[this.count++] = value;
+    }
+
+    SortedColumn build() {
+      return new SortedColumn(this.values, this.count);
+    }
+  }
+
+  /**
+   * Creates a column.
+   *
+   * @param values the value of each row
+   * @param count the number of rows
+   */
+  private SortedColumn(final int[] values, final int count) {
+    this.keys = new long[count];
+    for (int row = 0; row < count; row++) {
+      this.keys[row] = ((long) values[row] << 32) | row;
+    }
+    Arrays.sort(this.keys);
+  }
+
+  /**
+   * Returns the rows whose value is in the given range.
+   *
+   * @param min the minimum value (inclusive)
+   * @param max the maximum value (inclusive)
+   * @return a new bitmap of the matching rows
+   */
+  BitSet range(final int min, final int max) {
+    final var rows = new BitSet();
+    final int end = this.lowerBound(((long) max << 32) | ROW_MASK);
+    for (int i = this.lowerBound((long) min << 32); i < end; i++) {
+      rows.set((int) this.keys[i]);
+    }
+    return rows;
+  }
+
+  private int lowerBound(final long key) {
+    int low = 0;
+    int high = this.keys.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (this.keys[mid] < key) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.search;
+
+import static java.util.Objects.requireNonNull;
+import static me.hugmanrique.cartage.search.SearchSupport.CHUNK_LENGTH;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import me.hugmanrique.cartage.Cartridge;
+import me.hugmanrique.cartage.util.RangeUtils;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Finds the occurrences of many {@link BytePattern}s in a single pass using the Aho-Corasick
+ * algorithm.
+ *
+ * <p>The searcher builds an automaton from the longest run of exactly matched bytes of each
+ * pattern, called its anchor. Every byte of the cartridge is fed to the automaton once, and the
+ * remaining bytes of a pattern are only compared when its anchor is found. Thus, the search time
+ * barely depends on the number of patterns, as long as their anchors are selective.
+ *
+ * <p>The automaton stores a transition per byte value and state, which takes 1 KB per byte of
+ * the anchors.
+ *
+ * <p>Instances of this class are immutable and thread-safe.
+ *
+ * @see HorspoolSearcher to search for a single pattern
+ */
+public final class AhoCorasickSearcher {
+
+  private static final int ALPHABET_SIZE = 256;
+
+  private final BytePattern[] patterns;
+  private final int[] anchorEnds; // offset of the last anchor byte in each pattern
+  private final boolean[] anchorOnly; // whether the anchor is the whole pattern
+  private final int maxLength;
+  private final int[] transitions; // next state by state * ALPHABET_SIZE + byte value
+  private final int[][] outputs; // indices of the patterns whose anchor ends at each state
+
+  /**
+   * Creates a searcher for the given patterns.
+   *
+   * @param patterns the patterns
+   * @throws IllegalArgumentException if a pattern contains no exactly matched bytes
+   */
+  public AhoCorasickSearcher(final BytePattern... patterns) {
+    this(List.of(patterns));
+  }
+
+  /**
+   * Creates a searcher for the given patterns.
+   *
+   * @param patterns the patterns
+   * @throws IllegalArgumentException if a pattern contains no exactly matched bytes
+   */
+  public AhoCorasickSearcher(final List<BytePattern> patterns) {
+    this.patterns = patterns.toArray(new BytePattern[0]);
+    final int count = this.patterns.length;
+    final int[] anchorStarts = new int[count];
+    this.anchorEnds = new int[count];
+    this.anchorOnly = new boolean[count];
+    int maxLength = 0;
+    int maxStates = 1;
+    for (int i = 0; i < count; i++) {
+      final BytePattern pattern = requireNonNull(this.patterns[i]);
+      this.findAnchor(i, anchorStarts);
+      maxLength = Math.max(maxLength, pattern.length());
+      maxStates += this.anchorEnds[i] - anchorStarts[i] + 1;
+    }
+    this.maxLength = maxLength;
+
+    // Build the trie of the anchors; state 0 is the root, so no transition leads to it yet
+    final int[] transitions = new int[maxStates * ALPHABET_SIZE];
+    final int[][] outputs = new int[maxStates][];
+    int states = 1;
+    for (int i = 0; i < count; i++) {
+      int state = 0;
+      for (int j = anchorStarts[i]; j <= this.anchorEnds[i]; j++) {
+        final int index = state * ALPHABET_SIZE + (this.patterns[i].value(j) & 0xFF);
+        if (transitions[index] == 0) {
+          transitions[index] = states++;
+        }
+        state = transitions[index];
+      }
+      outputs[state] = append(outputs[state], i);
+    }
+
+    // Compute the failure links in breadth-first order, turning the trie into an automaton
+    final int[] failures = new int[states];
+    final var queue = new ArrayDeque<Integer>();
+    for (int value = 0; value < ALPHABET_SIZE; value++) {
+      if (transitions[value] != 0) {
+        queue.add(transitions[value]);
+      }
+    }
+    while (!queue.isEmpty()) {
+      final int state = queue.poll();
+      final int failure = failures[state];
+      if (outputs[failure] != null) {
+        outputs[state] = append(outputs[state], outputs[failure]);
+      }
+      for (int value = 0; value < ALPHABET_SIZE; value++) {
+        final int index = state * ALPHABET_SIZE + value;
+        final int next = transitions[failure * ALPHABET_SIZE + value];
+        if (transitions[index] == 0) {
+          transitions[index] = next;
+        } else {
+          failures[transitions[index]] = next;
+          queue.add(transitions[index]);
+        }
+      }
+    }
+    this.transitions = Arrays.copyOf(transitions, states * ALPHABET_SIZE);
+    this.outputs = Arrays.copyOf(outputs, states);
+  }
+
+  private void findAnchor(final int index, final int[] anchorStarts) {
+    final BytePattern pattern = this.patterns[index];
+    int bestStart = 0;
+    int bestLength = 0;
+    int start = 0;
+    for (int i = 0; i <= pattern.length(); i++) {
+      if (i < pattern.length() && pattern.isExact(i)) {
+        continue;
+      }
+      if (i - start > bestLength) {
+        bestStart = start;
+        bestLength = i - start;
+      }
+      start = i + 1;
+    }
+    if (bestLength == 0) {
+      throw new IllegalArgumentException(pattern + " contains no exactly matched bytes");
+    }
+    anchorStarts[index] = bestStart;
+    this.anchorEnds[index] = bestStart + bestLength - 1;
+    this.anchorOnly[index] = bestLength == pattern.length();
+  }
+
+  private static int[] append(final int @Nullable [] array, final int... values) {
+    if (array == null) {
+      return values.clone();
+    }
+    final int[] result = Arrays.copyOf(array, array.length + values.length);
+    System.arraycopy(values, 0, result, array.length, values.length);
+    return result;
+  }
+
+  /**
+   * Returns the number of searched patterns.
+   *
+   * @return the number of patterns
+   */
+  public int size() {
+    return this.patterns.length;
+  }
+
+  /**
+   * Returns the searched pattern at the given index.
+   *
+   * @param index the index of the pattern
+   * @return the pattern
+   * @throws IndexOutOfBoundsException if {@code index} is not less than the number of patterns
+   */
+  public BytePattern pattern(final int index) {
+    return this.patterns[index];
+  }
+
+  /**
+   * Finds the offsets at which each pattern occurs in the given cartridge. The offset of the
+   * cartridge is not modified.
+   *
+   * @param cartridge the cartridge
+   * @return the offsets of each pattern in ascending order, indexed like the patterns
+   * @throws IllegalStateException if the cartridge is closed
+   */
+  public long[][] search(final Cartridge cartridge) {
+    return this.search(cartridge, false);
+  }
+
+  /**
+   * Finds the offsets at which each pattern occurs in the given cartridge. The offset of the
+   * cartridge is not modified.
+   *
+   * <p>If {@code parallel} is {@code true} and the cartridge is {@link Cartridge#isShared()
+   * shared}, large cartridges are split in ranges that are searched concurrently on the common
+   * fork-join pool. Otherwise, the search runs on the calling thread.
+   *
+   * @param cartridge the cartridge
+   * @param parallel whether the search may run on multiple threads
+   * @return the offsets of each pattern in ascending order, indexed like the patterns
+   * @throws IllegalStateException if the cartridge is closed
+   */
+  public long[][] search(final Cartridge cartridge, final boolean parallel) {
+    requireNonNull(cartridge);
+    final int ranges = RangeUtils.ranges(cartridge, parallel);
+    if (ranges == 1) {
+      return this.search(cartridge, 0, cartridge.size());
+    }
+    final List<long[][]> results = RangeUtils.mapRanges(cartridge, ranges, 1, this::search);
+    final long[][] offsets = new long[this.patterns.length][];
+    final long[][] patternResults = new long[ranges][];
+    for (int i = 0; i < offsets.length; i++) {
+      for (int range = 0; range < ranges; range++) {
+        patternResults[range] = results.get(range)[i];
+      }
+      offsets[i] = SearchSupport.concat(patternResults);
+    }
+    return offsets;
+  }
+
+  /**
+   * Finds the matches starting at the given range of offsets. Every anchor of these matches
+   * starts at or after {@code from}, so the automaton can start at the root state there.
+   */
+  private long[][] search(final Cartridge cartridge, final long from, final long to) {
+    final long size = cartridge.size();
+    final var offsets = new SearchSupport.Offsets[this.patterns.length];
+    for (int i = 0; i < offsets.length; i++) {
+      offsets[i] = new SearchSupport.Offsets();
+    }
+    // Anchors of matches starting before the range end may end up to maxLength - 1 bytes later
+    final long scanEnd = Math.min(size, to + this.maxLength - 1);
+    // Matches are compared against the chunk, so keep maxLength bytes around the scanned ones
+    final byte[] chunk = new byte[CHUNK_LENGTH + 2 * this.maxLength];
+    int state = 0;
+    for (long position = from; position < scanEnd; position += CHUNK_LENGTH) {
+      final long base = Math.max(0, position - this.maxLength);
+      final int scanned = (int) Math.min(CHUNK_LENGTH, scanEnd - position);
+      final long chunkEnd = Math.min(size, position + scanned + this.maxLength);
+      cartridge.getBytes(base, chunk, 0, (int) (chunkEnd - base));
+      final int first = (int) (position - base);
+      for (int i = first; i < first + scanned; i++) {
+        state = this.transitions[state * ALPHABET_SIZE + (chunk[i] & 0xFF)];
+        final int[] matched = this.outputs[state];
+        if (matched == null) {
+          continue;
+        }
+        for (int index : matched) {
+          final long start = base + i - this.anchorEnds[index];
+          if (start >= from && start < to && start + this.patterns[index].length() <= size
+              && (this.anchorOnly[index]
+                  || this.patterns[index].matches(chunk, (int) (start - base)))) {
+            offsets[index].add(start);
+          }
+        }
+      }
+    }
+    final long[][] result = new long[offsets.length][];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = offsets[i].toArray();
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "AhoCorasickSearcher{"
+        + "patterns=" + Arrays.toString(patterns)
+        + '}';
+  }
+}
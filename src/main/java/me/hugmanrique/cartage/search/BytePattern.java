@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A sequence of bytes to search for, where each byte is compared under a bit mask. Bits cleared
+ * in the mask match any value; a byte with a zero mask is a wildcard.
+ *
+ * <p>Instances of this class are immutable.
+ *
+ * @see HorspoolSearcher
+ * @see AhoCorasickSearcher
+ */
+public final class BytePattern {
+
+  private static final int EXACT = 0xFF;
+  private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+  /**
+   * Creates a pattern that matches the given bytes exactly.
+   *
+   * @param values the bytes
+   * @return the pattern
+   * @throws IllegalArgumentException if no bytes are given
+   */
+  public static BytePattern of(final byte... values) {
+    final byte[] mask = new byte[values.length];
+    Arrays.fill(mask, (byte) EXACT);
+    return new BytePattern(values.clone(), mask);
+  }
+
+  /**
+   * Creates a pattern that matches the given bytes under the given masks.
+   *
+   * @param values the bytes
+   * @param mask the bit masks of each byte
+   * @return the pattern
+   * @throws IllegalArgumentException if no bytes are given, or if the arrays differ in length
+   */
+  public static BytePattern of(final byte[] values, final byte[] mask) {
+    if (values.length != mask.length) {
+      throw new IllegalArgumentException("Got " + values.length + " values but "
+          + mask.length + " masks");
+    }
+    return new BytePattern(values.clone(), mask.clone());
+  }
+
+  /**
+   * Creates a pattern that matches the given ASCII string exactly, e.g. {@code "SRAM_V"}.
+   *
+   * @param value the string
+   * @return the pattern
+   * @throws IllegalArgumentException if the string is empty
+   */
+  public static BytePattern ofAscii(final String value) {
+    return of(value.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  /**
+   * Parses a pattern from pairs of hexadecimal digits, where a {@code ?} digit matches any
+   * value, e.g. {@code "4E 49 ?? 3?"}. Whitespace is ignored.
+   *
+   * @param pattern the pattern string
+   * @return the pattern
+   * @throws IllegalArgumentException if the string contains an odd number of digits, an invalid
+   *     character, or no digits at all
+   */
+  public static BytePattern parse(final String pattern) {
+    final String digits = pattern.replaceAll("\\s+", "");
+    if ((digits.length() & 1) != 0) {
+      throw new IllegalArgumentException("Got odd number of digits in pattern " + pattern);
+    }
+    final byte[] values = new byte[digits.length() >>> 1];
+    final byte[] mask = new byte[values.length];
+    for (int i = 0; i < digits.length(); i++) {
+      final char digit = digits.charAt(i);
+      final int shift = ((i & 1) == 0) ? 4 : 0;
+      if (digit == '?') {
+        continue;
+      }
+      final int value = Character.digit(digit, 16);
+      if (value < 0) {
+        throw new IllegalArgumentException("Invalid character '" + digit + "' in pattern "
+            + pattern);
+      }
+      values[i >>> 1] |= (byte) (value << shift);
+      mask[i >>> 1] |= (byte) (0xF << shift);
+    }
+    return new BytePattern(values, mask);
+  }
+
+  private final byte[] values;
+  private final byte[] mask;
+  // Little-endian words of the values and mask, compared 8 bytes at a time
+  private final long[] valueWords;
+  private final long[] maskWords;
+
+  private BytePattern(final byte[] values, final byte[] mask) {
+    if (values.length == 0) {
+      throw new IllegalArgumentException("Pattern is empty");
+    }
+    for (int i = 0; i < values.length; i++) {
+      values[i] &= mask[i];
+    }
+    this.values = values;
+    this.mask = mask;
+    final int words = values.length / Long.BYTES;
+    this.valueWords = new long[words];
+    this.maskWords = new long[words];
+    for (int i = 0; i < words; i++) {
+      this.valueWords[i] = SearchSupport.getLong(values, i * Long.BYTES);
+      this.maskWords[i] = SearchSupport.getLong(mask, i * Long.BYTES);
+    }
+  }
+
+  /**
+   * Returns the number of bytes matched by this pattern.
+   *
+   * @return the pattern length
+   */
+  public int length() {
+    return this.values.length;
+  }
+
+  /**
+   * Returns the value of the byte at the given index, with the bits cleared in the mask set to
+   * zero.
+   *
+   * @param index the index of the byte
+   * @return the byte value
+   * @throws IndexOutOfBoundsException if {@code index} is not less than the length
+   */
+  public byte value(final int index) {
+    return this.values[index];
+  }
+
+  /**
+   * Returns the bit mask of the byte at the given index.
+   *
+   * @param index the index of the byte
+   * @return the byte mask
+   * @throws IndexOutOfBoundsException if {@code index} is not less than the length
+   */
+  public byte mask(final int index) {
+    return this.mask[index];
+  }
+
+  /**
+   * Returns whether the byte at the given index must match exactly.
+   *
+   * @param index the index of the byte
+   * @return {@code true} if all the bits of the byte are compared
+   */
+  boolean isExact(final int index) {
+    return (this.mask[index] & EXACT) == EXACT;
+  }
+
+  /**
+   * Returns whether this pattern matches the bytes of the given array starting at the given
+   * offset. The array must contain at least {@link #length()} bytes from the offset.
+   *
+   * @param data the array
+   * @param offset the offset of the first compared byte
+   * @return {@code true} if the pattern matches
+   */
+  boolean matches(final byte[] data, final int offset) {
+    for (int i = 0; i < this.valueWords.length; i++) {
+      final long word = SearchSupport.getLong(data, offset + i * Long.BYTES);
+      if ((word & this.maskWords[i]) != this.valueWords[i]) {
+        return false;
+      }
+    }
+    for (int i = this.valueWords.length * Long.BYTES; i < this.values.length; i++) {
+      if ((data[offset + i] & this.mask[i]) != this.values[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean equals(final Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof BytePattern)) {
+      return false;
+    }
+    final BytePattern that = (BytePattern) other;
+    return Arrays.equals(this.values, that.values) && Arrays.equals(this.mask, that.mask);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(this.values) + Arrays.hashCode(this.mask);
+  }
+
+  @Override
+  public String toString() {
+    final var builder = new StringBuilder(this.values.length * 3);
+    for (int i = 0; i < this.values.length; i++) {
+      if (i > 0) {
+        builder.append(' ');
+      }
+      for (int shift = 4; shift >= 0; shift -= 4) {
+        final boolean masked = ((this.mask[i] >>> shift) & 0xF) == 0xF;
+        builder.append(masked ? HEX_DIGITS[(this.values[i] >>> shift) & 0xF] : '?');
+      }
+    }
+    return "BytePattern{"
+        + "pattern=" + builder
+        + '}';
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.search;
+
+import static java.util.Objects.requireNonNull;
+import static me.hugmanrique.cartage.search.SearchSupport.CHUNK_LENGTH;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
+import me.hugmanrique.cartage.Cartridge;
+import me.hugmanrique.cartage.util.RangeUtils;
+
+/**
+ * Finds the occurrences of a single {@link BytePattern} using the Boyer-Moore-Horspool
+ * algorithm.
+ *
+ * <p>The cartridge is read in chunks. At each candidate offset the pattern is compared 8 bytes
+ * at a time, and the next candidate is chosen from the last byte of the window, so most bytes of
+ * the cartridge are skipped when the pattern is long. Wildcards limit the skip distance to the
+ * distance between the last wildcard and the end of the pattern.
+ *
+ * <p>Instances of this class are immutable and thread-safe.
+ *
+ * @see AhoCorasickSearcher to search for many patterns at once
+ */
+public final class HorspoolSearcher {
+
+  private final BytePattern pattern;
+  private final int[] shifts = new int[256]; // by the value of the last byte of the window
+
+  /**
+   * Creates a searcher for the given pattern.
+   *
+   * @param pattern the pattern
+   */
+  public HorspoolSearcher(final BytePattern pattern) {
+    this.pattern = requireNonNull(pattern);
+    final int length = pattern.length();
+    Arrays.fill(this.shifts, length);
+    for (int i = 0; i < length - 1; i++) {
+      final int shift = length - 1 - i;
+      if (pattern.isExact(i)) {
+        this.shifts[pattern.value(i) & 0xFF] = shift;
+        continue;
+      }
+      for (int value = 0; value < this.shifts.length; value++) {
+        if ((value & pattern.mask(i)) == (pattern.value(i) & 0xFF)) {
+          this.shifts[value] = shift;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the searched pattern.
+   *
+   * @return the pattern
+   */
+  public BytePattern pattern() {
+    return this.pattern;
+  }
+
+  /**
+   * Finds the offsets at which the pattern occurs in the given cartridge. The offset of the
+   * cartridge is not modified.
+   *
+   * @param cartridge the cartridge
+   * @return the offsets in ascending order
+   * @throws IllegalStateException if the cartridge is closed
+   */
+  public LongStream search(final Cartridge cartridge) {
+    return this.search(cartridge, false);
+  }
+
+  /**
+   * Finds the offsets at which the pattern occurs in the given cartridge. The offset of the
+   * cartridge is not modified.
+   *
+   * <p>If {@code parallel} is {@code true} and the cartridge is {@link Cartridge#isShared()
+   * shared}, large cartridges are split in ranges that are searched concurrently on the common
+   * fork-join pool. Otherwise, the search runs on the calling thread.
+   *
+   * @param cartridge the cartridge
+   * @param parallel whether the search may run on multiple threads
+   * @return the offsets in ascending order
+   * @throws IllegalStateException if the cartridge is closed
+   */
+  public LongStream search(final Cartridge cartridge, final boolean parallel) {
+    requireNonNull(cartridge);
+    final int ranges = RangeUtils.ranges(cartridge, parallel);
+    if (ranges == 1) {
+      return Arrays.stream(this.search(cartridge, 0, cartridge.size()));
+    }
+    final List<long[]> results = RangeUtils.mapRanges(cartridge, ranges, 1, this::search);
+    return Arrays.stream(SearchSupport.concat(results.toArray(long[][]::new)));
+  }
+
+  private long[] search(final Cartridge cartridge, final long from, final long to) {
+    final int length = this.pattern.length();
+    final long end = Math.min(to, cartridge.size() - length + 1); // last start offset, exclusive
+    final var offsets = new SearchSupport.Offsets();
+    final byte[] chunk = new byte[CHUNK_LENGTH + length - 1];
+    long position = from;
+    while (position < end) {
+      final int starts = (int) Math.min(CHUNK_LENGTH, end - position);
+      cartridge.getBytes(position, chunk, 0, starts + length - 1);
+      int i = 0;
+      while (i < starts) {
+        final int last = chunk[i + length - 1] & 0xFF;
+        if (this.pattern.matches(chunk, i)) {
+          offsets.add(position + i);
+        }
+        i += this.shifts[last];
+      }
+      position += i; // the last shift may skip past the chunk
+    }
+    return offsets.toArray();
+  }
+
+  @Override
+  public String toString() {
+    return "HorspoolSearcher{"
+        + "pattern=" + pattern
+        + '}';
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.search;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Provides utilities shared by the searchers.
+ */
+final class SearchSupport {
+
+  static final int CHUNK_LENGTH = 1 << 16; // 64 KB
+
+  private static final VarHandle LONG_LE =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+  /**
+   * Reads a little-endian word from the given array.
+   *
+   * @param data the array
+   * @param offset the offset of the first byte
+   * @return the word value
+   */
+  static long getLong(final byte[] data, final int offset) {
+    return (long) LONG_LE.get(data, offset);
+  }
+
+  /**
+   * Concatenates the given arrays.
+   *
+   * @param arrays the arrays
+   * @return the concatenated array
+   */
+  static long[] concat(final long[]... arrays) {
+    int length = 0;
+    for (long[] array : arrays) {
+      length += array.length;
+    }
+    final long[] result = new long[length];
+    int position = 0;
+    for (long[] array : arrays) {
+      System.arraycopy(array, 0, result, position, array.length);
+      position += array.length;
+    }
+    return result;
+  }
+
+  /**
+   * A growable array of offsets.
+   */
+  static final class Offsets {
+
+    private long[] values = new long[16];
+    private int size;
+
+    void add(final long offset) {
+      if (this.size == this.values.length) {
+        this.values = Arrays.copyOf(this.values, this.size << 1);
+      }
+      this.values[this.size++] = offset;
+    }
+
+    long[] toArray() {
+      return Arrays.copyOf(this.values, this.size);
+    }
+  }
+
+  private SearchSupport() {
+    throw new AssertionError();
+  }
+}
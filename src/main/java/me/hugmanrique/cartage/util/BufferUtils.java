@@ -7,19 +7,28 @@
 
 package me.hugmanrique.cartage.util;
 
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
 /**
  * Provides memory handling-related utilities.
  */
 public final class BufferUtils {
 
+  // Overlapping copies of at most this many bytes are faster byte-by-byte
+  private static final int SHORT_COPY_LENGTH = 32;
+
   /**
    * Copies the contents from the specified array byte-by-byte, beginning at the specified position,
    * to the specified position of the array. The source and destination areas may overlap: a copy
    * operation observes the results of past copy operations (unlike {@link System#arraycopy(Object,
    * int, Object, int, int)}).
    *
-   * <p>Fallbacks to {@link System#arraycopy(Object, int, Object, int, int)}</p>
-   * if the source and destination ranges do not overlap.
+   * <p>Fallbacks to {@link System#arraycopy(Object, int, Object, int, int)}
+   * if the source and destination ranges do not overlap, or the destination precedes the source.
+   * Otherwise, the copied bytes repeat with a period of {@code destPos - srcPos} bytes; long copies
+   * replicate this pattern with bulk copies of the already copied bytes, doubling their length
+   * each time.
    *
    * @param arr the source and destination array
    * @param srcPos the starting source position in the array
@@ -28,13 +37,71 @@ public final class BufferUtils {
    */
   public static void copyByteByByte(final byte[] arr, final int srcPos, final int destPos,
                                     final int length) {
-    if ((srcPos + length) <= destPos || (destPos + length) <= srcPos) {
+    if ((srcPos + length) <= destPos || destPos <= srcPos) {
       System.arraycopy(arr, srcPos, arr, destPos, length);
-    } else {
+    } else if (length <= SHORT_COPY_LENGTH) {
       //noinspection ManualArrayCopy
       for (int i = 0; i < length; i++) {
         arr[destPos + i] = arr[srcPos + i];
       }
+    } else {
+      replicate(arr, srcPos, destPos, length);
+    }
+  }
+
+  /**
+   * Copies the contents from the specified buffer byte-by-byte, beginning at the specified index,
+   * to the specified index of the buffer. The source and destination areas may overlap: a copy
+   * operation observes the results of past copy operations.
+   *
+   * <p>Copies within the backing array of heap buffers. Otherwise, overlapping ranges are copied
+   * with the same pattern replication as {@link #copyByteByByte(byte[], int, int, int)}, and
+   * other ranges with a single bulk copy. The position of the buffer is not modified.
+   *
+   * @param buffer the source and destination buffer
+   * @param srcIndex the starting source index in the buffer
+   * @param destIndex the starting destination index in the buffer
+   * @param length the number of bytes to copy
+   * @see #copyByteByByte(byte[], int, int, int)
+   */
+  public static void copyByteByByte(final ByteBuffer buffer, final int srcIndex,
+                                    final int destIndex, final int length) {
+    if (buffer.hasArray()) {
+      Objects.checkFromIndexSize(srcIndex, length, buffer.limit());
+      Objects.checkFromIndexSize(destIndex, length, buffer.limit());
+      final int offset = buffer.arrayOffset();
+      copyByteByByte(buffer.array(), offset + srcIndex, offset + destIndex, length);
+    } else if ((srcIndex + length) <= destIndex || (destIndex + length) <= srcIndex) {
+      buffer.put(destIndex, buffer, srcIndex, length);
+    } else if (destIndex < srcIndex || length <= SHORT_COPY_LENGTH) {
+      for (int i = 0; i < length; i++) {
+        buffer.put(destIndex + i, buffer.get(srcIndex + i));
+      }
+    } else {
+      replicate(buffer, srcIndex, destIndex, length);
+    }
+  }
+
+  private static void replicate(final byte[] arr, final int srcPos, final int destPos,
+                                final int length) {
+    Objects.checkFromIndexSize(destPos, length, arr.length);
+    int copied = 0;
+    while (copied < length) {
+      // The copied bytes are the continuation of the pattern starting at srcPos
+      final int count = Math.min(destPos + copied - srcPos, length - copied);
+      System.arraycopy(arr, srcPos, arr, destPos + copied, count);
+      copied += count;
+    }
+  }
+
+  private static void replicate(final ByteBuffer buffer, final int srcIndex, final int destIndex,
+                                final int length) {
+    Objects.checkFromIndexSize(destIndex, length, buffer.limit());
+    int copied = 0;
+    while (copied < length) {
+      final int count = Math.min(destIndex + copied - srcIndex, length - copied);
+      buffer.put(destIndex + copied, buffer, srcIndex, count);
+      copied += count;
     }
   }
 
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.util;
+
+import me.hugmanrique.cartage.Cartridge;
+
+/**
+ * Keeps the sum of the unsigned bytes in some ranges of a cartridge up to date as the cartridge is
+ * modified, by applying the difference between the old and new values of the written bytes.
+ *
+ * <p>Sums are computed lazily, by scanning the whole range the first time they are requested.
+ * Afterwards, updating a sum costs time proportional to the number of written bytes.
+ *
+ * <p>This class is not thread-safe.
+ */
+public final class ByteSumTracker {
+
+  private static final int CHUNK_LENGTH = 1 << 12; // 4 KB
+
+  private final Cartridge cartridge;
+  private final long[] starts;
+  private final long[] ends;
+  private final long[] sums;
+  private final boolean[] known;
+  private final long[] pending;
+  private final byte[] chunk = new byte[CHUNK_LENGTH];
+
+  /**
+   * Creates a tracker for the given ranges of a cartridge.
+   *
+   * @param cartridge the tracked cartridge
+   * @param bounds the start (inclusive) and end (exclusive) offsets of each range, in pairs. Ranges
+   *     whose end is not greater than their start are empty
+   * @throws IllegalArgumentException if the number of bounds is odd
+   */
+  public ByteSumTracker(final Cartridge cartridge, final long... bounds) {
+    if ((bounds.length & 1) != 0) {
+      throw new IllegalArgumentException("Got odd number of bounds " + bounds.length);
+    }
+    this.cartridge = cartridge;
+    final int ranges = bounds.length >>> 1;
+    this.starts = new long[ranges];
+    this.ends = new long[ranges];
+    for (int i = 0; i < ranges; i++) {
+      this.starts[i] = bounds[i << 1];
+      this.ends[i] = bounds[(i << 1) + 1];
+    }
+    this.sums = new long[ranges];
+    this.known = new boolean[ranges];
+    this.pending = new long[ranges];
+  }
+
+  /**
+   * Returns the sum of the unsigned bytes in the given range.
+   *
+   * @param range the index of the range
+   * @return the sum of the bytes
+   * @throws IndexOutOfBoundsException if the range is not within the bounds of the cartridge
+   */
+  public long sum(final int range) {
+    if (!this.known[range]) {
+      this.sums[range] = this.sumBytes(this.starts[range], this.ends[range]);
+      this.known[range] = true;
+    }
+    return this.sums[range];
+  }
+
+  /**
+   * Must be called before the given range of the cartridge is written.
+   *
+   * @param offset the offset of the first written byte
+   * @param length the number of written bytes
+   */
+  public void beforeWrite(final long offset, final long length) {
+    for (int i = 0; i < this.starts.length; i++) {
+      if (this.known[i]) {
+        this.pending[i] = this.sumIntersection(i, offset, length);
+      }
+    }
+  }
+
+  /**
+   * Must be called after the given range of the cartridge is written, even if only part of it
+   * was written. The sums are updated from the current contents of the range.
+   *
+   * @param offset the offset of the first written byte
+   * @param length the number of written bytes
+   */
+  public void afterWrite(final long offset, final long length) {
+    for (int i = 0; i < this.starts.length; i++) {
+      if (this.known[i]) {
+        this.sums[i] += this.sumIntersection(i, offset, length) - this.pending[i];
+      }
+    }
+  }
+
+  private long sumIntersection(final int range, final long offset, final long length) {
+    final long start = Math.max(this.starts[range], offset);
+    final long end = Math.min(this.ends[range], offset + length);
+    return start < end ? this.sumBytes(start, end) : 0;
+  }
+
+  private long sumBytes(final long start, final long end) {
+    long sum = 0;
+    for (long offset = start; offset < end; offset += CHUNK_LENGTH) {
+      final int length = (int) Math.min(CHUNK_LENGTH, end - offset);
+      this.cartridge.getBytes(offset, this.chunk, 0, length);
+      sum += NumberUtils.sumUnsignedBytes(this.chunk, 0, length);
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Provides channel-related utilities.
+ */
+public final class ChannelUtils {
+
+  /**
+   * Reads a sequence of bytes from the given channel starting at the given file position, until
+   * the given buffer is full. The position of the channel is not modified.
+   *
+   * @param channel the file channel
+   * @param position the file position at which the transfer is to begin
+   * @param dest the buffer into which bytes are to be transferred
+   * @throws EOFException if the end of the file is reached before the buffer is full
+   * @throws IOException if an I/O error occurs
+   */
+  public static void readFully(final FileChannel channel, final long position,
+                               final ByteBuffer dest) throws IOException {
+    long filePosition = position;
+    while (dest.hasRemaining()) {
+      final int read = channel.read(dest, filePosition);
+      if (read < 0) {
+        throw new EOFException("Reached end of file at position " + filePosition + ", "
+            + dest.remaining() + " bytes left to read");
+      }
+      filePosition += read;
+    }
+  }
+
+  /**
+   * Reads the given number of bytes from the given channel starting at the given file position.
+   * The position of the channel is not modified.
+   *
+   * @param channel the file channel
+   * @param position the file position at which the transfer is to begin
+   * @param length the number of bytes to read
+   * @return the read bytes
+   * @throws EOFException if the end of the file is reached before reading {@code length} bytes
+   * @throws IOException if an I/O error occurs
+   */
+  public static byte[] readFully(final FileChannel channel, final long position,
+                                 final int length) throws IOException {
+    final byte[] data = new byte[length];
+    readFully(channel, position, ByteBuffer.wrap(data));
+    return data;
+  }
+
+  private ChannelUtils() {
+    throw new AssertionError();
+  }
+}
@@ -7,6 +7,11 @@
 
 package me.hugmanrique.cartage.util;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
 /**
  * Provides methods that operate on numeric values.
  *
@@ -15,6 +20,13 @@ package me.hugmanrique.cartage.util;
  */
 public final class NumberUtils {
 
+  private static final VarHandle LONG_VIEW =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final long EVEN_BYTES = 0x00FF00FF00FF00FFL;
+  private static final long EVEN_SHORTS = 0x0000FFFF0000FFFFL;
+  // Each 16-bit lane grows by at most 2 * 255 per word, so 128 words never overflow a lane
+  private static final int MAX_LANE_WORDS = 128;
+
   /**
    * Returns whether the given value is a power of 2.
    *
@@ -26,6 +38,41 @@ public final class NumberUtils {
     return (value & (value - 1)) == 0;
   }
 
+  /**
+   * Returns the sum of the given range of bytes, treating each byte as an unsigned value.
+   *
+   * <p>Bytes are summed 8 at a time, by reading them as a {@code long} and adding the even and
+   * odd bytes into four 16-bit lanes (SIMD within a register).
+   *
+   * @param arr the array
+   * @param offset the index of the first byte to sum
+   * @param length the number of bytes to sum
+   * @return the sum of the unsigned bytes
+   * @throws IndexOutOfBoundsException if the range is out of bounds
+   */
+  public static long sumUnsignedBytes(final byte[] arr, final int offset, final int length) {
+    Objects.checkFromIndexSize(offset, length, arr.length);
+    final int end = offset + length;
+    long sum = 0;
+    int i = offset;
+    while (end - i >= Long.BYTES) {
+      final int words = Math.min((end - i) / Long.BYTES, MAX_LANE_WORDS);
+      final int blockEnd = i + words * Long.BYTES;
+      long lanes = 0;
+      for (; i < blockEnd; i += Long.BYTES) {
+        final long word = (long) LONG_VIEW.get(arr, i);
+        lanes += (word & EVEN_BYTES) + ((word >>> 8) & EVEN_BYTES);
+      }
+      // Fold the 16-bit lanes into two 32-bit lanes, and add them
+      lanes = (lanes & EVEN_SHORTS) + ((lanes >>> 16) & EVEN_SHORTS);
+      sum += (lanes & 0xFFFFFFFFL) + (lanes >>> 32);
+    }
+    for (; i < end; i++) {
+      sum += arr[i] & 0xFF;
+    }
+    return sum;
+  }
+
   private NumberUtils() {
     throw new AssertionError();
   }
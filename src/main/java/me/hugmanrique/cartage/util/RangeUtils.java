@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.util;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import me.hugmanrique.cartage.Cartridge;
+
+/**
+ * Provides utilities to split a pass over the contents of a cartridge in ranges that are
+ * processed concurrently.
+ */
+public final class RangeUtils {
+
+  private static final long MIN_RANGE_LENGTH = 1 << 20; // 1 MB
+
+  /**
+   * Returns the number of ranges in which to split a pass over the given cartridge. A pass is
+   * only split if it is parallel, the cartridge is shared, and each range is large enough.
+   *
+   * @param cartridge the cartridge
+   * @param parallel whether the pass may run on multiple threads
+   * @return the number of ranges
+   */
+  public static int ranges(final Cartridge cartridge, final boolean parallel) {
+    if (!parallel || !cartridge.isShared()) {
+      return 1;
+    }
+    final long maxRanges = cartridge.size() / MIN_RANGE_LENGTH;
+    final int processors = Runtime.getRuntime().availableProcessors();
+    return (int) Math.max(1, Math.min(maxRanges, 4L * processors));
+  }
+
+  /**
+   * Returns the start offset of the given range. Every range but the last starts at a multiple
+   * of the given alignment.
+   *
+   * @param size the size of the cartridge
+   * @param ranges the number of ranges
+   * @param range the index of the range, or {@code ranges} to get the end offset of the last
+   * @param alignment the alignment of the start offsets, a power of 2
+   * @return the start offset
+   */
+  public static long rangeStart(final long size, final int ranges, final int range,
+                                final int alignment) {
+    if (range == ranges) {
+      return size;
+    }
+    return ((size / ranges) * range + Math.min(range, size % ranges)) & -alignment;
+  }
+
+  /**
+   * Applies the given function to each range of the given cartridge on the common fork-join pool.
+   *
+   * @param cartridge the shared cartridge
+   * @param ranges the number of ranges
+   * @param alignment the alignment of the start offsets of the ranges, a power of 2
+   * @param function the range function
+   * @param <T> the type of the results
+   * @return the results of each range, in order
+   * @see #ranges(Cartridge, boolean)
+   */
+  public static <T> List<T> mapRanges(final Cartridge cartridge, final int ranges,
+                                      final int alignment, final RangeFunction<T> function) {
+    final long size = cartridge.size();
+    // Prevent the contents from being released while the tasks are running
+    try (var acquired = cartridge.acquire()) {
+      return IntStream.range(0, ranges)
+          .parallel()
+          .mapToObj(range -> function.apply(acquired, rangeStart(size, ranges, range, alignment),
+              rangeStart(size, ranges, range + 1, alignment)))
+          .toList();
+    }
+  }
+
+  /**
+   * Processes a range of offsets of a cartridge.
+   *
+   * @param <T> the type of the results
+   */
+  @FunctionalInterface
+  public interface RangeFunction<T> {
+
+    /**
+     * Processes the given range of offsets.
+     *
+     * @param cartridge the cartridge
+     * @param from the first offset, inclusive
+     * @param to the last offset, exclusive
+     * @return the results
+     */
+    T apply(final Cartridge cartridge, final long from, final long to);
+  }
+
+  private RangeUtils() {
+    throw new AssertionError();
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.util;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.ByteOrder;
+import jdk.incubator.foreign.MemorySegment;
+import me.hugmanrique.cartage.AbstractCartridge;
+
+/**
+ * A slice of a cartridge whose writes update the {@link ByteSumTracker} of that cartridge.
+ *
+ * <p>The offsets of the written ranges are translated to offsets in the tracked cartridge by
+ * adding the offset at which the slice starts.
+ */
+public final class TrackedCartridgeView extends AbstractCartridge {
+
+  private final ByteSumTracker tracker;
+  private final long base;
+
+  /**
+   * Creates a slice of the cartridge tracked by the given tracker.
+   *
+   * @param segment the segment backing the slice
+   * @param order the byte order
+   * @param tracker the tracker of the sliced cartridge
+   * @param base the offset in the tracked cartridge at which the slice starts
+   */
+  public TrackedCartridgeView(final MemorySegment segment, final ByteOrder order,
+                              final ByteSumTracker tracker, final long base) {
+    super(segment, order);
+    this.tracker = requireNonNull(tracker);
+    this.base = base;
+    this.setWriteHooksEnabled(true);
+  }
+
+  @Override
+  protected TrackedCartridgeView createView(final MemorySegment segment) {
+    return new TrackedCartridgeView(segment, this.order(), this.tracker, this.base);
+  }
+
+  @Override
+  protected TrackedCartridgeView createSlice(final MemorySegment segment, final long offset) {
+    return new TrackedCartridgeView(segment, this.order(), this.tracker, this.base + offset);
+  }
+
+  @Override
+  protected void beforeWrite(final long offset, final long length) {
+    this.tracker.beforeWrite(this.base + offset, length);
+  }
+
+  @Override
+  protected void afterWrite(final long offset, final long length) {
+    this.tracker.afterWrite(this.base + offset, length);
+  }
+}
@@ -8,8 +8,15 @@
 module me.hugmanrique.cartage {
   exports me.hugmanrique.cartage;
   exports me.hugmanrique.cartage.compression;
+  exports me.hugmanrique.cartage.dat;
   exports me.hugmanrique.cartage.gb;
   exports me.hugmanrique.cartage.gba;
+  exports me.hugmanrique.cartage.hash;
+  exports me.hugmanrique.cartage.library;
+  exports me.hugmanrique.cartage.patch;
+  exports me.hugmanrique.cartage.query;
+  exports me.hugmanrique.cartage.search;
   requires transitive jdk.incubator.foreign;
+  requires java.xml;
   requires org.checkerframework.checker.qual;
 }
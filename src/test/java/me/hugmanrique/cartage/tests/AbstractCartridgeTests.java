@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.tests;
+
+import static me.hugmanrique.cartage.tests.DummyCartridge.fromData;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import jdk.incubator.foreign.MemorySegment;
+import me.hugmanrique.cartage.AbstractCartridge;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the bulk transfer methods of {@link AbstractCartridge}.
+ */
+public class AbstractCartridgeTests {
+
+  private static byte[] sequence(final int length) {
+    final byte[] data = new byte[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = (byte) i;
+    }
+    return data;
+  }
+
+  @Test
+  void testGetBytesIntoArray() {
+    final var cartridge = fromData(sequence(16), ByteOrder.LITTLE_ENDIAN);
+    final byte[] dest = new byte[6];
+    cartridge.getBytes(4, dest, 1, 4);
+
+    assertArrayEquals(new byte[] { 0, 4, 5, 6, 7, 0 }, dest);
+  }
+
+  @Test
+  void testGetBytesOutOfBoundsThrows() {
+    final var cartridge = fromData(sequence(16), ByteOrder.LITTLE_ENDIAN);
+    final byte[] dest = new byte[8];
+
+    assertThrows(IndexOutOfBoundsException.class, () -> cartridge.getBytes(12, dest));
+    assertThrows(IndexOutOfBoundsException.class, () -> cartridge.getBytes(-1, dest));
+    assertThrows(IndexOutOfBoundsException.class, () -> cartridge.getBytes(0, dest, 6, 4));
+  }
+
+  @Test
+  void testSetBytesFromArray() {
+    final var cartridge = fromData(new byte[8], ByteOrder.LITTLE_ENDIAN);
+    cartridge.setBytes(2, new byte[] { 9, 8, 7, 6 }, 1, 3);
+
+    assertEquals(8, cartridge.getByte(2));
+    assertEquals(7, cartridge.getByte(3));
+    assertEquals(6, cartridge.getByte(4));
+    assertThrows(IndexOutOfBoundsException.class,
+        () -> cartridge.setBytes(6, new byte[] { 1, 2, 3 }));
+  }
+
+  @Test
+  void testReadBytesIntoHeapBuffer() {
+    final var cartridge = fromData(sequence(16), ByteOrder.LITTLE_ENDIAN);
+    cartridge.setOffset(3);
+    final var dest = ByteBuffer.allocate(8).position(2).limit(6);
+    cartridge.readBytes(dest);
+
+    assertEquals(7, cartridge.offset());
+    assertEquals(6, dest.position());
+    assertArrayEquals(new byte[] { 0, 0, 3, 4, 5, 6, 0, 0 }, dest.array());
+  }
+
+  @Test
+  void testGetBytesIntoDirectBuffer() {
+    final var cartridge = fromData(sequence(16), ByteOrder.LITTLE_ENDIAN);
+    final var dest = ByteBuffer.allocateDirect(4);
+    cartridge.getBytes(10, dest);
+
+    assertEquals(0, dest.remaining());
+    assertEquals(0, cartridge.offset(), "offset is preserved");
+    dest.flip();
+    for (int i = 10; i < 14; i++) {
+      assertEquals(i, dest.get());
+    }
+  }
+
+  @Test
+  void testGetBytesIntoReadOnlyBufferThrows() {
+    final var cartridge = fromData(sequence(16), ByteOrder.LITTLE_ENDIAN);
+    final var dest = ByteBuffer.allocate(4).asReadOnlyBuffer();
+
+    assertThrows(ReadOnlyBufferException.class, () -> cartridge.getBytes(0, dest));
+  }
+
+  @Test
+  void testWriteBytesFromBuffer() {
+    final var cartridge = fromData(new byte[8], ByteOrder.LITTLE_ENDIAN);
+    final var source = ByteBuffer.allocateDirect(3).put((byte) 1).put((byte) 2).put((byte) 3);
+    source.flip();
+    cartridge.setOffset(4);
+    cartridge.writeBytes(source);
+
+    assertEquals(7, cartridge.offset());
+    assertEquals(0, source.remaining());
+    assertEquals(0x030201, cartridge.getInt(4) & 0xFFFFFF);
+  }
+
+  @Test
+  void testSetBytesFromBufferOutOfBoundsThrows() {
+    final var cartridge = fromData(new byte[8], ByteOrder.LITTLE_ENDIAN);
+    final var source = ByteBuffer.allocate(4);
+
+    assertThrows(IndexOutOfBoundsException.class, () -> cartridge.setBytes(5, source));
+    assertEquals(0, source.position(), "position is preserved");
+  }
+
+  @Test
+  void testSegmentTransfers() {
+    final var cartridge = fromData(sequence(16), ByteOrder.LITTLE_ENDIAN);
+    try (var segment = MemorySegment.ofArray(new byte[4])) {
+      cartridge.getBytes(12, segment);
+      assertArrayEquals(new byte[] { 12, 13, 14, 15 }, segment.toByteArray());
+
+      cartridge.setBytes(0, segment);
+      assertEquals(0x0F0E0D0C, cartridge.getInt(0));
+      assertThrows(IndexOutOfBoundsException.class, () -> cartridge.setBytes(13, segment));
+    }
+  }
+
+  @Test
+  void testUpdate() {
+    final var cartridge = fromData(sequence(16), ByteOrder.BIG_ENDIAN);
+    cartridge.update(4, 8, buffer -> {
+      assertEquals(0, buffer.position());
+      assertEquals(8, buffer.limit());
+      assertEquals(4, buffer.get(0), "shares the contents");
+      buffer.putInt(0x01020304).putInt(4, 0x05060708);
+    });
+
+    assertEquals(0x0102030405060708L, cartridge.getLong(4));
+    assertThrows(IndexOutOfBoundsException.class, () -> cartridge.update(12, 8, buffer -> { }));
+    assertThrows(ReadOnlyBufferException.class,
+        () -> cartridge.asReadOnly().update(0, 1, buffer -> buffer.put((byte) 1)));
+  }
+
+  @Test
+  void testGetLongString() {
+    final byte[] data = new byte[10_000];
+    Arrays.fill(data, (byte) 'A');
+    final var cartridge = fromData(data, ByteOrder.LITTLE_ENDIAN);
+
+    assertEquals("A".repeat(8), cartridge.getAscii(0, 8));
+    assertEquals("A".repeat(data.length), cartridge.getAscii(0, data.length));
+    assertEquals("A".repeat(8), cartridge.getAscii(2, 8));
+  }
+
+  @Test
+  void testCopyToStream() throws IOException {
+    final byte[] data = sequence(20_000); // larger than a single chunk
+    final var cartridge = fromData(data, ByteOrder.LITTLE_ENDIAN);
+    final var stream = new ByteArrayOutputStream();
+    cartridge.copyTo(stream);
+
+    assertArrayEquals(data, stream.toByteArray());
+  }
+
+  @Test
+  void testCopyEmptyToStream() throws IOException {
+    final var cartridge = fromData(new byte[0], ByteOrder.LITTLE_ENDIAN);
+    final var stream = new ByteArrayOutputStream();
+    cartridge.copyTo(stream);
+
+    assertEquals(0, stream.size());
+  }
+
+  @Test
+  void testCopyToChannel() throws IOException {
+    final byte[] data = sequence(100_000);
+    final var cartridge = fromData(data, ByteOrder.LITTLE_ENDIAN);
+    final var stream = new ByteArrayOutputStream();
+    cartridge.copyTo(Channels.newChannel(stream));
+
+    assertArrayEquals(data, stream.toByteArray());
+  }
+
+  @Test
+  void testCopyDirectToFileChannel(@TempDir final Path dir) throws IOException {
+    final byte[] data = sequence(100_000);
+    final var segment = MemorySegment.allocateNative(data.length);
+    segment.copyFrom(MemorySegment.ofArray(data));
+    final var cartridge = DummyCartridge.fromData(segment, ByteOrder.LITTLE_ENDIAN);
+    final Path path = dir.resolve("out");
+
+    try (var channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.WRITE)) {
+      cartridge.copyTo(channel);
+    } finally {
+      cartridge.close();
+    }
+    assertArrayEquals(data, Files.readAllBytes(path));
+  }
+}
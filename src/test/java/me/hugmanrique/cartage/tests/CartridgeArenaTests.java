@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import me.hugmanrique.cartage.CartridgeArena;
+import me.hugmanrique.cartage.gb.GBCartridge;
+import me.hugmanrique.cartage.gba.GBACartridge;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link CartridgeArena} and off-heap cartridge allocation.
+ */
+public class CartridgeArenaTests {
+
+  @Test
+  void testAllocate() {
+    try (var cartridge = GBACartridge.allocate(0x200)) {
+      assertEquals(0x200, cartridge.size());
+      assertEquals(0, cartridge.getLong(0x1F8), "contents are zeroed");
+      cartridge.setInt(0x10, 0xCAFEBABE);
+      assertEquals(0xCAFEBABE, cartridge.getInt(0x10));
+    }
+  }
+
+  @Test
+  void testAllocateNegativeSizeThrows() {
+    assertThrows(IllegalArgumentException.class, () -> GBCartridge.allocate(-1));
+  }
+
+  @Test
+  void testCloseReleasesAll() {
+    final var arena = new CartridgeArena();
+    final var first = GBCartridge.allocate(0x150, arena);
+    final var second = GBACartridge.allocate(0xC0, arena);
+    final var third = GBACartridge.allocate(0xC0, arena);
+    third.close();
+
+    assertEquals(2, arena.size());
+    arena.close();
+    assertTrue(arena.isClosed());
+    assertFalse(first.isAlive());
+    assertFalse(second.isAlive());
+    assertThrows(IllegalStateException.class, () -> first.getByte(0));
+    arena.close(); // no-op
+  }
+
+  @Test
+  void testRegisterAfterCloseThrows() {
+    final var arena = new CartridgeArena();
+    arena.close();
+
+    assertThrows(IllegalStateException.class, () -> GBACartridge.allocate(16, arena));
+  }
+
+  @Test
+  void testCloseFailureIsReported() {
+    final var arena = new CartridgeArena();
+    final var first = GBACartridge.allocate(16, arena);
+    final var second = GBACartridge.allocate(16, arena);
+    final var acquired = first.acquire();
+
+    assertThrows(IllegalStateException.class, arena::close);
+    assertTrue(first.isAlive());
+    assertFalse(second.isAlive(), "remaining cartridges are closed");
+    assertEquals(1, arena.size(), "failed cartridges remain registered");
+    acquired.close();
+    arena.close(); // retries
+    assertFalse(first.isAlive());
+    assertEquals(0, arena.size());
+  }
+
+  @Test
+  void testRegisterAfterClosingMany() {
+    try (var arena = new CartridgeArena()) {
+      for (int i = 0; i < 1000; i++) {
+        GBACartridge.allocate(16, arena).close();
+      }
+      final var open = GBACartridge.allocate(16, arena);
+
+      assertEquals(1, arena.size());
+      assertTrue(open.isAlive());
+    }
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import me.hugmanrique.cartage.CartridgeFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests {@link CartridgeFormat}.
+ */
+public class CartridgeFormatTests {
+
+  private static Path write(final Path dir, final byte[] data) throws IOException {
+    final Path path = dir.resolve("rom");
+    Files.write(path, data);
+    return path;
+  }
+
+  @Test
+  void testDetectGB(@TempDir final Path dir) throws IOException {
+    final Path path = write(dir, TestResources.getResourceBytes("roms/AntonioND.gbc"));
+
+    assertEquals(CartridgeFormat.GB, CartridgeFormat.detect(path));
+  }
+
+  @Test
+  void testDetectGBA(@TempDir final Path dir) throws IOException {
+    final Path path = write(dir, TestResources.getResourceBytes("roms/jsmolka.gba"));
+
+    assertEquals(CartridgeFormat.GBA, CartridgeFormat.detect(path));
+  }
+
+  @Test
+  void testDetectUnknown(@TempDir final Path dir) throws IOException {
+    assertNull(CartridgeFormat.detect(write(dir, new byte[0x200])));
+  }
+
+  @Test
+  void testDetectTooSmall(@TempDir final Path dir) throws IOException {
+    assertNull(CartridgeFormat.detect(write(dir, new byte[16])));
+  }
+}
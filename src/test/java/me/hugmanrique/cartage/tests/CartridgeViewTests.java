@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.tests;
+
+import static me.hugmanrique.cartage.tests.DummyCartridge.fromData;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import me.hugmanrique.cartage.Cartridge;
+import me.hugmanrique.cartage.gba.GBACartridge;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the views returned by {@link Cartridge#duplicate()}, {@link Cartridge#slice(long, long)}
+ * and {@link Cartridge#asReadOnly()}.
+ */
+public class CartridgeViewTests {
+
+  private static Cartridge create() {
+    final byte[] data = new byte[16];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+    return fromData(data, ByteOrder.LITTLE_ENDIAN);
+  }
+
+  @Test
+  void testDuplicateHasIndependentOffsetAndOrder() {
+    final var cartridge = create();
+    cartridge.setOffset(4);
+    final var duplicate = cartridge.duplicate();
+
+    assertEquals(4, duplicate.offset(), "offset is copied");
+    assertEquals(ByteOrder.LITTLE_ENDIAN, duplicate.order(), "order is copied");
+
+    duplicate.order(ByteOrder.BIG_ENDIAN);
+    assertEquals(0x04050607, duplicate.readInt());
+    assertEquals(8, duplicate.offset());
+    assertEquals(4, cartridge.offset());
+    assertEquals(0x07060504, cartridge.readInt());
+  }
+
+  @Test
+  void testDuplicateSharesContents() {
+    final var cartridge = create();
+    final var duplicate = cartridge.duplicate();
+    duplicate.setByte(3, (byte) 0x7F);
+    cartridge.setByte(5, (byte) 0x6F);
+
+    assertEquals(0x7F, cartridge.getByte(3));
+    assertEquals(0x6F, duplicate.getByte(5));
+  }
+
+  @Test
+  void testSharesContents() {
+    final var cartridge = create();
+    final var other = create();
+
+    assertTrue(cartridge.sharesContents(cartridge));
+    assertTrue(cartridge.sharesContents(cartridge.duplicate()));
+    assertTrue(cartridge.slice(4, 4).sharesContents(cartridge.asReadOnly()));
+    assertFalse(cartridge.sharesContents(other));
+    assertFalse(cartridge.sharesContents(other.duplicate()));
+  }
+
+  @Test
+  void testSlice() {
+    final var cartridge = create();
+    cartridge.setOffset(2);
+    final var slice = cartridge.slice(8, 4);
+
+    assertEquals(4, slice.size());
+    assertEquals(0, slice.offset());
+    assertEquals(8, slice.readByte());
+    assertEquals(11, slice.getByte(3));
+    assertThrows(IndexOutOfBoundsException.class, () -> slice.getByte(4));
+
+    slice.setByte(0, (byte) 0x55);
+    assertEquals(0x55, cartridge.getByte(8));
+  }
+
+  @Test
+  void testSliceOutOfBoundsThrows() {
+    final var cartridge = create();
+
+    assertThrows(IndexOutOfBoundsException.class, () -> cartridge.slice(-1, 4));
+    assertThrows(IndexOutOfBoundsException.class, () -> cartridge.slice(12, 5));
+    assertThrows(IndexOutOfBoundsException.class, () -> cartridge.slice(0, -1));
+  }
+
+  @Test
+  void testReadOnlyView() {
+    final var cartridge = create();
+    final var readOnly = cartridge.asReadOnly();
+
+    assertFalse(cartridge.isReadOnly());
+    assertTrue(readOnly.isReadOnly());
+    assertTrue(readOnly.duplicate().isReadOnly());
+    assertThrows(UnsupportedOperationException.class, () -> readOnly.setByte(0, (byte) 1));
+    assertThrows(UnsupportedOperationException.class, () -> readOnly.writeInt(1));
+    assertThrows(UnsupportedOperationException.class,
+        () -> readOnly.setBytes(0, new byte[] { 1, 2 }));
+
+    cartridge.setByte(0, (byte) 0x10);
+    assertEquals(0x10, readOnly.getByte(0), "changes are visible");
+  }
+
+  @Test
+  void testClosingViewKeepsParentOpen() {
+    final var cartridge = create();
+    final var duplicate = cartridge.duplicate();
+    duplicate.close();
+
+    assertThrows(IllegalStateException.class, () -> duplicate.getByte(0));
+    assertThrows(IllegalStateException.class, () -> duplicate.getBytes(0, new byte[4]));
+    assertThrows(IllegalStateException.class, duplicate::close);
+    assertEquals(1, cartridge.getByte(1));
+  }
+
+  @Test
+  void testClosingParentInvalidatesViews() {
+    final var cartridge = create();
+    final var duplicate = cartridge.duplicate();
+    final var slice = cartridge.slice(4, 4);
+    cartridge.close();
+
+    assertThrows(IllegalStateException.class, () -> duplicate.getByte(0));
+    assertThrows(IllegalStateException.class, () -> slice.getInt(0));
+    assertThrows(IllegalStateException.class, cartridge::duplicate);
+  }
+
+  @Test
+  void testTypedViews() throws IOException {
+    try (final var cartridge = GBACartridge.read(
+        TestResources.getResourceStream("roms/jsmolka.gba"))) {
+      final GBACartridge duplicate = cartridge.duplicate();
+      final GBACartridge readOnly = cartridge.asReadOnly();
+
+      assertEquals(cartridge.header().title(), duplicate.header().title());
+      assertEquals(cartridge.header().code(), readOnly.header().code());
+      assertThrows(UnsupportedOperationException.class, () -> readOnly.header().setVersion(
+          (byte) 1));
+    }
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.tests;
+
+import static me.hugmanrique.cartage.tests.DummyCartridge.fromData;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import me.hugmanrique.cartage.Cartridge;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link Cartridge#share()} and {@link Cartridge#acquire()}.
+ */
+public class SharedCartridgeTests {
+
+  private static Cartridge create() {
+    final byte[] data = new byte[256];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+    return fromData(data, ByteOrder.LITTLE_ENDIAN);
+  }
+
+  private static <T> T runOnOtherThread(final Callable<T> task) throws Exception {
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      return executor.submit(task).get();
+    } catch (final ExecutionException e) {
+      throw (Exception) e.getCause();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testConfinedByDefault() {
+    final var cartridge = create();
+
+    assertFalse(cartridge.isShared());
+    assertThrows(IllegalStateException.class,
+        () -> runOnOtherThread(() -> cartridge.getByte(0)));
+  }
+
+  @Test
+  void testShare() throws Exception {
+    final var cartridge = create();
+    cartridge.setOffset(8);
+    cartridge.share();
+
+    assertTrue(cartridge.isShared());
+    assertEquals(8, cartridge.offset(), "offset is preserved");
+    assertEquals(16, (byte) runOnOtherThread(() -> cartridge.getByte(16)));
+    cartridge.share(); // no-op
+    assertTrue(cartridge.duplicate().isShared());
+  }
+
+  @Test
+  void testShareInvalidatesPreviousViews() {
+    final var cartridge = create();
+    final var duplicate = cartridge.duplicate();
+    cartridge.share();
+
+    assertThrows(IllegalStateException.class, () -> duplicate.getByte(0));
+    assertEquals(1, cartridge.getByte(1));
+  }
+
+  @Test
+  void testShareViewThrows() {
+    final var cartridge = create();
+
+    assertThrows(UnsupportedOperationException.class, () -> cartridge.duplicate().share());
+    assertThrows(UnsupportedOperationException.class, () -> cartridge.slice(0, 4).share());
+  }
+
+  @Test
+  void testShareWhileAcquiredThrows() {
+    final var cartridge = create();
+    final var acquired = cartridge.acquire();
+
+    assertThrows(IllegalStateException.class, cartridge::share);
+    acquired.close();
+    cartridge.share();
+  }
+
+  @Test
+  void testParallelReads() throws Exception {
+    final var cartridge = create();
+    cartridge.share();
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    final List<Future<Integer>> results = new ArrayList<>();
+
+    try {
+      for (int i = 0; i < 4; i++) {
+        final int start = i * 64;
+        results.add(executor.submit(() -> {
+          try (var acquired = cartridge.acquire()) {
+            acquired.setOffset(start);
+            int sum = 0;
+            for (int j = 0; j < 64; j++) {
+              sum += acquired.readByte() & 0xFF;
+            }
+            return sum;
+          }
+        }));
+      }
+      int sum = 0;
+      for (final Future<Integer> result : results) {
+        sum += result.get();
+      }
+      assertEquals(255 * 256 / 2, sum);
+    } finally {
+      executor.shutdown();
+    }
+    cartridge.close();
+  }
+
+  @Test
+  void testCloseWhileAcquiredThrows() {
+    final var cartridge = create();
+    final var first = cartridge.acquire();
+    final var second = first.acquire();
+
+    assertThrows(IllegalStateException.class, cartridge::close);
+    first.close();
+    assertThrows(IllegalStateException.class, cartridge::close);
+    assertEquals(2, second.getByte(2));
+    second.close();
+    cartridge.close();
+  }
+
+  @Test
+  void testAcquireAfterCloseThrows() {
+    final var cartridge = create();
+    final var duplicate = cartridge.duplicate();
+    cartridge.close();
+
+    assertThrows(IllegalStateException.class, cartridge::acquire);
+    assertThrows(IllegalStateException.class, duplicate::acquire);
+  }
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.tests.compression;
+
+import static me.hugmanrique.cartage.tests.DummyCartridge.fromData;
+import static me.hugmanrique.cartage.tests.TestResources.getPrimes;
+import static me.hugmanrique.cartage.tests.TestResources.getResourceBytes;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+import jdk.incubator.foreign.MemorySegment;
+import me.hugmanrique.cartage.compression.CompressedExtent;
+import me.hugmanrique.cartage.compression.DecompressionException;
+import me.hugmanrique.cartage.compression.DecompressionResult;
+import me.hugmanrique.cartage.compression.DecompressionStatus;
+import me.hugmanrique.cartage.compression.Decompressor;
+import me.hugmanrique.cartage.compression.GBACompressionType;
+import me.hugmanrique.cartage.compression.GBADiffUnfilterer;
+import me.hugmanrique.cartage.compression.GBAHuffmanDecompressor;
+import me.hugmanrique.cartage.compression.GBALZSSDecompressor;
+import me.hugmanrique.cartage.compression.GBALZXDecompressor;
+import me.hugmanrique.cartage.compression.GBARLDecompressor;
+import me.hugmanrique.cartage.gb.GBCartridge;
+import me.hugmanrique.cartage.gba.SaveData;
+import me.hugmanrique.cartage.gba.SaveType;
+import me.hugmanrique.cartage.tests.TestResources;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the default methods of {@link Decompressor}, and the destinations supported by the GBA
+ * decompressors.
+ */
+public class DecompressorTests {
+
+  // Only implements the abstract method, to test the default implementations
+  private static final Decompressor DECOMPRESSOR = GBALZSSDecompressor.get()::decompress;
+
+  private static final String[] RESOURCES = {"primes_rl", "primes_lzss", "primes_lzx",
+      "primes_huffman4", "primes_huffman8", "primes_diffunfilter8", "primes_diffunfilter16"};
+  private static final Decompressor[] DECOMPRESSORS = {GBARLDecompressor.get(),
+      GBALZSSDecompressor.get(), GBALZXDecompressor.get(), GBAHuffmanDecompressor.get(),
+      GBAHuffmanDecompressor.get(), GBADiffUnfilterer.get(), GBADiffUnfilterer.get()};
+
+  // Every stream that fits in the cartridge can be unfiltered, so there's no corrupted diff data
+  private static final Decompressor[] CORRUPTED_DECOMPRESSORS = {GBARLDecompressor.get(),
+      GBALZSSDecompressor.get(), GBALZXDecompressor.get(), GBAHuffmanDecompressor.get()};
+  private static final byte[][] CORRUPTED_DATA = {
+      {0x30, 1, 0, 0, (byte) 0x80, 0}, // run longer than the decompressed length
+      {0x10, 4, 0, 0, (byte) 0x80, 0, 0}, // reference before the start of the data
+      {0x11, 4, 0, 0, (byte) 0x80, 0x20, 0}, // reference before the start of the data
+      {0x28, 1, 0, 0, 0, 0x3F, 0, 0, 0, 0} // tree node past the end of the cartridge
+  };
+
+  @Test
+  void testDefaultMeasure() throws IOException {
+    final var cartridge = fromData(getResourceBytes("primes_lzss"), ByteOrder.LITTLE_ENDIAN);
+    final var extent = DECOMPRESSOR.measure(cartridge, 0);
+
+    assertNotNull(extent);
+    assertEquals(GBALZSSDecompressor.get().measure(cartridge, 0), extent);
+    assertEquals(0, cartridge.offset(), "offset is preserved");
+    assertNull(DECOMPRESSOR.measure(fromData(new byte[8], ByteOrder.LITTLE_ENDIAN), 0));
+  }
+
+  @Test
+  void testMeasure() throws IOException {
+    for (int i = 0; i < RESOURCES.length; i++) {
+      final Decompressor decompressor = DECOMPRESSORS[i];
+      final byte[] data = getResourceBytes(RESOURCES[i]);
+      final var cartridge = fromData(data, ByteOrder.LITTLE_ENDIAN);
+      final CompressedExtent extent = decompressor.measure(cartridge, 0);
+      final byte[] result = decompressor.decompress(cartridge);
+
+      assertNotNull(extent, RESOURCES[i]);
+      assertEquals(cartridge.offset(), extent.compressedLength(), RESOURCES[i]);
+      assertEquals(result.length, extent.decompressedLength(), RESOURCES[i]);
+
+      final var truncated = fromData(
+          Arrays.copyOf(data, (int) extent.compressedLength() - 1), ByteOrder.LITTLE_ENDIAN);
+      assertNull(decompressor.measure(truncated, 0), RESOURCES[i]);
+      assertThrows(IndexOutOfBoundsException.class,
+          () -> decompressor.measure(cartridge, data.length));
+    }
+    for (int i = 0; i < CORRUPTED_DATA.length; i++) {
+      final var corrupted = fromData(CORRUPTED_DATA[i], ByteOrder.LITTLE_ENDIAN);
+      assertNull(CORRUPTED_DECOMPRESSORS[i].measure(corrupted, 0));
+    }
+  }
+
+  @Test
+  void testMeasureAgreesWithDecompress() {
+    final var random = new Random(0xDA7A);
+    for (GBACompressionType type : GBACompressionType.values()) {
+      final Decompressor decompressor = type.decompressor();
+      final int[] typeBytes = IntStream.range(0, 0x100)
+          .filter(value -> GBACompressionType.ofHeader(value) == type)
+          .toArray();
+      for (int i = 0; i < 2000; i++) {
+        final byte[] data = new byte[1 + random.nextInt(256)];
+        random.nextBytes(data);
+        final int offset = random.nextInt(data.length);
+        if (offset + Integer.BYTES <= data.length && random.nextInt(8) != 0) {
+          // Most random headers are invalid, write a valid one with a short decompressed length
+          data[offset] = (byte) typeBytes[random.nextInt(typeBytes.length)];
+          data[offset + 1] = (byte) random.nextInt(64);
+          data[offset + 2] = 0;
+          data[offset + 3] = 0;
+        }
+        final var cartridge = fromData(data, ByteOrder.LITTLE_ENDIAN);
+        boolean failed = false;
+        try {
+          decompressor.decompress(cartridge, offset);
+        } catch (final DecompressionException e) {
+          failed = true;
+        }
+
+        final String message = type + " data at offset " + offset + " of "
+            + Arrays.toString(data);
+        assertEquals(failed, decompressor.measure(cartridge, offset) == null, message);
+        assertEquals(failed, !decompressor.tryDecompress(cartridge, offset).isSuccess(), message);
+      }
+    }
+  }
+
+  @Test
+  void testTryDecompress() throws IOException {
+    for (int i = 0; i < RESOURCES.length; i++) {
+      final Decompressor decompressor = DECOMPRESSORS[i];
+      final byte[] data = getResourceBytes(RESOURCES[i]);
+      final var cartridge = fromData(data, ByteOrder.LITTLE_ENDIAN);
+      final DecompressionResult result = decompressor.tryDecompress(cartridge, 0);
+
+      assertTrue(result.isSuccess(), RESOURCES[i]);
+      assertArrayEquals(decompressor.decompress(cartridge, 0), result.data(), RESOURCES[i]);
+      final var invalid = fromData(new byte[8], ByteOrder.LITTLE_ENDIAN);
+      assertEquals(DecompressionStatus.INVALID_HEADER,
+          decompressor.tryDecompress(invalid, 0).status(), RESOURCES[i]);
+      final var truncated = fromData(
+          Arrays.copyOf(data, (int) result.compressedLength() - 1), ByteOrder.LITTLE_ENDIAN);
+      assertEquals(DecompressionStatus.TRUNCATED,
+          decompressor.tryDecompress(truncated, 0).status(), RESOURCES[i]);
+    }
+    for (int i = 0; i < CORRUPTED_DATA.length; i++) {
+      final var corrupted = fromData(CORRUPTED_DATA[i], ByteOrder.LITTLE_ENDIAN);
+      assertEquals(DecompressionStatus.CORRUPTED,
+          CORRUPTED_DECOMPRESSORS[i].tryDecompress(corrupted, 0).status());
+    }
+  }
+
+  @Test
+  void testDefaultTryDecompress() throws IOException {
+    final var cartridge = fromData(getResourceBytes("primes_lzss"), ByteOrder.LITTLE_ENDIAN);
+    final DecompressionResult result = DECOMPRESSOR.tryDecompress(cartridge, 0);
+
+    assertArrayEquals(getPrimes(), result.orElseThrow());
+    assertEquals(0, cartridge.offset(), "offset is preserved");
+    final var failure = DECOMPRESSOR.tryDecompress(
+        fromData(new byte[8], ByteOrder.LITTLE_ENDIAN), 0);
+    assertSame(DecompressionResult.failure(DecompressionStatus.CORRUPTED), failure);
+    assertThrows(DecompressionException.class, failure::orElseThrow);
+  }
+
+  @Test
+  void testDecompressIntoTargets() throws IOException {
+    final String[] resources = {"primes_rl", "primes_lzss", "primes_lzx", "primes_huffman4",
+        "primes_diffunfilter8"};
+    final Decompressor[] decompressors = {GBARLDecompressor.get(), GBALZSSDecompressor.get(),
+        GBALZXDecompressor.get(), GBAHuffmanDecompressor.get(), GBADiffUnfilterer.get()};
+    final byte[] expected = getPrimes();
+    final int length = expected.length;
+
+    for (int i = 0; i < resources.length; i++) {
+      final Decompressor decompressor = decompressors[i];
+      final var cartridge = fromData(getResourceBytes(resources[i]), ByteOrder.LITTLE_ENDIAN);
+
+      final byte[] array = new byte[length + 3];
+      assertEquals(length, decompressor.decompress(cartridge, array, 3));
+      assertArrayEquals(expected, Arrays.copyOfRange(array, 3, array.length), resources[i]);
+
+      final ByteBuffer buffer = ByteBuffer.allocateDirect(length + 1).position(1);
+      cartridge.setOffset(0);
+      assertEquals(length, decompressor.decompress(cartridge, buffer));
+      assertEquals(length + 1, buffer.position());
+      assertEquals(ByteBuffer.wrap(expected), buffer.flip().position(1), resources[i]);
+
+      final var segment = MemorySegment.ofArray(new byte[length]);
+      cartridge.setOffset(0);
+      assertEquals(length, decompressor.decompress(cartridge, segment));
+      assertArrayEquals(expected, segment.toByteArray(), resources[i]);
+
+      final var dest = fromData(new byte[length + 2], ByteOrder.LITTLE_ENDIAN);
+      cartridge.setOffset(0);
+      assertEquals(length, decompressor.decompress(cartridge, dest, 2));
+      final byte[] written = new byte[length];
+      dest.getBytes(2, written);
+      assertArrayEquals(expected, written, resources[i]);
+
+      cartridge.setOffset(0);
+      assertThrows(IndexOutOfBoundsException.class,
+          () -> decompressor.decompress(cartridge, new byte[length], 1));
+    }
+  }
+
+  @Test
+  void testDecompressIntoSharedCartridge() throws IOException {
+    for (int i = 0; i < RESOURCES.length; i++) {
+      final byte[] data = getResourceBytes(RESOURCES[i]);
+      final byte[] expected = DECOMPRESSORS[i].decompress(
+          fromData(data, ByteOrder.LITTLE_ENDIAN), 0);
+      // The decompressed data overwrites the compressed data it is decompressed from
+      final var cartridge = fromData(Arrays.copyOf(data, Math.max(data.length, expected.length)),
+          ByteOrder.LITTLE_ENDIAN);
+
+      final var dest = cartridge.duplicate();
+      assertEquals(expected.length, DECOMPRESSORS[i].decompress(cartridge, dest, 0));
+      final byte[] written = new byte[expected.length];
+      cartridge.getBytes(0, written);
+      assertArrayEquals(expected, written, RESOURCES[i]);
+    }
+  }
+
+  @Test
+  void testDecompressIntoHookedCartridge(@TempDir final Path dir) throws IOException {
+    final var cartridge = fromData(getResourceBytes("primes_lzss"), ByteOrder.LITTLE_ENDIAN);
+    final byte[] expected = getPrimes();
+    try (var save = SaveData.open(dir.resolve("game.sav"), SaveType.FLASH_512K)) {
+      final int offset = SaveData.PAGE_LENGTH - 1;
+      assertEquals(expected.length, DECOMPRESSOR.decompress(cartridge, save, offset));
+
+      final byte[] written = new byte[expected.length];
+      save.getBytes(offset, written);
+      assertArrayEquals(expected, written);
+      assertEquals((offset + expected.length - 1) / SaveData.PAGE_LENGTH + 1,
+          save.dirtyPageCount());
+    }
+  }
+
+  @Test
+  void testDecompressCorruptedIntoTrackedCartridge() throws IOException {
+    final byte[] data = getResourceBytes("primes_lzss");
+    // The truncated data fails to decompress after writing part of the destination
+    final var cartridge = fromData(Arrays.copyOf(data, data.length / 2), ByteOrder.LITTLE_ENDIAN);
+    try (var dest = GBCartridge.read(TestResources.getResourceStream("roms/AntonioND.gbc"))) {
+      dest.setChecksumTracking(true);
+      final short before = dest.computeChecksum();
+
+      assertThrows(DecompressionException.class,
+          () -> GBALZSSDecompressor.get().decompress(cartridge, dest, 0x200));
+      final short tracked = dest.computeChecksum();
+      dest.setChecksumTracking(false);
+      assertNotEquals(before, tracked, "part of the data is written");
+      assertEquals(dest.computeChecksum(), tracked);
+    }
+  }
+
+  @Test
+  void testOpenStream() throws IOException {
+    for (int i = 0; i < RESOURCES.length; i++) {
+      final var cartridge = fromData(getResourceBytes(RESOURCES[i]), ByteOrder.LITTLE_ENDIAN);
+      final byte[] expected = DECOMPRESSORS[i].decompress(cartridge, 0);
+      final var output = new ByteArrayOutputStream();
+      try (var stream = DECOMPRESSORS[i].openStream(cartridge, 0)) {
+        assertEquals(expected.length, stream.available());
+        output.write(stream.read());
+        // Odd read lengths split runs, back-references and 16-bit deltas
+        final byte[] chunk = new byte[1013];
+        for (int read; (read = stream.read(chunk, 0, 1 + (output.size() % chunk.length))) > 0; ) {
+          output.write(chunk, 0, read);
+        }
+        assertEquals(-1, stream.read());
+      }
+      assertArrayEquals(expected, output.toByteArray(), RESOURCES[i]);
+      assertEquals(0, cartridge.offset(), "offset is preserved");
+
+      try (var channel = DECOMPRESSORS[i].openChannel(cartridge, 0)) {
+        final ByteBuffer buffer = ByteBuffer.allocate(expected.length);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+          // keep reading
+        }
+        assertEquals(ByteBuffer.wrap(expected), buffer.flip(), RESOURCES[i]);
+      }
+    }
+  }
+
+  @Test
+  void testOpenStreamMalformed() throws IOException {
+    final var cartridge = fromData(new byte[] { 0x10, 4, 0, 0, 0x40, 1, 0, 1 },
+        ByteOrder.LITTLE_ENDIAN);
+    final InputStream stream = GBALZSSDecompressor.get().openStream(cartridge, 0);
+
+    assertEquals(1, stream.read());
+    assertThrows(DecompressionException.class, stream::read);
+    stream.close();
+    assertThrows(IOException.class, stream::read);
+    assertThrows(DecompressionException.class,
+        () -> GBALZSSDecompressor.get().openStream(cartridge, 4));
+  }
+
+  @Test
+  void testStacklessException() {
+    final var exception = new DecompressionException("message", null, false);
+
+    assertEquals(0, exception.getStackTrace().length);
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.tests.compression;
+
+import static me.hugmanrique.cartage.tests.DummyCartridge.fromData;
+import static me.hugmanrique.cartage.tests.TestResources.getPrimes;
+import static me.hugmanrique.cartage.tests.TestResources.getResourceBytes;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import me.hugmanrique.cartage.Cartridge;
+import me.hugmanrique.cartage.compression.GBACompressedStream;
+import me.hugmanrique.cartage.compression.GBACompressionScanner;
+import me.hugmanrique.cartage.compression.GBACompressionType;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link GBACompressionScanner}.
+ */
+public class GBACompressionScannerTests {
+
+  private static final String[] RESOURCES = {"primes_rl", "primes_lzss", "primes_lzx",
+      "primes_huffman4", "primes_huffman8", "primes_diffunfilter8", "primes_diffunfilter16"};
+  private static final GBACompressionType[] TYPES = {GBACompressionType.RL,
+      GBACompressionType.LZSS, GBACompressionType.LZX, GBACompressionType.HUFFMAN,
+      GBACompressionType.HUFFMAN, GBACompressionType.DIFF, GBACompressionType.DIFF};
+  private static final int SPACING = 0x10000;
+
+  private static byte[] createData(final int length, final boolean random) throws IOException {
+    final byte[] data = new byte[length];
+    if (random) {
+      new Random(0x5CA4).nextBytes(data);
+    } else {
+      Arrays.fill(data, (byte) 0xFF);
+    }
+    for (int i = 0; i < RESOURCES.length; i++) {
+      final byte[] stream = getResourceBytes(RESOURCES[i]);
+      System.arraycopy(stream, 0, data, (i + 1) * SPACING, stream.length);
+    }
+    return data;
+  }
+
+  private static void assertValid(final Cartridge cartridge, final GBACompressedStream stream) {
+    cartridge.setOffset(stream.offset());
+    final byte[] result = stream.type().decompressor().decompress(cartridge);
+
+    assertEquals(stream.decompressedLength(), result.length);
+    assertEquals(stream.offset() + stream.compressedLength(), cartridge.offset(),
+        "compressed length matches the consumed bytes");
+  }
+
+  @Test
+  void testFindsStreams() throws IOException {
+    final var scanner = GBACompressionScanner.builder().build();
+    final var cartridge = fromData(createData(RESOURCES.length * SPACING + SPACING, false),
+        ByteOrder.LITTLE_ENDIAN);
+    final List<GBACompressedStream> streams = scanner.scan(cartridge);
+
+    for (int i = 0; i < RESOURCES.length; i++) {
+      final long offset = (i + 1) * SPACING;
+      final var stream = streams.stream()
+          .filter(found -> found.offset() == offset)
+          .findFirst()
+          .orElseThrow();
+      assertEquals(TYPES[i], stream.type());
+      assertArrayEquals(getPrimes(), Arrays.copyOf(stream.decompress(cartridge),
+          getPrimes().length), "16-bit deltas are padded to an even length");
+    }
+    for (GBACompressedStream stream : streams) {
+      assertValid(cartridge, stream);
+    }
+  }
+
+  @Test
+  void testFilters() throws IOException {
+    final var cartridge = fromData(createData(RESOURCES.length * SPACING + SPACING, false),
+        ByteOrder.LITTLE_ENDIAN);
+    final var huffman = GBACompressionScanner.builder()
+        .types(GBACompressionType.HUFFMAN)
+        .build()
+        .scan(cartridge);
+    final var tooShort = GBACompressionScanner.builder()
+        .decompressedLength(0, getPrimes().length - 1)
+        .build()
+        .scan(cartridge);
+
+    assertTrue(huffman.stream().allMatch(stream -> stream.type() == GBACompressionType.HUFFMAN));
+    assertTrue(huffman.stream().anyMatch(stream -> stream.offset() == 4 * SPACING));
+    assertTrue(tooShort.stream().noneMatch(stream -> stream.offset() % SPACING == 0));
+  }
+
+  @Test
+  void testRandomData() throws IOException {
+    final byte[] data = createData(1 << 22, true);
+    final var sequential = GBACompressionScanner.builder()
+        .decompressedLength(1, 0x40000)
+        .build();
+    final var parallel = GBACompressionScanner.builder()
+        .decompressedLength(1, 0x40000)
+        .parallel(true)
+        .build();
+    final var cartridge = fromData(data, ByteOrder.LITTLE_ENDIAN);
+    final List<GBACompressedStream> streams = sequential.scan(cartridge);
+    cartridge.share();
+
+    assertEquals(streams, parallel.scan(cartridge));
+    for (GBACompressedStream stream : streams) {
+      assertValid(cartridge, stream);
+    }
+  }
+
+  @Test
+  void testTruncatedStream() throws IOException {
+    final byte[] stream = getResourceBytes("primes_lzss");
+    final var cartridge = fromData(Arrays.copyOf(stream, stream.length / 2),
+        ByteOrder.LITTLE_ENDIAN);
+
+    assertEquals(List.of(), GBACompressionScanner.builder().build().scan(cartridge));
+  }
+
+  @Test
+  void testInvalidAlignmentThrows() {
+    final var builder = GBACompressionScanner.builder();
+
+    assertThrows(IllegalArgumentException.class, () -> builder.alignment(3));
+    assertThrows(IllegalArgumentException.class, () -> builder.decompressedLength(5, 4));
+  }
+}
@@ -14,6 +14,7 @@ import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteOrder;
 import me.hugmanrique.cartage.compression.DecompressionException;
@@ -70,4 +71,55 @@ public class GBAHuffmanDecompressorTests {
 
     assertArrayEquals(getPrimes(), result);
   }
+
+  @Test
+  void testLongCodes() throws IOException {
+    // A degenerate tree whose 4-bit leaves are all left children of a chain of nodes,
+    // so value v has the path of v 1-bits followed by a 0-bit (15 1-bits for v = 15)
+    final byte[] tree = new byte[32];
+    tree[0] = 15; // tree length = (15 + 1) * 2
+    for (int value = 0; value < 15; value++) {
+      tree[2 * value + 1] = (byte) 0x80; // left child is a leaf
+      tree[2 * value + 2] = (byte) value;
+    }
+    tree[29] = (byte) 0xC0; // both children are leaves
+    tree[31] = 15;
+
+    final byte[] expected = new byte[256];
+    long paths = 0;
+    int pathBits = 0;
+    final var compressed = new ByteArrayOutputStream();
+    compressed.write(new byte[] { 0x24, 0, 1, 0 }); // 4-bit depth, 256 bytes
+    compressed.write(tree);
+    for (int i = 0; i < expected.length; i++) {
+      expected[i] = (byte) i;
+      for (final int value : new int[] { i >>> 4, i & 0xF }) {
+        final int length = Math.min(value + 1, 15);
+        paths = (paths << length) | (((1 << value) - 1) << (length - value));
+        pathBits += length;
+        if (pathBits >= 32) {
+          pathBits -= 32;
+          writeWord(compressed, (int) (paths >>> pathBits));
+        }
+      }
+    }
+    if (pathBits > 0) {
+      writeWord(compressed, (int) (paths << (32 - pathBits)));
+    }
+    final byte[] data = compressed.toByteArray();
+    final var cartridge = fromData(data, ByteOrder.LITTLE_ENDIAN);
+
+    assertArrayEquals(expected, DECOMPRESSOR.decompress(cartridge));
+    assertEquals(data.length, cartridge.offset(), "offset is incremented");
+    try (var stream = DECOMPRESSOR.openStream(cartridge, 0)) {
+      assertArrayEquals(expected, stream.readAllBytes());
+    }
+  }
+
+  private static void writeWord(final ByteArrayOutputStream out, final int word) {
+    out.write(word);
+    out.write(word >>> 8);
+    out.write(word >>> 16);
+    out.write(word >>> 24);
+  }
 }
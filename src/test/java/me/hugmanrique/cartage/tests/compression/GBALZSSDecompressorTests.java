@@ -15,6 +15,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import me.hugmanrique.cartage.compression.DecompressionException;
 import me.hugmanrique.cartage.compression.GBALZSSDecompressor;
@@ -70,4 +71,27 @@ public class GBALZSSDecompressorTests {
 
     assertArrayEquals(getPrimes(), result);
   }
+
+  @Test
+  void testShortDisplacements() {
+    final var writer = LZStreamWriter.lzss();
+    for (int i = 0; i < 8; i++) {
+      writer.literal(i); // a group of uncompressed blocks
+    }
+    for (int displacement = 1; displacement <= 8; displacement++) {
+      for (int count = 3; count <= 18; count++) {
+        writer.literal(count).copy(displacement, count);
+      }
+    }
+    final byte[] data = writer.toByteArray();
+    final byte[] expected = writer.decompressed();
+    final var cartridge = fromData(data, ByteOrder.LITTLE_ENDIAN);
+
+    assertArrayEquals(expected, DECOMPRESSOR.decompress(cartridge));
+    assertEquals(data.length, cartridge.offset(), "offset is incremented");
+    final ByteBuffer direct = ByteBuffer.allocateDirect(expected.length);
+    cartridge.setOffset(0);
+    DECOMPRESSOR.decompress(cartridge, direct);
+    assertEquals(ByteBuffer.wrap(expected), direct.flip());
+  }
 }
@@ -15,7 +15,9 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import me.hugmanrique.cartage.compression.DecompressionException;
 import me.hugmanrique.cartage.compression.GBALZXDecompressor;
 import org.junit.jupiter.api.Test;
@@ -70,4 +72,39 @@ public class GBALZXDecompressorTests {
 
     assertArrayEquals(getPrimes(), result);
   }
+
+  @Test
+  void testLongShortCount() {
+    // A block whose 4-bit count has the most significant bit set, repeating the literal
+    final var data = new byte[] { 0x11, 16, 0, 0, 0x40, 'A', (byte) 0xE0, 0 };
+    final var cartridge = fromData(data, ByteOrder.LITTLE_ENDIAN);
+    final byte[] result = DECOMPRESSOR.decompress(cartridge);
+
+    assertArrayEquals("AAAAAAAAAAAAAAAA".getBytes(StandardCharsets.US_ASCII), result);
+  }
+
+  @Test
+  void testLongCopies() {
+    final var writer = LZStreamWriter.lzx();
+    for (int i = 0; i < 8; i++) {
+      writer.literal(i); // a group of uncompressed blocks
+    }
+    for (final int displacement : new int[] { 1, 2, 3, 4, 7, 8, 31, 64, 1000 }) {
+      writer.copy(displacement, 3)
+          .copy(displacement, 0x10)
+          .copy(displacement, 0x110)
+          .copy(displacement, 0x111 + 5000)
+          .literal(displacement);
+    }
+    final byte[] data = writer.toByteArray();
+    final byte[] expected = writer.decompressed();
+    final var cartridge = fromData(data, ByteOrder.LITTLE_ENDIAN);
+
+    assertArrayEquals(expected, DECOMPRESSOR.decompress(cartridge));
+    assertEquals(data.length, cartridge.offset(), "offset is incremented");
+    final ByteBuffer direct = ByteBuffer.allocateDirect(expected.length);
+    cartridge.setOffset(0);
+    DECOMPRESSOR.decompress(cartridge, direct);
+    assertEquals(ByteBuffer.wrap(expected), direct.flip());
+  }
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.tests.compression;
+
+import static me.hugmanrique.cartage.tests.DummyCartridge.fromData;
+import static me.hugmanrique.cartage.tests.TestResources.getResourceBytes;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.function.Supplier;
+import me.hugmanrique.cartage.Cartridge;
+import me.hugmanrique.cartage.compression.Decompressor;
+import me.hugmanrique.cartage.compression.GBALZSSDecompressor;
+import me.hugmanrique.cartage.compression.GBALZXDecompressor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the throughput of the LZSS and LZX decompressors with a byte-by-byte implementation,
+ * which reads one verbatim byte at a time and copies back-references one byte at a time.
+ *
+ * <p>These benchmarks are excluded from the test task, run them with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+public class LZDecompressionBenchmark {
+
+  private static final long WARMUP_NANOS = 2_000_000_000L;
+  private static final long MEASURE_NANOS = 2_000_000_000L;
+
+  @Test
+  void benchmarkPrimes() throws IOException {
+    this.benchmark("primes LZSS", GBALZSSDecompressor.get(), getResourceBytes("primes_lzss"));
+    this.benchmark("primes LZX", GBALZXDecompressor.get(), getResourceBytes("primes_lzx"));
+  }
+
+  @Test
+  void benchmarkRunFills() {
+    // Short displacements, as found in tile maps and paletted graphics
+    final var lzss = LZStreamWriter.lzss();
+    for (int i = 0; i < 1000; i++) {
+      lzss.literal(i).copy(1, 18).literal(i >>> 2).copy(2, 18).copy(4, 18);
+    }
+    this.benchmark("LZSS run fills", GBALZSSDecompressor.get(), lzss.toByteArray());
+
+    final var lzx = LZStreamWriter.lzx();
+    for (int i = 0; i < 16; i++) {
+      lzx.literal(i).copy(1, 0x1000).literal(i >>> 2).copy(2, 0x1000).copy(32, 0x1000);
+    }
+    this.benchmark("LZX run fills", GBALZXDecompressor.get(), lzx.toByteArray());
+  }
+
+  @Test
+  void benchmarkLiterals() {
+    final var random = new Random(0);
+    final var lzss = LZStreamWriter.lzss();
+    for (int i = 0; i < 0x10000; i++) {
+      lzss.literal(random.nextInt(0x100));
+    }
+    this.benchmark("LZSS literals", GBALZSSDecompressor.get(), lzss.toByteArray());
+  }
+
+  private void benchmark(final String name, final Decompressor decompressor,
+                         final byte[] data) {
+    final Cartridge cartridge = fromData(data, ByteOrder.LITTLE_ENDIAN);
+    final byte[] expected = decompress(cartridge, 0);
+    assertArrayEquals(expected, decompressor.decompress(cartridge, 0));
+
+    final double reference = throughput(() -> decompress(cartridge, 0));
+    final double actual = throughput(() -> decompressor.decompress(cartridge, 0));
+    System.out.printf("%s: %.0f MB/s byte-by-byte, %.0f MB/s (%.2fx)%n",
+        name, reference, actual, actual / reference);
+  }
+
+  private static double throughput(final Supplier<byte[]> operation) {
+    long sink = 0;
+    for (final long start = System.nanoTime(); System.nanoTime() - start < WARMUP_NANOS; ) {
+      sink += operation.get().length;
+    }
+    long bytes = 0;
+    final long start = System.nanoTime();
+    long elapsed;
+    do {
+      bytes += operation.get().length;
+      elapsed = System.nanoTime() - start;
+    } while (elapsed < MEASURE_NANOS);
+    if (sink < 0) {
+      throw new AssertionError(); // keep the warmup results alive
+    }
+    return bytes * 1e3 / elapsed;
+  }
+
+  /**
+   * Decompresses LZSS- or LZX-compressed data one byte at a time.
+   *
+   * @param cartridge the cartridge
+   * @param offset the offset where compressed data starts
+   * @return the decompressed data
+   */
+  private static byte[] decompress(final Cartridge cartridge, final long offset) {
+    cartridge.setOffset(offset);
+    final int header = cartridge.readInt();
+    final boolean extended = (header & 0xFF) == 0x11;
+    final byte[] result = new byte[header >>> 8];
+    int index = 0;
+    while (index < result.length) {
+      int flags = cartridge.readUnsignedByte();
+      for (int i = 0; i < 8 && index < result.length; i++, flags <<= 1) {
+        if ((flags & 0x80) == 0) {
+          result[index++] = cartridge.readByte();
+          continue;
+        }
+        int data = (cartridge.readUnsignedByte() << 8) | cartridge.readUnsignedByte();
+        final int count;
+        if (!extended) {
+          count = (data >>> 12) + 3;
+        } else if ((data >>> 12) == 0) {
+          data = ((data & 0xFFF) << 8) | cartridge.readUnsignedByte();
+          count = (data >>> 12) + 0x11;
+        } else if ((data >>> 12) == 1) {
+          data = ((data & 0xFFF) << 16) | (cartridge.readUnsignedByte() << 8)
+              | cartridge.readUnsignedByte();
+          count = (data >>> 12) + 0x111;
+        } else {
+          count = (data >>> 12) + 1;
+        }
+        final int srcPos = index - (data & 0xFFF) - 1;
+        for (int j = 0; j < count && index < result.length; j++) {
+          result[index++] = result[srcPos + j];
+        }
+      }
+    }
+    return result;
+  }
+}
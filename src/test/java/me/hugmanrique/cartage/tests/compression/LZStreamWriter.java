@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.tests.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Writes LZSS- and LZX-compressed data block by block, keeping track of the decompressed data.
+ */
+public final class LZStreamWriter {
+
+  private static final int LZSS_TYPE = 0x10;
+  private static final int LZX_TYPE = 0x11;
+  private static final int BLOCK_COUNT = 8;
+
+  private final int type;
+  private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+  private final ByteArrayOutputStream group = new ByteArrayOutputStream();
+  private int flags;
+  private int blocks;
+  private byte[] decompressed = new byte[256];
+  private int length;
+
+  private LZStreamWriter(final int type) {
+    this.type = type;
+  }
+
+  /**
+   * Creates a writer of LZSS-compressed data.
+   *
+   * @return the writer
+   */
+  public static LZStreamWriter lzss() {
+    return new LZStreamWriter(LZSS_TYPE);
+  }
+
+  /**
+   * Creates a writer of LZX-compressed data.
+   *
+   * @return the writer
+   */
+  public static LZStreamWriter lzx() {
+    return new LZStreamWriter(LZX_TYPE);
+  }
+
+  /**
+   * Writes an uncompressed block.
+   *
+   * @param value the byte value
+   * @return this writer
+   */
+  public LZStreamWriter literal(final int value) {
+    this.group.write(value);
+    this.append((byte) value);
+    return this.endBlock(false);
+  }
+
+  /**
+   * Writes a compressed block that copies previously decompressed bytes.
+   *
+   * @param displacement the distance to the first byte to copy, in range [1, 4096]
+   * @param count the number of bytes to copy, in range [3, 18] for LZSS and [3, 65808] for LZX
+   * @return this writer
+   */
+  public LZStreamWriter copy(final int displacement, final int count) {
+    if (displacement < 1 || displacement > this.length) {
+      throw new IllegalArgumentException("Invalid displacement " + displacement);
+    }
+    final int disp = displacement - 1;
+    if (this.type == LZSS_TYPE) {
+      if (count < 3 || count > 18) {
+        throw new IllegalArgumentException("Invalid LZSS count " + count);
+      }
+      this.group.write(((count - 3) << 4) | (disp >>> 8));
+      this.group.write(disp);
+    } else if (count >= 0x111) {
+      final int value = (1 << 28) | ((count - 0x111) << 12) | disp;
+      this.group.write(value >>> 24);
+      this.group.write(value >>> 16);
+      this.group.write(value >>> 8);
+      this.group.write(value);
+    } else if (count >= 0x11) {
+      final int value = ((count - 0x11) << 12) | disp;
+      this.group.write(value >>> 16);
+      this.group.write(value >>> 8);
+      this.group.write(value);
+    } else if (count >= 3) {
+      final int value = ((count - 1) << 12) | disp;
+      this.group.write(value >>> 8);
+      this.group.write(value);
+    } else {
+      throw new IllegalArgumentException("Invalid LZX count " + count);
+    }
+    for (int i = 0; i < count; i++) {
+      this.append(this.decompressed[this.length - displacement]);
+    }
+    return this.endBlock(true);
+  }
+
+  private void append(final byte value) {
+    if (this.length == this.decompressed.length) {
+      this.decompressed = Arrays.copyOf(this.decompressed, this.length * 2);
+    }
+    this.decompressed[this.length++] = value;
+  }
+
+  private LZStreamWriter endBlock(final boolean compressed) {
+    this.flags = (this.flags << 1) | (compressed ? 1 : 0);
+    if (++this.blocks == BLOCK_COUNT) {
+      this.flushGroup();
+    }
+    return this;
+  }
+
+  private void flushGroup() {
+    this.output.write(this.flags << (BLOCK_COUNT - this.blocks));
+    this.output.writeBytes(this.group.toByteArray());
+    this.group.reset();
+    this.flags = 0;
+    this.blocks = 0;
+  }
+
+  /**
+   * Returns the decompressed data written so far.
+   *
+   * @return the decompressed bytes
+   */
+  public byte[] decompressed() {
+    return Arrays.copyOf(this.decompressed, this.length);
+  }
+
+  /**
+   * Returns the compressed data, including the header.
+   *
+   * @return the compressed bytes
+   */
+  public byte[] toByteArray() {
+    if (this.blocks > 0) {
+      this.flushGroup();
+    }
+    final int length = this.length;
+    final var result = new ByteArrayOutputStream();
+    result.write(this.type);
+    result.write(length);
+    result.write(length >>> 8);
+    result.write(length >>> 16);
+    result.writeBytes(this.output.toByteArray());
+    return result.toByteArray();
+  }
+}
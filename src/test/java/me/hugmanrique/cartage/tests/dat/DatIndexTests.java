@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.tests.dat;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import me.hugmanrique.cartage.dat.DatIndex;
+import me.hugmanrique.cartage.gb.GBCartridge;
+import me.hugmanrique.cartage.gba.GBACartridge;
+import me.hugmanrique.cartage.hash.HashAlgorithm;
+import me.hugmanrique.cartage.hash.Hashes;
+import me.hugmanrique.cartage.tests.TestResources;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests {@link DatIndex}.
+ */
+public class DatIndexTests {
+
+  private static final String HEADER = """
+      <?xml version="1.0"?>
+      <!DOCTYPE datafile PUBLIC "-//Logiqx//DTD ROM Management Datafile//EN" \
+      "http://www.logiqx.com/Dats/datafile.dtd">
+      <datafile>
+        <header><name>Test</name></header>
+      """;
+
+  private static String rom(final String game, final String name, final Hashes hashes,
+                            final long size) {
+    return "<game name=\"" + game + "\"><description>" + game + "</description>"
+        + "<rom name=\"" + name + "\" size=\"" + size + "\" crc=\""
+        + hashes.toHexString(HashAlgorithm.CRC32).toUpperCase() + "\" sha1=\""
+        + hashes.toHexString(HashAlgorithm.SHA_1) + "\"/></game>\n";
+  }
+
+  private static DatIndex parse(final String body) throws IOException {
+    final String xml = HEADER + body + "</datafile>\n";
+    return DatIndex.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static String romEntries() throws IOException {
+    try (var gba = GBACartridge.read(TestResources.getResourceStream("roms/jsmolka.gba"));
+         var gb = GBCartridge.read(TestResources.getResourceStream("roms/AntonioND.gbc"))) {
+      final Hashes gbaHashes = gba.hash(HashAlgorithm.CRC32, HashAlgorithm.SHA_1);
+      final Hashes gbHashes = gb.hash(HashAlgorithm.CRC32, HashAlgorithm.SHA_1);
+      return rom("jsmolka &amp; co", "jsmolka.gba", gbaHashes, gba.size())
+          + "<game name=\"Undumped\"><rom name=\"nodump.gb\" size=\"32768\" status=\"nodump\"/>"
+          + "</game>\n"
+          + rom("AntonioND", "AntonioND.gbc", gbHashes, gb.size());
+    }
+  }
+
+  @Test
+  void testMatch() throws IOException {
+    try (var index = parse(romEntries());
+         var cartridge = GBACartridge.read(TestResources.getResourceStream("roms/jsmolka.gba"))) {
+      assertEquals(2, index.size(), "ROMs without CRC32 are skipped");
+      final int entry = index.match(cartridge);
+
+      assertTrue(entry >= 0);
+      assertEquals("jsmolka & co", index.gameName(entry));
+      assertEquals("jsmolka.gba", index.romName(entry));
+      assertEquals(cartridge.size(), index.romSize(entry));
+      final Hashes hashes = cartridge.hash(HashAlgorithm.CRC32, HashAlgorithm.SHA_1);
+      assertArrayEquals(hashes.get(HashAlgorithm.SHA_1), index.sha1(entry));
+      assertEquals(entry, index.find(index.crc32(entry)));
+    }
+  }
+
+  @Test
+  void testMatchWithoutSha1() throws IOException {
+    try (var cartridge = GBACartridge.read(TestResources.getResourceStream("roms/jsmolka.gba"))) {
+      final Hashes hashes = cartridge.hash(HashAlgorithm.CRC32, HashAlgorithm.SHA_1);
+      final String crc = hashes.toHexString(HashAlgorithm.CRC32);
+      try (var index = parse("<game name=\"CRC only\"><rom name=\"crc.gba\" crc=\"" + crc
+          + "\"/></game>\n")) {
+        final int entry = index.match(cartridge);
+
+        assertEquals("crc.gba", index.romName(entry));
+        assertArrayEquals(new byte[20], index.sha1(entry));
+        assertEquals(entry, index.find(hashes));
+        assertEquals(-1, index.find(index.crc32(entry), hashes.get(HashAlgorithm.SHA_1)));
+      }
+    }
+  }
+
+  @Test
+  void testNoMatch() throws IOException {
+    try (var index = parse(romEntries())) {
+      assertEquals(-1, index.find(index.crc32(0) ^ 1));
+      assertEquals(-1, index.find(index.crc32(0), new byte[20]));
+      assertThrows(IllegalArgumentException.class, () -> index.find(0, new byte[4]));
+      assertThrows(IndexOutOfBoundsException.class, () -> index.gameName(2));
+    }
+  }
+
+  @Test
+  void testWriteAndMap(@TempDir final Path dir) throws IOException {
+    final Path path = dir.resolve("test.idx");
+    try (var index = parse(romEntries())) {
+      index.write(path);
+    }
+    try (var index = DatIndex.map(path);
+         var cartridge = GBCartridge.read(TestResources.getResourceStream("roms/AntonioND.gbc"))) {
+      assertEquals(2, index.size());
+      assertEquals("AntonioND.gbc", index.romName(index.match(cartridge)));
+    }
+  }
+
+  @Test
+  void testManyEntries() throws IOException {
+    final var random = new Random(0xC0FFEE);
+    final var body = new StringBuilder();
+    final int[] crcs = new int[2000];
+    final byte[][] sha1s = new byte[crcs.length][20];
+    for (int i = 0; i < crcs.length; i++) {
+      // Force some CRC32 collisions to exercise the SHA-1 tie-break
+      crcs[i] = (i % 10 == 0) ? 0xDEADBEEF : random.nextInt();
+      random.nextBytes(sha1s[i]);
+      final var sha1 = new StringBuilder();
+      for (byte b : sha1s[i]) {
+        sha1.append(String.format("%02x", b));
+      }
+      body.append(String.format("<game name=\"G%d\"><rom name=\"r%d\" size=\"%d\" crc=\"%08x\" "
+          + "sha1=\"%s\"/></game>%n", i, i, i, crcs[i], sha1));
+    }
+    try (var index = parse(body.toString())) {
+      assertEquals(crcs.length, index.size());
+      for (int i = 0; i < crcs.length; i++) {
+        final int entry = index.find(crcs[i], sha1s[i]);
+        assertEquals("r" + i, index.romName(entry));
+        assertEquals("G" + i, index.gameName(entry));
+        assertEquals(i, index.romSize(entry));
+      }
+      for (int i = 1; i < index.size(); i++) {
+        assertTrue(Integer.compareUnsigned(index.crc32(i - 1), index.crc32(i)) <= 0);
+      }
+    }
+  }
+
+  @Test
+  void testMalformedThrows() {
+    assertThrows(IOException.class, () -> parse("<game name=\"x\">"));
+    assertThrows(IOException.class,
+        () -> parse("<game name=\"x\"><rom name=\"y\" crc=\"xyz\"/></game>"));
+  }
+
+  @Test
+  void testMapInvalidThrows(@TempDir final Path dir) throws IOException {
+    final Path path = dir.resolve("invalid.idx");
+    Files.write(path, new byte[64]);
+
+    assertThrows(IOException.class, () -> DatIndex.map(path));
+  }
+}
@@ -10,15 +10,23 @@ package me.hugmanrique.cartage.tests.gb;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
 import me.hugmanrique.cartage.gb.GBCartridge;
 import me.hugmanrique.cartage.tests.CartridgeTestSuite;
 import me.hugmanrique.cartage.tests.TestResources;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 /**
  * Tests the default {@link GBCartridge} implementation.
@@ -89,6 +97,15 @@ public class GBCartridgeTests extends CartridgeTestSuite<GBCartridge> {
     assertArrayEquals(logo, header.logo());
   }
 
+  @Test
+  void testHasValidLogo() {
+    header.setValidLogo();
+    assertTrue(header.hasValidLogo());
+
+    header.setLogo(new byte[GBCartridge.Header.LOGO_LENGTH]);
+    assertFalse(header.hasValidLogo());
+  }
+
   @Test
   void testSetLogoFromTooSmallArrayThrows() {
     assertThrows(IllegalArgumentException.class, () -> {
@@ -345,4 +362,149 @@ public class GBCartridgeTests extends CartridgeTestSuite<GBCartridge> {
   void testComputeGlobalChecksum() {
     assertEquals(0x47D, cartridge.computeChecksum());
   }
+
+  private static short computeChecksumByteByByte(final GBCartridge cartridge) {
+    short checksum = 0;
+    for (int i = 0; i < cartridge.header().romSizeBytes(); i++) {
+      if (i != 0x14E && i != 0x14F) {
+        checksum += (short) cartridge.getUnsignedByte(i);
+      }
+    }
+    return checksum;
+  }
+
+  @Test
+  void testComputeLargeGlobalChecksum() {
+    final var random = new Random(0xC0FFEE);
+    try (var large = GBCartridge.allocate(1 << 21)) { // 2 MB
+      final byte[] data = new byte[(int) large.size()];
+      random.nextBytes(data);
+      large.setBytes(0, data);
+      large.header().setRomSize((byte) 6);
+      final short expected = computeChecksumByteByByte(large);
+
+      assertEquals(expected, large.computeChecksum());
+      large.share(); // computed in parallel
+      assertEquals(expected, large.computeChecksum());
+    }
+  }
+
+  @Test
+  void testComputeGlobalChecksumOfTruncatedRomThrows() {
+    final byte[] data = new byte[0x4000];
+    cartridge.getBytes(0, data);
+    try (var truncated = GBCartridge.allocate(data.length)) {
+      truncated.setBytes(0, data);
+
+      assertThrows(IndexOutOfBoundsException.class, truncated::computeChecksum);
+    }
+  }
+
+  @Test
+  void testChecksumTracking() {
+    cartridge.setChecksumTracking(true);
+    assertTrue(cartridge.isChecksumTracking());
+    assertEquals(0x47D, cartridge.computeChecksum());
+    assertEquals(0x34, header.computeChecksum());
+
+    cartridge.setByte(0x200, (byte) 0x7F);
+    cartridge.setInt(0x1000, 0xDEADBEEF);
+    cartridge.setBytes(0x130, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }); // overlaps header
+    cartridge.setOffset(0x14C);
+    cartridge.writeLong(-1L); // overlaps both checksums
+    header.setTitle("PATCHED");
+    try (var duplicate = cartridge.duplicate()) {
+      duplicate.setShort(0x3000, (short) 0x1234);
+    }
+    try (var slice = cartridge.slice(0x130, 0x2000)) {
+      slice.setByte(0x4, (byte) 0x33); // within the header
+      slice.slice(0x1000, 0x10).setInt(0x2, 0xCAFEBABE);
+    }
+    assertThrows(IndexOutOfBoundsException.class,
+        () -> cartridge.setBytes(cartridge.size() - 2, new byte[4]));
+
+    final short global = cartridge.computeChecksum();
+    final byte headerChecksum = header.computeChecksum();
+    cartridge.setChecksumTracking(false);
+
+    assertFalse(cartridge.isChecksumTracking());
+    assertEquals(cartridge.computeChecksum(), global);
+    assertEquals(header.computeChecksum(), headerChecksum);
+  }
+
+  @Test
+  void testSnapshot() {
+    final var snapshot = header.snapshot();
+
+    assertEquals(header.entryPoint(), (short) snapshot.entryPoint());
+    assertEquals(header.hasValidLogo(), snapshot.hasValidLogo());
+    assertEquals(header.title(), snapshot.title());
+    assertEquals(header.manufacturer(), snapshot.manufacturer());
+    assertEquals(header.gbc(), snapshot.gbc());
+    assertEquals(header.hasColorFunctions(), snapshot.hasColorFunctions());
+    assertEquals(header.requiresColor(), snapshot.requiresColor());
+    assertEquals(header.licensee(), snapshot.licensee());
+    assertEquals(header.hasSuperFunctions(), snapshot.hasSuperFunctions());
+    assertEquals(header.type(), snapshot.type());
+    assertEquals(header.romSizeBytes(), snapshot.romSizeBytes());
+    assertEquals(header.ramSizeBytes(), snapshot.ramSizeBytes());
+    assertEquals(header.japaneseDistribution(), snapshot.japaneseDistribution());
+    assertEquals(header.version(), snapshot.version());
+    assertEquals(header.checksum(), snapshot.checksum());
+    assertEquals(header.globalChecksum(), snapshot.globalChecksum());
+  }
+
+  @Test
+  void testSnapshotIsImmutable() {
+    final var snapshot = header.snapshot();
+    header.setTitle("CHANGED");
+    cartridge.setBytes(0x100, new byte[4]); // invalidate entry point
+
+    assertNotEquals(header.title(), snapshot.title());
+    assertNull(header.snapshot().entryPoint());
+  }
+
+  @Test
+  void testTypeOf() {
+    for (final var type : GBCartridge.Type.values()) {
+      assertSame(type, GBCartridge.Type.of(type.value()));
+    }
+    assertNull(GBCartridge.Type.of((byte) 0x4));
+  }
+
+  @Test
+  void testMapReadOnly(@TempDir final Path dir) throws IOException {
+    final Path path = dir.resolve("rom.gbc");
+    Files.write(path, TestResources.getResourceBytes("roms/AntonioND.gbc"));
+
+    try (final var mapped = GBCartridge.map(path)) {
+      assertTrue(mapped.isReadOnly());
+      assertFalse(cartridge.isReadOnly());
+      assertEquals(cartridge.size(), mapped.size());
+      assertEquals(header.title(), mapped.header().title());
+      assertEquals(header.checksum(), mapped.header().checksum());
+      assertThrows(UnsupportedOperationException.class, () -> mapped.setByte(0, (byte) 0));
+    }
+  }
+
+  @Test
+  void testReadHeader(@TempDir final Path dir) throws IOException {
+    final Path path = dir.resolve("rom.gbc");
+    Files.write(path, TestResources.getResourceBytes("roms/AntonioND.gbc"));
+    final var readHeader = GBCartridge.readHeader(path);
+
+    assertEquals(header.title(), readHeader.title());
+    assertEquals(header.checksum(), readHeader.checksum());
+    assertEquals(header.computeChecksum(), readHeader.computeChecksum());
+    assertArrayEquals(header.logo(), readHeader.logo());
+    assertThrows(UnsupportedOperationException.class, readHeader::setValidLogo);
+  }
+
+  @Test
+  void testReadHeaderOfTooSmallFileThrows(@TempDir final Path dir) throws IOException {
+    final Path path = dir.resolve("rom.gbc");
+    Files.write(path, new byte[GBCartridge.Header.END_ADDR - 1]);
+
+    assertThrows(EOFException.class, () -> GBCartridge.readHeader(path));
+  }
 }
@@ -9,15 +9,25 @@ package me.hugmanrique.cartage.tests.gba;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import me.hugmanrique.cartage.gba.GBACartridge;
+import me.hugmanrique.cartage.gba.SaveType;
 import me.hugmanrique.cartage.tests.CartridgeTestSuite;
 import me.hugmanrique.cartage.tests.TestResources;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 /**
  * Tests the default {@link GBACartridge} implementation.
@@ -142,6 +152,20 @@ public class GBACartridgeTests extends CartridgeTestSuite<GBACartridge> {
     assertArrayEquals(logo, header.logo());
   }
 
+  @Test
+  void testHasValidLogo() {
+    header.setValidLogo();
+    assertTrue(header.hasValidLogo());
+
+    final var logo = header.logo();
+    logo[0x98] |= (byte) 0x84; // enable debugging mode
+    header.setLogo(logo);
+    assertTrue(header.hasValidLogo(), "debugging bits are ignored");
+
+    header.setLogo(new byte[GBACartridge.Header.LOGO_LENGTH]);
+    assertFalse(header.hasValidLogo());
+  }
+
   @Test
   void testSetLogoFromTooSmallArrayThrows() {
     assertThrows(IllegalArgumentException.class, () -> {
@@ -391,4 +415,125 @@ public class GBACartridgeTests extends CartridgeTestSuite<GBACartridge> {
 
     assertEquals((byte) 0x68, header.checksum());
   }
+
+  @Test
+  void testChecksumTracking() {
+    cartridge.setChecksumTracking(true);
+    assertTrue(cartridge.isChecksumTracking());
+    final byte initial = header.computeChecksum();
+
+    header.setTitle("PATCHED");
+    cartridge.setInt(0xB8, 0x12345678); // overlaps checksum byte
+    cartridge.setByte(0x200, (byte) 1); // outside header
+    try (var slice = cartridge.slice(0xA0, 0x40)) {
+      slice.setShort(0x4, (short) 0x4241); // within the game title
+      slice.slice(0x10, 0x8).setByte(0x1, (byte) 0x5A); // within the game code
+    }
+    header.setChecksum();
+    final byte checksum = header.computeChecksum();
+    cartridge.setChecksumTracking(false);
+
+    assertEquals(header.computeChecksum(), checksum);
+    assertEquals(checksum, header.checksum());
+    assertNotEquals(initial, checksum);
+  }
+
+  @Test
+  void testSnapshot() {
+    final var snapshot = header.snapshot();
+
+    assertEquals(header.entryPoint(), snapshot.entryPoint());
+    assertEquals(header.hasValidLogo(), snapshot.hasValidLogo());
+    assertEquals(header.title(), snapshot.title());
+    assertEquals(header.code(), snapshot.code());
+    assertEquals(header.type(), snapshot.type());
+    assertEquals(header.shortTitle(), snapshot.shortTitle());
+    assertEquals(header.destination(), snapshot.destination());
+    assertEquals(header.licensee(), snapshot.licensee());
+    assertEquals(header.requiredConsole(), snapshot.requiredConsole());
+    assertEquals(header.dacs(), snapshot.dacs());
+    assertEquals(header.version(), snapshot.version());
+    assertEquals(header.checksum(), snapshot.checksum());
+  }
+
+  @Test
+  void testSnapshotIsImmutable() {
+    final var snapshot = header.snapshot();
+    header.setTitle("CHANGED");
+    cartridge.setInt(0, 0); // invalidate entry point
+
+    assertNotEquals(header.title(), snapshot.title());
+    assertNull(header.snapshot().entryPoint());
+  }
+
+  @Test
+  void testEnumOf() {
+    for (final var type : GBACartridge.Type.values()) {
+      assertSame(type, GBACartridge.Type.of(type.value()));
+    }
+    for (final var destination : GBACartridge.Destination.values()) {
+      assertSame(destination, GBACartridge.Destination.of(destination.value()));
+    }
+    for (final var type : GBACartridge.DACSType.values()) {
+      assertSame(type, GBACartridge.DACSType.of(type.value()));
+    }
+    assertNull(GBACartridge.Type.of((byte) 'Z'));
+    assertNull(GBACartridge.Destination.of((byte) 0xFF));
+    assertNull(GBACartridge.DACSType.of((byte) 1));
+  }
+
+  @Test
+  void testDetectSaveType() {
+    assertNull(cartridge.saveType());
+    cartridge.setString(0xA01, "SRAM_V113", StandardCharsets.US_ASCII); // unaligned
+    assertNull(cartridge.saveType());
+    cartridge.setString(0xC00, "FLASH1M_V103", StandardCharsets.US_ASCII);
+    assertSame(SaveType.FLASH_1M, cartridge.saveType());
+    cartridge.setString(0xB00, "EEPROM_V124", StandardCharsets.US_ASCII);
+    assertSame(SaveType.EEPROM_64K, cartridge.saveType(), "first ID string wins");
+  }
+
+  @Test
+  void testSaveTypeOfSize() {
+    for (final var type : SaveType.values()) {
+      assertSame(type, SaveType.ofSize(type.size()));
+    }
+    assertNull(SaveType.ofSize(0x1000));
+  }
+
+  @Test
+  void testMapReadOnly(@TempDir final Path dir) throws IOException {
+    final Path path = dir.resolve("rom.gba");
+    Files.write(path, TestResources.getResourceBytes("roms/jsmolka.gba"));
+
+    try (final var mapped = GBACartridge.map(path)) {
+      assertTrue(mapped.isReadOnly());
+      assertFalse(cartridge.isReadOnly());
+      assertEquals(cartridge.size(), mapped.size());
+      assertEquals(header.title(), mapped.header().title());
+      assertEquals(header.checksum(), mapped.header().checksum());
+      assertThrows(UnsupportedOperationException.class, () -> mapped.setByte(0, (byte) 0));
+    }
+  }
+
+  @Test
+  void testReadHeader(@TempDir final Path dir) throws IOException {
+    final Path path = dir.resolve("rom.gba");
+    Files.write(path, TestResources.getResourceBytes("roms/jsmolka.gba"));
+    final var readHeader = GBACartridge.readHeader(path);
+
+    assertEquals(header.title(), readHeader.title());
+    assertEquals(header.checksum(), readHeader.checksum());
+    assertEquals(header.computeChecksum(), readHeader.computeChecksum());
+    assertArrayEquals(header.logo(), readHeader.logo());
+    assertThrows(UnsupportedOperationException.class, readHeader::setValidLogo);
+  }
+
+  @Test
+  void testReadHeaderOfTooSmallFileThrows(@TempDir final Path dir) throws IOException {
+    final Path path = dir.resolve("rom.gba");
+    Files.write(path, new byte[GBACartridge.Header.END_ADDR - 1]);
+
+    assertThrows(EOFException.class, () -> GBACartridge.readHeader(path));
+  }
 }
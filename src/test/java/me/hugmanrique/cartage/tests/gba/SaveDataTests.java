@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.tests.gba;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import me.hugmanrique.cartage.gba.SaveData;
+import me.hugmanrique.cartage.gba.SaveType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests {@link SaveData}.
+ */
+public class SaveDataTests {
+
+  @Test
+  void testCreate(@TempDir final Path dir) throws IOException {
+    final Path path = dir.resolve("game.sav");
+    try (var save = SaveData.open(path, SaveType.FLASH_512K)) {
+      assertSame(SaveType.FLASH_512K, save.type());
+      assertEquals(0x10000, save.size());
+      assertEquals((byte) 0xFF, save.getByte(0x1234), "new saves are erased");
+      assertFalse(save.isDirty());
+    }
+    assertEquals(0x10000, Files.size(path));
+  }
+
+  @Test
+  void testDirtyPages(@TempDir final Path dir) throws IOException {
+    final var save = SaveData.open(dir.resolve("game.sav"), SaveType.FLASH_1M);
+    save.setInt(SaveData.PAGE_LENGTH - 2, 0xCAFEBABE); // spans two pages
+    save.setByte(0x10000, (byte) 1);
+    save.duplicate().setShort(0x1F000, (short) 2);
+    assertEquals(4, save.dirtyPageCount());
+
+    save.force();
+    assertFalse(save.isDirty());
+    save.setByte(0, (byte) 3);
+    assertEquals(1, save.dirtyPageCount());
+
+    save.close();
+    assertFalse(save.isDirty(), "written on close");
+  }
+
+  @Test
+  void testSliceDirtyPages(@TempDir final Path dir) throws IOException {
+    try (var save = SaveData.open(dir.resolve("game.sav"), SaveType.FLASH_512K)) {
+      final var slice = (SaveData) save.slice(3 * SaveData.PAGE_LENGTH - 4, 0x100);
+      slice.setLong(0, 0x0123456789ABCDEFL); // spans pages 2 and 3
+      assertEquals(2, save.dirtyPageCount());
+      assertEquals(0x89ABCDEF, save.getInt(3 * SaveData.PAGE_LENGTH - 4));
+
+      save.setByte(0, (byte) 1);
+      slice.force();
+      assertEquals(1, save.dirtyPageCount(), "only the pages of the slice are written");
+      save.force();
+      assertFalse(save.isDirty());
+    }
+  }
+
+  @Test
+  void testExtendExistingFile(@TempDir final Path dir) throws IOException {
+    final Path path = dir.resolve("game.sav");
+    Files.write(path, new byte[] {1, 2, 3});
+    try (var save = SaveData.open(path, SaveType.EEPROM_4K)) {
+      assertEquals(0x200, save.size());
+      assertEquals(3, save.getByte(2));
+      assertEquals((byte) 0xFF, save.getByte(3));
+
+      save.erase();
+      assertEquals((byte) 0xFF, save.getByte(0));
+      assertTrue(save.isDirty());
+    }
+  }
+
+  @Test
+  void testOpenUnknownSizeThrows(@TempDir final Path dir) throws IOException {
+    final Path path = dir.resolve("game.sav");
+    Files.write(path, new byte[100]);
+
+    assertThrows(IOException.class, () -> SaveData.open(path));
+  }
+
+  @Test
+  void testForceClosedThrows(@TempDir final Path dir) throws IOException {
+    final var save = SaveData.open(dir.resolve("game.sav"), SaveType.SRAM);
+    save.close();
+
+    assertThrows(IllegalStateException.class, save::force);
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.tests.hash;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
+import me.hugmanrique.cartage.Cartridge;
+import me.hugmanrique.cartage.gb.GBCartridge;
+import me.hugmanrique.cartage.gba.GBACartridge;
+import me.hugmanrique.cartage.hash.HashAlgorithm;
+import me.hugmanrique.cartage.hash.Hashes;
+import me.hugmanrique.cartage.hash.MultiHasher;
+import me.hugmanrique.cartage.tests.DummyCartridge;
+import me.hugmanrique.cartage.tests.TestResources;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests {@link MultiHasher} and {@link Cartridge#hash(HashAlgorithm...)}.
+ */
+public class MultiHasherTests {
+
+  private static final HashAlgorithm[] ALL = HashAlgorithm.values();
+
+  private static void assertHashes(final byte[] data, final Hashes hashes)
+      throws NoSuchAlgorithmException {
+    final var crc32 = new CRC32();
+    crc32.update(data);
+    assertEquals(Long.toHexString(crc32.getValue() | (1L << 32)).substring(1),
+        hashes.toHexString(HashAlgorithm.CRC32));
+    assertArrayEquals(MessageDigest.getInstance("MD5").digest(data),
+        hashes.get(HashAlgorithm.MD5));
+    assertArrayEquals(MessageDigest.getInstance("SHA-1").digest(data),
+        hashes.get(HashAlgorithm.SHA_1));
+    assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(data),
+        hashes.get(HashAlgorithm.SHA_256));
+  }
+
+  @Test
+  void testHashCartridge() throws IOException, NoSuchAlgorithmException {
+    final byte[] data = TestResources.getResourceBytes("roms/jsmolka.gba");
+    try (var cartridge = DummyCartridge.fromData(data, ByteOrder.LITTLE_ENDIAN)) {
+      assertHashes(data, cartridge.hash(ALL));
+    }
+  }
+
+  @Test
+  void testHashLargeCartridge() throws NoSuchAlgorithmException {
+    final byte[] data = new byte[(1 << 17) + 123];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) (i * 31 + (i >>> 9));
+    }
+    try (var cartridge = DummyCartridge.fromData(data, ByteOrder.LITTLE_ENDIAN)) {
+      assertHashes(data, cartridge.hash(ALL));
+    }
+  }
+
+  @Test
+  void testHashSlice() throws IOException, NoSuchAlgorithmException {
+    final byte[] data = TestResources.getResourceBytes("roms/AntonioND.gbc");
+    try (var cartridge = DummyCartridge.fromData(data, ByteOrder.LITTLE_ENDIAN);
+         var slice = cartridge.slice(0x100, 0x50)) {
+      final byte[] expected = new byte[0x50];
+      System.arraycopy(data, 0x100, expected, 0, expected.length);
+      assertHashes(expected, slice.hash(ALL));
+    }
+  }
+
+  @Test
+  void testHashEmpty() throws NoSuchAlgorithmException {
+    assertHashes(new byte[0], new MultiHasher(ALL).digest());
+  }
+
+  @Test
+  void testReadPathWithHasher(@TempDir final Path dir)
+      throws IOException, NoSuchAlgorithmException {
+    final byte[] data = TestResources.getResourceBytes("roms/AntonioND.gbc");
+    final Path path = dir.resolve("rom.gbc");
+    Files.write(path, data);
+    final var hasher = new MultiHasher(ALL);
+
+    try (var cartridge = GBCartridge.read(path, hasher)) {
+      final Hashes hashes = hasher.digest();
+      assertHashes(data, hashes);
+      assertEquals(hashes, cartridge.hash(ALL));
+    }
+  }
+
+  @Test
+  void testReadStreamWithHasher() throws IOException, NoSuchAlgorithmException {
+    final byte[] data = TestResources.getResourceBytes("roms/jsmolka.gba");
+    final var hasher = new MultiHasher(HashAlgorithm.CRC32, HashAlgorithm.SHA_1);
+
+    try (var cartridge = GBACartridge.read(new ByteArrayInputStream(data), hasher)) {
+      final Hashes hashes = hasher.digest();
+      assertEquals(cartridge.hash(HashAlgorithm.SHA_1, HashAlgorithm.CRC32), hashes);
+      assertThrows(IllegalArgumentException.class, () -> hashes.get(HashAlgorithm.MD5));
+    }
+  }
+
+  @Test
+  void testUpdateBuffer() throws NoSuchAlgorithmException {
+    final byte[] data = TestResources.getPrimes();
+    final var hasher = new MultiHasher(ALL);
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(data.length).put(data).flip();
+
+    hasher.update(buffer);
+    assertEquals(buffer.limit(), buffer.position());
+    assertHashes(data, hasher.digest());
+    assertHashes(new byte[0], hasher.digest()); // reset
+  }
+
+  @Test
+  void testHashClosedThrows() {
+    final var cartridge = DummyCartridge.fromData(new byte[16], ByteOrder.LITTLE_ENDIAN);
+    final var view = cartridge.duplicate();
+    view.close();
+    cartridge.close();
+
+    assertThrows(IllegalStateException.class, () -> cartridge.hash(HashAlgorithm.CRC32));
+    assertThrows(IllegalStateException.class, () -> view.hash(HashAlgorithm.CRC32));
+  }
+}
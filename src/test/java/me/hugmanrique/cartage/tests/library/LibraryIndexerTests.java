@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.tests.library;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import me.hugmanrique.cartage.CartridgeFormat;
+import me.hugmanrique.cartage.gba.GBACartridge;
+import me.hugmanrique.cartage.hash.HashAlgorithm;
+import me.hugmanrique.cartage.hash.Hashes;
+import me.hugmanrique.cartage.library.LibraryIndex;
+import me.hugmanrique.cartage.library.LibraryIndexer;
+import me.hugmanrique.cartage.tests.TestResources;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests {@link LibraryIndexer} and {@link LibraryIndex}.
+ */
+public class LibraryIndexerTests {
+
+  @TempDir
+  Path root;
+  private Path gbPath;
+  private Path gbaPath;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    final Path dir = Files.createDirectories(this.root.resolve("nested/dir"));
+    this.gbPath = dir.resolve("AntonioND.gbc");
+    this.gbaPath = this.root.resolve("jsmolka.gba");
+    Files.write(this.gbPath, TestResources.getResourceBytes("roms/AntonioND.gbc"));
+    Files.write(this.gbaPath, TestResources.getResourceBytes("roms/jsmolka.gba"));
+    Files.write(this.root.resolve("readme.txt"), TestResources.getPrimes());
+    Files.write(this.root.resolve("empty"), new byte[0]);
+  }
+
+  @Test
+  void testScan() throws IOException {
+    final LibraryIndex index = new LibraryIndexer(2, 1).scan(this.root);
+
+    assertEquals(2, index.size(), "non-cartridge files are skipped");
+    final int gba = index.indexOf(this.gbaPath);
+    assertEquals(CartridgeFormat.GBA, index.format(gba));
+    assertEquals(this.gbaPath.toAbsolutePath(), index.path(gba));
+    assertEquals(Files.size(this.gbaPath), index.fileSize(gba));
+    try (var cartridge = GBACartridge.read(this.gbaPath)) {
+      final var header = cartridge.header();
+      assertEquals(header.code(), index.code(gba));
+      assertEquals(header.checksum(), index.checksum(gba));
+      assertEquals(header.version(), index.version(gba));
+      final Hashes hashes = cartridge.hash(HashAlgorithm.CRC32, HashAlgorithm.SHA_1);
+      assertEquals(ByteBuffer.wrap(hashes.get(HashAlgorithm.CRC32)).getInt(), index.crc32(gba));
+      assertArrayEquals(hashes.get(HashAlgorithm.SHA_1), index.sha1(gba));
+    }
+    final int gb = index.indexOf(this.gbPath);
+    assertEquals(CartridgeFormat.GB, index.format(gb));
+    assertEquals(-1, index.indexOf(this.root.resolve("readme.txt")));
+  }
+
+  @Test
+  void testWriteAndRead() throws IOException {
+    final LibraryIndex index = new LibraryIndexer().scan(this.root);
+    final Path path = this.root.resolve("library.idx");
+    index.write(path);
+    final LibraryIndex read = LibraryIndex.read(path);
+
+    assertEquals(index.size(), read.size());
+    for (int i = 0; i < index.size(); i++) {
+      assertEquals(index.path(i), read.path(i));
+      assertEquals(index.lastModified(i), read.lastModified(i));
+      assertEquals(index.format(i), read.format(i));
+      assertEquals(index.title(i), read.title(i));
+      assertEquals(index.licensee(i), read.licensee(i));
+      assertEquals(index.type(i), read.type(i));
+      assertEquals(index.globalChecksum(i), read.globalChecksum(i));
+      assertEquals(index.crc32(i), read.crc32(i));
+      assertArrayEquals(index.sha1(i), read.sha1(i));
+    }
+  }
+
+  @Test
+  void testReadInvalidThrows() throws IOException {
+    final Path path = this.root.resolve("invalid.idx");
+    Files.write(path, new byte[16]);
+
+    assertThrows(IOException.class, () -> LibraryIndex.read(path));
+  }
+
+  @Test
+  void testRescanSkipsUnchangedFiles() throws IOException {
+    final var indexer = new LibraryIndexer(1);
+    final LibraryIndex index = indexer.scan(this.root);
+    final int crc32 = index.crc32(index.indexOf(this.gbaPath));
+
+    // Modify the contents, keeping the size and modification time
+    final FileTime lastModified = Files.getLastModifiedTime(this.gbaPath);
+    final byte[] data = Files.readAllBytes(this.gbaPath);
+    data[data.length - 1] ^= 1;
+    Files.write(this.gbaPath, data);
+    Files.setLastModifiedTime(this.gbaPath, lastModified);
+    Files.delete(this.gbPath);
+    // Turn the skipped readme into a cartridge, keeping the size and modification time
+    final Path readme = this.root.resolve("readme.txt");
+    final FileTime readmeModified = Files.getLastModifiedTime(readme);
+    Files.write(readme, Arrays.copyOf(data, (int) Files.size(readme)));
+    Files.setLastModifiedTime(readme, readmeModified);
+
+    final Path path = this.root.resolve("library.idx");
+    index.write(path);
+    final LibraryIndex unchanged = indexer.scan(this.root, LibraryIndex.read(path));
+    assertEquals(1, unchanged.size());
+    assertEquals(crc32, unchanged.crc32(unchanged.indexOf(this.gbaPath)));
+    assertEquals(-1, unchanged.indexOf(readme), "unchanged skipped files are not opened");
+
+    Files.setLastModifiedTime(this.gbaPath, FileTime.fromMillis(lastModified.toMillis() + 1000));
+    Files.setLastModifiedTime(readme, FileTime.fromMillis(readmeModified.toMillis() + 1000));
+    final LibraryIndex changed = indexer.scan(this.root, unchanged);
+    assertNotEquals(crc32, changed.crc32(changed.indexOf(this.gbaPath)));
+    assertEquals(CartridgeFormat.GBA, changed.format(changed.indexOf(readme)));
+  }
+
+  @Test
+  void testInvalidArgumentsThrow() {
+    assertThrows(IllegalArgumentException.class, () -> new LibraryIndexer(0));
+    assertThrows(IllegalArgumentException.class, () -> new LibraryIndexer(1, 0));
+  }
+}
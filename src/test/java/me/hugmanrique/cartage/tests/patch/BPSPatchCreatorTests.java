@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.tests.patch;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import me.hugmanrique.cartage.patch.BPSPatchCreator;
+import me.hugmanrique.cartage.patch.BPSPatcher;
+import me.hugmanrique.cartage.tests.DummyCartridge;
+import me.hugmanrique.cartage.tests.TestResources;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link BPSPatchCreator}.
+ */
+public class BPSPatchCreatorTests {
+
+  private static final BPSPatchCreator[] CREATORS = {BPSPatchCreator.fast(),
+      BPSPatchCreator.best()};
+
+  private static byte[] createAndApply(final BPSPatchCreator creator, final byte[] source,
+                                       final byte[] target) throws IOException {
+    final var patch = new ByteArrayOutputStream();
+    try (var sourceCartridge = DummyCartridge.fromData(source, ByteOrder.LITTLE_ENDIAN);
+         var targetCartridge = DummyCartridge.fromData(target, ByteOrder.LITTLE_ENDIAN)) {
+      creator.create(sourceCartridge, targetCartridge, patch);
+    }
+    try (var sourceCartridge = DummyCartridge.fromData(source, ByteOrder.LITTLE_ENDIAN);
+         var result = DummyCartridge.fromData(new byte[target.length], ByteOrder.LITTLE_ENDIAN)) {
+      BPSPatcher.get().apply(new ByteArrayInputStream(patch.toByteArray()), sourceCartridge,
+          result);
+      final byte[] actual = new byte[target.length];
+      result.getBytes(0, actual);
+      assertArrayEquals(target, actual);
+    }
+    return patch.toByteArray();
+  }
+
+  private static byte[] randomBytes(final int length) {
+    final byte[] data = new byte[length];
+    new Random(0xCA87).nextBytes(data);
+    return data;
+  }
+
+  @Test
+  void testIdentical() throws IOException {
+    final byte[] rom = TestResources.getResourceBytes("roms/jsmolka.gba");
+
+    for (BPSPatchCreator creator : CREATORS) {
+      final byte[] patch = createAndApply(creator, rom, rom);
+      assertTrue(patch.length < 32, "identical data is a single source read");
+    }
+  }
+
+  @Test
+  void testEmpty() throws IOException {
+    final byte[] rom = TestResources.getResourceBytes("roms/jsmolka.gba");
+
+    for (BPSPatchCreator creator : CREATORS) {
+      createAndApply(creator, new byte[0], rom);
+      createAndApply(creator, rom, new byte[0]);
+      createAndApply(creator, new byte[0], new byte[0]);
+    }
+  }
+
+  @Test
+  void testShiftedData() throws IOException {
+    final byte[] source = randomBytes(1 << 18);
+    final byte[] inserted = "inserted translation text".getBytes(StandardCharsets.US_ASCII);
+    final var target = new ByteArrayOutputStream();
+    target.write(source, 0, 0x1000);
+    target.write(inserted); // shifts the rest
+    target.write(source, 0x1000, 0x8000);
+    target.write(source, 0x10000, 0x20000); // deletes 0x7000 bytes
+    target.write(source, 0x200, 0x300); // moves data backwards
+    target.write(source, 0x30000, source.length - 0x30000);
+    final byte[] targetBytes = target.toByteArray();
+    targetBytes[0x20000] ^= 0x5A;
+
+    for (BPSPatchCreator creator : CREATORS) {
+      final byte[] patch = createAndApply(creator, source, targetBytes);
+      assertTrue(patch.length < 256, "patch length " + patch.length);
+    }
+  }
+
+  @Test
+  void testRepeatedTargetData() throws IOException {
+    final byte[] source = TestResources.getResourceBytes("roms/jsmolka.gba");
+    final byte[] target = Arrays.copyOf(source, 1 << 16);
+    Arrays.fill(target, source.length, target.length, (byte) 0xFF);
+
+    for (BPSPatchCreator creator : CREATORS) {
+      final byte[] patch = createAndApply(creator, source, target);
+      assertTrue(patch.length < 64, "padding is encoded as a target copy");
+    }
+  }
+
+  @Test
+  void testUnrelatedData() throws IOException {
+    final byte[] source = randomBytes(0x4000);
+    final byte[] target = TestResources.getResourceBytes("roms/jsmolka.gba");
+
+    for (BPSPatchCreator creator : CREATORS) {
+      createAndApply(creator, source, target);
+    }
+  }
+}
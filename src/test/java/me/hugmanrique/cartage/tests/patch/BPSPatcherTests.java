@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.tests.patch;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import me.hugmanrique.cartage.gba.GBACartridge;
+import me.hugmanrique.cartage.patch.BPSPatcher;
+import me.hugmanrique.cartage.patch.PatchException;
+import me.hugmanrique.cartage.tests.DummyCartridge;
+import me.hugmanrique.cartage.tests.TestResources;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests {@link BPSPatcher}.
+ */
+public class BPSPatcherTests {
+
+  private static final byte[] HELLO = "HELLO".getBytes(StandardCharsets.US_ASCII);
+
+  private final byte[] source;
+  private final byte[] target;
+  private final byte[] patch;
+
+  BPSPatcherTests() throws IOException {
+    this.source = TestResources.getResourceBytes("roms/jsmolka.gba");
+    final var target = new ByteArrayOutputStream();
+    final var writer = new PatchWriter()
+        .ascii("BPS1")
+        .number(this.source.length);
+    final var actions = new PatchWriter();
+
+    // SourceRead
+    actions.number((0x100 - 1) << 2);
+    target.write(this.source, 0, 0x100);
+    // TargetRead
+    actions.number(((HELLO.length - 1) << 2) | 1).write(HELLO, 0, HELLO.length);
+    target.write(HELLO, 0, HELLO.length);
+    // SourceCopy from 0x500, then from 0x480
+    actions.number(((50 - 1) << 2) | 2).number(0x500 << 1);
+    target.write(this.source, 0x500, 50);
+    actions.number(((20 - 1) << 2) | 2).number(((0x500 + 50 - 0x480) << 1) | 1);
+    target.write(this.source, 0x480, 20);
+    // TargetCopy with overlap, repeating the last 3 bytes
+    final int from = target.size() - 3;
+    actions.number(((40000 - 1) << 2) | 3).number(from << 1);
+    for (int i = 0; i < 40000; i++) {
+      target.write(target.toByteArray()[from + i]);
+    }
+    // TargetCopy without overlap
+    actions.number(((64 - 1) << 2) | 3).number(((from + 40000) << 1) | 1);
+    target.write(target.toByteArray(), 0, 64);
+
+    this.target = target.toByteArray();
+    final byte[] actionBytes = actions.toByteArray();
+    this.patch = writer.number(this.target.length)
+        .number(4).ascii("meta")
+        .write(actionBytes, 0, actionBytes.length)
+        .footer(this.source, this.target)
+        .toByteArray();
+  }
+
+  @Test
+  void testApply() throws IOException {
+    try (var sourceCartridge = DummyCartridge.fromData(this.source, ByteOrder.LITTLE_ENDIAN);
+         var targetCartridge = DummyCartridge.fromData(new byte[this.target.length],
+             ByteOrder.LITTLE_ENDIAN)) {
+      BPSPatcher.get().apply(new ByteArrayInputStream(this.patch),
+          sourceCartridge, targetCartridge);
+
+      final byte[] actual = new byte[this.target.length];
+      targetCartridge.getBytes(0, actual);
+      assertArrayEquals(this.target, actual);
+    }
+  }
+
+  @Test
+  void testApplyToMappedFile(@TempDir final Path dir) throws IOException {
+    final Path path = dir.resolve("target.gba");
+    Files.write(path, new byte[this.target.length]);
+
+    try (var sourceCartridge = DummyCartridge.fromData(this.source, ByteOrder.LITTLE_ENDIAN);
+         var targetCartridge = GBACartridge.map(path, FileChannel.MapMode.READ_WRITE)) {
+      BPSPatcher.get().apply(new ByteArrayInputStream(this.patch),
+          sourceCartridge, targetCartridge);
+    }
+    assertArrayEquals(this.target, Files.readAllBytes(path));
+  }
+
+  @Test
+  void testApplyInPlaceThrows() {
+    try (var cartridge = DummyCartridge.fromData(this.source, ByteOrder.LITTLE_ENDIAN)) {
+      assertThrows(UnsupportedOperationException.class, () -> BPSPatcher.get().apply(
+          new ByteArrayInputStream(this.patch), cartridge));
+      try (var duplicate = cartridge.duplicate()) {
+        assertThrows(UnsupportedOperationException.class, () -> BPSPatcher.get().apply(
+            new ByteArrayInputStream(this.patch), cartridge, duplicate));
+      }
+    }
+  }
+
+  @Test
+  void testWrongSourceThrows() {
+    final byte[] wrongSource = this.source.clone();
+    wrongSource[wrongSource.length - 1] ^= 1;
+    try (var sourceCartridge = DummyCartridge.fromData(wrongSource, ByteOrder.LITTLE_ENDIAN);
+         var targetCartridge = DummyCartridge.fromData(new byte[this.target.length],
+             ByteOrder.LITTLE_ENDIAN)) {
+      assertThrows(PatchException.class, () -> BPSPatcher.get().apply(
+          new ByteArrayInputStream(this.patch),
+          sourceCartridge, targetCartridge));
+    }
+  }
+
+  @Test
+  void testTruncatedPatchThrows() {
+    try (var sourceCartridge = DummyCartridge.fromData(this.source, ByteOrder.LITTLE_ENDIAN);
+         var targetCartridge = DummyCartridge.fromData(new byte[this.target.length],
+             ByteOrder.LITTLE_ENDIAN)) {
+      assertThrows(PatchException.class, () -> BPSPatcher.get().apply(
+          new PatchWriter().write(this.patch, 0, this.patch.length / 2).toStream(),
+          sourceCartridge, targetCartridge));
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.tests.patch;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import me.hugmanrique.cartage.gba.GBACartridge;
+import me.hugmanrique.cartage.patch.IPSPatcher;
+import me.hugmanrique.cartage.patch.PatchException;
+import me.hugmanrique.cartage.tests.DummyCartridge;
+import me.hugmanrique.cartage.tests.TestResources;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests {@link IPSPatcher}.
+ */
+public class IPSPatcherTests {
+
+  private static final byte[] DATA = "patched!".getBytes(StandardCharsets.US_ASCII);
+  private static final int RUN_LENGTH = 20000;
+
+  private static byte[] patch() {
+    return new PatchWriter()
+        .ascii("PATCH")
+        .bigEndian(0x10, 3).bigEndian(DATA.length, 2).write(DATA, 0, DATA.length)
+        .bigEndian(0x100, 3).bigEndian(0, 2).bigEndian(RUN_LENGTH, 2).write(0x7A)
+        .ascii("EOF")
+        .toByteArray();
+  }
+
+  private static byte[] expected(final byte[] source) {
+    final byte[] expected = source.clone();
+    System.arraycopy(DATA, 0, expected, 0x10, DATA.length);
+    Arrays.fill(expected, 0x100, 0x100 + RUN_LENGTH, (byte) 0x7A);
+    return expected;
+  }
+
+  private static byte[] source() {
+    final byte[] source = new byte[0x8000];
+    for (int i = 0; i < source.length; i++) {
+      source[i] = (byte) (i * 7);
+    }
+    return source;
+  }
+
+  @Test
+  void testApply() throws IOException {
+    final byte[] source = source();
+    try (var sourceCartridge = DummyCartridge.fromData(source, ByteOrder.LITTLE_ENDIAN);
+         var target = DummyCartridge.fromData(new byte[source.length], ByteOrder.LITTLE_ENDIAN)) {
+      IPSPatcher.get().apply(new ByteArrayInputStream(patch()),
+          sourceCartridge, target);
+
+      final byte[] actual = new byte[source.length];
+      target.getBytes(0, actual);
+      assertArrayEquals(expected(source), actual);
+    }
+  }
+
+  @Test
+  void testApplyInPlaceToMappedFile(@TempDir final Path dir) throws IOException {
+    final byte[] source = TestResources.getResourceBytes("roms/jsmolka.gba");
+    final Path path = dir.resolve("patched.gba");
+    Files.write(path, source);
+    final byte[] patch = new PatchWriter()
+        .ascii("PATCH")
+        .bigEndian(0x200, 3).bigEndian(DATA.length, 2).write(DATA, 0, DATA.length)
+        .ascii("EOF")
+        .toByteArray();
+
+    try (var cartridge = GBACartridge.map(path, FileChannel.MapMode.READ_WRITE)) {
+      IPSPatcher.get().apply(new ByteArrayInputStream(patch),
+          cartridge);
+    }
+    final byte[] expected = source.clone();
+    System.arraycopy(DATA, 0, expected, 0x200, DATA.length);
+    assertArrayEquals(expected, Files.readAllBytes(path));
+  }
+
+  @Test
+  void testOutOfBoundsRecordThrows() {
+    final byte[] patch = new PatchWriter()
+        .ascii("PATCH")
+        .bigEndian(0xFFFF, 3).bigEndian(4, 2).bigEndian(0, 4)
+        .ascii("EOF")
+        .toByteArray();
+    try (var cartridge = DummyCartridge.fromData(new byte[16], ByteOrder.LITTLE_ENDIAN)) {
+      assertThrows(PatchException.class, () -> IPSPatcher.get().apply(
+          new ByteArrayInputStream(patch), cartridge));
+    }
+  }
+
+  @Test
+  void testInvalidMagicThrows() {
+    try (var cartridge = DummyCartridge.fromData(new byte[16], ByteOrder.LITTLE_ENDIAN)) {
+      assertThrows(PatchException.class, () -> IPSPatcher.get().apply(
+          new PatchWriter().ascii("PAT").toStream(), cartridge));
+      assertThrows(PatchException.class, () -> IPSPatcher.get().apply(
+          new PatchWriter().ascii("UPS1xxxx").toStream(), cartridge));
+    }
+  }
+}
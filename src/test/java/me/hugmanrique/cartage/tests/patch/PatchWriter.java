@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.tests.patch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Writes patches in the encodings shared by the IPS, UPS and BPS formats.
+ */
+public final class PatchWriter {
+
+  private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+  /**
+   * Computes the CRC32 of the given data.
+   *
+   * @param data the data
+   * @return the CRC32 value
+   */
+  public static int crc32(final byte[] data) {
+    final var crc = new CRC32();
+    crc.update(data);
+    return (int) crc.getValue();
+  }
+
+  /**
+   * Writes an ASCII string.
+   *
+   * @param value the string
+   * @return this writer
+   */
+  public PatchWriter ascii(final String value) {
+    this.output.writeBytes(value.getBytes(StandardCharsets.US_ASCII));
+    return this;
+  }
+
+  /**
+   * Writes a byte.
+   *
+   * @param value the byte value
+   * @return this writer
+   */
+  public PatchWriter write(final int value) {
+    this.output.write(value);
+    return this;
+  }
+
+  /**
+   * Writes a range of bytes.
+   *
+   * @param data the source array
+   * @param offset the offset of the first byte
+   * @param length the number of bytes
+   * @return this writer
+   */
+  public PatchWriter write(final byte[] data, final int offset, final int length) {
+    this.output.write(data, offset, length);
+    return this;
+  }
+
+  /**
+   * Writes a big-endian integer of the given length.
+   *
+   * @param value the integer value
+   * @param length the number of bytes
+   * @return this writer
+   */
+  public PatchWriter bigEndian(final int value, final int length) {
+    for (int i = length - 1; i >= 0; i--) {
+      this.output.write(value >>> (i * 8));
+    }
+    return this;
+  }
+
+  /**
+   * Writes a little-endian 32-bit integer.
+   *
+   * @param value the integer value
+   * @return this writer
+   */
+  public PatchWriter intLE(final int value) {
+    return this.bigEndian(Integer.reverseBytes(value), Integer.BYTES);
+  }
+
+  /**
+   * Writes a UPS/BPS variable-length number.
+   *
+   * @param value the number
+   * @return this writer
+   */
+  public PatchWriter number(final long value) {
+    long data = value;
+    while (true) {
+      final int x = (int) (data & 0x7F);
+      data >>>= 7;
+      if (data == 0) {
+        this.output.write(0x80 | x);
+        return this;
+      }
+      this.output.write(x);
+      data--;
+    }
+  }
+
+  /**
+   * Writes the UPS/BPS footer, which contains the CRC32 of the source, target and patch data.
+   *
+   * @param source the source data
+   * @param target the target data
+   * @return this writer
+   */
+  public PatchWriter footer(final byte[] source, final byte[] target) {
+    this.intLE(crc32(source)).intLE(crc32(target));
+    return this.intLE(crc32(this.output.toByteArray()));
+  }
+
+  /**
+   * Returns the written bytes.
+   *
+   * @return a copy of the written bytes
+   */
+  public byte[] toByteArray() {
+    return this.output.toByteArray();
+  }
+
+  /**
+   * Returns a stream that reads the written bytes.
+   *
+   * @return the input stream
+   */
+  public InputStream toStream() {
+    return new ByteArrayInputStream(this.toByteArray());
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.tests.patch;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import me.hugmanrique.cartage.patch.UPSPatchCreator;
+import me.hugmanrique.cartage.patch.UPSPatcher;
+import me.hugmanrique.cartage.tests.DummyCartridge;
+import me.hugmanrique.cartage.tests.TestResources;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link UPSPatchCreator}.
+ */
+public class UPSPatchCreatorTests {
+
+  private static byte[] create(final byte[] source, final byte[] target) throws IOException {
+    final var patch = new ByteArrayOutputStream();
+    try (var sourceCartridge = DummyCartridge.fromData(source, ByteOrder.LITTLE_ENDIAN);
+         var targetCartridge = DummyCartridge.fromData(target, ByteOrder.LITTLE_ENDIAN)) {
+      UPSPatchCreator.get().create(sourceCartridge, targetCartridge, patch);
+    }
+    return patch.toByteArray();
+  }
+
+  private static void assertRoundTrip(final byte[] source, final byte[] target)
+      throws IOException {
+    final byte[] patch = create(source, target);
+    try (var sourceCartridge = DummyCartridge.fromData(source, ByteOrder.LITTLE_ENDIAN);
+         var result = DummyCartridge.fromData(new byte[target.length], ByteOrder.LITTLE_ENDIAN)) {
+      UPSPatcher.get().apply(new ByteArrayInputStream(patch), sourceCartridge, result);
+      final byte[] actual = new byte[target.length];
+      result.getBytes(0, actual);
+      assertArrayEquals(target, actual);
+    }
+  }
+
+  @Test
+  void testMatchesReferenceEncoder() throws IOException {
+    final byte[] source = TestResources.getResourceBytes("roms/jsmolka.gba");
+    final byte[] target = source.clone();
+    Arrays.fill(target, 0x100, 0x180, (byte) 0x42);
+    target[0x200] ^= 1;
+
+    assertArrayEquals(UPSPatcherTests.createPatch(source, target), create(source, target));
+  }
+
+  @Test
+  void testRoundTrip() throws IOException {
+    final byte[] source = TestResources.getResourceBytes("roms/jsmolka.gba");
+    final byte[] target = Arrays.copyOf(source, 0x8000); // grows past the source size
+    Arrays.fill(target, source.length - 16, target.length, (byte) 0xFF);
+    target[0] ^= 0x7F;
+
+    assertRoundTrip(source, target);
+    assertRoundTrip(target, source);
+    assertRoundTrip(source, new byte[0]);
+  }
+
+  @Test
+  void testReversible() throws IOException {
+    final byte[] source = TestResources.getResourceBytes("roms/jsmolka.gba");
+    final byte[] target = Arrays.copyOf(source, source.length / 2); // shrinks the source
+    target[0x10] ^= 0x55;
+
+    // The hunks of both patches only differ in the header and footer
+    final int header = new PatchWriter()
+        .ascii("UPS1")
+        .number(source.length)
+        .number(target.length)
+        .toByteArray().length;
+    final byte[] forward = create(source, target);
+    final byte[] backward = create(target, source);
+    assertArrayEquals(
+        Arrays.copyOfRange(forward, header, forward.length - 12),
+        Arrays.copyOfRange(backward, header, backward.length - 12));
+    assertRoundTrip(source, target);
+    assertRoundTrip(target, source);
+  }
+}
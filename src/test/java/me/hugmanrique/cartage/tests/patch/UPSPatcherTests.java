@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.tests.patch;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import me.hugmanrique.cartage.patch.PatchException;
+import me.hugmanrique.cartage.patch.UPSPatcher;
+import me.hugmanrique.cartage.tests.DummyCartridge;
+import me.hugmanrique.cartage.tests.TestResources;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link UPSPatcher}.
+ */
+public class UPSPatcherTests {
+
+  private static int xorAt(final byte[] source, final byte[] target, final int index) {
+    return ((index < source.length ? source[index] : 0)
+        ^ (index < target.length ? target[index] : 0)) & 0xFF;
+  }
+
+  static byte[] createPatch(final byte[] source, final byte[] target) {
+    final var writer = new PatchWriter()
+        .ascii("UPS1")
+        .number(source.length)
+        .number(target.length);
+    final int length = Math.max(source.length, target.length);
+    int last = 0;
+    for (int i = 0; i < length; ) {
+      if (xorAt(source, target, i) == 0) {
+        i++;
+        continue;
+      }
+      writer.number(i - last);
+      while (i < length && xorAt(source, target, i) != 0) {
+        writer.write(xorAt(source, target, i++));
+      }
+      writer.write(0);
+      last = ++i;
+    }
+    return writer.footer(source, target).toByteArray();
+  }
+
+  private static byte[] modify(final byte[] source) {
+    final byte[] target = Arrays.copyOf(source, source.length + 0x40);
+    for (int i = 0x20; i < 0x30; i++) {
+      target[i] ^= 0x5A;
+    }
+    Arrays.fill(target, 0x100, 0x900, (byte) 0xFF);
+    target[target.length - 1] = 1;
+    return target;
+  }
+
+  @Test
+  void testApply() throws IOException {
+    final byte[] source = TestResources.getResourceBytes("roms/jsmolka.gba");
+    final byte[] target = modify(source);
+    final byte[] patch = createPatch(source, target);
+
+    try (var sourceCartridge = DummyCartridge.fromData(source, ByteOrder.LITTLE_ENDIAN);
+         var targetCartridge = DummyCartridge.fromData(new byte[target.length],
+             ByteOrder.LITTLE_ENDIAN)) {
+      UPSPatcher.get().apply(new ByteArrayInputStream(patch),
+          sourceCartridge, targetCartridge);
+
+      final byte[] actual = new byte[target.length];
+      targetCartridge.getBytes(0, actual);
+      assertArrayEquals(target, actual);
+    }
+  }
+
+  @Test
+  void testApplyInPlace() throws IOException {
+    final byte[] source = TestResources.getResourceBytes("roms/jsmolka.gba");
+    final byte[] target = modify(source);
+    final byte[] patch = createPatch(source, target);
+    final byte[] data = Arrays.copyOf(source, target.length);
+    data[data.length - 2] = 0x33; // garbage past the source data
+
+    try (var cartridge = DummyCartridge.fromData(data, ByteOrder.LITTLE_ENDIAN)) {
+      UPSPatcher.get().apply(new ByteArrayInputStream(patch),
+          cartridge);
+
+      final byte[] actual = new byte[target.length];
+      cartridge.getBytes(0, actual);
+      assertArrayEquals(target, actual);
+    }
+  }
+
+  @Test
+  void testShorterTargetChecksWholeSource() throws IOException {
+    final byte[] source = TestResources.getResourceBytes("roms/jsmolka.gba");
+    final byte[] target = Arrays.copyOf(source, source.length / 2);
+    target[0x20] ^= 0x5A;
+    final byte[] patch = createPatch(source, target);
+
+    try (var cartridge = DummyCartridge.fromData(source.clone(), ByteOrder.LITTLE_ENDIAN)) {
+      UPSPatcher.get().apply(new ByteArrayInputStream(patch), cartridge);
+
+      final byte[] actual = new byte[target.length];
+      cartridge.getBytes(0, actual);
+      assertArrayEquals(target, actual);
+    }
+    source[source.length - 1] ^= 1; // past the end of the target, so never read while patching
+    try (var cartridge = DummyCartridge.fromData(source, ByteOrder.LITTLE_ENDIAN)) {
+      assertThrows(PatchException.class, () -> UPSPatcher.get().apply(
+          new ByteArrayInputStream(patch), cartridge));
+    }
+  }
+
+  @Test
+  void testWrongSourceThrows() throws IOException {
+    final byte[] source = TestResources.getResourceBytes("roms/jsmolka.gba");
+    final byte[] patch = createPatch(source, modify(source));
+    source[0] ^= 1;
+
+    try (var cartridge = DummyCartridge.fromData(Arrays.copyOf(source, source.length + 0x40),
+        ByteOrder.LITTLE_ENDIAN)) {
+      assertThrows(PatchException.class, () -> UPSPatcher.get().apply(
+          new ByteArrayInputStream(patch), cartridge));
+    }
+  }
+
+  @Test
+  void testCorruptedPatchThrows() throws IOException {
+    final byte[] source = TestResources.getResourceBytes("roms/jsmolka.gba");
+    final byte[] patch = createPatch(source, modify(source));
+    patch[patch.length - 14] ^= 1; // last XOR byte of the final hunk
+
+    try (var cartridge = DummyCartridge.fromData(Arrays.copyOf(source, source.length + 0x40),
+        ByteOrder.LITTLE_ENDIAN)) {
+      assertThrows(PatchException.class, () -> UPSPatcher.get().apply(
+          new ByteArrayInputStream(patch), cartridge));
+    }
+  }
+
+  @Test
+  void testTargetTooSmallThrows() throws IOException {
+    final byte[] source = TestResources.getResourceBytes("roms/jsmolka.gba");
+    final byte[] patch = createPatch(source, modify(source));
+
+    try (var cartridge = DummyCartridge.fromData(source, ByteOrder.LITTLE_ENDIAN)) {
+      assertThrows(PatchException.class, () -> UPSPatcher.get().apply(
+          new ByteArrayInputStream(patch), cartridge));
+    }
+  }
+}
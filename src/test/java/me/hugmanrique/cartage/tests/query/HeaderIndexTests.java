@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.tests.query;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.stream.IntStream;
+import me.hugmanrique.cartage.gb.GBCartridge;
+import me.hugmanrique.cartage.gba.GBACartridge;
+import me.hugmanrique.cartage.query.GBAHeaderIndex;
+import me.hugmanrique.cartage.query.GBHeaderIndex;
+import me.hugmanrique.cartage.tests.TestResources;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link GBHeaderIndex} and {@link GBAHeaderIndex}.
+ */
+public class HeaderIndexTests {
+
+  private static final int ROWS = 1000;
+
+  @Test
+  void testGBAQuery() throws IOException {
+    final GBACartridge.Type[] types = GBACartridge.Type.values();
+    final GBACartridge.Destination[] destinations = GBACartridge.Destination.values();
+    final var builder = GBAHeaderIndex.builder();
+    try (var cartridge = GBACartridge.read(TestResources.getResourceStream("roms/jsmolka.gba"))) {
+      final var header = cartridge.header();
+      for (int i = 0; i < ROWS; i++) {
+        header.setType(types[i % types.length]);
+        header.setDestination(destinations[i % destinations.length]);
+        header.setVersion((byte) i);
+        header.setChecksum();
+        if (i % 3 == 0) {
+          header.setChecksum((byte) (header.checksum() + 1));
+        }
+        assertEquals(i, builder.add(header));
+      }
+    }
+    final GBAHeaderIndex index = builder.build();
+    assertEquals(ROWS, index.size());
+
+    final int[] expected = IntStream.range(0, ROWS)
+        .filter(i -> types[i % types.length] == GBACartridge.Type.RUMBLE)
+        .filter(i -> destinations[i % destinations.length] == GBACartridge.Destination.EUROPE)
+        .filter(i -> i % 3 == 0)
+        .toArray();
+    final var query = index.query()
+        .type(GBACartridge.Type.RUMBLE)
+        .destination(GBACartridge.Destination.EUROPE)
+        .validChecksum(false);
+    assertArrayEquals(expected, query.stream().toArray());
+    assertEquals(expected.length, query.count());
+
+    assertEquals(4, index.query().version(0x10, 0x10).count());
+    assertEquals(ROWS, index.query().validLogo(true).count());
+    assertEquals(0, index.query().version(5, 4).count());
+    assertThrows(IllegalStateException.class, builder::build);
+  }
+
+  @Test
+  void testGBQuery() throws IOException {
+    final GBCartridge.Type[] types = GBCartridge.Type.values();
+    final var builder = GBHeaderIndex.builder();
+    try (var cartridge = GBCartridge.read(TestResources.getResourceStream("roms/AntonioND.gbc"))) {
+      final var header = cartridge.header();
+      for (int i = 0; i < ROWS; i++) {
+        header.setType(types[i % types.length]);
+        header.setRamSize((byte) (i % 6));
+        header.setDestination((i & 1) == 0);
+        header.setNewLicensee((short) (i % 10));
+        header.setChecksum();
+        builder.add(header);
+      }
+    }
+    final GBHeaderIndex index = builder.build();
+
+    final int[] expected = IntStream.range(0, ROWS)
+        .filter(i -> types[i % types.length].name().startsWith("MBC5"))
+        .filter(i -> i % 6 != 0)
+        .toArray();
+    final var query = index.query()
+        .type(type -> type.name().startsWith("MBC5"))
+        .ramSize(1, Integer.MAX_VALUE)
+        .validChecksum(true);
+    assertArrayEquals(expected, query.stream().toArray());
+
+    assertEquals(ROWS / 2, index.query().japaneseDistribution(false).count());
+    assertEquals(ROWS / 10, index.query().licensee((short) 7).count());
+    assertEquals(ROWS / 6 + 1, index.query().ramSize(0, 0).count());
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.tests.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import me.hugmanrique.cartage.search.BytePattern;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link BytePattern}.
+ */
+public class BytePatternTests {
+
+  @Test
+  void testParse() {
+    final var pattern = BytePattern.parse("4E 49?? ?f");
+
+    assertEquals(4, pattern.length());
+    assertEquals((byte) 0x49, pattern.value(1));
+    assertEquals(0, pattern.mask(2));
+    assertEquals((byte) 0x0F, pattern.value(3));
+    assertEquals((byte) 0x0F, pattern.mask(3));
+    assertEquals("BytePattern{pattern=4E 49 ?? ?F}", pattern.toString());
+  }
+
+  @Test
+  void testEquality() {
+    assertEquals(BytePattern.ofAscii("NI"), BytePattern.parse("4E49"));
+    assertEquals(BytePattern.of(new byte[] {0x12, 0x34}, new byte[] {(byte) 0xF0, 0}),
+        BytePattern.parse("1? ??"));
+  }
+
+  @Test
+  void testInvalidPatternsThrow() {
+    assertThrows(IllegalArgumentException.class, () -> BytePattern.parse("4E4"));
+    assertThrows(IllegalArgumentException.class, () -> BytePattern.parse("4G"));
+    assertThrows(IllegalArgumentException.class, () -> BytePattern.parse(" "));
+    assertThrows(IllegalArgumentException.class, () -> BytePattern.of(new byte[1], new byte[2]));
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2021 Hugo Manrique.
+ *
+ * This work is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package me.hugmanrique.cartage.tests.search;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.LongStream;
+import me.hugmanrique.cartage.search.AhoCorasickSearcher;
+import me.hugmanrique.cartage.search.BytePattern;
+import me.hugmanrique.cartage.search.HorspoolSearcher;
+import me.hugmanrique.cartage.tests.DummyCartridge;
+import me.hugmanrique.cartage.tests.TestResources;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link HorspoolSearcher} and {@link AhoCorasickSearcher}.
+ */
+public class SearcherTests {
+
+  private static final List<BytePattern> PATTERNS = List.of(
+      BytePattern.ofAscii("SRAM_V"),
+      BytePattern.ofAscii("EEPROM_V"),
+      BytePattern.ofAscii("FLASH1M_V"),
+      BytePattern.ofAscii("FLASH"),
+      BytePattern.parse("00 00 A0 E3 ?? ?? ?? EA"),
+      BytePattern.parse("?? 4? 53 48 ?? ??"),
+      BytePattern.parse("AA AA"));
+
+  private final byte[] data;
+
+  SearcherTests() {
+    this.data = new byte[(1 << 22) + 123];
+    final var random = new Random(0x5EA4C4);
+    for (int i = 0; i < this.data.length; i++) {
+      this.data[i] = (byte) random.nextInt(16); // make short matches likely
+    }
+    final byte[][] signatures = {"SRAM_V113".getBytes(StandardCharsets.US_ASCII),
+        "FLASH1M_V103".getBytes(StandardCharsets.US_ASCII),
+        "EEPROM_V124".getBytes(StandardCharsets.US_ASCII),
+        {0, 0, (byte) 0xA0, (byte) 0xE3, 1, 2, 3, (byte) 0xEA},
+        {(byte) 0xAA, (byte) 0xAA, (byte) 0xAA}};
+    for (int i = 0; i < 400; i++) {
+      final byte[] signature = signatures[i % signatures.length];
+      final int offset = random.nextInt(this.data.length - signature.length + 1);
+      System.arraycopy(signature, 0, this.data, offset, signature.length);
+    }
+    // Matches at both ends
+    System.arraycopy(signatures[0], 0, this.data, 0, 6);
+    System.arraycopy(signatures[2], 0, this.data, this.data.length - 8, 8);
+  }
+
+  private static long[] naiveSearch(final byte[] data, final BytePattern pattern) {
+    final var offsets = LongStream.builder();
+    for (int offset = 0; offset <= data.length - pattern.length(); offset++) {
+      boolean matches = true;
+      for (int i = 0; i < pattern.length() && matches; i++) {
+        matches = (data[offset + i] & pattern.mask(i)) == pattern.value(i);
+      }
+      if (matches) {
+        offsets.add(offset);
+      }
+    }
+    return offsets.build().toArray();
+  }
+
+  @Test
+  void testHorspool() {
+    try (var cartridge = DummyCartridge.fromData(this.data, ByteOrder.LITTLE_ENDIAN)) {
+      for (BytePattern pattern : PATTERNS) {
+        final long[] expected = naiveSearch(this.data, pattern);
+
+        assertArrayEquals(expected, new HorspoolSearcher(pattern).search(cartridge).toArray(),
+            pattern.toString());
+        assertArrayEquals(expected, cartridge.search(pattern).toArray());
+      }
+      assertEquals(0, cartridge.offset());
+    }
+  }
+
+  @Test
+  void testAhoCorasick() {
+    final var searcher = new AhoCorasickSearcher(PATTERNS);
+    try (var cartridge = DummyCartridge.fromData(this.data, ByteOrder.LITTLE_ENDIAN)) {
+      final long[][] offsets = searcher.search(cartridge);
+
+      assertEquals(PATTERNS.size(), offsets.length);
+      for (int i = 0; i < offsets.length; i++) {
+        assertArrayEquals(naiveSearch(this.data, PATTERNS.get(i)), offsets[i],
+            PATTERNS.get(i).toString());
+      }
+    }
+  }
+
+  @Test
+  void testParallel() {
+    final var searcher = new AhoCorasickSearcher(PATTERNS);
+    try (var cartridge = DummyCartridge.fromData(this.data, ByteOrder.LITTLE_ENDIAN)) {
+      cartridge.share();
+      final long[][] offsets = searcher.search(cartridge, true);
+
+      for (int i = 0; i < offsets.length; i++) {
+        final long[] expected = naiveSearch(this.data, PATTERNS.get(i));
+        assertArrayEquals(expected, offsets[i]);
+        assertArrayEquals(expected,
+            new HorspoolSearcher(PATTERNS.get(i)).search(cartridge, true).toArray());
+      }
+    }
+  }
+
+  @Test
+  void testRom() throws IOException {
+    final byte[] rom = TestResources.getResourceBytes("roms/jsmolka.gba");
+    final var logoStart = BytePattern.parse("24 FF AE 51 69 9A A2 21");
+    try (var cartridge = DummyCartridge.fromData(rom, ByteOrder.LITTLE_ENDIAN)) {
+      assertArrayEquals(new long[] {0x04}, cartridge.search(logoStart).toArray());
+      assertArrayEquals(new long[][] {{0x04}, {}},
+          new AhoCorasickSearcher(logoStart, BytePattern.ofAscii("EEPROM_V")).search(cartridge));
+    }
+  }
+
+  @Test
+  void testPatternLongerThanCartridge() {
+    final var pattern = BytePattern.ofAscii("SRAM_V");
+    try (var cartridge = DummyCartridge.fromData(new byte[3], ByteOrder.LITTLE_ENDIAN)) {
+      assertEquals(0, cartridge.search(pattern).count());
+      assertEquals(0, new AhoCorasickSearcher(pattern).search(cartridge)[0].length);
+    }
+  }
+
+  @Test
+  void testWildcardOnlyPatternThrows() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new AhoCorasickSearcher(BytePattern.parse("?? 1?")));
+  }
+}